@@ -0,0 +1,112 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import org.openjdk.jmh.annotations.*;
+import org.protege.owlapi.inference.cls.ChildClassExtractor;
+import org.protege.owlapi.inference.cls.ParentClassExtractor;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of looking up the parents and children of classes in a class hierarchy that is a tree with
+ * a branching factor of ten.  The {@code extract} benchmarks measure the previous approach, which extracted the
+ * parents or children from the referencing axioms of a class for each lookup, rather than reading them from the
+ * {@link HierarchyAdjacencyCache}.  The {@code addAndRemoveSubClassAxiom} benchmark measures the cost of keeping
+ * the caches up to date when the hierarchy is edited.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ClassHierarchyProviderBenchmark {
+
+    private static final int BRANCHING_FACTOR = 10;
+
+    @Param({"10000", "100000"})
+    private int classCount;
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private ClassHierarchyProvider provider;
+
+    private List<OWLClass> classes;
+
+    private OWLSubClassOfAxiom extraAxiom;
+
+    private final Random random = new Random(1);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        classes = new ArrayList<>(classCount);
+        Set<OWLAxiom> axioms = new HashSet<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            OWLClass cls = dataFactory.getOWLClass(IRI.create("http://stuff.com/C" + i));
+            classes.add(cls);
+            if (i > 0) {
+                axioms.add(dataFactory.getOWLSubClassOfAxiom(cls, classes.get((i - 1) / BRANCHING_FACTOR)));
+            }
+        }
+        manager.addAxioms(ontology, axioms);
+        provider = new ClassHierarchyProvider(ontology, dataFactory.getOWLThing());
+        extraAxiom = dataFactory.getOWLSubClassOfAxiom(classes.get(classCount - 1), classes.get(1));
+    }
+
+    private OWLClass getRandomClass() {
+        return classes.get(random.nextInt(classCount));
+    }
+
+    @Benchmark
+    public Set<OWLClass> getParents() {
+        return provider.getParents(getRandomClass());
+    }
+
+    @Benchmark
+    public Set<OWLClass> getChildren() {
+        return provider.getChildren(getRandomClass());
+    }
+
+    @Benchmark
+    public Set<OWLClass> extractParents() {
+        OWLClass cls = getRandomClass();
+        ParentClassExtractor extractor = new ParentClassExtractor();
+        extractor.setCurrentClass(cls);
+        for (OWLAxiom ax : ontology.getAxioms(cls, Imports.EXCLUDED)) {
+            ax.accept(extractor);
+        }
+        return extractor.getResult();
+    }
+
+    @Benchmark
+    public Set<OWLClass> extractChildren() {
+        OWLClass parent = getRandomClass();
+        ChildClassExtractor extractor = new ChildClassExtractor();
+        extractor.setCurrentParentClass(parent);
+        for (OWLAxiom ax : ontology.getReferencingAxioms(parent)) {
+            if (ax.isLogicalAxiom()) {
+                ax.accept(extractor);
+            }
+        }
+        return extractor.getResult();
+    }
+
+    @Benchmark
+    public Set<OWLClass> addAndRemoveSubClassAxiom() {
+        applyChange(new AddAxiom(ontology, extraAxiom));
+        applyChange(new RemoveAxiom(ontology, extraAxiom));
+        return provider.getChildren(classes.get(1));
+    }
+
+    private void applyChange(OWLAxiomChange change) {
+        manager.applyChange(change);
+        provider.handleChanges(Collections.singletonList(change));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.stanford.bmir.protege.web.server.renderer;
+
+import edu.stanford.bmir.protege.web.server.mansyntax.render.*;
+import org.openjdk.jmh.annotations.*;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.SimpleShortFormProvider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of getting the HTML rendering of an axiom from a {@link RenderingCache} that holds the
+ * renderings of a given number of axioms, compared with rendering the axiom each time, which is what
+ * {@link RenderingManager} did before renderings were cached.  The {@code invalidateAndRender} benchmark
+ * measures the cost of evicting the renderings that depend on an entity whose short form has changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class RenderingCacheBenchmark {
+
+    @Param({"1000", "20000"})
+    private int axiomCount;
+
+    private RenderingCache renderingCache;
+
+    private ManchesterSyntaxObjectRenderer renderer;
+
+    private List<OWLAxiom> axioms;
+
+    private final HighlightedEntityChecker highlightedEntityChecker = entity -> false;
+
+    private final DeprecatedEntityChecker deprecatedEntityChecker = entity -> false;
+
+    private final Random random = new Random(1);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        OWLObjectProperty property = dataFactory.getOWLObjectProperty(IRI.create("http://stuff.com/partOf"));
+        axioms = new ArrayList<>(axiomCount);
+        for (int i = 0; i < axiomCount; i++) {
+            OWLClass cls = dataFactory.getOWLClass(IRI.create("http://stuff.com/C" + i));
+            OWLClass filler = dataFactory.getOWLClass(IRI.create("http://stuff.com/C" + (i + 1)));
+            OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(cls,
+                                                                dataFactory.getOWLObjectSomeValuesFrom(property, filler));
+            axioms.add(axiom);
+            manager.addAxiom(ontology, axiom);
+        }
+        renderer = new ManchesterSyntaxObjectRenderer(new SimpleShortFormProvider(),
+                                                      new EntityIRICheckerImpl(ontology),
+                                                      LiteralStyle.BRACKETED,
+                                                      new DefaultHttpLinkRenderer(),
+                                                      new MarkdownLiteralRenderer());
+        renderingCache = new RenderingCache();
+        axioms.forEach(this::renderCached);
+    }
+
+    private OWLAxiom getRandomAxiom() {
+        return axioms.get(random.nextInt(axiomCount));
+    }
+
+    private String renderCached(OWLAxiom axiom) {
+        return renderingCache.get(axiom,
+                                  LiteralStyle.BRACKETED,
+                                  Collections.emptySet(),
+                                  () -> render(axiom));
+    }
+
+    private String render(OWLAxiom axiom) {
+        return renderer.render(axiom, highlightedEntityChecker, deprecatedEntityChecker);
+    }
+
+    @Benchmark
+    public String renderUncached() {
+        return render(getRandomAxiom());
+    }
+
+    @Benchmark
+    public String renderFromCache() {
+        return renderCached(getRandomAxiom());
+    }
+
+    @Benchmark
+    public String invalidateAndRender() {
+        // The class Ci appears in axioms i - 1 and i, so both are evicted and then rendered again
+        int i = 1 + random.nextInt(axiomCount - 1);
+        renderingCache.invalidate(Collections.singleton(IRI.create("http://stuff.com/C" + i)));
+        renderCached(axioms.get(i - 1));
+        return renderCached(axioms.get(i));
+    }
+}
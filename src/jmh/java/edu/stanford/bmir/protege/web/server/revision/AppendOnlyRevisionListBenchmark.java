@@ -0,0 +1,66 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of adding a revision to a history of a given length and taking a snapshot of the history
+ * for readers, which is what {@link RevisionStoreImpl#addRevision(Revision)} does for each commit.  The
+ * {@code copyHistory} benchmark measures the previous approach, which copied the whole history into a new
+ * {@link ImmutableList} for each commit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class AppendOnlyRevisionListBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int historySize;
+
+    private AppendOnlyRevisionList revisionList;
+
+    private ImmutableList<Revision> revisions;
+
+    private Revision nextRevision;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        UserId userId = UserId.getUserId("Benchmark");
+        ImmutableList.Builder<Revision> builder = ImmutableList.builder();
+        for (int i = 1; i <= historySize; i++) {
+            builder.add(createRevision(userId, i));
+        }
+        revisions = builder.build();
+        revisionList = new AppendOnlyRevisionList(revisions);
+        nextRevision = createRevision(userId, historySize + 1);
+    }
+
+    private static Revision createRevision(UserId userId, long revisionNumber) {
+        return new Revision(userId,
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            ImmutableList.of(),
+                            revisionNumber,
+                            "Revision " + revisionNumber);
+    }
+
+    @Benchmark
+    public List<Revision> appendAndSnapshot() {
+        revisionList.add(nextRevision);
+        return revisionList.snapshot();
+    }
+
+    @Benchmark
+    public List<Revision> copyHistory() {
+        return ImmutableList.<Revision>builder()
+                .addAll(revisions)
+                .add(nextRevision)
+                .build();
+    }
+}
@@ -16,4 +16,8 @@ public interface ChangeListView extends IsWidget {
     void clear();
 
     void setDetailsVisible(boolean showDetails);
+
+    void setLoadMoreChangesVisible(boolean visible);
+
+    void setLoadMoreChangesHandler(LoadMoreChangesHandler handler);
 }
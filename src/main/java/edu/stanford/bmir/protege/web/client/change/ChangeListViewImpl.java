@@ -1,14 +1,19 @@
 package edu.stanford.bmir.protege.web.client.change;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
+import com.google.gwt.uibinder.client.UiHandler;
+import com.google.gwt.user.client.ui.Button;
 import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HTMLPanel;
 import com.google.gwt.user.client.ui.Widget;
 
 import javax.inject.Inject;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
@@ -29,8 +34,18 @@ public class ChangeListViewImpl extends Composite implements ChangeListView {
     @UiField
     protected HTMLPanel rootElement;
 
+    @UiField
+    protected Button loadMoreChangesButton;
+
     private boolean detailsVisible = true;
 
+    private LoadMoreChangesHandler loadMoreChangesHandler = () -> {};
+
+    @UiHandler("loadMoreChangesButton")
+    protected void handleLoadMoreChanges(ClickEvent event) {
+        loadMoreChangesHandler.handleLoadMoreChanges();
+    }
+
     @Override
     public void addChangeDetailsView(ChangeDetailsView view) {
         view.setDetailsVisible(detailsVisible);
@@ -47,6 +62,17 @@ public class ChangeListViewImpl extends Composite implements ChangeListView {
     @Override
     public void clear() {
         rootElement.clear();
+        loadMoreChangesButton.setVisible(false);
+    }
+
+    @Override
+    public void setLoadMoreChangesVisible(boolean visible) {
+        loadMoreChangesButton.setVisible(visible);
+    }
+
+    @Override
+    public void setLoadMoreChangesHandler(LoadMoreChangesHandler handler) {
+        this.loadMoreChangesHandler = checkNotNull(handler);
     }
 
     @Override
@@ -17,6 +17,7 @@ import edu.stanford.bmir.protege.web.shared.change.*;
 import edu.stanford.bmir.protege.web.shared.diff.DiffElement;
 import edu.stanford.bmir.protege.web.shared.download.DownloadFormatExtension;
 import edu.stanford.bmir.protege.web.shared.pagination.Page;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
@@ -29,6 +30,8 @@ import java.util.*;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.REVERT_CHANGES;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.VIEW_CHANGES;
+import static edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction.DEFAULT_DIFF_PAGE_SIZE;
+import static edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction.DEFAULT_REVISION_COUNT;
 
 /**
  * Matthew Horridge
@@ -55,6 +58,13 @@ public class ChangeListViewPresenter {
     private HasBusy hasBusy = busy -> {
     };
 
+    /**
+     * Identifies the most recent request to fill the view, so that pages that belong to an earlier
+     * request are not added to the view.
+     */
+    private int fillRequestId = 0;
+
+    private long previousTimeStamp = 0;
 
 
     @Inject
@@ -86,45 +96,75 @@ public class ChangeListViewPresenter {
 
     public void setChangesForProject(ProjectId projectId) {
         this.projectId = Optional.of(projectId);
-        view.clear();
-        dispatchServiceManager.execute(new GetProjectChangesAction(projectId, Optional.empty()),
-                                       hasBusy,
-                                       result -> fillView(result.getChanges(),
-                                                          SubjectDisplay.DISPLAY_SUBJECT,
-                                                          revertChangesVisible,
-                                                          downloadVisible));
+        clear();
+        loadChanges(projectId, Optional.empty(), Optional.empty(), SubjectDisplay.DISPLAY_SUBJECT, fillRequestId);
     }
 
     public void setChangesForEntity(ProjectId projectId, OWLEntity entity) {
         this.projectId = Optional.of(projectId);
-        view.clear();
-        dispatchServiceManager.execute(new GetProjectChangesAction(projectId, Optional.of(entity)),
+        clear();
+        loadChanges(projectId, Optional.of(entity), Optional.empty(), SubjectDisplay.DO_NOT_DISPLAY_SUBJECT, fillRequestId);
+    }
+
+    /**
+     * Loads the page of changes that comes before the specified revision and appends it to the view.
+     */
+    private void loadChanges(ProjectId projectId,
+                             Optional<OWLEntity> subject,
+                             Optional<RevisionNumber> beforeRevision,
+                             SubjectDisplay subjectDisplay,
+                             int requestId) {
+        view.setLoadMoreChangesVisible(false);
+        GetProjectChangesAction action = new GetProjectChangesAction(projectId,
+                                                                     subject,
+                                                                     beforeRevision,
+                                                                     DEFAULT_REVISION_COUNT,
+                                                                     PageRequest.requestPageWithSize(1, DEFAULT_DIFF_PAGE_SIZE));
+        dispatchServiceManager.execute(action,
                                        hasBusy,
-                                       result -> fillView(result.getChanges(),
-                                                          SubjectDisplay.DO_NOT_DISPLAY_SUBJECT,
-                                                          revertChangesVisible,
-                                                          downloadVisible));
+                                       result -> {
+                                           if (requestId != fillRequestId) {
+                                               return;
+                                           }
+                                           appendToView(result.getChanges(),
+                                                        subjectDisplay,
+                                                        revertChangesVisible,
+                                                        downloadVisible);
+                                           Optional<RevisionNumber> nextBeforeRevision = result.getNextBeforeRevision();
+                                           view.setLoadMoreChangesHandler(() -> loadChanges(projectId,
+                                                                                           subject,
+                                                                                           nextBeforeRevision,
+                                                                                           subjectDisplay,
+                                                                                           requestId));
+                                           view.setLoadMoreChangesVisible(nextBeforeRevision.isPresent());
+                                       });
     }
 
     public void setChangesForWatches(ProjectId projectId, UserId userId) {
         this.projectId = Optional.of(projectId);
-        view.clear();
+        clear();
+        int requestId = fillRequestId;
         dispatchServiceManager.execute(new GetWatchedEntityChangesAction(projectId, userId),
-                                       result -> fillView(result.getChanges(),
-                                                          SubjectDisplay.DISPLAY_SUBJECT,
-                                                          revertChangesVisible,
-                                                          downloadVisible));
+                                       result -> {
+                                           if (requestId == fillRequestId) {
+                                               appendToView(result.getChanges(),
+                                                            SubjectDisplay.DISPLAY_SUBJECT,
+                                                            revertChangesVisible,
+                                                            downloadVisible);
+                                           }
+                                       });
     }
 
     public void clear() {
+        fillRequestId++;
+        previousTimeStamp = 0;
         view.clear();
     }
 
-    private void fillView(ImmutableList<ProjectChange> changes,
-                          SubjectDisplay subjectDisplay,
-                          boolean revertChangesVisible,
-                          boolean downloadVisible) {
-        view.clear();
+    private void appendToView(ImmutableList<ProjectChange> changes,
+                              SubjectDisplay subjectDisplay,
+                              boolean revertChangesVisible,
+                              boolean downloadVisible) {
         permissionChecker.hasPermission(VIEW_CHANGES,
                                         viewChanges -> {
                                             if (viewChanges) {
@@ -142,7 +182,6 @@ public class ChangeListViewPresenter {
         List<ProjectChange> projectChanges = new ArrayList<>(changes);
         Collections.sort(projectChanges, Ordering.compound(Collections.singletonList(
                 Ordering.from(new ProjectChangeTimestampComparator()).reverse())));
-        long previousTimeStamp = 0;
         for (final ProjectChange projectChange : projectChanges) {
             long changeTimeStamp = projectChange.getTimestamp();
             if (!TimeUtil.isSameCalendarDay(previousTimeStamp, changeTimeStamp)) {
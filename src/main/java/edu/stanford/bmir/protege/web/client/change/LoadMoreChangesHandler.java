@@ -0,0 +1,6 @@
+package edu.stanford.bmir.protege.web.client.change;
+
+public interface LoadMoreChangesHandler {
+
+    void handleLoadMoreChanges();
+}
@@ -1,11 +1,13 @@
 package edu.stanford.bmir.protege.web.client.csv;
 
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.Widget;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceCallback;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceCallbackWithProgressDisplay;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceManager;
 import edu.stanford.bmir.protege.web.client.library.dlg.*;
 import edu.stanford.bmir.protege.web.client.library.msgbox.MessageBox;
+import edu.stanford.bmir.protege.web.client.progress.ProgressMonitor;
 import edu.stanford.bmir.protege.web.shared.csv.*;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -22,6 +24,10 @@ public class CSVImportDialogController extends WebProtegeOKCancelDialogControlle
 
     private static final int ROW_LIMIT = 50;
 
+    private static final int PROGRESS_POLL_PERIOD_MS = 2000;
+
+    private static final String IMPORT_PROGRESS_TITLE = "Importing CSV file";
+
     private final DispatchServiceManager dispatchServiceManager;
 
     private CSVImportViewImpl csvImportView;
@@ -32,6 +38,15 @@ public class CSVImportDialogController extends WebProtegeOKCancelDialogControlle
 
     private OWLClass importRoot;
 
+    private boolean importInProgress = false;
+
+    private final Timer importProgressTimer = new Timer() {
+        @Override
+        public void run() {
+            updateImportProgress();
+        }
+    };
+
     public CSVImportDialogController(ProjectId projId, DocumentId documentId, OWLClass importRootClass, DispatchServiceManager manager, final CSVImportViewImpl csvImportView) {
         super("Import CSV File");
         this.projectId = projId;
@@ -50,10 +65,13 @@ public class CSVImportDialogController extends WebProtegeOKCancelDialogControlle
         setDialogButtonHandler(DialogButton.OK, new WebProtegeDialogButtonHandler<CSVImportDescriptor>() {
             @Override
             public void handleHide(CSVImportDescriptor data, WebProtegeDialogCloser closer) {
+                importInProgress = true;
+                importProgressTimer.scheduleRepeating(PROGRESS_POLL_PERIOD_MS);
                 dispatchServiceManager.execute(new ImportCSVFileAction(projectId, csvDocumentId, importRoot, data), new DispatchServiceCallbackWithProgressDisplay<ImportCSVFileResult>() {
                     @Override
                     protected String getErrorMessage(Throwable throwable) {
-                        return "There was a problem importing the csv file.  Please try again.";
+                        return "There was a problem importing the csv file.  Please try again.  " +
+                                "The import will carry on from where it stopped.";
                     }
 
                     @Override
@@ -61,9 +79,16 @@ public class CSVImportDialogController extends WebProtegeOKCancelDialogControlle
                         MessageBox.showMessage("CSV import succeeded", result.getRowCount() + " rows were imported");
                     }
 
+                    @Override
+                    public void handleFinally() {
+                        importInProgress = false;
+                        importProgressTimer.cancel();
+                        super.handleFinally();
+                    }
+
                     @Override
                     public String getProgressDisplayTitle() {
-                        return "Importing CSV file";
+                        return IMPORT_PROGRESS_TITLE;
                     }
 
                     @Override
@@ -76,6 +101,24 @@ public class CSVImportDialogController extends WebProtegeOKCancelDialogControlle
         });
     }
 
+    private void updateImportProgress() {
+        dispatchServiceManager.execute(new GetCSVImportProgressAction(projectId, csvDocumentId), new DispatchServiceCallback<GetCSVImportProgressResult>() {
+            @Override
+            public void handleSuccess(GetCSVImportProgressResult result) {
+                // The import may have finished while the progress was being retrieved
+                if (importInProgress && result.getImportedRowCount() > 0) {
+                    ProgressMonitor.get().showProgressMonitor(IMPORT_PROGRESS_TITLE,
+                                                              result.getImportedRowCount() + " rows imported.  Please wait.");
+                }
+            }
+
+            @Override
+            public void handleExecutionException(Throwable cause) {
+                // Progress is for information only.  Errors are reported by the import itself.
+            }
+        });
+    }
+
     @Override
     public Widget getWidget() {
         return csvImportView;
@@ -1,9 +1,13 @@
 package edu.stanford.bmir.protege.web.client.download;
 
 import com.google.gwt.core.client.GWT;
-import com.google.gwt.http.client.URL;
+import com.google.gwt.http.client.*;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.Window;
+import edu.stanford.bmir.protege.web.client.library.msgbox.MessageBox;
+import edu.stanford.bmir.protege.web.client.progress.ProgressMonitor;
 import edu.stanford.bmir.protege.web.shared.download.DownloadFormatExtension;
+import edu.stanford.bmir.protege.web.shared.download.ProjectDownloadState;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 
@@ -16,17 +20,29 @@ import static edu.stanford.bmir.protege.web.shared.download.ProjectDownloadConst
  * Bio-Medical Informatics Research Group<br>
  * Date: 10/10/2013
  * <p>
- *     Downloads a project (possibly a specific revision) by opening a new browser window
+ *     Downloads a project (possibly a specific revision).  The server is polled until the download has been
+ *     generated, showing the progress of the generation, and the download is then retrieved by the browser.
  * </p>
  */
 public class ProjectRevisionDownloader {
 
+    private static final int STATUS_POLL_PERIOD_MS = 2000;
+
+    private static final String PROGRESS_TITLE = "Preparing download";
+
     private final ProjectId projectId;
 
     private final RevisionNumber revisionNumber;
 
     private final DownloadFormatExtension formatExtension;
 
+    private final Timer statusTimer = new Timer() {
+        @Override
+        public void run() {
+            pollDownloadStatus();
+        }
+    };
+
     /**
      * Constructs a ProjectRevisionDownloader for the specified project, revision and project format.
      * @param projectId The project id.  Not {@code null}.
@@ -41,17 +57,90 @@ public class ProjectRevisionDownloader {
     }
 
     /**
-     * Causes a new browser window to be opened which will download the specified project revision in the specified
-     * format.
+     * Starts the download of the specified project revision in the specified format.  The browser retrieves the
+     * download once it has been generated.
      */
     public void download() {
+        pollDownloadStatus();
+    }
+
+    private void pollDownloadStatus() {
+        RequestBuilder requestBuilder = new RequestBuilder(RequestBuilder.GET, getDownloadURL() + "&" + STATUS + "=true");
+        try {
+            requestBuilder.sendRequest(null, new RequestCallback() {
+                @Override
+                public void onResponseReceived(Request request, Response response) {
+                    if(response.getStatusCode() == Response.SC_OK) {
+                        handleDownloadStatus(response.getText());
+                    }
+                    else {
+                        showDownloadError();
+                    }
+                }
+
+                @Override
+                public void onError(Request request, Throwable exception) {
+                    showDownloadError();
+                }
+            });
+        } catch (RequestException e) {
+            showDownloadError();
+        }
+    }
+
+    private void handleDownloadStatus(String status) {
+        String[] stateAndBytesWritten = status.trim().split(" ");
+        ProjectDownloadState state;
+        try {
+            state = ProjectDownloadState.valueOf(stateAndBytesWritten[0]);
+        } catch (IllegalArgumentException e) {
+            showDownloadError();
+            return;
+        }
+        if(state == ProjectDownloadState.READY) {
+            retrieveDownload();
+        }
+        else if(state == ProjectDownloadState.FAILED) {
+            showDownloadError();
+        }
+        else {
+            ProgressMonitor.get().showProgressMonitor(PROGRESS_TITLE, getProgressMessage(stateAndBytesWritten));
+            statusTimer.schedule(STATUS_POLL_PERIOD_MS);
+        }
+    }
+
+    private static String getProgressMessage(String[] stateAndBytesWritten) {
+        if(stateAndBytesWritten.length < 2) {
+            return "Please wait.";
+        }
+        try {
+            long megabytesWritten = Long.parseLong(stateAndBytesWritten[1]) / (1024 * 1024);
+            return megabytesWritten + " MB written.  Please wait.";
+        } catch (NumberFormatException e) {
+            return "Please wait.";
+        }
+    }
+
+    /**
+     * Opens the download in a new window, so that the current page is not replaced.
+     */
+    private void retrieveDownload() {
+        ProgressMonitor.get().hideProgressMonitor();
+        Window.open(getDownloadURL(), "Download ontology", "");
+    }
+
+    private void showDownloadError() {
+        ProgressMonitor.get().hideProgressMonitor();
+        MessageBox.showAlert("The download could not be created", "Please try again.");
+    }
+
+    private String getDownloadURL() {
         String encodedProjectName = URL.encode(projectId.getId());
         String baseURL = GWT.getHostPageBaseURL();
-        String downloadURL = baseURL + "download?"
+        return baseURL + "download?"
                 + PROJECT + "=" + encodedProjectName  +
                 "&" + REVISION + "=" + revisionNumber.getValue() +
                 "&" + FORMAT + "=" + formatExtension.getExtension();
-        Window.open(downloadURL, "Download ontology", "");
     }
 
 }
@@ -1,10 +1,14 @@
 package edu.stanford.bmir.protege.web.client.events;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.http.client.*;
 import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.Window;
 import com.google.web.bindery.event.shared.EventBus;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceCallback;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceManager;
+import edu.stanford.bmir.protege.web.client.library.msgbox.MessageBox;
+import edu.stanford.bmir.protege.web.client.library.msgbox.YesNoHandler;
 import edu.stanford.bmir.protege.web.client.user.LoggedInUserProvider;
 import edu.stanford.bmir.protege.web.shared.event.GetProjectEventsAction;
 import edu.stanford.bmir.protege.web.shared.event.GetProjectEventsResult;
@@ -24,17 +28,35 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/03/2013
+ * <p>
+ *     Project events are retrieved using long polling.  A request is made to the project events servlet, which
+ *     responds as soon as there are events from the next tag (or when the request times out), and the events are
+ *     then retrieved with a {@link GetProjectEventsAction}.  If the servlet cannot be reached then events are
+ *     polled for after the polling period.
+ * </p>
+ * <p>
+ *     If events were discarded by the server before they could be retrieved then polling carries on from the end
+ *     of the retrieved list and the user is asked whether to reload the project.
+ * </p>
  */
 public class EventPollingManager {
 
+    private static final String PROJECT_EVENTS_URL = GWT.getModuleBaseURL() + "events";
+
     private final DispatchServiceManager dispatchServiceManager;
 
     private int pollingPeriodInMS;
 
     private Timer pollingTimer;
 
+    private boolean running = false;
+
+    private Request pendingRequest = null;
+
     private EventTag nextTag = EventTag.getFirst();
 
+    private boolean reloadPromptShown = false;
+
     private final ProjectId projectId;
 
     private final EventBus eventBus;
@@ -65,14 +87,62 @@ public class EventPollingManager {
     }
 
     public void start() {
-        if(pollingTimer.isRunning()) {
+        if(running) {
             return;
         }
-        pollingTimer.scheduleRepeating(pollingPeriodInMS);
+        running = true;
+        waitForProjectEvents();
     }
 
     public void stop() {
+        running = false;
         pollingTimer.cancel();
+        if(pendingRequest != null) {
+            pendingRequest.cancel();
+            pendingRequest = null;
+        }
+    }
+
+    private void waitForProjectEvents() {
+        if(!running) {
+            return;
+        }
+        String url = PROJECT_EVENTS_URL
+                + "?projectId=" + URL.encodeQueryString(projectId.getId())
+                + "&sinceTag=" + nextTag.getOrdinal();
+        RequestBuilder requestBuilder = new RequestBuilder(RequestBuilder.GET, url);
+        try {
+            pendingRequest = requestBuilder.sendRequest(null, new RequestCallback() {
+                @Override
+                public void onResponseReceived(Request request, Response response) {
+                    pendingRequest = null;
+                    if(response.getStatusCode() == Response.SC_OK) {
+                        pollForProjectEvents();
+                    }
+                    else if(response.getStatusCode() == Response.SC_NO_CONTENT) {
+                        // Timed out without any events
+                        waitForProjectEvents();
+                    }
+                    else {
+                        schedulePoll();
+                    }
+                }
+
+                @Override
+                public void onError(Request request, Throwable exception) {
+                    pendingRequest = null;
+                    schedulePoll();
+                }
+            });
+        } catch (RequestException e) {
+            schedulePoll();
+        }
+    }
+
+    private void schedulePoll() {
+        if(running) {
+            pollingTimer.schedule(pollingPeriodInMS);
+        }
     }
 
 
@@ -84,12 +154,26 @@ public class EventPollingManager {
             @Override
             public void handleSuccess(GetProjectEventsResult result) {
                 dispatchEvents(result.getEvents());
+                waitForProjectEvents();
+            }
+
+            @Override
+            public void handleErrorFinally(Throwable throwable) {
+                schedulePoll();
             }
         });
     }
 
 
     public void dispatchEvents(EventList<?> eventList) {
+        if(eventList.isEventsMissed()) {
+            // The server discarded events that we have not seen, so our state can no longer be brought up to date
+            // from events.  Carry on from the end of the list so that later events are still received, and leave
+            // it to the user to decide when to reload, because reloading discards any edits in progress.
+            GWT.log("[Event Polling Manager] Missed events since " + nextTag + ".  Next tag is " + eventList.getEndTag());
+            nextTag = eventList.getEndTag();
+            promptToReload();
+        }
         if(eventList.isEmpty()) {
             return;
         }
@@ -114,4 +198,26 @@ public class EventPollingManager {
         }
     }
 
+    private void promptToReload() {
+        if(reloadPromptShown) {
+            return;
+        }
+        reloadPromptShown = true;
+        MessageBox.showYesNoConfirmBox("Reload project?",
+                                       "Some changes to the project could not be retrieved, so the project may " +
+                                               "be out of date.  Do you want to reload the project now?  " +
+                                               "Any unsaved edits will be lost.",
+                                       new YesNoHandler() {
+                                           @Override
+                                           public void handleYes() {
+                                               stop();
+                                               Window.Location.reload();
+                                           }
+
+                                           @Override
+                                           public void handleNo() {
+                                               reloadPromptShown = false;
+                                           }
+                                       });
+    }
 }
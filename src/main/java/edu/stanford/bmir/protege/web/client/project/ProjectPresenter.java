@@ -1,9 +1,11 @@
 package edu.stanford.bmir.protege.web.client.project;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.AcceptsOneWidget;
 import com.google.web.bindery.event.shared.EventBus;
 import edu.stanford.bmir.protege.web.client.app.PermissionScreener;
+import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceCallback;
 import edu.stanford.bmir.protege.web.client.dispatch.DispatchServiceManager;
 import edu.stanford.bmir.protege.web.client.events.EventPollingManager;
 import edu.stanford.bmir.protege.web.client.perspective.PerspectivePresenter;
@@ -13,8 +15,12 @@ import edu.stanford.bmir.protege.web.client.topbar.TopBarPresenter;
 import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.HasProjectId;
 import edu.stanford.bmir.protege.web.shared.place.ProjectViewPlace;
+import edu.stanford.bmir.protege.web.shared.project.GetProjectOpenStatusAction;
+import edu.stanford.bmir.protege.web.shared.project.GetProjectOpenStatusResult;
 import edu.stanford.bmir.protege.web.shared.project.LoadProjectAction;
+import edu.stanford.bmir.protege.web.shared.project.LoadProjectResult;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
@@ -29,6 +35,8 @@ import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.VIEW_PRO
  */
 public class ProjectPresenter implements HasDispose, HasProjectId {
 
+    private static final int OPEN_STATUS_POLL_PERIOD_MS = 1000;
+
     private final ProjectId projectId;
 
     private final ProjectView view;
@@ -47,6 +55,14 @@ public class ProjectPresenter implements HasDispose, HasProjectId {
 
     private final EventPollingManager eventPollingManager;
 
+    private boolean loadingProject = false;
+
+    private final Timer openStatusTimer = new Timer() {
+        @Override
+        public void run() {
+            updateOpenStatus();
+        }
+    };
 
     @Inject
     public ProjectPresenter(ProjectId projectId,
@@ -89,16 +105,65 @@ public class ProjectPresenter implements HasDispose, HasProjectId {
     private void displayProject(@Nonnull AcceptsOneWidget container,
                                 @Nonnull EventBus eventBus,
                                 @Nonnull ProjectViewPlace place) {
-        dispatchServiceManager.execute(new LoadProjectAction(projectId),
-                                       result -> container.setWidget(view));
+        loadingProject = true;
+        openStatusTimer.scheduleRepeating(OPEN_STATUS_POLL_PERIOD_MS);
+        dispatchServiceManager.execute(new LoadProjectAction(projectId), new DispatchServiceCallback<LoadProjectResult>() {
+            @Override
+            public void handleSuccess(LoadProjectResult result) {
+                container.setWidget(view);
+            }
+
+            @Override
+            public void handleFinally() {
+                // Stop polling even if the project could not be loaded
+                stopOpenStatusPolling();
+            }
+        });
         topBarPresenter.start(view.getTopBarContainer(), eventBus, place);
         linkBarPresenter.start(view.getPerspectiveLinkBarViewContainer(), eventBus, place);
         perspectivePresenter.start(view.getPerspectiveViewContainer(), eventBus, place);
         eventPollingManager.start();
     }
 
+    private void updateOpenStatus() {
+        dispatchServiceManager.execute(new GetProjectOpenStatusAction(projectId), new DispatchServiceCallback<GetProjectOpenStatusResult>() {
+            @Override
+            public void handleSuccess(GetProjectOpenStatusResult result) {
+                // The project may have been loaded while the status was being retrieved
+                if (loadingProject) {
+                    displayOpenStatus(result.getStatus());
+                }
+            }
+
+            @Override
+            public void handleExecutionException(Throwable cause) {
+                // The status is for information only.  Errors are reported by loading the project.
+            }
+        });
+    }
+
+    private void displayOpenStatus(ProjectOpenStatus status) {
+        switch (status.getPhase()) {
+            case LOADING_ONTOLOGIES:
+                busyView.setMessage("Loading ontologies (" + status.getLoadedOntologyCount()
+                                            + " of " + status.getOntologyCount() + ").  Please wait.");
+                break;
+            case BUILDING_INDEXES:
+                busyView.setMessage("Building hierarchies and indexes.  Please wait.");
+                break;
+            default:
+                busyView.setMessage("Loading project.  Please wait.");
+        }
+    }
+
+    private void stopOpenStatusPolling() {
+        loadingProject = false;
+        openStatusTimer.cancel();
+    }
+
     @Override
     public void dispose() {
+        stopOpenStatusPolling();
         topBarPresenter.dispose();
         linkBarPresenter.dispose();
         perspectivePresenter.dispose();
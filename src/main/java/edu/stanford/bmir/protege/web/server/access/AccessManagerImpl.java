@@ -32,16 +32,30 @@ public class AccessManagerImpl implements AccessManager {
 
     private final Datastore datastore;
 
+    private final ActionClosureCache actionClosureCache;
+
     /**
      * Constructs an {@link AccessManager} that is backed by MongoDb.
      *
      * @param roleOracle An oracle for looking up information about roles.
      * @param datastore  A Morphia datastore that is used to access MongoDb.
+     * @param actionClosureCache A cache of action closures that is used to answer permission checks.
      */
     @Inject
-    public AccessManagerImpl(RoleOracle roleOracle, Datastore datastore) {
+    public AccessManagerImpl(RoleOracle roleOracle, Datastore datastore, ActionClosureCache actionClosureCache) {
         this.roleOracle = roleOracle;
         this.datastore = datastore;
+        this.actionClosureCache = actionClosureCache;
+    }
+
+    /**
+     * Constructs an {@link AccessManager} that is backed by MongoDb with a default action closure cache.
+     *
+     * @param roleOracle An oracle for looking up information about roles.
+     * @param datastore  A Morphia datastore that is used to access MongoDb.
+     */
+    public AccessManagerImpl(RoleOracle roleOracle, Datastore datastore) {
+        this(roleOracle, datastore, new ActionClosureCache());
     }
 
     @Override
@@ -60,6 +74,7 @@ public class AccessManagerImpl implements AccessManager {
                                                        actionClosure);
         datastore.delete(withUserAndTarget(subject, resource));
         datastore.save(assignment);
+        actionClosureCache.invalidate(resource);
     }
 
     private List<String> getActionClosure(@Nonnull Collection<RoleId> roleIds) {
@@ -134,6 +149,10 @@ public class AccessManagerImpl implements AccessManager {
     @Nonnull
     @Override
     public Set<ActionId> getActionClosure(@Nonnull Subject subject, @Nonnull Resource resource) {
+        return actionClosureCache.get(subject, resource, () -> queryActionClosure(subject, resource));
+    }
+
+    private Set<ActionId> queryActionClosure(@Nonnull Subject subject, @Nonnull Resource resource) {
         Query<RoleAssignment> query = withUserOrAnyUserAndTarget(subject,
                                                                  resource);
         return query.asList()
@@ -145,9 +164,7 @@ public class AccessManagerImpl implements AccessManager {
 
     @Override
     public boolean hasPermission(@Nonnull Subject subject, @Nonnull Resource resource, @Nonnull ActionId actionId) {
-        Query<RoleAssignment> query = withUserOrAnyUserAndTarget(subject, resource)
-                .field(ACTION_CLOSURE).equal(actionId.getId());
-        return query.count() > 0;
+        return getActionClosure(subject, resource).contains(actionId);
     }
 
     @Override
@@ -209,7 +226,15 @@ public class AccessManagerImpl implements AccessManager {
                          .set(RoleAssignment.ROLE_CLOSURE, roleClosure);
                  datastore.update(roleAssignment, updateOperations);
              });
+        actionClosureCache.invalidateAll();
+    }
 
+    /**
+     * Gets the cache that is used to answer permission checks.
+     */
+    @Nonnull
+    public ActionClosureCache getActionClosureCache() {
+        return actionClosureCache;
     }
 
     /**
@@ -0,0 +1,171 @@
+package edu.stanford.bmir.protege.web.server.access;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import edu.stanford.bmir.protege.web.shared.access.ActionId;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded cache of action closures keyed by subject and resource.  The cache sits in front of the
+ * role assignment collection so that permission checks on the hot path are a hash lookup rather than
+ * a database query.  Entries for a resource must be invalidated whenever the role assignments for that
+ * resource change.
+ *
+ * Each resource has a generation that is bumped by invalidation.  A closure whose load started before an
+ * invalidation of its resource is discarded rather than left in the cache, so that a closure computed
+ * before a role revocation cannot outlive the revocation.
+ */
+public class ActionClosureCache {
+
+    /**
+     * The maximum number of (subject, resource) pairs whose action closures are held in memory.
+     */
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    /**
+     * An upper bound on the staleness of an entry.  This only matters if role assignments are modified
+     * outside of this process (e.g. by command line tools).
+     */
+    private static final long EXPIRE_AFTER_WRITE_MINUTES = 10;
+
+    private final Cache<Key, ImmutableSet<ActionId>> cache;
+
+    private final ConcurrentMap<Resource, AtomicLong> resourceGenerations = new ConcurrentHashMap<>();
+
+    private final AtomicLong globalGeneration = new AtomicLong();
+
+    @Inject
+    public ActionClosureCache() {
+        this(MAXIMUM_SIZE);
+    }
+
+    public ActionClosureCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .expireAfterWrite(EXPIRE_AFTER_WRITE_MINUTES, TimeUnit.MINUTES)
+                            .recordStats()
+                            .build();
+    }
+
+    /**
+     * Gets the action closure for the specified subject and resource, computing and caching it if it
+     * is not already present.
+     * @param subject The subject.
+     * @param resource The resource.
+     * @param loader A supplier that computes the action closure on a cache miss.
+     * @return The action closure.
+     */
+    @Nonnull
+    public ImmutableSet<ActionId> get(@Nonnull Subject subject,
+                                      @Nonnull Resource resource,
+                                      @Nonnull Supplier<? extends Set<ActionId>> loader) {
+        checkNotNull(loader);
+        Key key = new Key(subject, resource);
+        long generationBeforeLoad = getGeneration(resource);
+        ImmutableSet<ActionId> closure;
+        try {
+            closure = cache.get(key, () -> ImmutableSet.copyOf(loader.get()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        if (getGeneration(resource) != generationBeforeLoad) {
+            // The resource was invalidated while the closure was being loaded.  The closure may predate the
+            // invalidation so it must not stay in the cache.  Invalidations that bump the generation after
+            // this check remove the entry themselves.
+            cache.asMap().remove(key, closure);
+        }
+        return closure;
+    }
+
+    private long getGeneration(@Nonnull Resource resource) {
+        AtomicLong resourceGeneration = resourceGenerations.get(resource);
+        long generation = resourceGeneration != null ? resourceGeneration.get() : 0;
+        return generation + globalGeneration.get();
+    }
+
+    /**
+     * Invalidates the action closures of all subjects for the specified resource.  Assignments to
+     * "any signed in user" contribute to the closure of every specific user, so invalidation is done at
+     * the level of a resource rather than a subject/resource pair.
+     * @param resource The resource.
+     */
+    public void invalidate(@Nonnull Resource resource) {
+        checkNotNull(resource);
+        resourceGenerations.computeIfAbsent(resource, r -> new AtomicLong()).incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.resource.equals(resource));
+    }
+
+    /**
+     * Invalidates all cached action closures.
+     */
+    public void invalidateAll() {
+        globalGeneration.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Gets the hit/miss statistics for this cache.
+     */
+    @Nonnull
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ActionClosureCache")
+                .add("size", cache.size())
+                .add("stats", cache.stats())
+                .toString();
+    }
+
+    private static final class Key {
+
+        private final Subject subject;
+
+        private final Resource resource;
+
+        private Key(@Nonnull Subject subject, @Nonnull Resource resource) {
+            this.subject = checkNotNull(subject);
+            this.resource = checkNotNull(resource);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(subject, resource);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.subject.equals(other.subject)
+                    && this.resource.equals(other.resource);
+        }
+    }
+}
@@ -116,4 +116,9 @@ public class WebProtegeProperties implements Serializable {
     public Optional<String> getDBHost() {
         return getOptionalString(MONGO_DB_HOST);
     }
+
+    @Nonnull
+    public Optional<String> getEventsLongPollTimeout() {
+        return getOptionalString(EVENTS_LONG_POLL_TIMEOUT);
+    }
 }
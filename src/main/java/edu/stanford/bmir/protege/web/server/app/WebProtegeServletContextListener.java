@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
+import javax.servlet.ServletRegistration;
 
 import static edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger.WebProtegeMarker;
 
@@ -37,12 +38,19 @@ public class WebProtegeServletContextListener implements ServletContextListener
             servletContext.addServlet("OntologyServiceImpl", servletComponent.getOntologyService())
                           .addMapping("/webprotege/ontology");
 
-            servletContext.addServlet("ProjectDownloadServlet", servletComponent.getFileDownloadServlet())
-                          .addMapping("/download");
+            ServletRegistration.Dynamic downloadServlet = servletContext.addServlet("ProjectDownloadServlet",
+                                                                                    servletComponent.getFileDownloadServlet());
+            downloadServlet.setAsyncSupported(true);
+            downloadServlet.addMapping("/download");
 
             servletContext.addServlet("FileUploadServlet", servletComponent.getFileUploadServlet())
                           .addMapping("/webprotege/submitfile");
 
+            ServletRegistration.Dynamic eventsServlet = servletContext.addServlet("ProjectEventsLongPollServlet",
+                                                                                  servletComponent.getProjectEventsLongPollServlet());
+            eventsServlet.setAsyncSupported(true);
+            eventsServlet.addMapping("/webprotege/events");
+
             servletContext.addListener(applicationComponent.getSessionListener());
 
             applicationComponent.getWebProtegeConfigurationChecker().performConfiguration(servletContext);
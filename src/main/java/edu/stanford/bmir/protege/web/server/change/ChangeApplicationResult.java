@@ -2,6 +2,7 @@ package edu.stanford.bmir.protege.web.server.change;
 
 import edu.stanford.bmir.protege.web.server.owlapi.RenameMap;
 import edu.stanford.bmir.protege.web.shared.HasSubject;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntologyChange;
 
@@ -24,10 +25,20 @@ public class ChangeApplicationResult<S> implements HasSubject<Optional<S>> {
 
     private Optional<S> subject;
 
+    private Optional<RevisionNumber> revisionNumber;
+
     public ChangeApplicationResult(Optional<S> subject, List<OWLOntologyChange> changeList, RenameMap renameMap) {
+        this(subject, changeList, renameMap, Optional.empty());
+    }
+
+    public ChangeApplicationResult(Optional<S> subject,
+                                   List<OWLOntologyChange> changeList,
+                                   RenameMap renameMap,
+                                   Optional<RevisionNumber> revisionNumber) {
         this.subject = subject;
         this.changeList = new ArrayList<OWLOntologyChange>(changeList);
         this.renameMap = renameMap;
+        this.revisionNumber = revisionNumber;
     }
 
     public RenameMap getRenameMap() {
@@ -42,6 +53,15 @@ public class ChangeApplicationResult<S> implements HasSubject<Optional<S>> {
         return renameMap.getRenamedEntity(entity);
     }
 
+    /**
+     * Gets the number of the revision that the changes were committed in.
+     * @return The revision number.  An absent value if the changes did not modify the project, in which case no
+     * revision was committed, or if the changes have not been committed yet.
+     */
+    public Optional<RevisionNumber> getRevisionNumber() {
+        return revisionNumber;
+    }
+
     @Override
     public Optional<S> getSubject() {
         return subject;
@@ -16,7 +16,9 @@ import edu.stanford.bmir.protege.web.server.owlapi.RenameMap;
 public interface ChangeListGenerator<R> {
 
     /**
-     * Generates ontology changes.
+     * Generates ontology changes.  Changes are generated optimistically, so this method may be called more than
+     * once for a single application of changes if the project is modified by a third party while the changes are
+     * being generated.  Only the result of the final call is applied.
      * @param context The context for the change generation.  This contains information such as the id of the user
      * generating the changes.
      * @return The generated change list and main result bundled up in a {@link OntologyChangeList} object.
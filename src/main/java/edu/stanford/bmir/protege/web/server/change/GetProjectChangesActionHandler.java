@@ -1,19 +1,17 @@
 package edu.stanford.bmir.protege.web.server.change;
 
-import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
+import edu.stanford.bmir.protege.web.server.revision.ProjectChangesPage;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction;
 import edu.stanford.bmir.protege.web.shared.change.GetProjectChangesResult;
-import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.util.List;
 
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.VIEW_CHANGES;
 
@@ -47,7 +45,10 @@ public class GetProjectChangesActionHandler extends AbstractHasProjectActionHand
 
     @Override
     public GetProjectChangesResult execute(final GetProjectChangesAction action, ExecutionContext executionContext) {
-        List<ProjectChange> changeList = changesManager.getProjectChanges(action.getSubject());
-        return new GetProjectChangesResult(ImmutableList.copyOf(changeList));
+        ProjectChangesPage page = changesManager.getProjectChanges(action.getSubject(),
+                                                                   action.getBeforeRevision(),
+                                                                   action.getRevisionCount(),
+                                                                   action.getDiffPageRequest());
+        return new GetProjectChangesResult(page.getChanges(), page.getNextBeforeRevision());
     }
 }
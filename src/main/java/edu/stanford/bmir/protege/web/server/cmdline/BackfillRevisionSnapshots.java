@@ -0,0 +1,100 @@
+package edu.stanford.bmir.protege.web.server.cmdline;
+
+import edu.stanford.bmir.protege.web.server.inject.project.ChangeHistoryFileProvider;
+import edu.stanford.bmir.protege.web.server.inject.project.ProjectDirectoryFactory;
+import edu.stanford.bmir.protege.web.server.inject.project.RevisionSnapshotDirectoryProvider;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotBackfiller;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotPolicy;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotStore;
+import edu.stanford.bmir.protege.web.server.revision.RevisionStoreImpl;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectIdFormatException;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes revision snapshots for the change histories of existing projects.  Usage:
+ * <pre>BackfillRevisionSnapshots &lt;data-directory&gt; [project-id...]</pre>
+ * If no project ids are specified then all projects in the data directory are processed.
+ */
+public class BackfillRevisionSnapshots {
+
+    @Nonnull
+    private final ProjectDirectoryFactory projectDirectoryFactory;
+
+    @Nonnull
+    private final RevisionSnapshotPolicy snapshotPolicy;
+
+    public BackfillRevisionSnapshots(@Nonnull ProjectDirectoryFactory projectDirectoryFactory,
+                                     @Nonnull RevisionSnapshotPolicy snapshotPolicy) {
+        this.projectDirectoryFactory = checkNotNull(projectDirectoryFactory);
+        this.snapshotPolicy = checkNotNull(snapshotPolicy);
+    }
+
+    public void runForAllProjects() {
+        File[] projectDirectories = projectDirectoryFactory.getProjectDataDirectory().listFiles();
+        if (projectDirectories == null) {
+            System.out.println("No projects found");
+            return;
+        }
+        for (File projectDirectory : projectDirectories) {
+            if (projectDirectory.isDirectory()) {
+                try {
+                    run(ProjectId.get(projectDirectory.getName()));
+                } catch (ProjectIdFormatException e) {
+                    System.out.printf("Skipping %s (not a project directory)\n", projectDirectory.getName());
+                }
+            }
+        }
+    }
+
+    public void run(@Nonnull ProjectId projectId) {
+        File projectDirectory = projectDirectoryFactory.getProjectDirectory(projectId);
+        File changeHistoryFile = new ChangeHistoryFileProvider(projectDirectory).get();
+        if (!changeHistoryFile.exists()) {
+            System.out.printf("Skipping %s (no change history)\n", projectId.getId());
+            return;
+        }
+        System.out.printf("Backfilling revision snapshots for %s...\n", projectId.getId());
+        try {
+            OWLDataFactoryImpl dataFactory = new OWLDataFactoryImpl();
+            RevisionStoreImpl revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+            revisionStore.load();
+            RevisionSnapshotStore snapshotStore = new RevisionSnapshotStore(
+                    projectId,
+                    new RevisionSnapshotDirectoryProvider(projectDirectory).get(),
+                    dataFactory);
+            RevisionSnapshotBackfiller backfiller = new RevisionSnapshotBackfiller(projectId,
+                                                                                   revisionStore,
+                                                                                   snapshotStore,
+                                                                                   snapshotPolicy);
+            int written = backfiller.backfill();
+            revisionStore.dispose();
+            System.out.printf("Wrote %d snapshots for %s\n", written, projectId.getId());
+        } catch (Exception e) {
+            System.out.printf("Failed to backfill revision snapshots for %s: %s\n", projectId.getId(), e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: BackfillRevisionSnapshots <data-directory> [project-id...]");
+            return;
+        }
+        BackfillRevisionSnapshots tool = new BackfillRevisionSnapshots(
+                new ProjectDirectoryFactory(new File(args[0])),
+                RevisionSnapshotPolicy.getDefault());
+        if (args.length == 1) {
+            tool.runForAllProjects();
+        }
+        else {
+            for (int i = 1; i < args.length; i++) {
+                tool.run(ProjectId.get(args[i]));
+            }
+        }
+    }
+}
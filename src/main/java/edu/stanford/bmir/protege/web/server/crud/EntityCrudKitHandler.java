@@ -5,6 +5,9 @@ import edu.stanford.bmir.protege.web.shared.crud.*;
 import org.semanticweb.owlapi.model.EntityType;
 import org.semanticweb.owlapi.model.OWLEntity;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
@@ -39,6 +42,31 @@ public interface EntityCrudKitHandler<S extends EntityCrudKitSuffixSettings, C e
             EntityCrudContext context,
             OntologyChangeList.Builder<E> changeListBuilder) throws CannotGenerateFreshEntityIdException;
 
+    /**
+     * Creates several entities of the same type in one go.  The default implementation calls {@link
+     * #create(ChangeSetEntityCrudSession, EntityType, EntityShortForm, EntityCrudContext, OntologyChangeList.Builder)}
+     * for each short form.  Handlers that can mint IRIs more efficiently in bulk should override this method.
+     *
+     * @param session The change set session.
+     * @param entityType The type of the entities to create.
+     * @param shortForms The short forms of the entities to create.
+     * @param context The context.
+     * @param changeListBuilder A builder that the changes that create the entities are added to.
+     * @return The created entities, in the order of the short forms that they were created for.
+     */
+    default <E extends OWLEntity> List<E> createAll(
+            C session,
+            EntityType<E> entityType,
+            List<EntityShortForm> shortForms,
+            EntityCrudContext context,
+            OntologyChangeList.Builder<E> changeListBuilder) throws CannotGenerateFreshEntityIdException {
+        List<E> entities = new ArrayList<>(shortForms.size());
+        for (EntityShortForm shortForm : shortForms) {
+            entities.add(create(session, entityType, shortForm, context, changeListBuilder));
+        }
+        return entities;
+    }
+
     <E extends OWLEntity> void update(
             C session,
             E entity,
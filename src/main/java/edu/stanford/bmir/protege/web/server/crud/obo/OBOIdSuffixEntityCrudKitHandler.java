@@ -17,6 +17,8 @@ import org.semanticweb.owlapi.model.*;
 
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -78,9 +80,24 @@ public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBO
 
     @Override
     public <E extends OWLEntity> E create(OBOIdSession session, EntityType<E> entityType, EntityShortForm shortForm, EntityCrudContext context, OntologyChangeList.Builder<E> builder) {
+        final IRI iri = getNextIRIs(session, context.getTargetOntology(), context.getUserId(), 1).get(0);
+        return addEntity(entityType, iri, shortForm, context, builder);
+    }
+
+    @Override
+    public <E extends OWLEntity> List<E> createAll(OBOIdSession session, EntityType<E> entityType, List<EntityShortForm> shortForms, EntityCrudContext context, OntologyChangeList.Builder<E> builder) {
+        // Ids for all of the entities are allocated in one go
+        List<IRI> iris = getNextIRIs(session, context.getTargetOntology(), context.getUserId(), shortForms.size());
+        List<E> entities = new ArrayList<>(shortForms.size());
+        for (int i = 0; i < shortForms.size(); i++) {
+            entities.add(addEntity(entityType, iris.get(i), shortForms.get(i), context, builder));
+        }
+        return entities;
+    }
+
+    private static <E extends OWLEntity> E addEntity(EntityType<E> entityType, IRI iri, EntityShortForm shortForm, EntityCrudContext context, OntologyChangeList.Builder<E> builder) {
         OWLDataFactory dataFactory = context.getDataFactory();
         final OWLOntology targetOntology = context.getTargetOntology();
-        final IRI iri = getNextIRI(session, targetOntology, context.getUserId());
         final E entity = dataFactory.getOWLEntity(entityType, iri);
         builder.addAxiom(targetOntology, dataFactory.getOWLDeclarationAxiom(entity));
         final OWLLiteral labellingLiteral = getLabellingLiteral(shortForm, context);
@@ -91,25 +108,27 @@ public class OBOIdSuffixEntityCrudKitHandler implements EntityCrudKitHandler<OBO
 
 
 
-    private synchronized IRI getNextIRI(OBOIdSession session, OWLOntology rootOntology, UserId userId) {
+    private synchronized List<IRI> getNextIRIs(OBOIdSession session, OWLOntology rootOntology, UserId userId, int count) {
         StringBuilder formatStringBuilder = new StringBuilder();
         for (int i = 0; i < suffixSettings.getTotalDigits(); i++) {
             formatStringBuilder.append("0");
         }
         NumberFormat numberFormat = new DecimalFormat(formatStringBuilder.toString());
+        List<IRI> iris = new ArrayList<>(count);
         long currentId = getCurrentId(userId);
-        while (true) {
+        while (iris.size() < count) {
             currentId++;
             if(!session.isSessionId(currentId)) {
                 String shortName = numberFormat.format(currentId);
                 IRI iri = IRI.create(prefixSettings.getIRIPrefix() + shortName);
                 if (!rootOntology.containsEntityInSignature(iri, true)) {
                     session.addSessionId(currentId);
-                    setCurrentId(userId, currentId);
-                    return iri;
+                    iris.add(iri);
                 }
             }
         }
+        setCurrentId(userId, currentId);
+        return iris;
     }
 
     private long getCurrentId(UserId userId) {
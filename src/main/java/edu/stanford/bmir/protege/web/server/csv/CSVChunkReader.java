@@ -0,0 +1,89 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import au.com.bytecode.opencsv.CSVReader;
+import edu.stanford.bmir.protege.web.shared.csv.CSVGrid;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads a csv file a chunk of rows at a time, so that at most one chunk of rows is held in memory.
+ */
+public class CSVChunkReader implements Closeable {
+
+    private final CSVReader reader;
+
+    private int rowsRead = 0;
+
+    private boolean endOfFile = false;
+
+    public CSVChunkReader(@Nonnull Reader reader) {
+        this.reader = new CSVReader(checkNotNull(reader));
+    }
+
+    /**
+     * Skips over rows.
+     * @param rowCount The number of rows to skip.
+     * @return The number of rows that were skipped.  This is less than {@code rowCount} if the end of the file
+     * was reached.
+     * @throws IOException If there was a problem reading the rows.
+     */
+    public int skip(int rowCount) throws IOException {
+        int skipped = 0;
+        while (skipped < rowCount && readRow() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Reads the next chunk of rows.
+     * @param maxRows The maximum number of rows to read.  Must be greater than zero.
+     * @return The rows that were read.  The grid is empty if the end of the file has been reached.
+     * @throws IOException If there was a problem reading the rows.
+     */
+    @Nonnull
+    public CSVGrid readChunk(int maxRows) throws IOException {
+        checkArgument(maxRows > 0, "maxRows must be greater than zero");
+        CSVGrid.Builder builder = CSVGrid.builder();
+        for (int i = 0; i < maxRows; i++) {
+            String[] row = readRow();
+            if (row == null) {
+                break;
+            }
+            builder.addRow(row);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of rows that have been read or skipped so far.
+     */
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    private String[] readRow() throws IOException {
+        if (endOfFile) {
+            return null;
+        }
+        String[] row = reader.readNext();
+        if (row == null) {
+            endOfFile = true;
+        }
+        else {
+            rowsRead++;
+        }
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -32,18 +32,9 @@ public class CSVGridParser {
      * @throws IOException
      */
     public CSVGrid readToLimit(Reader reader, int limit) throws IOException {
-        final CSVGrid.Builder builder = CSVGrid.builder();
-        au.com.bytecode.opencsv.CSVReader r = new au.com.bytecode.opencsv.CSVReader(reader);
-        for(int i = 0; i < limit; i++) {
-            String [] row = r.readNext();
-            if(row != null) {
-                builder.addRow(row);
-            }
-            else {
-                break;
-            }
-        }
-        return builder.build();
+        // The reader belongs to the caller, so the chunk reader is not closed here
+        CSVChunkReader chunkReader = new CSVChunkReader(reader);
+        return chunkReader.readChunk(limit);
     }
 
 }
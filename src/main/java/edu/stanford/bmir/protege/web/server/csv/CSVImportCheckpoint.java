@@ -0,0 +1,265 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import edu.stanford.bmir.protege.web.shared.csv.CSVColumnDescriptor;
+import edu.stanford.bmir.protege.web.shared.csv.CSVImportDescriptor;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Records how many rows of a csv file have been imported into a project.  The checkpoint is stored next to the
+ * uploaded csv file and is used to resume an import that failed part of the way through, and to report the
+ * progress of an import that is underway.  A checkpoint only applies to an import into the same project, under
+ * the same root class, with the same import descriptor.
+ * <p>
+ *     The checkpoint itself only holds the number of imported rows and the revision that imported the last of them,
+ *     so that it is cheap to write after each chunk and cheap to read when polling for progress.  The IRIs of the
+ *     entities that were created for the labels in the imported rows are appended to a separate entities file, so
+ *     that a label that is used in more than one chunk of rows refers to the same entity.  Entities are appended
+ *     before the imported row count is updated.  If the import fails in between then the rows are imported again
+ *     when the import is resumed, but they refer to the same entities and so do not change the project.
+ * </p>
+ */
+public class CSVImportCheckpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(CSVImportCheckpoint.class);
+
+    private static final String CHECKPOINT_FILE_NAME_SUFFIX = ".import-checkpoint";
+
+    private static final String ENTITIES_FILE_NAME_SUFFIX = ".import-entities";
+
+    private static final String PROJECT_ID_KEY = "projectId";
+
+    private static final String IMPORT_KEY = "import";
+
+    private static final String IMPORTED_ROW_COUNT_KEY = "importedRowCount";
+
+    private static final String IMPORTED_REVISION_KEY = "importedRevision";
+
+    private final File checkpointFile;
+
+    private final File entitiesFile;
+
+    private final ProjectId projectId;
+
+    /**
+     * Identifies the import.  This is {@code null} for a checkpoint that is only used to read progress.
+     */
+    @Nullable
+    private final String importKey;
+
+    public CSVImportCheckpoint(@Nonnull File csvFile,
+                               @Nonnull ProjectId projectId,
+                               @Nonnull OWLClass importRootClass,
+                               @Nonnull CSVImportDescriptor descriptor) {
+        this(csvFile, projectId, getImportKey(importRootClass, descriptor));
+    }
+
+    private CSVImportCheckpoint(@Nonnull File csvFile, @Nonnull ProjectId projectId, @Nullable String importKey) {
+        this.checkpointFile = new File(csvFile.getParentFile(), csvFile.getName() + CHECKPOINT_FILE_NAME_SUFFIX);
+        this.entitiesFile = new File(csvFile.getParentFile(), csvFile.getName() + ENTITIES_FILE_NAME_SUFFIX);
+        this.projectId = checkNotNull(projectId);
+        this.importKey = importKey;
+    }
+
+    /**
+     * Gets a checkpoint that can be used to read the progress of any import of the specified csv file into
+     * the specified project.
+     */
+    @Nonnull
+    public static CSVImportCheckpoint forProgress(@Nonnull File csvFile, @Nonnull ProjectId projectId) {
+        return new CSVImportCheckpoint(csvFile, projectId, null);
+    }
+
+    /**
+     * Gets the number of rows that have been imported.
+     * @return The number of rows, or zero if there is no checkpoint for this import.
+     */
+    public synchronized int getImportedRowCount() {
+        String rowCount = load().getProperty(IMPORTED_ROW_COUNT_KEY, "0");
+        try {
+            return Integer.parseInt(rowCount);
+        } catch (NumberFormatException e) {
+            logger.warn("Could not read csv import checkpoint {}: {}", checkpointFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the revision that imported the last of the imported rows.
+     * @return The revision number.  An absent value if there is no checkpoint for this import.
+     */
+    @Nonnull
+    public synchronized Optional<RevisionNumber> getImportedRevision() {
+        String revision = load().getProperty(IMPORTED_REVISION_KEY);
+        if (revision == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(RevisionNumber.getRevisionNumber(Long.parseLong(revision)));
+        } catch (NumberFormatException e) {
+            logger.warn("Could not read csv import checkpoint {}: {}", checkpointFile, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Gets the IRIs of the entities that were created for labels in the rows that have been imported.
+     * @return A map from label to entity IRI.  Empty if no entities have been recorded for this import.
+     */
+    @Nonnull
+    public synchronized Map<String, IRI> getImportedEntities() {
+        Map<String, IRI> entities = new HashMap<>();
+        if (!entitiesFile.exists()) {
+            return entities;
+        }
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(entitiesFile)))) {
+            if (!isEntitiesFileHeader(inputStream)) {
+                return entities;
+            }
+            while (true) {
+                String label = inputStream.readUTF();
+                String iri = inputStream.readUTF();
+                entities.put(label, IRI.create(iri));
+            }
+        } catch (EOFException e) {
+            // End of the file, or an entity that was only partly appended
+            return entities;
+        } catch (IOException e) {
+            logger.warn("Could not read csv import entities {}: {}", entitiesFile, e.getMessage());
+            return entities;
+        }
+    }
+
+    /**
+     * Reads the header of the entities file, which identifies the import that the entities were created by.
+     * @return {@code true} if the entities were created by this import, otherwise {@code false}.
+     */
+    private boolean isEntitiesFileHeader(DataInputStream inputStream) throws IOException {
+        return projectId.getId().equals(inputStream.readUTF()) && inputStream.readUTF().equals(importKey);
+    }
+
+    /**
+     * Records that further rows have been imported.
+     * @param importedRowCount The total number of rows that have been imported.  Not negative.
+     * @param importedRevision The revision that imported the last of the rows.
+     * @param createdEntities A map from label to the IRI of the entity that was created for that label in the rows
+     *                        that have been imported since the checkpoint was last updated.  These are appended to
+     *                        the entities that have already been recorded.
+     * @throws IOException If the checkpoint could not be written.
+     */
+    public synchronized void setImportedRowCount(int importedRowCount,
+                                                 @Nonnull RevisionNumber importedRevision,
+                                                 @Nonnull Map<String, IRI> createdEntities) throws IOException {
+        checkArgument(importedRowCount >= 0);
+        checkNotNull(importedRevision);
+        checkState(importKey != null, "A checkpoint for reading progress cannot be written");
+        if (!createdEntities.isEmpty()) {
+            boolean append = isEntitiesFileForThisImport();
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(entitiesFile, append)))) {
+                if (!append) {
+                    outputStream.writeUTF(projectId.getId());
+                    outputStream.writeUTF(importKey);
+                }
+                for (Map.Entry<String, IRI> entry : createdEntities.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeUTF(entry.getValue().toString());
+                }
+            }
+        }
+        Properties properties = new Properties();
+        properties.setProperty(PROJECT_ID_KEY, projectId.getId());
+        properties.setProperty(IMPORT_KEY, importKey);
+        properties.setProperty(IMPORTED_ROW_COUNT_KEY, Integer.toString(importedRowCount));
+        properties.setProperty(IMPORTED_REVISION_KEY, Long.toString(importedRevision.getValue()));
+        store(properties);
+    }
+
+    private boolean isEntitiesFileForThisImport() {
+        if (!entitiesFile.exists()) {
+            return false;
+        }
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(entitiesFile)))) {
+            return isEntitiesFileHeader(inputStream);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void store(Properties properties) throws IOException {
+        // Write to a temporary file and then move it into place so that a partially written checkpoint is never read
+        File tmpFile = new File(checkpointFile.getParentFile(), checkpointFile.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmpFile), StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            throw new IOException("Could not replace csv import checkpoint " + checkpointFile);
+        }
+        if (!tmpFile.renameTo(checkpointFile)) {
+            throw new IOException("Could not write csv import checkpoint " + checkpointFile);
+        }
+    }
+
+    /**
+     * Loads the checkpoint properties.
+     * @return The properties.  Empty if there is no checkpoint for this import.
+     */
+    private Properties load() {
+        Properties properties = new Properties();
+        if (!checkpointFile.exists()) {
+            return properties;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(checkpointFile), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            logger.warn("Could not read csv import checkpoint {}: {}", checkpointFile, e.getMessage());
+            return new Properties();
+        }
+        if (!projectId.getId().equals(properties.getProperty(PROJECT_ID_KEY))) {
+            return new Properties();
+        }
+        if (importKey != null && !importKey.equals(properties.getProperty(IMPORT_KEY))) {
+            return new Properties();
+        }
+        return properties;
+    }
+
+    /**
+     * Removes the checkpoint and the recorded entities.  This should be called when an import has completed.
+     */
+    public synchronized void clear() {
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            logger.warn("Could not delete csv import checkpoint {}", checkpointFile);
+        }
+        if (entitiesFile.exists() && !entitiesFile.delete()) {
+            logger.warn("Could not delete csv import entities {}", entitiesFile);
+        }
+    }
+
+    private static String getImportKey(OWLClass importRootClass,
+                                       CSVImportDescriptor descriptor) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(importRootClass.getIRI());
+        sb.append("|").append(descriptor.getRowImportType().name());
+        sb.append("|").append(descriptor.getDisplayNameColumnIndex());
+        for (CSVColumnDescriptor columnDescriptor : descriptor.getColumnDescriptors()) {
+            sb.append("|").append(columnDescriptor.getColumnIndex());
+            sb.append(",").append(columnDescriptor.getColumnProperty().getIRI());
+            sb.append(",").append(columnDescriptor.getColumnType().name());
+        }
+        return sb.toString();
+    }
+}
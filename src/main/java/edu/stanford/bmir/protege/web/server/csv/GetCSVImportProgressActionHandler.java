@@ -0,0 +1,54 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.inject.UploadsDirectory;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.csv.GetCSVImportProgressAction;
+import edu.stanford.bmir.protege.web.shared.csv.GetCSVImportProgressResult;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.io.File;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.EDIT_ONTOLOGY;
+
+public class GetCSVImportProgressActionHandler extends AbstractHasProjectActionHandler<GetCSVImportProgressAction, GetCSVImportProgressResult> {
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final File uploadsDirectory;
+
+    @Inject
+    public GetCSVImportProgressActionHandler(@Nonnull AccessManager accessManager,
+                                             @Nonnull ProjectId projectId,
+                                             @Nonnull @UploadsDirectory File uploadsDirectory) {
+        super(accessManager);
+        this.projectId = checkNotNull(projectId);
+        this.uploadsDirectory = checkNotNull(uploadsDirectory);
+    }
+
+    @Override
+    public Class<GetCSVImportProgressAction> getActionClass() {
+        return GetCSVImportProgressAction.class;
+    }
+
+    @Nullable
+    @Override
+    protected BuiltInAction getRequiredExecutableBuiltInAction() {
+        return EDIT_ONTOLOGY;
+    }
+
+    @Override
+    public GetCSVImportProgressResult execute(GetCSVImportProgressAction action, ExecutionContext executionContext) {
+        File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
+        CSVImportCheckpoint checkpoint = CSVImportCheckpoint.forProgress(file, projectId);
+        return new GetCSVImportProgressResult(checkpoint.getImportedRowCount());
+    }
+}
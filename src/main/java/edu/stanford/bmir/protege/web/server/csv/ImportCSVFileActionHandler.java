@@ -2,11 +2,11 @@ package edu.stanford.bmir.protege.web.server.csv;
 
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.change.*;
-import edu.stanford.bmir.protege.web.server.dispatch.AbstractProjectChangeHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
-import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.inject.UploadsDirectory;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.csv.CSVGrid;
 import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileAction;
@@ -14,12 +14,21 @@ import edu.stanford.bmir.protege.web.shared.csv.ImportCSVFileResult;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
 import edu.stanford.bmir.protege.web.shared.events.EventList;
 import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.EDIT_ONTOLOGY;
 import static java.util.Collections.singletonList;
@@ -29,8 +38,33 @@ import static java.util.Collections.singletonList;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 31/05/2013
+ * <p>
+ *     Imports a csv file a chunk of rows at a time.  The changes for each chunk are applied as a separate revision,
+ *     so only one chunk of rows, and the changes for that chunk, are held in memory at any one time and other edits
+ *     to the project can be interleaved with the import.  After each chunk is applied the number of imported rows
+ *     is recorded in a {@link CSVImportCheckpoint}.  If the import fails then importing the same file again resumes
+ *     the import after the last chunk that was applied.
+ * </p>
+ * <p>
+ *     The entities that are created for labels are recorded by the checkpoint, so that a label that is used in
+ *     more than one chunk refers to the same entity.  The checkpoint is only written between revisions, never
+ *     while a revision is being committed.
+ * </p>
  */
-public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Integer,ImportCSVFileAction, ImportCSVFileResult> {
+public class ImportCSVFileActionHandler extends AbstractHasProjectActionHandler<ImportCSVFileAction, ImportCSVFileResult> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportCSVFileActionHandler.class);
+
+    /**
+     * The maximum number of rows that are imported in a single revision.
+     */
+    public static final int CHUNK_SIZE = 1000;
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final HasApplyChanges applyChanges;
 
     @Nonnull
     private final File uploadsDirectory;
@@ -41,17 +75,24 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
     @Nonnull
     private final OWLDataFactory dataFactory;
 
+    @Nonnull
+    private final RevisionManager revisionManager;
+
     @Inject
     public ImportCSVFileActionHandler(@Nonnull AccessManager accessManager,
-                                      @Nonnull EventManager<ProjectEvent<?>> eventManager,
+                                      @Nonnull ProjectId projectId,
                                       @Nonnull HasApplyChanges applyChanges,
                                       @Nonnull @UploadsDirectory File uploadsDirectory,
                                       @Nonnull @RootOntology OWLOntology rootOntology,
-                                      @Nonnull OWLDataFactory dataFactory) {
-        super(accessManager, eventManager, applyChanges);
+                                      @Nonnull OWLDataFactory dataFactory,
+                                      @Nonnull RevisionManager revisionManager) {
+        super(accessManager);
+        this.projectId = projectId;
+        this.applyChanges = applyChanges;
         this.uploadsDirectory = uploadsDirectory;
         this.rootOntology = rootOntology;
         this.dataFactory = dataFactory;
+        this.revisionManager = revisionManager;
     }
 
     @Override
@@ -59,47 +100,96 @@ public class ImportCSVFileActionHandler extends AbstractProjectChangeHandler<Int
         return ImportCSVFileAction.class;
     }
 
+    @Nonnull
     @Override
-    protected ChangeListGenerator<Integer> getChangeListGenerator(ImportCSVFileAction action,
-                                                                  ExecutionContext executionContext) {
-        CSVGrid csvGrid = parseCSVGrid(action);
-        return new ImportCSVFileChangeListGenerator(action.getImportRootClass(),
-                                                    csvGrid, action.getDescriptor(),
-                                                    rootOntology,
-                                                    dataFactory);
+    protected Iterable<BuiltInAction> getRequiredExecutableBuiltInActions() {
+        return singletonList(EDIT_ONTOLOGY);
     }
 
-    private CSVGrid parseCSVGrid(ImportCSVFileAction action) {
-        try {
-            CSVGridParser parser = new CSVGridParser();
-            final File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
-            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "utf-8"));
-            CSVGrid grid = parser.readAll(reader);
-            reader.close();
-            return grid;
+    @Override
+    public ImportCSVFileResult execute(ImportCSVFileAction action, ExecutionContext executionContext) {
+        final File file = new File(uploadsDirectory, action.getDocumentId().getDocumentId());
+        CSVImportCheckpoint checkpoint = new CSVImportCheckpoint(file,
+                                                                 projectId,
+                                                                 action.getImportRootClass(),
+                                                                 action.getDescriptor());
+        int importedRowCount = checkpoint.getImportedRowCount();
+        Optional<RevisionNumber> importedRevision = checkpoint.getImportedRevision();
+        if (importedRevision.isPresent() && !revisionManager.getRevisionSummary(importedRevision.get()).isPresent()) {
+            // The checkpoint is ahead of the change history
+            logger.warn("{} Ignoring the checkpoint of csv file {} because revision {} does not exist",
+                        projectId,
+                        action.getDocumentId().getDocumentId(),
+                        importedRevision.get());
+            checkpoint.clear();
+            importedRowCount = 0;
+        }
+        Map<String, IRI> importedEntities = checkpoint.getImportedEntities();
+        if (importedRowCount > 0) {
+            logger.info("{} Resuming import of csv file {} after row {}",
+                        projectId,
+                        action.getDocumentId().getDocumentId(),
+                        importedRowCount);
+        }
+        try (CSVChunkReader reader = new CSVChunkReader(new BufferedReader(new InputStreamReader(new FileInputStream(file),
+                                                                                                 StandardCharsets.UTF_8)))) {
+            reader.skip(importedRowCount);
+            Map<String, IRI> createdEntities = new HashMap<>();
+            while (true) {
+                CSVGrid chunk = reader.readChunk(CHUNK_SIZE);
+                if (chunk.getRowCount() == 0) {
+                    break;
+                }
+                ChangeApplicationResult<Integer> result = importChunk(action,
+                                                                      executionContext,
+                                                                      chunk,
+                                                                      importedRowCount,
+                                                                      importedEntities,
+                                                                      createdEntities);
+                importedRowCount += chunk.getRowCount();
+                if (result.getRevisionNumber().isPresent()) {
+                    checkpoint.setImportedRowCount(importedRowCount, result.getRevisionNumber().get(), createdEntities);
+                }
+                importedEntities.putAll(createdEntities);
+                createdEntities.clear();
+            }
         }
         catch (IOException e) {
             throw new RuntimeException(e);
         }
+        checkpoint.clear();
+        return new ImportCSVFileResult(new EventList<ProjectEvent<?>>(EventTag.get(0), EventTag.get(1)), importedRowCount);
     }
 
-    @Override
-    protected ChangeDescriptionGenerator<Integer> getChangeDescription(ImportCSVFileAction action,
-                                                                       ExecutionContext executionContext) {
-        return new FixedMessageChangeDescriptionGenerator<>("Imported CSV File");
+    /**
+     * Applies the changes that import a chunk of rows.
+     * @param createdEntities A map that the entities that were created for labels in the chunk are added to.
+     * @return The result of applying the changes.
+     */
+    private ChangeApplicationResult<Integer> importChunk(ImportCSVFileAction action,
+                                                         ExecutionContext executionContext,
+                                                         CSVGrid chunk,
+                                                         int importedRowCount,
+                                                         Map<String, IRI> importedEntities,
+                                                         Map<String, IRI> createdEntities) {
+        ImportCSVFileChangeListGenerator changeListGenerator = new ImportCSVFileChangeListGenerator(
+                action.getImportRootClass(),
+                chunk,
+                action.getDescriptor(),
+                rootOntology,
+                dataFactory,
+                importedEntities);
+        String description = getChangeDescription(importedRowCount, importedRowCount + chunk.getRowCount());
+        ChangeApplicationResult<Integer> result = applyChanges.applyChanges(executionContext.getUserId(),
+                                                                            changeListGenerator,
+                                                                            new FixedMessageChangeDescriptionGenerator<>(description));
+        createdEntities.putAll(changeListGenerator.getCreatedEntities(result.getRenameMap()));
+        // The imported row count must not get ahead of the change history
+        result.getRevisionNumber().ifPresent(revisionManager::awaitPersisted);
+        return result;
     }
 
-    @Override
-    protected ImportCSVFileResult createActionResult(ChangeApplicationResult<Integer> changeApplicationResult,
-                                                     ImportCSVFileAction action,
-                                                     ExecutionContext executionContext,
-                                                     EventList<ProjectEvent<?>> eventList) {
-        return new ImportCSVFileResult(new EventList<ProjectEvent<?>>(EventTag.get(0), EventTag.get(1)), changeApplicationResult.getSubject().get());
-    }
-
-    @Nonnull
-    @Override
-    protected Iterable<BuiltInAction> getRequiredExecutableBuiltInActions() {
-        return singletonList(EDIT_ONTOLOGY);
+    private static String getChangeDescription(int importedRowCount, int pendingRowCount) {
+        return String.format("Imported CSV File (rows %d to %d)", importedRowCount + 1, pendingRowCount);
     }
 }
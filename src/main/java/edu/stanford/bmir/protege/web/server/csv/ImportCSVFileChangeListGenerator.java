@@ -11,7 +11,7 @@ import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.Optional;
+import java.util.*;
 
 import static org.semanticweb.owlapi.model.EntityType.CLASS;
 
@@ -21,6 +21,12 @@ import static org.semanticweb.owlapi.model.EntityType.CLASS;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 31/05/2013
+ * <p>
+ *     Generates the changes that import a chunk of rows.  Labels that entities were created for in earlier chunks
+ *     refer to those entities.  Fresh entities are used for other labels.  Once the changes have been applied the
+ *     IRIs that these were renamed to can be obtained with {@link #getCreatedEntities(RenameMap)}, so that later
+ *     chunks can refer to them.
+ * </p>
  */
 public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Integer>, SilentChangeListGenerator {
 
@@ -40,22 +46,37 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     @Nonnull
     private final OWLDataFactory dataFactory;
 
+    @Nonnull
+    private final Map<String, IRI> importedEntities;
+
+    /**
+     * The labels that fresh entities were used for in the generated changes.
+     */
+    private final Set<String> freshLabels = new HashSet<>();
 
+
+    /**
+     * @param importedEntities A map from label to the IRI of the entity that was created for that label in an
+     *                         earlier chunk of rows.
+     */
     @Inject
     public ImportCSVFileChangeListGenerator(@Nonnull OWLClass importRootClass,
                                             @Nonnull CSVGrid csvGrid,
                                             @Nonnull CSVImportDescriptor descriptor,
                                             @Nonnull OWLOntology rootOntology,
-                                            @Nonnull OWLDataFactory dataFactory) {
+                                            @Nonnull OWLDataFactory dataFactory,
+                                            @Nonnull Map<String, IRI> importedEntities) {
         this.importRootClass = importRootClass;
         this.csvGrid = csvGrid;
         this.descriptor = descriptor;
         this.rootOntology = rootOntology;
         this.dataFactory = dataFactory;
+        this.importedEntities = importedEntities;
     }
 
     @Override
     public OntologyChangeList<Integer> generateChanges(ChangeGenerationContext context) {
+        freshLabels.clear();
         OntologyChangeList.Builder<Integer> changesBuilder = new OntologyChangeList.Builder<Integer>();
         for (CSVRow row : csvGrid.getRows()) {
             for (CSVColumnDescriptor columnDescriptor : descriptor.getColumnDescriptors()) {
@@ -84,7 +105,7 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
                             OWLAnnotationProperty property = (OWLAnnotationProperty) columnDescriptor.getColumnProperty();
                             final Optional<? extends OWLAnnotationValue> annotationValue = getColumnValueAsAnnotationValue(value, columnType);
                             if (annotationValue.isPresent()) {
-                                final IRI rowIRI = DataFactory.getFreshOWLEntityIRI(displayName);
+                                final IRI rowIRI = getEntityIRI(displayName);
                                 changesBuilder.addAxiom(rootOntology, dataFactory.getOWLAnnotationAssertionAxiom(property, rowIRI, annotationValue.get()));
                             }
                         }
@@ -100,10 +121,10 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     private OWLAxiom getPlacementAxiom(String displayName) {
         OWLAxiom placementAxiom;
         if(descriptor.getRowImportType() == CSVRowImportType.CLASS) {
-            placementAxiom = dataFactory.getOWLSubClassOfAxiom(DataFactory.getFreshOWLEntity(CLASS, displayName), importRootClass);
+            placementAxiom = dataFactory.getOWLSubClassOfAxiom(getEntity(CLASS, displayName), importRootClass);
         }
         else {
-            placementAxiom = dataFactory.getOWLClassAssertionAxiom(importRootClass, DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, displayName));
+            placementAxiom = dataFactory.getOWLClassAssertionAxiom(importRootClass, getEntity(EntityType.NAMED_INDIVIDUAL, displayName));
         }
         return placementAxiom;
     }
@@ -114,11 +135,11 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
         }
         OWLClassExpression superCls;
         if (columnType == ColumnType.CLASS) {
-            final OWLClass filler = DataFactory.getFreshOWLEntity(CLASS, value);
+            final OWLClass filler = getEntity(CLASS, value);
             superCls = dataFactory.getOWLObjectSomeValuesFrom(columnProperty, filler);
         }
         else if (columnType == ColumnType.NAMED_INDIVIDUAL) {
-            final OWLNamedIndividual filler = DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, value);
+            final OWLNamedIndividual filler = getEntity(EntityType.NAMED_INDIVIDUAL, value);
             superCls = dataFactory.getOWLObjectHasValue(columnProperty, filler);
         }
         else {
@@ -130,10 +151,10 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
     private Optional<? extends OWLAnnotationValue> getColumnValueAsAnnotationValue(String value, ColumnType columnType) {
         Optional<? extends OWLAnnotationValue> annotationValue;
         if (columnType == ColumnType.CLASS) {
-            annotationValue = Optional.of(DataFactory.getFreshOWLEntityIRI(value));
+            annotationValue = Optional.of(getEntityIRI(value));
         }
         else if (columnType == ColumnType.NAMED_INDIVIDUAL) {
-            annotationValue = Optional.of(DataFactory.getFreshOWLEntityIRI(value));
+            annotationValue = Optional.of(getEntityIRI(value));
         }
         else {
             annotationValue = getColumnValueAsLiteral(value, columnType);
@@ -166,17 +187,48 @@ public class ImportCSVFileChangeListGenerator implements ChangeListGenerator<Int
 
     private OWLAxiom getAxiom(String rowEntityDisplayName, CSVColumnDescriptor columnDescriptor, OWLClassExpression superCls) {
         if (descriptor.getRowImportType() == CSVRowImportType.CLASS) {
-            OWLClass rowCls = DataFactory.getFreshOWLEntity(CLASS, rowEntityDisplayName);
+            OWLClass rowCls = getEntity(CLASS, rowEntityDisplayName);
             return dataFactory.getOWLSubClassOfAxiom(rowCls, superCls);
         }
         else {
-            OWLNamedIndividual rowInd = DataFactory.getFreshOWLEntity(EntityType.NAMED_INDIVIDUAL, rowEntityDisplayName);
+            OWLNamedIndividual rowInd = getEntity(EntityType.NAMED_INDIVIDUAL, rowEntityDisplayName);
             return dataFactory.getOWLClassAssertionAxiom(superCls, rowInd);
         }
     }
 
+    private IRI getEntityIRI(String label) {
+        IRI importedEntityIRI = importedEntities.get(label);
+        if (importedEntityIRI != null) {
+            return importedEntityIRI;
+        }
+        freshLabels.add(label);
+        return DataFactory.getFreshOWLEntityIRI(label);
+    }
+
+    private <E extends OWLEntity> E getEntity(EntityType<E> entityType, String label) {
+        return dataFactory.getOWLEntity(entityType, getEntityIRI(label));
+    }
+
     @Override
     public Integer getRenamedResult(Integer result, RenameMap renameMap) {
         return result;
     }
+
+    /**
+     * Gets the entities that were created for labels when the generated changes were applied.
+     * @param renameMap The rename map of the applied changes.
+     * @return A map from label to the IRI of the entity that was created for that label.
+     */
+    @Nonnull
+    public Map<String, IRI> getCreatedEntities(@Nonnull RenameMap renameMap) {
+        Map<String, IRI> createdEntities = new HashMap<>();
+        for (String label : freshLabels) {
+            OWLClass freshEntity = DataFactory.getFreshOWLEntity(CLASS, label);
+            OWLClass createdEntity = renameMap.getRenamedEntity(freshEntity);
+            if (!createdEntity.equals(freshEntity)) {
+                createdEntities.put(label, createdEntity.getIRI());
+            }
+        }
+        return createdEntities;
+    }
 }
@@ -49,6 +49,11 @@ public class ActionHandlersModule {
         return handler;
     }
 
+    @Provides(type = SET)
+    public ApplicationActionHandler provideGetProjectOpenStatusActionHandler(GetProjectOpenStatusActionHandler handler) {
+        return handler;
+    }
+
     @Provides(type = SET)
     public ApplicationActionHandler provideCreateNewProjectActionHandler(CreateNewProjectActionHandler handler) {
         return handler;
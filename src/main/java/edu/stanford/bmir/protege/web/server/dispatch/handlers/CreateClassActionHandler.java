@@ -21,8 +21,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.CREATE_CLASS;
@@ -96,22 +98,14 @@ public class CreateClassActionHandler extends AbstractProjectChangeHandler<OWLCl
     }
 
     private ObjectPath<OWLClass> getPathToRoot(OWLClass subClass, OWLClass superClass) {
-        Set<List<OWLClass>> paths = classHierarchyProvider.getPathsToRoot(subClass);
-        if(paths.isEmpty()) {
-            logger.info("[WARNING] Path to root not found for SubClass: %s and SuperClass: %", superClass);
+        Optional<List<OWLClass>> pathToSuperClass = classHierarchyProvider.getShortestPathToRoot(superClass);
+        if(!pathToSuperClass.isPresent()) {
+            logger.info("[WARNING] Path to root not found for SubClass: {} and SuperClass: {}", subClass, superClass);
             return new ObjectPath<>();
         }
-        ObjectPath<OWLClass> pathToRoot = null;
-        for(List<OWLClass> path : paths) {
-            if(path.size() > 1 && path.get(path.size() - 2).equals(superClass)) {
-                pathToRoot = new ObjectPath<>(path);
-                break;
-            }
-        }
-        if(pathToRoot == null) {
-            pathToRoot = new ObjectPath<>();
-        }
-        return pathToRoot;
+        List<OWLClass> path = new ArrayList<>(pathToSuperClass.get());
+        path.add(subClass);
+        return new ObjectPath<>(path);
     }
 
 
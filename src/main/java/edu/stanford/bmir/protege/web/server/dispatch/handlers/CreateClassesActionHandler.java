@@ -80,12 +80,12 @@ public class CreateClassesActionHandler extends AbstractHasProjectActionHandler<
 
     @Override
     public CreateClassesResult execute(CreateClassesAction action, ExecutionContext executionContext) {
-        Set<List<OWLClass>> paths = classHierarchyProvider.getPathsToRoot(action.getSuperClass());
-        if(paths.isEmpty()) {
+        Optional<List<OWLClass>> path = classHierarchyProvider.getShortestPathToRoot(action.getSuperClass());
+        if(!path.isPresent()) {
             throw new IllegalStateException("Class does not exist in hierarchy: " + renderingManager
                                                                                            .getBrowserText(action.getSuperClass()));
         }
-        ObjectPath<OWLClass> pathToRoot = new ObjectPath<OWLClass>(paths.iterator().next());
+        ObjectPath<OWLClass> pathToRoot = new ObjectPath<OWLClass>(path.get());
 
         final CreateClassesChangeGenerator gen = new CreateClassesChangeGenerator(action.getBrowserTexts(),
                                                                                   Optional.of(action.getSuperClass()),
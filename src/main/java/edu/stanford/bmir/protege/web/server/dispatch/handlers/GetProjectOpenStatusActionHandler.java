@@ -0,0 +1,69 @@
+package edu.stanford.bmir.protege.web.server.dispatch.handlers;
+
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.dispatch.ApplicationActionHandler;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.dispatch.RequestContext;
+import edu.stanford.bmir.protege.web.server.dispatch.RequestValidator;
+import edu.stanford.bmir.protege.web.server.dispatch.validators.ProjectPermissionValidator;
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.server.project.ProjectOpenStatusTracker;
+import edu.stanford.bmir.protege.web.shared.project.GetProjectOpenStatusAction;
+import edu.stanford.bmir.protege.web.shared.project.GetProjectOpenStatusResult;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenPhase;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.VIEW_PROJECT;
+
+public class GetProjectOpenStatusActionHandler implements ApplicationActionHandler<GetProjectOpenStatusAction, GetProjectOpenStatusResult> {
+
+    @Nonnull
+    private final AccessManager accessManager;
+
+    @Nonnull
+    private final ProjectOpenStatusTracker statusTracker;
+
+    @Nonnull
+    private final ProjectManager projectManager;
+
+    @Inject
+    public GetProjectOpenStatusActionHandler(@Nonnull AccessManager accessManager,
+                                             @Nonnull ProjectOpenStatusTracker statusTracker,
+                                             @Nonnull ProjectManager projectManager) {
+        this.accessManager = checkNotNull(accessManager);
+        this.statusTracker = checkNotNull(statusTracker);
+        this.projectManager = checkNotNull(projectManager);
+    }
+
+    @Override
+    public Class<GetProjectOpenStatusAction> getActionClass() {
+        return GetProjectOpenStatusAction.class;
+    }
+
+    @Override
+    public RequestValidator getRequestValidator(GetProjectOpenStatusAction action, RequestContext requestContext) {
+        return new ProjectPermissionValidator(accessManager,
+                                              action.getProjectId(),
+                                              requestContext.getUserId(),
+                                              VIEW_PROJECT.getActionId());
+    }
+
+    @Override
+    public GetProjectOpenStatusResult execute(GetProjectOpenStatusAction action, ExecutionContext executionContext) {
+        ProjectId projectId = action.getProjectId();
+        ProjectOpenStatus status = statusTracker.getStatus(projectId).orElseGet(() -> {
+            if (projectManager.isActive(projectId)) {
+                return ProjectOpenStatus.get(ProjectOpenPhase.OPEN);
+            }
+            else {
+                return ProjectOpenStatus.get(ProjectOpenPhase.NOT_OPEN);
+            }
+        });
+        return new GetProjectOpenStatusResult(status);
+    }
+}
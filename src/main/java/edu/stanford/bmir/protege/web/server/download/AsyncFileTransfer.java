@@ -0,0 +1,146 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import com.google.common.base.Stopwatch;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Matthew Horridge
+ * Stanford Center for Biomedical Informatics Research
+ * 14 Apr 2017
+ *
+ * Sends a file to the browser/client using non-blocking servlet output.  Data is only read from the file
+ * when the container can accept more output, so no thread is held while the client is slow to receive the
+ * file.  The asynchronous request is completed once the file has been sent or the transfer fails.
+ */
+class AsyncFileTransfer implements WriteListener {
+
+    private static Logger logger = LoggerFactory.getLogger(AsyncFileTransfer.class);
+
+    private static final String MIME_TYPE = "application/zip";
+
+    private static final String CONTENT_DISPOSITION_HEADER_FIELD = "Content-Disposition";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ProjectId projectId;
+
+    private final UserId userId;
+
+    private final AsyncContext asyncContext;
+
+    private final InputStream inputStream;
+
+    private final ServletOutputStream outputStream;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private final String formattedSize;
+
+    private final Stopwatch stopwatch = Stopwatch.createStarted();
+
+    private boolean finished = false;
+
+    private AsyncFileTransfer(@Nonnull ProjectId projectId,
+                              @Nonnull UserId userId,
+                              @Nonnull AsyncContext asyncContext,
+                              @Nonnull InputStream inputStream,
+                              @Nonnull ServletOutputStream outputStream,
+                              @Nonnull String formattedSize) {
+        this.projectId = checkNotNull(projectId);
+        this.userId = checkNotNull(userId);
+        this.asyncContext = checkNotNull(asyncContext);
+        this.inputStream = checkNotNull(inputStream);
+        this.outputStream = checkNotNull(outputStream);
+        this.formattedSize = checkNotNull(formattedSize);
+    }
+
+    /**
+     * Starts transferring the specified file after setting the mime type, name and content length.
+     * @param fileToTransfer The file to transfer.
+     * @param clientSideFileName The name of the file that should be created on the client side.
+     * @param asyncContext The asynchronous context of the request.  This will be completed when the transfer
+     *                     finishes.
+     */
+    public static void start(@Nonnull ProjectId projectId,
+                             @Nonnull UserId userId,
+                             @Nonnull Path fileToTransfer,
+                             @Nonnull String clientSideFileName,
+                             @Nonnull AsyncContext asyncContext) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+        long size = Files.size(fileToTransfer);
+        response.setContentType(MIME_TYPE);
+        response.setHeader(CONTENT_DISPOSITION_HEADER_FIELD, "attachment; filename=\"" + clientSideFileName + "\"");
+        response.setContentLengthLong(size);
+        String formattedSize = String.format("%.4f", size / (1024.0 * 1024));
+        logger.info("{} {} Transferring {} MB download to client", projectId, userId, formattedSize);
+        InputStream inputStream = Files.newInputStream(fileToTransfer);
+        try {
+            ServletOutputStream outputStream = response.getOutputStream();
+            outputStream.setWriteListener(new AsyncFileTransfer(projectId,
+                                                                userId,
+                                                                asyncContext,
+                                                                inputStream,
+                                                                outputStream,
+                                                                formattedSize));
+        } catch (IOException | RuntimeException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        try {
+            while (outputStream.isReady()) {
+                int read = inputStream.read(buffer);
+                if (read == -1) {
+                    finish();
+                    logger.info("{} {} Finished transferring {} MB to client after {} ms",
+                                projectId,
+                                userId,
+                                formattedSize,
+                                stopwatch.elapsed(MILLISECONDS));
+                    return;
+                }
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        logger.info("{} {} The transfer of the download to the client failed: {}", projectId, userId, t.getMessage());
+        finish();
+    }
+
+    private synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            logger.warn("{} {} Could not close download file: {}", projectId, userId, e.getMessage());
+        }
+        asyncContext.complete();
+    }
+}
@@ -11,14 +11,24 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 14 Apr 2017
+ *
+ * Generates a project download.  The download is written to a temporary file, which is moved into place once it
+ * is complete, so that a partially written download is never mistaken for a generated one.  The number of bytes
+ * written is reported to the {@link ProjectDownload} as the download is generated.
  */
 class CreateDownloadTask implements Callable<Void> {
 
@@ -46,7 +56,7 @@ class CreateDownloadTask implements Callable<Void> {
     private final String applicationName;
 
     @Nonnull
-    private final Path downloadPath;
+    private final ProjectDownload download;
 
     public CreateDownloadTask(@Nonnull ProjectManager projectManager,
                               @Nonnull ProjectId projectId,
@@ -55,7 +65,7 @@ class CreateDownloadTask implements Callable<Void> {
                               @Nonnull RevisionNumber revisionNumber,
                               @Nonnull DownloadFormat format,
                               @Nonnull String applicationName,
-                              @Nonnull Path destinationPath) {
+                              @Nonnull ProjectDownload download) {
         this.projectManager = projectManager;
         this.projectId = projectId;
         this.userId = userId;
@@ -63,11 +73,13 @@ class CreateDownloadTask implements Callable<Void> {
         this.revisionNumber = revisionNumber;
         this.format = format;
         this.applicationName = applicationName;
-        this.downloadPath = destinationPath;
+        this.download = download;
     }
 
     @Override
     public Void call() throws Exception {
+        download.markStarted();
+        Path downloadPath = download.getDownloadPath();
         if(Files.exists(downloadPath)) {
             logger.info("{} {} Project download already exists.  Not recreating download. ({})",
                         projectId,
@@ -87,12 +99,40 @@ class CreateDownloadTask implements Callable<Void> {
                                                              applicationName);
         logger.info("{} {} Writing download to file: {}", projectId, userId, downloadPath);
         Files.createDirectories(downloadPath.getParent());
-        try (BufferedOutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(downloadPath))) {
-            downloader.writeProject(outputStream);
+        Path temporaryPath = downloadPath.resolveSibling(downloadPath.getFileName() + ".tmp");
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(new ProgressOutputStream(Files.newOutputStream(temporaryPath)))) {
+                downloader.writeProject(outputStream);
+            }
+            Files.move(temporaryPath, downloadPath, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
         }
         double sizeInMB = Files.size(downloadPath) / (1024.0 * 1024);
         logger.info("{} {} Finished creating download ({} MB)", projectId, userId, String.format("%.4f", sizeInMB));
         memoryMonitor.monitorMemoryUsage();
         return null;
     }
+
+    /**
+     * Reports the number of bytes that pass through it to the download.
+     */
+    private class ProgressOutputStream extends FilterOutputStream {
+
+        private ProgressOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            download.addBytesWritten(1);
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            download.addBytesWritten(len);
+        }
+    }
 }
@@ -26,6 +26,14 @@ public class FileDownloadParameters {
         this.request = request;
     }
 
+    /**
+     * Determines if this is a request for the state of the generation of a download rather than for the download
+     * itself.
+     */
+    public boolean isStatusRequest() {
+        return request.getParameter(ProjectDownloadConstants.STATUS) != null;
+    }
+
     /**
      * Determines if this is a request for a project download.
      * @return <code>true</code> if this is a request for a project download and the projectId is specified and the
@@ -0,0 +1,95 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import edu.stanford.bmir.protege.web.shared.download.ProjectDownloadState;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A project download that is being generated, or that has been generated, along with its progress.  The
+ * result completes with the path of the generated download.
+ */
+class ProjectDownload {
+
+    private final Path downloadPath;
+
+    private final CompletableFuture<Path> result = new CompletableFuture<>();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private volatile boolean started = false;
+
+    public ProjectDownload(@Nonnull Path downloadPath) {
+        this.downloadPath = checkNotNull(downloadPath);
+    }
+
+    /**
+     * Creates a download that has already been generated.
+     * @param downloadPath The path to the generated download.
+     * @param size The size of the generated download in bytes.
+     */
+    public static ProjectDownload createGeneratedDownload(@Nonnull Path downloadPath, long size) {
+        ProjectDownload download = new ProjectDownload(downloadPath);
+        download.markStarted();
+        download.bytesWritten.set(size);
+        download.result.complete(downloadPath);
+        return download;
+    }
+
+    @Nonnull
+    public Path getDownloadPath() {
+        return downloadPath;
+    }
+
+    /**
+     * Gets the result of generating the download.
+     * @return A future that completes with the path of the download once it has been generated, or that
+     * completes exceptionally if the download could not be generated.
+     */
+    @Nonnull
+    public CompletableFuture<Path> getResult() {
+        return result;
+    }
+
+    @Nonnull
+    public ProjectDownloadState getState() {
+        if (result.isCompletedExceptionally()) {
+            return ProjectDownloadState.FAILED;
+        }
+        else if (result.isDone()) {
+            return ProjectDownloadState.READY;
+        }
+        else if (started) {
+            return ProjectDownloadState.GENERATING;
+        }
+        else {
+            return ProjectDownloadState.QUEUED;
+        }
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    void markStarted() {
+        started = true;
+    }
+
+    void addBytesWritten(long count) {
+        bytesWritten.addAndGet(count);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ProjectDownload")
+                .add("path", downloadPath)
+                .add("state", getState())
+                .add("bytesWritten", getBytesWritten())
+                .toString();
+    }
+}
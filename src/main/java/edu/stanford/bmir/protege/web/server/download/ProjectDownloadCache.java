@@ -3,28 +3,72 @@ package edu.stanford.bmir.protege.web.server.download;
 import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 14 Apr 2017
+ *
+ * The cache of generated project downloads.  The cache is bounded in size.  When it grows beyond its maximum
+ * size the least recently used downloads are evicted.  The last modified time of a cached download is used as
+ * its last access time, so that the order of use survives a restart.  The sizes of the cached downloads are
+ * read from disk once and are then kept up to date as downloads are recorded and evicted, so that the size of the
+ * cache can be obtained without listing the cache directory.
  */
 @ApplicationSingleton
 public class ProjectDownloadCache {
 
+    private static final Logger logger = LoggerFactory.getLogger(ProjectDownloadCache.class);
+
+    private static final long DEFAULT_MAX_SIZE_IN_BYTES = 10L * 1024 * 1024 * 1024;
+
+    private static final String DOWNLOAD_FILE_SUFFIX = ".zip";
 
     private final ProjectDownloadCacheDirectorySupplier resolver;
 
+    private final long maxSizeInBytes;
+
+    private final AtomicLong evictedDownloadCount = new AtomicLong();
+
+    /**
+     * The size of each cached download, or {@code null} if the cache directory has not been read yet.
+     */
+    @Nullable
+    private Map<Path, Long> downloadSizes = null;
+
+    /**
+     * The total size of the cached downloads.
+     */
+    private long sizeOnDisk = 0;
+
     @Inject
     public ProjectDownloadCache(@Nonnull ProjectDownloadCacheDirectorySupplier resolver) {
+        this(resolver, DEFAULT_MAX_SIZE_IN_BYTES);
+    }
+
+    ProjectDownloadCache(@Nonnull ProjectDownloadCacheDirectorySupplier resolver, long maxSizeInBytes) {
+        checkArgument(maxSizeInBytes > 0, "The maximum size of the cache must be greater than zero");
         this.resolver = checkNotNull(resolver);
+        this.maxSizeInBytes = maxSizeInBytes;
     }
 
     /**
@@ -42,13 +86,188 @@ public class ProjectDownloadCache {
                                       @Nonnull RevisionNumber revisionNumber,
                                       @Nonnull DownloadFormat downloadFormat) {
         // If the revision is the head revision then we need to find the real number
-        String fileName = String.format("%s-R%d.%s.zip",
+        String fileName = String.format("%s-R%d.%s%s",
                                         projectId.getId(),
                                         revisionNumber.getValue(),
-                                        downloadFormat.getExtension());
-        String directoryName = projectId.getId();
-        Path relativePath = Paths.get(directoryName, fileName);
-        return resolver.get().resolve(relativePath);
+                                        downloadFormat.getExtension(),
+                                        DOWNLOAD_FILE_SUFFIX);
+        return getProjectDirectory(projectId).resolve(fileName);
+    }
+
+    private Path getProjectDirectory(@Nonnull ProjectId projectId) {
+        return resolver.get().resolve(Paths.get(projectId.getId()));
+    }
+
+    /**
+     * Records that the specified cached download has been used, so that it is not evicted before downloads
+     * that have been used less recently.
+     * @param downloadPath The path to the cached download.
+     */
+    public void recordAccess(@Nonnull Path downloadPath) {
+        try {
+            Files.setLastModifiedTime(downloadPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Could not record access to cached download {}: {}", downloadPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the formats of the downloads, of any revision, that are cached for the specified project.
+     * @param projectId The project.
+     * @return The formats.  Empty if there are no cached downloads for the project.
+     */
+    @Nonnull
+    public Set<DownloadFormat> getCachedDownloadFormats(@Nonnull ProjectId projectId) {
+        Path projectDirectory = getProjectDirectory(projectId);
+        if (!Files.isDirectory(projectDirectory)) {
+            return EnumSet.noneOf(DownloadFormat.class);
+        }
+        Set<DownloadFormat> formats = EnumSet.noneOf(DownloadFormat.class);
+        try (Stream<Path> paths = Files.list(projectDirectory)) {
+            List<String> fileNames = paths.map(path -> path.getFileName().toString())
+                                          .collect(Collectors.toList());
+            for (DownloadFormat format : DownloadFormat.values()) {
+                String formatSuffix = "." + format.getExtension() + DOWNLOAD_FILE_SUFFIX;
+                if (fileNames.stream().anyMatch(fileName -> fileName.endsWith(formatSuffix))) {
+                    formats.add(format);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("{} Could not list cached downloads: {}", projectId, e.getMessage());
+        }
+        return formats;
+    }
+
+    /**
+     * Records that a download has been written to the cache.
+     * @param downloadPath The path to the cached download.
+     */
+    public synchronized void recordDownload(@Nonnull Path downloadPath) {
+        Map<Path, Long> sizes = getDownloadSizes();
+        try {
+            long size = Files.size(downloadPath);
+            Long previousSize = sizes.put(downloadPath, size);
+            sizeOnDisk += size - (previousSize != null ? previousSize : 0);
+        } catch (IOException e) {
+            logger.debug("Could not read size of cached download {}: {}", downloadPath, e.getMessage());
+        }
     }
 
+    /**
+     * Gets the number of bytes that are taken up by cached downloads.
+     */
+    public synchronized long getSizeOnDisk() {
+        getDownloadSizes();
+        return sizeOnDisk;
+    }
+
+    private Map<Path, Long> getDownloadSizes() {
+        if (downloadSizes == null) {
+            setDownloadSizes(getCachedDownloads());
+        }
+        return downloadSizes;
+    }
+
+    private void setDownloadSizes(List<CachedDownload> cachedDownloads) {
+        downloadSizes = new HashMap<>();
+        sizeOnDisk = 0;
+        for (CachedDownload cachedDownload : cachedDownloads) {
+            downloadSizes.put(cachedDownload.getPath(), cachedDownload.getSize());
+            sizeOnDisk += cachedDownload.getSize();
+        }
+    }
+
+    /**
+     * Gets the number of downloads that have been evicted from this cache.
+     */
+    public long getEvictedDownloadCount() {
+        return evictedDownloadCount.get();
+    }
+
+    /**
+     * Evicts the least recently used downloads until the size of the cache is no greater than its maximum size.
+     * @param excludedPaths The paths of downloads that must not be evicted, for example, because they are being
+     *                      generated.
+     */
+    public synchronized void evictLeastRecentlyUsed(@Nonnull Set<Path> excludedPaths) {
+        if (getSizeOnDisk() <= maxSizeInBytes) {
+            return;
+        }
+        // The access times are only held on disk
+        List<CachedDownload> cachedDownloads = getCachedDownloads();
+        setDownloadSizes(cachedDownloads);
+        cachedDownloads.sort(Comparator.comparing(CachedDownload::getLastAccessTime));
+        for (CachedDownload cachedDownload : cachedDownloads) {
+            if (sizeOnDisk <= maxSizeInBytes) {
+                break;
+            }
+            if (excludedPaths.contains(cachedDownload.getPath())) {
+                continue;
+            }
+            try {
+                // A download that is being transferred can still be read after it has been deleted
+                Files.deleteIfExists(cachedDownload.getPath());
+                downloadSizes.remove(cachedDownload.getPath());
+                sizeOnDisk -= cachedDownload.getSize();
+                evictedDownloadCount.incrementAndGet();
+                logger.info("Evicted cached download {} ({} bytes)", cachedDownload.getPath(), cachedDownload.getSize());
+            } catch (IOException e) {
+                logger.warn("Could not evict cached download {}: {}", cachedDownload.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    private List<CachedDownload> getCachedDownloads() {
+        Path cacheDirectory = resolver.get();
+        if (!Files.isDirectory(cacheDirectory)) {
+            return new ArrayList<>();
+        }
+        List<CachedDownload> cachedDownloads = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(cacheDirectory)) {
+            paths.filter(path -> path.getFileName().toString().endsWith(DOWNLOAD_FILE_SUFFIX))
+                 .forEach(path -> {
+                     try {
+                         BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                         if (attributes.isRegularFile()) {
+                             cachedDownloads.add(new CachedDownload(path,
+                                                                    attributes.size(),
+                                                                    attributes.lastModifiedTime()));
+                         }
+                     } catch (IOException e) {
+                         // Removed whilst the cache was being listed
+                         logger.debug("Could not read attributes of cached download {}: {}", path, e.getMessage());
+                     }
+                 });
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not list cached downloads: {}", e.getMessage());
+        }
+        return cachedDownloads;
+    }
+
+    private static class CachedDownload {
+
+        private final Path path;
+
+        private final long size;
+
+        private final FileTime lastAccessTime;
+
+        private CachedDownload(Path path, long size, FileTime lastAccessTime) {
+            this.path = path;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public FileTime getLastAccessTime() {
+            return lastAccessTime;
+        }
+    }
 }
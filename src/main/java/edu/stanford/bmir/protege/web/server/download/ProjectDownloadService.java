@@ -1,11 +1,14 @@
 package edu.stanford.bmir.protege.web.server.download;
 
 import com.google.common.base.Stopwatch;
-import com.google.common.util.concurrent.Striped;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import edu.stanford.bmir.protege.web.server.app.ApplicationNameSupplier;
 import edu.stanford.bmir.protege.web.server.project.ProjectDetailsManager;
 import edu.stanford.bmir.protege.web.server.project.ProjectManager;
 import edu.stanford.bmir.protege.web.server.revision.HeadRevisionNumberFinder;
+import edu.stanford.bmir.protege.web.shared.download.ProjectDownloadState;
 import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
@@ -15,34 +18,57 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashSet;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 14 Apr 2017
+ *
+ * Generates project downloads in the background and sends them to clients.  Generated downloads are cached,
+ * and the least recently used downloads are evicted from the cache once it is full.  A download that has been
+ * reported as ready is pinned in the cache for a short time, so that it is not evicted before the client that
+ * polled for it retrieves it.  The progress of a download that is being generated can be retrieved with
+ * {@link #getDownload(UserId, ProjectId, RevisionNumber, DownloadFormat)}.
  */
 @ApplicationSingleton
 public class ProjectDownloadService {
 
     private static final Logger logger = LoggerFactory.getLogger(ProjectDownloadService.class);
 
-    @Nonnull
-    private final ExecutorService downloadGeneratorExecutor;
+    /**
+     * The time for which a download that has finished being generated is reported in the state that it finished
+     * in, so that clients that poll for the download see that it failed, or that it is ready, without their polls
+     * being counted as further requests.  A failed download is not generated again during this time.
+     */
+    private static final long COMPLETED_DOWNLOAD_RETENTION_MINUTES = 2;
+
+    /**
+     * The time for which a download that has been reported as ready is not evicted from the download cache, so
+     * that the client can retrieve it after it has polled for it.  A download that is being transferred can still
+     * be read after it has been evicted, so this only needs to cover the time until the transfer starts.
+     */
+    private static final long READY_DOWNLOAD_PIN_MINUTES = 2;
 
     @Nonnull
-    private final ExecutorService fileTransferExecutor;
+    private final ExecutorService downloadGeneratorExecutor;
 
     @Nonnull
     private final ProjectManager projectManager;
@@ -59,31 +85,138 @@ public class ProjectDownloadService {
     @Nonnull
     private final HeadRevisionNumberFinder headRevisionNumberFinder;
 
-    private final Striped<Lock> lockStripes = Striped.lazyWeakLock(10);
+    private final ConcurrentMap<Path, ProjectDownload> downloadsInProgress = new ConcurrentHashMap<>();
+
+    private final Cache<Path, ProjectDownload> completedDownloads;
+
+    /**
+     * Downloads that have recently been reported as ready, and that must not be evicted from the download cache.
+     */
+    private final Cache<Path, Path> pinnedDownloads;
+
+    private final LongAdder cacheHitCount = new LongAdder();
+
+    private final LongAdder cacheMissCount = new LongAdder();
+
+    private final LongAdder generatedDownloadCount = new LongAdder();
+
+    private final LongAdder failedDownloadCount = new LongAdder();
+
+    private final LongAdder totalGenerationTime = new LongAdder();
+
+    private final AtomicLong maxGenerationTime = new AtomicLong();
 
     @Inject
     public ProjectDownloadService(@Nonnull @DownloadGeneratorExecutor ExecutorService downloadGeneratorExecutor,
-                                  @Nonnull @FileTransferExecutor ExecutorService fileTransferExecutor,
                                   @Nonnull ProjectManager projectManager,
                                   @Nonnull ProjectDetailsManager projectDetailsManager,
                                   @Nonnull ApplicationNameSupplier applicationNameSupplier,
                                   @Nonnull ProjectDownloadCache projectDownloadCache,
                                   @Nonnull HeadRevisionNumberFinder headRevisionNumberFinder) {
+        this(downloadGeneratorExecutor,
+             projectManager,
+             projectDetailsManager,
+             applicationNameSupplier,
+             projectDownloadCache,
+             headRevisionNumberFinder,
+             Ticker.systemTicker());
+    }
+
+    ProjectDownloadService(@Nonnull ExecutorService downloadGeneratorExecutor,
+                           @Nonnull ProjectManager projectManager,
+                           @Nonnull ProjectDetailsManager projectDetailsManager,
+                           @Nonnull ApplicationNameSupplier applicationNameSupplier,
+                           @Nonnull ProjectDownloadCache projectDownloadCache,
+                           @Nonnull HeadRevisionNumberFinder headRevisionNumberFinder,
+                           @Nonnull Ticker ticker) {
         this.downloadGeneratorExecutor = checkNotNull(downloadGeneratorExecutor);
-        this.fileTransferExecutor = checkNotNull(fileTransferExecutor);
         this.projectManager = checkNotNull(projectManager);
         this.projectDetailsManager = checkNotNull(projectDetailsManager);
         this.applicationNameSupplier = checkNotNull(applicationNameSupplier);
         this.projectDownloadCache = checkNotNull(projectDownloadCache);
         this.headRevisionNumberFinder = checkNotNull(headRevisionNumberFinder);
+        this.completedDownloads = CacheBuilder.newBuilder()
+                                              .expireAfterWrite(COMPLETED_DOWNLOAD_RETENTION_MINUTES, MINUTES)
+                                              .ticker(checkNotNull(ticker))
+                                              .build();
+        this.pinnedDownloads = CacheBuilder.newBuilder()
+                                           .expireAfterWrite(READY_DOWNLOAD_PIN_MINUTES, MINUTES)
+                                           .ticker(ticker)
+                                           .build();
     }
 
+    /**
+     * Sends the specified project revision to the client.  The download is generated if it has not already been
+     * generated.  The request is processed asynchronously, so no request thread is held while the download is
+     * generated or transferred.
+     */
     public void downloadProject(@Nonnull UserId requester,
                                 @Nonnull ProjectId projectId,
                                 @Nonnull RevisionNumber revisionNumber,
                                 @Nonnull DownloadFormat downloadFormat,
-                                @Nonnull HttpServletResponse response) throws IOException {
+                                @Nonnull HttpServletRequest request) throws IOException {
+        // Clients poll for the state of the download before they download it, so the request has already been counted
+        ProjectDownload download = getDownload(requester, projectId, revisionNumber, downloadFormat, false);
+        AsyncContext asyncContext = request.startAsync();
+        // Generating and transferring large projects can take a long time
+        asyncContext.setTimeout(0);
+        download.getResult().whenComplete((downloadPath, error) -> asyncContext.start(() -> {
+            if (error != null) {
+                logger.info("{} {} An exception occurred whilst creating the download.  Cause: {}",
+                            projectId,
+                            requester,
+                            Optional.ofNullable(error.getCause()).map(Throwable::getMessage).orElse(error.getMessage()));
+                sendError(asyncContext);
+                return;
+            }
+            String fileName = getClientSideFileName(projectId, revisionNumber, downloadFormat);
+            try {
+                AsyncFileTransfer.start(projectId, requester, downloadPath, fileName, asyncContext);
+            } catch (IOException | RuntimeException e) {
+                logger.info("{} {} Could not start transferring the download.  Cause: {}",
+                            projectId,
+                            requester,
+                            e.getMessage());
+                sendError(asyncContext);
+            }
+        }));
+    }
+
+    /**
+     * Gets the download of the specified project revision, which holds the state of its generation.  Generation
+     * is started if the download has not already been generated, so that clients can poll for the download to be
+     * ready instead of holding a connection open while it is generated.  A download that failed is returned, in
+     * its failed state, for a short time after it failed so that polling clients stop polling.  After that time
+     * the download is generated again if it is requested.  The request is counted as a cache hit or a cache miss
+     * when it finds a generated download or starts generation.  Polls for a download that is being generated, or
+     * that has just been generated, are not counted.
+     */
+    @Nonnull
+    public ProjectDownload getDownload(@Nonnull UserId requester,
+                                       @Nonnull ProjectId projectId,
+                                       @Nonnull RevisionNumber revisionNumber,
+                                       @Nonnull DownloadFormat downloadFormat) throws IOException {
+        return getDownload(requester, projectId, revisionNumber, downloadFormat, true);
+    }
+
+    /**
+     * Gets the download of the specified project revision, starting generation if it has not already been generated,
+     * without counting the request in the statistics.  This is used to generate downloads in the background.
+     */
+    @Nonnull
+    public ProjectDownload prepareDownload(@Nonnull UserId requester,
+                                           @Nonnull ProjectId projectId,
+                                           @Nonnull RevisionNumber revisionNumber,
+                                           @Nonnull DownloadFormat downloadFormat) throws IOException {
+        return getDownload(requester, projectId, revisionNumber, downloadFormat, false);
+    }
 
+    @Nonnull
+    private ProjectDownload getDownload(@Nonnull UserId requester,
+                                        @Nonnull ProjectId projectId,
+                                        @Nonnull RevisionNumber revisionNumber,
+                                        @Nonnull DownloadFormat downloadFormat,
+                                        boolean countRequest) throws IOException {
         RevisionNumber realRevisionNumber;
         if(revisionNumber.isHead()) {
             realRevisionNumber = getHeadRevisionNumber(projectId, requester);
@@ -91,67 +224,107 @@ public class ProjectDownloadService {
         else {
             realRevisionNumber = revisionNumber;
         }
-
         Path downloadPath = projectDownloadCache.getCachedDownloadPath(projectId, realRevisionNumber, downloadFormat);
+        ProjectDownload inProgressDownload = downloadsInProgress.get(downloadPath);
+        if (inProgressDownload != null) {
+            return inProgressDownload;
+        }
+        ProjectDownload completedDownload = completedDownloads.getIfPresent(downloadPath);
+        if (completedDownload != null) {
+            if (completedDownload.getState() == ProjectDownloadState.FAILED) {
+                return completedDownload;
+            }
+            // A generated download may have been evicted from the download cache
+            if (Files.exists(downloadPath)) {
+                pinDownload(downloadPath);
+                return completedDownload;
+            }
+        }
+        if (Files.exists(downloadPath)) {
+            logger.info("{} {} Download for the requested revision already exists.  Using cached download.",
+                        projectId,
+                        requester);
+            if (countRequest) {
+                cacheHitCount.increment();
+            }
+            pinDownload(downloadPath);
+            return ProjectDownload.createGeneratedDownload(downloadPath, Files.size(downloadPath));
+        }
+        // The same download is never generated more than once at the same time
+        ProjectDownload download = downloadsInProgress.computeIfAbsent(downloadPath, path -> {
+            ProjectDownload newDownload = new ProjectDownload(path);
+            if (countRequest) {
+                cacheMissCount.increment();
+            }
+            submitCreateDownloadTask(requester, projectId, realRevisionNumber, downloadFormat, newDownload);
+            return newDownload;
+        });
+        download.getResult().whenComplete((path, error) -> {
+            completedDownloads.put(downloadPath, download);
+            downloadsInProgress.remove(downloadPath, download);
+        });
+        return download;
+    }
+
+    /**
+     * Records an access to a download that is reported as ready and pins it in the download cache, so that it is
+     * still there when the client retrieves it.
+     */
+    private void pinDownload(@Nonnull Path downloadPath) {
+        projectDownloadCache.recordAccess(downloadPath);
+        pinnedDownloads.put(downloadPath, downloadPath);
+    }
 
-        createDownloadIfNecessary(requester,
-                                  projectId,
-                                  revisionNumber,
-                                  downloadFormat,
-                                  downloadPath);
-
-        transferFileToClient(projectId,
-                             requester,
-                             revisionNumber,
-                             downloadFormat,
-                             downloadPath,
-                             response);
+    /**
+     * Evicts the least recently used downloads from the download cache if it is full.  Downloads that are being
+     * generated, and downloads that have recently been reported as ready, are not evicted.
+     */
+    void evictDownloads() {
+        Set<Path> excludedPaths = new HashSet<>(downloadsInProgress.keySet());
+        excludedPaths.addAll(pinnedDownloads.asMap().keySet());
+        projectDownloadCache.evictLeastRecentlyUsed(excludedPaths);
     }
 
-    private void createDownloadIfNecessary(@Nonnull UserId requester,
-                                           @Nonnull ProjectId projectId,
-                                           @Nonnull RevisionNumber revisionNumber,
-                                           @Nonnull DownloadFormat downloadFormat,
-                                           @Nonnull Path downloadPath) {
-        // This thing always returns the same lock for the same project.
-        // This means that we won't create the *same* download more than once.  It
-        // does mean that multiple *different* downloads could possibly be created at the same time
-        Lock lock = lockStripes.get(projectId);
-        try {
-            lock.lock();
-            if (Files.exists(downloadPath)) {
-                logger.info("{} {} Download for the requested revision already exists.  Using cached download.",
-                            projectId,
-                            requester);
-                return;
-            }
-            CreateDownloadTask task = new CreateDownloadTask(projectManager,
-                                                             projectId,
-                                                             requester,
-                                                             getProjectDisplayName(projectId),
-                                                             revisionNumber,
-                                                             downloadFormat,
-                                                             applicationNameSupplier.get(),
-                                                             downloadPath);
-            logger.info("{} {} Submitted request to create download to queue", projectId, requester);
-            Future<?> futureOfCreateDownload = downloadGeneratorExecutor.submit(task);
+    private void submitCreateDownloadTask(@Nonnull UserId requester,
+                                          @Nonnull ProjectId projectId,
+                                          @Nonnull RevisionNumber revisionNumber,
+                                          @Nonnull DownloadFormat downloadFormat,
+                                          @Nonnull ProjectDownload download) {
+        CreateDownloadTask task = new CreateDownloadTask(projectManager,
+                                                         projectId,
+                                                         requester,
+                                                         getProjectDisplayName(projectId),
+                                                         revisionNumber,
+                                                         downloadFormat,
+                                                         applicationNameSupplier.get(),
+                                                         download);
+        logger.info("{} {} Submitted request to create download to queue", projectId, requester);
+        downloadGeneratorExecutor.submit(() -> {
+            Stopwatch stopwatch = Stopwatch.createStarted();
             try {
-                Stopwatch stopwatch = Stopwatch.createStarted();
-                futureOfCreateDownload.get();
-                logger.info("{} {} Created download after {} ms", projectId, requester, stopwatch.elapsed(MILLISECONDS));
-            } catch (InterruptedException e) {
-                logger.info("{} {} The download of this project was interrupted.", projectId, requester);
-            } catch (ExecutionException e) {
-                logger.info("{} {} An execution exception occurred whilst creating the download.  Cause: {}",
+                task.call();
+                long generationTime = stopwatch.elapsed(MILLISECONDS);
+                logger.info("{} {} Created download after {} ms", projectId, requester, generationTime);
+                generatedDownloadCount.increment();
+                totalGenerationTime.add(generationTime);
+                maxGenerationTime.accumulateAndGet(generationTime, Math::max);
+                logger.info("Project download statistics: {}", getStatistics());
+                projectDownloadCache.recordDownload(download.getDownloadPath());
+                // This download is still being generated until its result is completed, so it is not evicted
+                evictDownloads();
+                pinDownload(download.getDownloadPath());
+                download.getResult().complete(download.getDownloadPath());
+            } catch (Throwable t) {
+                failedDownloadCount.increment();
+                logger.info("{} {} An exception occurred whilst creating the download.  Cause: {}",
                             projectId,
                             requester,
-                            Optional.ofNullable(e.getCause()).map(Throwable::getMessage).orElse(""),
-                            e.getCause());
+                            t.getMessage(),
+                            t);
+                logger.info("Project download statistics: {}", getStatistics());
+                download.getResult().completeExceptionally(t);
             }
-        }
-        finally {
-            lock.unlock();
-        }
+        });
     }
 
     private String getProjectDisplayName(@Nonnull ProjectId projectId) {
@@ -159,30 +332,13 @@ public class ProjectDownloadService {
                                     .getDisplayName();
     }
 
-    private void transferFileToClient(@Nonnull ProjectId projectId,
-                                      @Nonnull UserId userId,
-                                      @Nonnull RevisionNumber revisionNumber,
-                                      @Nonnull DownloadFormat downloadFormat,
-                                      @Nonnull Path downloadSource,
-                                      @Nonnull HttpServletResponse response) {
-
-        String fileName = getClientSideFileName(projectId, revisionNumber, downloadFormat);
-        FileTransferTask task = new FileTransferTask(projectId,
-                                                     userId,
-                                                     downloadSource,
-                                                     fileName,
-                                                     response);
-        Future<?> transferFuture = fileTransferExecutor.submit(task);
+    private static void sendError(@Nonnull AsyncContext asyncContext) {
         try {
-            transferFuture.get();
-        } catch (InterruptedException e) {
-            logger.info("{} {} The download of this project was interrupted.", projectId, userId);
-        } catch (ExecutionException e) {
-            logger.info("{} {} An execution exception occurred whilst transferring the project.  Cause: {}",
-                        projectId,
-                        userId,
-                        Optional.ofNullable(e.getCause()).map(Throwable::getMessage).orElse(""),
-                        e.getCause());
+            ((HttpServletResponse) asyncContext.getResponse()).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not send error response: {}", e.getMessage());
+        } finally {
+            asyncContext.complete();
         }
     }
 
@@ -203,13 +359,27 @@ public class ProjectDownloadService {
         return fileName.toLowerCase();
     }
 
+    /**
+     * Gets a snapshot of the statistics for downloads and the download cache.
+     */
+    @Nonnull
+    public ProjectDownloadStatistics getStatistics() {
+        return new ProjectDownloadStatistics(cacheHitCount.sum(),
+                                             cacheMissCount.sum(),
+                                             generatedDownloadCount.sum(),
+                                             failedDownloadCount.sum(),
+                                             totalGenerationTime.sum(),
+                                             maxGenerationTime.get(),
+                                             projectDownloadCache.getSizeOnDisk(),
+                                             projectDownloadCache.getEvictedDownloadCount());
+    }
+
     /**
      * Shuts down this {@link ProjectDownloadService}.
      */
     public void shutDown() {
-        logger.info("Shutting down Project Download Service");
+        logger.info("Shutting down Project Download Service.  Project download statistics: {}", getStatistics());
         downloadGeneratorExecutor.shutdown();
-        fileTransferExecutor.shutdown();
     }
 
     private RevisionNumber getHeadRevisionNumber(@Nonnull ProjectId projectId, @Nonnull UserId userId) throws IOException {
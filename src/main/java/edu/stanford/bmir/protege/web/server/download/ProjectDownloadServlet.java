@@ -6,6 +6,7 @@ import edu.stanford.bmir.protege.web.server.access.Subject;
 import edu.stanford.bmir.protege.web.server.session.WebProtegeSession;
 import edu.stanford.bmir.protege.web.server.session.WebProtegeSessionImpl;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.download.ProjectDownloadConstants;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
@@ -31,6 +32,10 @@ import static edu.stanford.bmir.protege.web.server.logging.RequestFormatter.form
  * A servlet which allows ontologies to be downloaded from WebProtege.  See {@link ProjectDownloader} for
  * the piece of machinery that actually does the processing of request parameters and the downloading.
  * </p>
+ * <p>
+ * If the request contains the {@link ProjectDownloadConstants#STATUS} parameter then the servlet responds with
+ * the state of the generation of the download, so that clients can poll until the download is ready.
+ * </p>
  */
 public class ProjectDownloadServlet extends HttpServlet {
 
@@ -42,11 +47,16 @@ public class ProjectDownloadServlet extends HttpServlet {
     @Nonnull
     private final ProjectDownloadService projectDownloadService;
 
+    @Nonnull
+    private final ProjectDownloadWarmer projectDownloadWarmer;
+
     @Inject
     public ProjectDownloadServlet(@Nonnull AccessManager accessManager,
-                                  @Nonnull ProjectDownloadService projectDownloadService) {
+                                  @Nonnull ProjectDownloadService projectDownloadService,
+                                  @Nonnull ProjectDownloadWarmer projectDownloadWarmer) {
         this.accessManager = accessManager;
         this.projectDownloadService = projectDownloadService;
+        this.projectDownloadWarmer = projectDownloadWarmer;
     }
 
     @Override
@@ -74,23 +84,44 @@ public class ProjectDownloadServlet extends HttpServlet {
             logger.info("Denied download request as user does not have permission to download this project.");
             resp.sendError(HttpServletResponse.SC_FORBIDDEN);
         }
-        else if (downloadParameters.isProjectDownload()) {
-            startProjectDownload(resp, userId, downloadParameters);
+        else if (downloadParameters.isStatusRequest()) {
+            sendDownloadStatus(resp, userId, downloadParameters);
+        }
+        else {
+            startProjectDownload(req, userId, downloadParameters);
         }
     }
 
-    private void startProjectDownload(HttpServletResponse resp,
+    private void startProjectDownload(HttpServletRequest req,
                                       UserId userId,
                                       FileDownloadParameters downloadParameters) throws IOException {
         ProjectId projectId = downloadParameters.getProjectId();
         RevisionNumber revisionNumber = downloadParameters.getRequestedRevision();
         DownloadFormat format = downloadParameters.getFormat();
-        projectDownloadService.downloadProject(userId, projectId, revisionNumber, format, resp);
+        projectDownloadService.downloadProject(userId, projectId, revisionNumber, format, req);
+    }
+
+    /**
+     * Responds with the state of the generation of the requested download, starting generation if necessary.
+     * See {@link ProjectDownloadConstants#STATUS} for the format of the response.
+     */
+    private void sendDownloadStatus(HttpServletResponse resp,
+                                    UserId userId,
+                                    FileDownloadParameters downloadParameters) throws IOException {
+        ProjectDownload download = projectDownloadService.getDownload(userId,
+                                                                      downloadParameters.getProjectId(),
+                                                                      downloadParameters.getRequestedRevision(),
+                                                                      downloadParameters.getFormat());
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setHeader("Cache-Control", "no-cache");
+        resp.setContentType("text/plain");
+        resp.getWriter().write(download.getState().name() + " " + download.getBytesWritten());
     }
 
     @Override
     public void destroy() {
         super.destroy();
+        projectDownloadWarmer.shutDown();
         projectDownloadService.shutDown();
     }
 }
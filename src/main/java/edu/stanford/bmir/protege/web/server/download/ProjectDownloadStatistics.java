@@ -0,0 +1,105 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * A snapshot of the statistics that are gathered by the {@link ProjectDownloadService}.
+ */
+public class ProjectDownloadStatistics {
+
+    private final long cacheHitCount;
+
+    private final long cacheMissCount;
+
+    private final long generatedDownloadCount;
+
+    private final long failedDownloadCount;
+
+    private final long totalGenerationTimeInMilliseconds;
+
+    private final long maxGenerationTimeInMilliseconds;
+
+    private final long bytesOnDisk;
+
+    private final long evictedDownloadCount;
+
+    public ProjectDownloadStatistics(long cacheHitCount,
+                                     long cacheMissCount,
+                                     long generatedDownloadCount,
+                                     long failedDownloadCount,
+                                     long totalGenerationTimeInMilliseconds,
+                                     long maxGenerationTimeInMilliseconds,
+                                     long bytesOnDisk,
+                                     long evictedDownloadCount) {
+        this.cacheHitCount = cacheHitCount;
+        this.cacheMissCount = cacheMissCount;
+        this.generatedDownloadCount = generatedDownloadCount;
+        this.failedDownloadCount = failedDownloadCount;
+        this.totalGenerationTimeInMilliseconds = totalGenerationTimeInMilliseconds;
+        this.maxGenerationTimeInMilliseconds = maxGenerationTimeInMilliseconds;
+        this.bytesOnDisk = bytesOnDisk;
+        this.evictedDownloadCount = evictedDownloadCount;
+    }
+
+    /**
+     * Gets the number of download requests that were served from a download that had already been generated.
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * Gets the number of download requests that had to wait for their download to be generated.
+     */
+    public long getCacheMissCount() {
+        return cacheMissCount;
+    }
+
+    /**
+     * Gets the number of downloads that have been generated, including those generated in the background.
+     */
+    public long getGeneratedDownloadCount() {
+        return generatedDownloadCount;
+    }
+
+    public long getFailedDownloadCount() {
+        return failedDownloadCount;
+    }
+
+    public long getTotalGenerationTimeInMilliseconds() {
+        return totalGenerationTimeInMilliseconds;
+    }
+
+    public long getMeanGenerationTimeInMilliseconds() {
+        return generatedDownloadCount == 0 ? 0 : totalGenerationTimeInMilliseconds / generatedDownloadCount;
+    }
+
+    public long getMaxGenerationTimeInMilliseconds() {
+        return maxGenerationTimeInMilliseconds;
+    }
+
+    /**
+     * Gets the number of bytes that are taken up by cached downloads.
+     */
+    public long getBytesOnDisk() {
+        return bytesOnDisk;
+    }
+
+    public long getEvictedDownloadCount() {
+        return evictedDownloadCount;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ProjectDownloadStatistics")
+                .add("cacheHits", cacheHitCount)
+                .add("cacheMisses", cacheMissCount)
+                .add("generated", generatedDownloadCount)
+                .add("failed", failedDownloadCount)
+                .add("meanGenerationTime(ms)", getMeanGenerationTimeInMilliseconds())
+                .add("maxGenerationTime(ms)", maxGenerationTimeInMilliseconds)
+                .add("bytesOnDisk", bytesOnDisk)
+                .add("evicted", evictedDownloadCount)
+                .toString();
+    }
+}
@@ -0,0 +1,118 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates downloads of the head revision of a project in the background once changes to the project have
+ * stopped for a quiet period, so that users are served a cached download instead of waiting for one to be
+ * generated.  A project is only warmed in the formats that it has previously been downloaded in, which are the
+ * formats of its cached downloads.  Projects that have never been downloaded, or whose downloads have been
+ * evicted from the cache, are not warmed.
+ */
+@ApplicationSingleton
+public class ProjectDownloadWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectDownloadWarmer.class);
+
+    /**
+     * The time that must pass without a change to a project before its downloads are generated.
+     */
+    static final long QUIET_PERIOD_IN_SECONDS = 120;
+
+    @Nonnull
+    private final ScheduledExecutorService warmerExecutor;
+
+    @Nonnull
+    private final ProjectDownloadService projectDownloadService;
+
+    @Nonnull
+    private final ProjectDownloadCache projectDownloadCache;
+
+    @Nonnull
+    private final ProjectManager projectManager;
+
+    private final ConcurrentMap<ProjectId, ScheduledFuture<?>> scheduledWarmings = new ConcurrentHashMap<>();
+
+    @Inject
+    public ProjectDownloadWarmer(@Nonnull @DownloadWarmerExecutor ScheduledExecutorService warmerExecutor,
+                                 @Nonnull ProjectDownloadService projectDownloadService,
+                                 @Nonnull ProjectDownloadCache projectDownloadCache,
+                                 @Nonnull ProjectManager projectManager) {
+        this.warmerExecutor = checkNotNull(warmerExecutor);
+        this.projectDownloadService = checkNotNull(projectDownloadService);
+        this.projectDownloadCache = checkNotNull(projectDownloadCache);
+        this.projectManager = checkNotNull(projectManager);
+    }
+
+    /**
+     * Handles a change to the specified project.  Generation of the head revision downloads for the project is
+     * (re)scheduled for after the quiet period, so that a burst of changes results in the downloads being
+     * generated once.
+     * @param projectId The project that changed.
+     * @param userId The user that changed the project.
+     */
+    public void handleProjectChanged(@Nonnull ProjectId projectId,
+                                     @Nonnull UserId userId) {
+        checkNotNull(projectId);
+        checkNotNull(userId);
+        scheduledWarmings.compute(projectId, (id, scheduledWarming) -> {
+            if (scheduledWarming != null) {
+                scheduledWarming.cancel(false);
+            }
+            AtomicReference<ScheduledFuture<?>> thisWarming = new AtomicReference<>();
+            ScheduledFuture<?> warming = warmerExecutor.schedule(() -> warmDownloads(projectId, userId, thisWarming.get()),
+                                                                 QUIET_PERIOD_IN_SECONDS,
+                                                                 TimeUnit.SECONDS);
+            thisWarming.set(warming);
+            return warming;
+        });
+    }
+
+    private void warmDownloads(@Nonnull ProjectId projectId,
+                               @Nonnull UserId userId,
+                               @Nonnull ScheduledFuture<?> thisWarming) {
+        // A warming that has been scheduled since this one started is left in place
+        scheduledWarmings.remove(projectId, thisWarming);
+        try {
+            if (!projectManager.isActive(projectId)) {
+                // Don't load a project just to generate its downloads
+                logger.info("{} Project is no longer active.  Not generating downloads.", projectId);
+                return;
+            }
+            Set<DownloadFormat> formats = projectDownloadCache.getCachedDownloadFormats(projectId);
+            for (DownloadFormat format : formats) {
+                logger.info("{} Generating {} download of head revision in background", projectId, format);
+                projectDownloadService.prepareDownload(userId, projectId, RevisionNumber.getHeadRevisionNumber(), format);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("{} Could not generate downloads in background: {}", projectId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Shuts down this {@link ProjectDownloadWarmer}.  Scheduled downloads are not generated.
+     */
+    public void shutDown() {
+        logger.info("Shutting down Project Download Warmer");
+        warmerExecutor.shutdownNow();
+    }
+}
@@ -67,14 +67,17 @@ public class ProjectDownloader {
         this.applicationName = checkNotNull(applicationName);
     }
 
+    /**
+     * Writes the project revision to the specified output stream.
+     * @throws IOException if the project could not be written.  A storage problem in the OWL API is reported
+     * as an {@link IOException} so that an incomplete download is not mistaken for a complete one.
+     */
     public void writeProject(OutputStream outputStream) throws IOException {
         try {
             exportProjectRevision(fileName, revision, outputStream, format);
-
         } catch (OWLOntologyStorageException e) {
-            e.printStackTrace();
+            throw new IOException(e);
         }
-
     }
 
     private void exportProjectRevision(
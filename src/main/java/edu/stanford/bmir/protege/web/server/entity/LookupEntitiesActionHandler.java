@@ -5,19 +5,21 @@ import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHan
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.place.PlaceUrl;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.search.EntitySearchIndex;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormIndex;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
 import edu.stanford.bmir.protege.web.shared.entity.*;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
 import org.semanticweb.owlapi.model.*;
-import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.util.*;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
@@ -35,15 +37,25 @@ public class LookupEntitiesActionHandler extends AbstractHasProjectActionHandler
     @Nonnull
     private final RenderingManager renderingManager;
 
+    @Nonnull
+    private final ShortFormIndex shortFormIndex;
+
+    @Nonnull
+    private final EntitySearchIndex entitySearchIndex;
+
     @Inject
     public LookupEntitiesActionHandler(@Nonnull AccessManager accessManager,
                                        @Nonnull ProjectId projectId,
                                        @Nonnull PlaceUrl placeUrl,
-                                       @Nonnull RenderingManager renderingManager) {
+                                       @Nonnull RenderingManager renderingManager,
+                                       @Nonnull ShortFormIndex shortFormIndex,
+                                       @Nonnull EntitySearchIndex entitySearchIndex) {
         super(accessManager);
         this.projectId = projectId;
         this.placeUrl = placeUrl;
         this.renderingManager = renderingManager;
+        this.shortFormIndex = shortFormIndex;
+        this.entitySearchIndex = entitySearchIndex;
     }
 
     @Override
@@ -65,42 +77,25 @@ public class LookupEntitiesActionHandler extends AbstractHasProjectActionHandler
 
 
     private List<EntityLookupResult> lookupEntities(final EntityLookupRequest entityLookupRequest) {
-        BidirectionalShortFormProvider sfp = renderingManager.getShortFormProvider();
-        Set<OWLEntityDataMatch> matches = new TreeSet<>();
-        EntityNameMatcher matcher = new EntityNameMatcher(entityLookupRequest.getSearchString());
-        for(String shortForm : sfp.getShortForms()) {
-            java.util.Optional<EntityNameMatchResult> result = matcher.findIn(shortForm);
-            if(result.isPresent()) {
-                Set<OWLEntity> entities = sfp.getEntities(shortForm);
-                for(OWLEntity matchingEntity : entities) {
-                    Optional<OWLEntityData> match = toOWLEntityData(matchingEntity, entityLookupRequest,
-                                                                    renderingManager);
-                    if(match.isPresent()) {
-                        EntityNameMatchResult resultValue = result.get();
-                        matches.add(new OWLEntityDataMatch(match.get(), resultValue));
-                    }
-                    // BAD
-                    if(matches.size() >= 1000) {
-                        break;
-                    }
-                }
-            }
-            // BAD
-            if(matches.size() >= 1000) {
-                break;
-            }
-        }
+        String searchString = entityLookupRequest.getSearchString();
+        Set<EntityType<?>> entityTypes = entityLookupRequest.getSearchedEntityTypes();
+        // Matches in the middle of a word are found from the candidates in the search index
+        List<ShortFormMatch> matches = shortFormIndex.getMatches(searchString,
+                                                                 entityTypes,
+                                                                 entityLookupRequest.getSearchLimit(),
+                                                                 () -> entitySearchIndex.getCandidates(entityTypes, searchString.split("\\s+")).stream()
+                                                                                        .map(OWLEntityData::getEntity)
+                                                                                        .collect(toList()));
         List<EntityLookupResult> result = new ArrayList<>();
-        for(OWLEntityDataMatch match : matches) {
-            OWLEntityData entityData = match.getEntityData();
-            result.add(new EntityLookupResult(entityData,
-                                              match.getMatchResult(),
-                                              placeUrl.getEntityUrl(projectId, entityData.getEntity())));
+        for(ShortFormMatch match : matches) {
+            Optional<OWLEntityData> entityData = toOWLEntityData(match.getEntity(), entityLookupRequest, renderingManager);
+            if(entityData.isPresent()) {
+                result.add(new EntityLookupResult(entityData.get(),
+                                                  match.getMatchResult(),
+                                                  placeUrl.getEntityUrl(projectId, match.getEntity())));
+            }
         }
         Collections.sort(result);
-        if(result.size() >= entityLookupRequest.getSearchLimit()) {
-            result = new ArrayList<>(result.subList(0, entityLookupRequest.getSearchLimit()));
-        }
         return result;
     }
 
@@ -175,33 +170,4 @@ public class LookupEntitiesActionHandler extends AbstractHasProjectActionHandler
                         });
     }
 
-    private static class OWLEntityDataMatch implements Comparable<OWLEntityDataMatch> {
-
-        private OWLEntityData visualEntity;
-
-        private EntityNameMatchResult matchResult;
-
-        private OWLEntityDataMatch(OWLEntityData visualEntity, EntityNameMatchResult matchResult) {
-            this.visualEntity = visualEntity;
-            this.matchResult = matchResult;
-        }
-
-        public OWLEntityData getEntityData() {
-            return visualEntity;
-        }
-
-        private EntityNameMatchResult getMatchResult() {
-            return matchResult;
-        }
-
-        @Override
-        public int compareTo(@Nonnull OWLEntityDataMatch owlEntityDataMatch) {
-            int diff = this.matchResult.compareTo(owlEntityDataMatch.matchResult);
-            if(diff != 0) {
-                return diff;
-            }
-            return visualEntity.compareToIgnorePrefixNames(owlEntityDataMatch.getEntityData());
-        }
-    }
-
 }
@@ -13,13 +13,17 @@ import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -27,6 +31,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 20/03/2013
+ * <p>
+ *     Events are held in a bounded ring buffer of event buckets.  Tags are allocated consecutively, so the bucket
+ *     for a given tag is found directly from its ordinal and retrieving the events since a tag is a copy of a
+ *     slice of the buffer.  Neither posting nor retrieving events takes a lock.  When the buffer is full the
+ *     oldest buckets are overwritten, even if they have not yet expired.  A request for events from a tag whose
+ *     live bucket has been overwritten gets an event list that is marked as having missed events.
+ * </p>
  */
 @ProjectSingleton
 public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, HasPostEvents<E> {
@@ -34,33 +45,68 @@ public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, H
 
     private static final int EVENT_LIST_SIZE_LIMIT = 200;
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    public static final int DEFAULT_CAPACITY = 4096;
 
-    private final Lock readLock = lock.readLock();
+    private final AtomicReferenceArray<EventBucket<E>> buckets;
 
-    private final Lock writeLock = lock.writeLock();
+    private final int mask;
 
+    /**
+     * The ordinal of the most recently allocated tag.  The bucket for this tag may not have been published yet.
+     */
+    private final AtomicInteger lastOrdinal = new AtomicInteger(EventTag.getFirst().getOrdinal());
 
+    /**
+     * The ordinal of the most recent bucket that has been purged.  Only written by the purge task.
+     */
+    private final AtomicInteger purgedOrdinal = new AtomicInteger(EventTag.getFirst().getOrdinal());
 
-    private final Queue<EventBucket> eventQueue = new LinkedList<>();
+    /**
+     * The ordinal of the most recent bucket that was overwritten before it expired.
+     */
+    private final AtomicInteger overwrittenLiveOrdinal = new AtomicInteger(EventTag.getFirst().getOrdinal());
 
     private final EventLifeTime eventLifeTime;
 
     private EventBus eventBus = new SimpleEventBus();
 
-
-    private EventTag currentTag = EventTag.getFirst();
-
     private ScheduledExecutorService purgeSweepService = Executors.newSingleThreadScheduledExecutor();
 
     private List<HandlerRegistration> registeredHandlers = new ArrayList<>();
 
+    /**
+     * Requests that are waiting for events to be posted.
+     */
+    private final Queue<PendingPoll<E>> pendingPolls = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder pollCount = new LongAdder();
+
+    private final LongAdder totalPollTime = new LongAdder();
+
+    private final AtomicLong maxPollTime = new AtomicLong();
+
+    private final LongAdder droppedEventListCount = new LongAdder();
+
+    private final LongAdder droppedEventCount = new LongAdder();
+
 
     @Inject
     public EventManager(EventLifeTime eventLifeTime) {
+        this(eventLifeTime, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an event manager.
+     * @param eventLifeTime The life time of posted events.
+     * @param capacity The maximum number of event buckets that are retained.  Must be a power of two.
+     */
+    public EventManager(EventLifeTime eventLifeTime, int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a power of two");
         this.eventLifeTime = checkNotNull(eventLifeTime);
+        this.buckets = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
         final long eventLifeTimeInMilliseconds = eventLifeTime.getEventLifeTimeInMilliseconds();
-        purgeSweepService.scheduleAtFixedRate(new PurgeExpiredEventsTask(writeLock, eventQueue),
+        purgeSweepService.scheduleAtFixedRate(this::removeExpiredEvents,
                 eventLifeTimeInMilliseconds,
                 eventLifeTimeInMilliseconds,
                 TimeUnit.MILLISECONDS);
@@ -91,23 +137,90 @@ public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, H
      * @throws NullPointerException if {@code events} is {@code null}.
      */
     public EventTag postEvents(List<E> events) {
+        checkNotNull(events, "events must not be null");
         if(events.size() > EVENT_LIST_SIZE_LIMIT) {
             // Just don't bother
-            return currentTag;
-        }
-        try {
-            writeLock.lock();
-            currentTag = currentTag.next();
-            EventBucket<E> e = new EventBucket<>(System.currentTimeMillis(), checkNotNull(events, "events must not be null"), currentTag, eventLifeTime);
-            eventQueue.add(e);
-        }
-        finally {
-            writeLock.unlock();
+            droppedEventListCount.increment();
+            droppedEventCount.add(events.size());
+            return getCurrentTag();
         }
+        final int ordinal = lastOrdinal.incrementAndGet();
+        final EventTag tag = EventTag.get(ordinal);
+        publish(new EventBucket<>(System.currentTimeMillis(), events, tag, eventLifeTime));
+        completePendingPolls(ordinal);
         for(E event : new LinkedHashSet<>(events)) {
             eventBus.fireEvent(event.asGWTEvent());
         }
-        return currentTag;
+        return tag;
+    }
+
+    /**
+     * Publishes a bucket into its slot.  A poster that is delayed for longer than it takes to wrap around the
+     * buffer must not replace the newer bucket that is now in the slot, so the bucket is only published over an
+     * older one.
+     */
+    private void publish(EventBucket<E> bucket) {
+        final int ordinal = bucket.getTag().getOrdinal();
+        final int slot = ordinal & mask;
+        while (true) {
+            EventBucket<E> current = buckets.get(slot);
+            if (current != null && current.getTag().getOrdinal() > ordinal) {
+                // Overwritten before it was published
+                return;
+            }
+            if (buckets.compareAndSet(slot, current, bucket)) {
+                if (current != null && !current.isExpired()) {
+                    overwrittenLiveOrdinal.accumulateAndGet(current.getTag().getOrdinal(), Math::max);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits for events to be posted to this manager.
+     * @param fromTag The tag that denotes the point after which events will be retrieved.  Not {@code null}.
+     * @return A future that completes with the live events that have a tag greater or equal to the specified
+     * tag as soon as there are any.  The future completes immediately if there are already such events.  Callers
+     * that stop waiting should cancel the future so that it is removed from the list of waiting requests.
+     * @throws NullPointerException if {@code tag} is {@code null}.
+     */
+    public CompletableFuture<EventList<E>> awaitEventsFromTag(EventTag fromTag) {
+        checkNotNull(fromTag, "tag must not be null");
+        PendingPoll<E> pendingPoll = new PendingPoll<>(fromTag);
+        // Added before checking for events so that a concurrent post will either be seen by the check below
+        // or will see this pending poll
+        pendingPolls.add(pendingPoll);
+        pendingPoll.future.whenComplete((eventList, throwable) -> pendingPolls.remove(pendingPoll));
+        EventList<E> eventList = buildEventList(fromTag);
+        if(!eventList.isEmpty() || eventList.isEventsMissed()) {
+            pendingPoll.future.complete(eventList);
+        }
+        return pendingPoll.future;
+    }
+
+    /**
+     * Completes the pending polls that are waiting for events from a tag at or before the tag of the bucket that
+     * has just been posted.  The event list for a poll is only built when the poll is completed.
+     * @param postedOrdinal The ordinal of the tag of the bucket that has just been posted.
+     */
+    private void completePendingPolls(int postedOrdinal) {
+        for(PendingPoll<E> pendingPoll : pendingPolls) {
+            if(!pendingPoll.future.isDone() && pendingPoll.fromTag.getOrdinal() <= postedOrdinal) {
+                EventList<E> eventList = buildEventList(pendingPoll.fromTag);
+                // Empty if an earlier bucket has not been published yet, in which case publishing it completes the poll
+                if(!eventList.isEmpty() || eventList.isEventsMissed()) {
+                    pendingPoll.future.complete(eventList);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests that are waiting for events to be posted.
+     */
+    public int getPendingPollCount() {
+        return pendingPolls.size();
     }
 
     /**
@@ -120,37 +233,69 @@ public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, H
      */
     public EventList<E> getEventsFromTag(EventTag fromTag) {
         checkNotNull(fromTag, "tag must not be null");
+        final long startTime = System.nanoTime();
+        EventList<E> eventList = buildEventList(fromTag);
+        recordPollTime(System.nanoTime() - startTime);
+        return eventList;
+    }
+
+    private EventList<E> buildEventList(EventTag fromTag) {
+        // Requests from the first tag come from clients that have just loaded the project
+        final boolean eventsMissed = !fromTag.equals(EventTag.getFirst())
+                && fromTag.getOrdinal() <= overwrittenLiveOrdinal.get();
         List<E> resultList = new ArrayList<E>();
-        final EventTag curTag;
-        try {
-            readLock.lock();
-            curTag = currentTag;
-            for (EventBucket bucket : eventQueue) {
-                if(bucket.getTag().isGreaterOrEqualTo(fromTag)) {
-                    resultList.addAll(bucket.getEvents());
+        final int curOrdinal = lastOrdinal.get();
+        final int capacity = buckets.length();
+        int toOrdinal = curOrdinal + 1;
+        int fromOrdinal = Math.max(fromTag.getOrdinal(), Math.max(curOrdinal - capacity, purgedOrdinal.get()) + 1);
+        for(int ordinal = fromOrdinal; ordinal <= curOrdinal; ordinal++) {
+            EventBucket<E> bucket = buckets.get(ordinal & mask);
+            int bucketOrdinal = bucket == null ? Integer.MIN_VALUE : bucket.getTag().getOrdinal();
+            if(bucketOrdinal < ordinal) {
+                if(ordinal <= purgedOrdinal.get()) {
+                    // Purged since we started
+                    continue;
                 }
+                // The tag has been allocated but its bucket has not been published yet.  Stop here so that the
+                // bucket is picked up by the next request.
+                toOrdinal = ordinal;
+                break;
             }
+            if(bucketOrdinal == ordinal && !bucket.isExpired()) {
+                resultList.addAll(bucket.getEvents());
+            }
+            // Otherwise the bucket has been overwritten by a newer bucket, or has expired
         }
-        finally {
-            readLock.unlock();
-        }
-        final EventTag toTag = curTag.next();
-        if(resultList.isEmpty()) {
+        final EventTag toTag = EventTag.get(toOrdinal);
+        if(resultList.isEmpty() && !eventsMissed) {
             return new EventList<E>(fromTag, toTag);
         }
         // Prune duplicates
         LinkedHashSet<E> events = new LinkedHashSet<E>(resultList);
-        return new EventList<E>(fromTag, events, toTag);
+        return new EventList<E>(fromTag, events, toTag, eventsMissed);
+    }
+
+    private void recordPollTime(long pollTime) {
+        pollCount.increment();
+        totalPollTime.add(pollTime);
+        maxPollTime.accumulateAndGet(pollTime, Math::max);
     }
 
     public EventTag getCurrentTag() {
-        try {
-            readLock.lock();
-            return currentTag;
-        }
-        finally {
-            readLock.unlock();
-        }
+        return EventTag.get(lastOrdinal.get());
+    }
+
+    /**
+     * Gets the queue depth, poll latency and dropped event statistics for this event manager.
+     */
+    public EventManagerStatistics getStatistics() {
+        int queueDepth = Math.min(buckets.length(), lastOrdinal.get() - purgedOrdinal.get());
+        return new EventManagerStatistics(queueDepth,
+                                          pollCount.sum(),
+                                          totalPollTime.sum(),
+                                          maxPollTime.get(),
+                                          droppedEventListCount.sum(),
+                                          droppedEventCount.sum());
     }
 
 
@@ -244,41 +389,41 @@ public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, H
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
-    private static class PurgeExpiredEventsTask extends TimerTask {
+    private static class PendingPoll<E extends WebProtegeEvent<?>> {
 
-        private final Lock writeLock;
+        private final EventTag fromTag;
 
-        private final Queue<EventBucket> queue;
+        private final CompletableFuture<EventList<E>> future = new CompletableFuture<>();
 
-        public PurgeExpiredEventsTask(Lock writeLock, Queue<EventBucket> queue) {
-            this.writeLock = writeLock;
-            this.queue = queue;
-        }
-
-        @Override
-        public void run() {
-            removeExpiredEvents();
+        private PendingPoll(EventTag fromTag) {
+            this.fromTag = fromTag;
         }
+    }
 
-        private void removeExpiredEvents() {
-            try {
-                writeLock.lock();
-                while (true) {
-                    if (queue.isEmpty()) {
-                        break;
-                    }
-                    EventBucket bucket = queue.peek();
-                    if (bucket.isExpired()) {
-                        queue.poll();
-                    }
-                    else {
-                        break;
-                    }
-                }
+    /**
+     * Clears expired buckets from the buffer so that their events can be garbage collected.  Runs on the purge
+     * sweep thread.
+     */
+    private void removeExpiredEvents() {
+        while (true) {
+            int last = lastOrdinal.get();
+            // Buckets that are more than a buffer length behind have already been overwritten
+            int ordinal = Math.max(purgedOrdinal.get(), last - buckets.length()) + 1;
+            if (ordinal > last) {
+                break;
+            }
+            EventBucket<E> bucket = buckets.get(ordinal & mask);
+            if (bucket == null || bucket.getTag().getOrdinal() < ordinal) {
+                // Not published yet
+                break;
             }
-            finally {
-                writeLock.unlock();
+            if (bucket.getTag().getOrdinal() == ordinal) {
+                if (!bucket.isExpired()) {
+                    break;
+                }
+                buckets.compareAndSet(ordinal & mask, bucket, null);
             }
+            purgedOrdinal.set(ordinal);
         }
     }
 
@@ -289,6 +434,9 @@ public class EventManager<E extends WebProtegeEvent<?>> implements HasDispose, H
             purgeSweepService = null;
         }
         removeRegisteredHandlersFromEventBus();
+        for(PendingPoll<E> pendingPoll : pendingPolls) {
+            pendingPoll.future.cancel(false);
+        }
     }
 
     private void removeRegisteredHandlersFromEventBus() {
@@ -0,0 +1,88 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * A snapshot of the statistics that are gathered by an {@link EventManager}.
+ */
+public class EventManagerStatistics {
+
+    private final int queueDepth;
+
+    private final long pollCount;
+
+    private final long totalPollTimeInNanoseconds;
+
+    private final long maxPollTimeInNanoseconds;
+
+    private final long droppedEventListCount;
+
+    private final long droppedEventCount;
+
+    public EventManagerStatistics(int queueDepth,
+                                  long pollCount,
+                                  long totalPollTimeInNanoseconds,
+                                  long maxPollTimeInNanoseconds,
+                                  long droppedEventListCount,
+                                  long droppedEventCount) {
+        this.queueDepth = queueDepth;
+        this.pollCount = pollCount;
+        this.totalPollTimeInNanoseconds = totalPollTimeInNanoseconds;
+        this.maxPollTimeInNanoseconds = maxPollTimeInNanoseconds;
+        this.droppedEventListCount = droppedEventListCount;
+        this.droppedEventCount = droppedEventCount;
+    }
+
+    /**
+     * Gets the number of event buckets that are held by the event manager and that have not been purged.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Gets the number of times that events have been retrieved from the event manager.
+     */
+    public long getPollCount() {
+        return pollCount;
+    }
+
+    public long getTotalPollTimeInNanoseconds() {
+        return totalPollTimeInNanoseconds;
+    }
+
+    public long getMeanPollTimeInNanoseconds() {
+        return pollCount == 0 ? 0 : totalPollTimeInNanoseconds / pollCount;
+    }
+
+    public long getMaxPollTimeInNanoseconds() {
+        return maxPollTimeInNanoseconds;
+    }
+
+    /**
+     * Gets the number of event lists that were not posted because they exceeded the event list size limit.
+     */
+    public long getDroppedEventListCount() {
+        return droppedEventListCount;
+    }
+
+    /**
+     * Gets the total number of events in the event lists that were not posted because they exceeded the event
+     * list size limit.
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("EventManagerStatistics")
+                .add("queueDepth", queueDepth)
+                .add("pollCount", pollCount)
+                .add("meanPollTime(ns)", getMeanPollTimeInNanoseconds())
+                .add("maxPollTime(ns)", maxPollTimeInNanoseconds)
+                .add("droppedEventLists", droppedEventListCount)
+                .add("droppedEvents", droppedEventCount)
+                .toString();
+    }
+}
@@ -0,0 +1,160 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ProjectResource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.inject.EventsLongPollTimeout;
+import edu.stanford.bmir.protege.web.server.project.Project;
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.server.session.WebProtegeSessionImpl;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.events.EventList;
+import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A servlet that lets clients wait for project events instead of polling for them at a fixed interval.  A
+ * request specifies a project and the tag from which the client wants events.  The request is parked, using
+ * Servlet 3 asynchronous processing, until events from that tag are posted to the project event manager or until
+ * the long poll timeout expires.  The servlet responds with {@code 200} and the end tag of the available events, or
+ * with {@code 204} if the request timed out.  Clients then retrieve the events themselves with a
+ * {@link edu.stanford.bmir.protege.web.shared.event.GetProjectEventsAction}, so that events are always serialized
+ * in the same way.
+ */
+public class ProjectEventsLongPollServlet extends HttpServlet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectEventsLongPollServlet.class);
+
+    public static final String PROJECT_ID_PARAMETER = "projectId";
+
+    public static final String SINCE_TAG_PARAMETER = "sinceTag";
+
+    @Nonnull
+    private final ProjectManager projectManager;
+
+    @Nonnull
+    private final AccessManager accessManager;
+
+    private final long longPollTimeout;
+
+    @Inject
+    public ProjectEventsLongPollServlet(@Nonnull ProjectManager projectManager,
+                                        @Nonnull AccessManager accessManager,
+                                        @EventsLongPollTimeout long longPollTimeout) {
+        this.projectManager = checkNotNull(projectManager);
+        this.accessManager = checkNotNull(accessManager);
+        this.longPollTimeout = longPollTimeout;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        ProjectId projectId;
+        EventTag sinceTag;
+        try {
+            projectId = ProjectId.get(checkNotNull(req.getParameter(PROJECT_ID_PARAMETER)));
+            sinceTag = EventTag.get(Integer.parseInt(req.getParameter(SINCE_TAG_PARAMETER)));
+        } catch (RuntimeException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        UserId userId = new WebProtegeSessionImpl(req.getSession()).getUserInSession();
+        if (!accessManager.hasPermission(Subject.forUser(userId),
+                                         new ProjectResource(projectId),
+                                         BuiltInAction.VIEW_PROJECT)) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        Optional<Project> project = projectManager.isActive(projectId) ? projectManager.getProjectIfActive(projectId) : Optional.empty();
+        if (!project.isPresent()) {
+            // Clients fall back to polling until the project is active
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        CompletableFuture<EventList<ProjectEvent<?>>> events = project.get().getEventManager().awaitEventsFromTag(sinceTag);
+        AsyncContext asyncContext = req.startAsync();
+        asyncContext.setTimeout(longPollTimeout);
+        AtomicBoolean responded = new AtomicBoolean();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (events.cancel(false)) {
+                    respond(asyncContext, responded, HttpServletResponse.SC_NO_CONTENT, "");
+                }
+                else {
+                    // The events were posted as the request timed out.  The response must be completed before this
+                    // returns, otherwise the container responds with an error.
+                    respondWithEndTag(asyncContext, responded, events.join());
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                events.cancel(false);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        // Respond on a container thread rather than on the thread that posted the events
+        events.thenAccept(eventList -> {
+            if (!responded.get()) {
+                asyncContext.start(() -> respondWithEndTag(asyncContext, responded, eventList));
+            }
+        });
+    }
+
+    private static void respondWithEndTag(AsyncContext asyncContext,
+                                          AtomicBoolean responded,
+                                          EventList<ProjectEvent<?>> eventList) {
+        respond(asyncContext,
+                responded,
+                HttpServletResponse.SC_OK,
+                Integer.toString(eventList.getEndTag().getOrdinal()));
+    }
+
+    /**
+     * Sends the response and completes the request, unless a response has already been sent.
+     */
+    private static void respond(AsyncContext asyncContext, AtomicBoolean responded, int status, String body) {
+        if (!responded.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            response.setStatus(status);
+            response.setHeader("Cache-Control", "no-cache");
+            if (!body.isEmpty()) {
+                response.setContentType("text/plain");
+                response.getWriter().write(body);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not respond to long poll for project events: {}", e.getMessage());
+        } finally {
+            asyncContext.complete();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package edu.stanford.bmir.protege.web.server.frame;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.client.frame.LabelledFrame;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.frame.ClassFrame;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.*;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded cache of the class frames in a project, which are shared by all of the users that view the project.
+ * Each frame is stamped with the revision that it was computed at and records the IRIs that it depends on
+ * (the IRIs of the entities in the signature of the frame, which include the subject of the frame and the entities
+ * whose renderings appear in the frame).  When a revision is committed only the frames that depend on a changed
+ * IRI are invalidated, so a frame remains valid for later revisions that do not change it.  The changed IRIs are
+ * the IRIs of the entities in the signature of the changes along with the subjects of changed annotation
+ * assertions, which are not part of the signature of the assertions.  A change to the label of an entity therefore
+ * invalidates the frame of the entity and the frames that render the entity.  A frame that was computed while a
+ * revision was being committed is not added to the cache, because it may have been computed from the state of the
+ * project before the revision.
+ */
+@ProjectSingleton
+public class ClassFrameCache {
+
+    /**
+     * The maximum number of frames that are held in memory.
+     */
+    private static final long MAXIMUM_SIZE = 5_000;
+
+    private final Cache<OWLClass, CachedFrame> cache;
+
+    private RevisionNumber revision;
+
+    @Inject
+    public ClassFrameCache(@Nonnull RevisionManager revisionManager) {
+        this(revisionManager.getCurrentRevision(), MAXIMUM_SIZE);
+    }
+
+    public ClassFrameCache(@Nonnull RevisionNumber revision, long maximumSize) {
+        this.revision = checkNotNull(revision);
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .recordStats()
+                            .build();
+    }
+
+    /**
+     * Gets the frame for the specified class, computing and caching it if it is not already present.
+     * @param subject The class.
+     * @param frameSupplier A supplier that computes the frame on a cache miss.
+     * @return The frame.
+     */
+    @Nonnull
+    public LabelledFrame<ClassFrame> get(@Nonnull OWLClass subject,
+                                         @Nonnull Supplier<LabelledFrame<ClassFrame>> frameSupplier) {
+        CachedFrame cachedFrame = cache.getIfPresent(checkNotNull(subject));
+        if (cachedFrame != null) {
+            return cachedFrame.frame;
+        }
+        RevisionNumber revisionAtStart = getRevision();
+        LabelledFrame<ClassFrame> frame = checkNotNull(frameSupplier.get());
+        put(subject, new CachedFrame(frame, revisionAtStart, getDependencies(frame)));
+        return frame;
+    }
+
+    private static ImmutableSet<IRI> getDependencies(LabelledFrame<ClassFrame> frame) {
+        ImmutableSet.Builder<IRI> dependencies = ImmutableSet.builder();
+        for (OWLEntity entity : frame.getSignature()) {
+            dependencies.add(entity.getIRI());
+        }
+        return dependencies.build();
+    }
+
+    private synchronized RevisionNumber getRevision() {
+        return revision;
+    }
+
+    private synchronized void put(OWLClass subject, CachedFrame cachedFrame) {
+        if (revision.equals(cachedFrame.revision)) {
+            cache.put(subject, cachedFrame);
+        }
+    }
+
+    /**
+     * Invalidates the frames that are changed by the specified revision.
+     * @param revision The revision that has been committed.
+     * @param changes The changes in the revision.
+     */
+    public synchronized void handleChanges(@Nonnull RevisionNumber revision,
+                                           @Nonnull List<? extends OWLOntologyChange> changes) {
+        this.revision = checkNotNull(revision);
+        Set<IRI> changedIris = new HashSet<>();
+        for (OWLOntologyChange change : changes) {
+            if (change.isImportChange()) {
+                // Frames are built from the imports closure, so any frame may have changed
+                cache.invalidateAll();
+                return;
+            }
+            for (OWLEntity entity : change.getSignature()) {
+                changedIris.add(entity.getIRI());
+            }
+            if (change.isAxiomChange() && change.getAxiom() instanceof OWLAnnotationAssertionAxiom) {
+                OWLAnnotationSubject subject = ((OWLAnnotationAssertionAxiom) change.getAxiom()).getSubject();
+                if (subject instanceof IRI) {
+                    changedIris.add((IRI) subject);
+                }
+            }
+        }
+        if (changedIris.isEmpty()) {
+            return;
+        }
+        cache.asMap().values().removeIf(cachedFrame -> !Collections.disjoint(cachedFrame.dependencies, changedIris));
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ClassFrameCache")
+                .add("revision", getRevision())
+                .add("size", size())
+                .add("stats", getStats())
+                .toString();
+    }
+
+    private static final class CachedFrame {
+
+        private final LabelledFrame<ClassFrame> frame;
+
+        private final RevisionNumber revision;
+
+        private final ImmutableSet<IRI> dependencies;
+
+        private CachedFrame(LabelledFrame<ClassFrame> frame,
+                            RevisionNumber revision,
+                            ImmutableSet<IRI> dependencies) {
+            this.frame = frame;
+            this.revision = revision;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -36,13 +36,18 @@ public class GetClassFrameActionHandler extends AbstractHasProjectActionHandler<
     @Nonnull
     private final Provider<ClassFrameTranslator> translatorProvider;
 
+    @Nonnull
+    private final ClassFrameCache classFrameCache;
+
     @Inject
     public GetClassFrameActionHandler(@Nonnull AccessManager accessManager,
                                       @Nonnull RenderingManager renderingManager,
-                                      @Nonnull Provider<ClassFrameTranslator> translatorProvider) {
+                                      @Nonnull Provider<ClassFrameTranslator> translatorProvider,
+                                      @Nonnull ClassFrameCache classFrameCache) {
         super(accessManager);
         this.renderingManager = renderingManager;
         this.translatorProvider = translatorProvider;
+        this.classFrameCache = classFrameCache;
     }
 
     /**
@@ -62,11 +67,13 @@ public class GetClassFrameActionHandler extends AbstractHasProjectActionHandler<
 
     @Override
     public GetClassFrameResult execute(GetClassFrameAction action, ExecutionContext executionContext) {
-        FrameActionResultTranslator<ClassFrame, OWLClassData> translator = new FrameActionResultTranslator<>(
-                renderingManager,
-                translatorProvider.get(),
-                renderingManager.getRendering(action.getSubject()));
-        LabelledFrame<ClassFrame> f = translator.doIT();
+        LabelledFrame<ClassFrame> f = classFrameCache.get(action.getSubject(), () -> {
+            FrameActionResultTranslator<ClassFrame, OWLClassData> translator = new FrameActionResultTranslator<>(
+                    renderingManager,
+                    translatorProvider.get(),
+                    renderingManager.getRendering(action.getSubject()));
+            return translator.doIT();
+        });
         logger.info(BROWSING,
                      "{} {} retrieved Class frame for {} ({})",
                     action.getProjectId(),
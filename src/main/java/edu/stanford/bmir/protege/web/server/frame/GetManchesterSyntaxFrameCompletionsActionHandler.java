@@ -11,25 +11,26 @@ import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
 import edu.stanford.bmir.protege.web.server.mansyntax.ManchesterSyntaxFrameParser;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.search.EntitySearchIndex;
 import edu.stanford.bmir.protege.web.server.shortform.EscapingShortFormProvider;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormIndex;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormMatch;
 import edu.stanford.bmir.protege.web.server.shortform.WebProtegeOntologyIRIShortFormProvider;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsAction;
 import edu.stanford.bmir.protege.web.shared.frame.GetManchesterSyntaxFrameCompletionsResult;
 import edu.stanford.bmir.protege.web.shared.renderer.ManchesterSyntaxKeywords;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
-import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
 import org.semanticweb.owlapi.manchestersyntax.parser.ManchesterOWLSyntax;
 import org.semanticweb.owlapi.manchestersyntax.renderer.ParserException;
 import org.semanticweb.owlapi.model.EntityType;
-import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.*;
 
+import static java.util.stream.Collectors.toList;
 
 /**
  * @author Matthew Horridge, Stanford University, Bio-Medical Informatics Research Group, Date: 20/03/2014
@@ -52,17 +53,27 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
     @Nonnull
     private final Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider;
 
+    @Nonnull
+    private final ShortFormIndex shortFormIndex;
+
+    @Nonnull
+    private final EntitySearchIndex entitySearchIndex;
+
     @Inject
     public GetManchesterSyntaxFrameCompletionsActionHandler(@Nonnull AccessManager accessManager,
                                                             @Nonnull RenderingManager renderingManager,
                                                             @Nonnull WebProtegeOntologyIRIShortFormProvider ontologyIRIShortFormProvider,
                                                             @Nonnull @RootOntology OWLOntology rootOntology,
-                                                            @Nonnull Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider) {
+                                                            @Nonnull Provider<ManchesterSyntaxFrameParser> manchesterSyntaxFrameParserProvider,
+                                                            @Nonnull ShortFormIndex shortFormIndex,
+                                                            @Nonnull EntitySearchIndex entitySearchIndex) {
         super(accessManager);
         this.renderingManager = renderingManager;
         this.ontologyIRIShortFormProvider = ontologyIRIShortFormProvider;
         this.rootOntology = rootOntology;
         this.manchesterSyntaxFrameParserProvider = manchesterSyntaxFrameParserProvider;
+        this.shortFormIndex = shortFormIndex;
+        this.entitySearchIndex = entitySearchIndex;
     }
 
     @Override
@@ -110,36 +121,22 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
     }
 
     private List<AutoCompletionChoice> getEntityAutocompletionChoices(GetManchesterSyntaxFrameCompletionsAction action, ParserException e, EditorPosition fromPos, EditorPosition toPos, String lastWordPrefix) {
-        List<AutoCompletionMatch> matches = Lists.newArrayList();
+        List<AutoCompletionChoice> result = Lists.newArrayList();
         Set<EntityType<?>> expectedEntityTypes = Sets.newHashSet(ManchesterSyntaxFrameParser.getExpectedEntityTypes(e));
         if(!expectedEntityTypes.isEmpty()) {
-            BidirectionalShortFormProvider shortFormProvider = renderingManager.getShortFormProvider();
-            for(String shortForm : shortFormProvider.getShortForms()) {
-                EntityNameMatcher entityNameMatcher = new EntityNameMatcher(lastWordPrefix);
-                Optional<EntityNameMatchResult> match = entityNameMatcher.findIn(shortForm);
-                if(match.isPresent()) {
-                    Set<OWLEntity> entities = shortFormProvider.getEntities(shortForm);
-                    for(OWLEntity entity : entities) {
-                        if(expectedEntityTypes.contains(entity.getEntityType())) {
-                            EscapingShortFormProvider escapingShortFormProvider = new EscapingShortFormProvider(shortFormProvider);
-                            AutoCompletionChoice choice = new AutoCompletionChoice(escapingShortFormProvider.getShortForm(entity), shortForm, "", fromPos, toPos);
-                            AutoCompletionMatch autoCompletionMatch = new AutoCompletionMatch(
-                                    match.get(),
-                                        choice
-                            );
-                            matches.add(autoCompletionMatch);
-                        }
-                    }
-
-                }
-            }
-        }
-        Collections.sort(matches);
-        List<AutoCompletionChoice> result = Lists.newArrayList();
-        for(AutoCompletionMatch match : matches) {
-            result.add(match.getAutoCompletionChoice());
-            if(result.size() == action.getEntityTypeSuggestLimit()) {
-                break;
+            EscapingShortFormProvider escapingShortFormProvider = new EscapingShortFormProvider(renderingManager.getShortFormProvider());
+            List<ShortFormMatch> matches = shortFormIndex.getMatches(lastWordPrefix,
+                                                                     expectedEntityTypes,
+                                                                     action.getEntityTypeSuggestLimit(),
+                                                                     () -> entitySearchIndex.getCandidates(expectedEntityTypes, new String[]{lastWordPrefix}).stream()
+                                                                                            .map(OWLEntityData::getEntity)
+                                                                                            .collect(toList()));
+            for(ShortFormMatch match : matches) {
+                result.add(new AutoCompletionChoice(escapingShortFormProvider.getShortForm(match.getEntity()),
+                                                    match.getShortForm(),
+                                                    "",
+                                                    fromPos,
+                                                    toPos));
             }
         }
         return result;
@@ -216,34 +213,4 @@ public class GetManchesterSyntaxFrameCompletionsActionHandler
     }
 
 
-    private static class AutoCompletionMatch implements Comparable<AutoCompletionMatch> {
-
-        private EntityNameMatchResult matchResult;
-
-        private AutoCompletionChoice autoCompletionChoice;
-
-        private AutoCompletionMatch(EntityNameMatchResult matchResult, AutoCompletionChoice autoCompletionChoice) {
-            this.matchResult = matchResult;
-            this.autoCompletionChoice = autoCompletionChoice;
-        }
-
-        public EntityNameMatchResult getMatchResult() {
-            return matchResult;
-        }
-
-        public AutoCompletionChoice getAutoCompletionChoice() {
-            return autoCompletionChoice;
-        }
-
-        @Override
-        public int compareTo(@Nonnull AutoCompletionMatch autoCompletionMatch) {
-            int diff = this.matchResult.compareTo(autoCompletionMatch.matchResult);
-            if(diff != 0) {
-                return diff;
-            }
-            return autoCompletionChoice.getDisplayText().compareToIgnoreCase(autoCompletionMatch.autoCompletionChoice.getDisplayText());
-        }
-    }
-
-
 }
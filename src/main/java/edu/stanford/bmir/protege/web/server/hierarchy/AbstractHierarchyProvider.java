@@ -5,10 +5,8 @@ import org.semanticweb.owlapi.model.OWLObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Author: Matthew Horridge<br>
@@ -33,6 +31,12 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
 
     private List<OWLObjectHierarchyProviderListener<N>> listeners;
 
+    /**
+     * The length of the shortest path from a node to a root, for the nodes whose paths to the root have
+     * been requested and for their ancestors.  The map is replaced whenever the hierarchy changes.
+     */
+    private volatile Map<N, Integer> rootDistances = new ConcurrentHashMap<>();
+
 
     protected AbstractHierarchyProvider() {
         listeners = new ArrayList<>();
@@ -51,6 +55,11 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
     }
 
 
+    public boolean isAncestor(N object, N ancestor) {
+        return getAncestors(object).contains(ancestor);
+    }
+
+
     private void getAncestors(Set<N> results, N object) {
         for (N parent : getParents(object)) {
             if (!results.contains(parent)) {
@@ -124,6 +133,147 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
         return setOfPaths;
     }
 
+
+    public Optional<List<N>> getShortestPathToRoot(N obj) {
+        Map<N, Integer> distances = getRootDistances(obj);
+        if (distances.get(obj) == UNREACHABLE) {
+            return Optional.empty();
+        }
+        LinkedList<N> path = new LinkedList<>();
+        N current = obj;
+        path.addFirst(current);
+        while (distances.get(current) > 0) {
+            int parentDistance = distances.get(current) - 1;
+            N next = null;
+            for (N parent : getParents(current)) {
+                if (getRootDistance(distances, parent) == parentDistance) {
+                    next = parent;
+                    break;
+                }
+            }
+            if (next == null) {
+                // The hierarchy changed while the path was being walked
+                return Optional.empty();
+            }
+            current = next;
+            path.addFirst(current);
+        }
+        return Optional.of(new ArrayList<>(path));
+    }
+
+
+    public List<List<N>> getPathsToRoot(N obj, int maxPaths) {
+        if (maxPaths < 1) {
+            throw new IllegalArgumentException("maxPaths must be at least 1");
+        }
+        Map<N, Integer> distances = getRootDistances(obj);
+        List<List<N>> paths = new ArrayList<>();
+        if (distances.get(obj) != UNREACHABLE) {
+            LinkedList<N> currentPath = new LinkedList<>();
+            currentPath.addFirst(obj);
+            collectPaths(obj, currentPath, distances, maxPaths, paths);
+        }
+        return paths;
+    }
+
+
+    private void collectPaths(N obj,
+                              LinkedList<N> currentPath,
+                              Map<N, Integer> distances,
+                              int maxPaths,
+                              List<List<N>> paths) {
+        if (distances.get(obj) == 0) {
+            paths.add(new ArrayList<>(currentPath));
+            return;
+        }
+        List<N> parents = new ArrayList<>();
+        for (N parent : getParents(obj)) {
+            if (getRootDistance(distances, parent) != UNREACHABLE && !currentPath.contains(parent)) {
+                parents.add(parent);
+            }
+        }
+        // Trying the parents that are closest to the root first makes the first path a shortest path
+        parents.sort(Comparator.comparing(distances::get));
+        for (N parent : parents) {
+            if (paths.size() == maxPaths) {
+                return;
+            }
+            currentPath.addFirst(parent);
+            collectPaths(parent, currentPath, distances, maxPaths, paths);
+            currentPath.removeFirst();
+        }
+    }
+
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+
+    private int getRootDistance(Map<N, Integer> distances, N node) {
+        Integer distance = distances.get(node);
+        if (distance == null) {
+            distance = getRootDistances(node).get(node);
+        }
+        return distance;
+    }
+
+
+    /**
+     * Gets the root distances, making sure that they contain the distance from the specified node, and from each
+     * of its ancestors, to the nearest root.  The ancestors that were not visited by an earlier request are found
+     * with a breadth first search over their parents, stopping at the roots and at the nodes whose distances are
+     * already known.  The distances of the newly visited nodes are then assigned in order of increasing distance,
+     * from the roots and the already known nodes downwards, so the work only depends upon the number of new ancestors.
+     */
+    private Map<N, Integer> getRootDistances(N obj) {
+        Map<N, Integer> distances = rootDistances;
+        if (distances.containsKey(obj)) {
+            return distances;
+        }
+        Set<N> roots = getRoots();
+        Map<N, Integer> newDistances = new HashMap<>();
+        Map<N, Set<N>> children = new HashMap<>();
+        PriorityQueue<Map.Entry<N, Integer>> queue = new PriorityQueue<>(Comparator.comparing(Map.Entry::getValue));
+        Deque<N> toVisit = new ArrayDeque<>();
+        Set<N> visited = new HashSet<>();
+        toVisit.add(obj);
+        visited.add(obj);
+        while (!toVisit.isEmpty()) {
+            N node = toVisit.poll();
+            Integer knownDistance = roots.contains(node) ? Integer.valueOf(0) : distances.get(node);
+            if (knownDistance != null) {
+                newDistances.put(node, knownDistance);
+                if (knownDistance != UNREACHABLE) {
+                    queue.add(new AbstractMap.SimpleImmutableEntry<>(node, knownDistance));
+                }
+                continue;
+            }
+            newDistances.put(node, UNREACHABLE);
+            for (N parent : getParents(node)) {
+                children.computeIfAbsent(parent, p -> new HashSet<>()).add(node);
+                if (visited.add(parent)) {
+                    toVisit.add(parent);
+                }
+            }
+        }
+        while (!queue.isEmpty()) {
+            Map.Entry<N, Integer> entry = queue.poll();
+            if (entry.getValue() > newDistances.get(entry.getKey())) {
+                // A shorter distance was found after this entry was queued
+                continue;
+            }
+            int childDistance = entry.getValue() + 1;
+            for (N child : children.getOrDefault(entry.getKey(), Collections.emptySet())) {
+                if (childDistance < newDistances.get(child)) {
+                    newDistances.put(child, childDistance);
+                    queue.add(new AbstractMap.SimpleImmutableEntry<>(child, childDistance));
+                }
+            }
+        }
+        distances.putAll(newDistances);
+        return distances;
+    }
+
+
     ////////////////////////////////////////////////////////////////////////////////////////////
 
 
@@ -137,6 +287,15 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
     }
 
 
+    /**
+     * Discards the root distances.  Subclasses fire a change for every revision of the hierarchy, so the
+     * distances are only reused for as long as the hierarchy stays the same.
+     */
+    private void clearRootDistances() {
+        rootDistances = new ConcurrentHashMap<>();
+    }
+
+
     public void addListener(OWLObjectHierarchyProviderListener<N> listener) {
         listeners.add(listener);
     }
@@ -148,6 +307,7 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
 
 
     protected void fireNodeChanged(N node) {
+        clearRootDistances();
         if (!fireEvents) {
             return;
         }
@@ -167,6 +327,7 @@ public abstract class AbstractHierarchyProvider<N> implements HierarchyProvider<
 
 
     protected void fireHierarchyChanged() {
+        clearRootDistances();
         if (!fireEvents) {
             return;
         }
@@ -16,6 +16,7 @@ import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 
 /**
@@ -40,11 +41,23 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
 
     private final Set<OWLClass> nodesToUpdate = new HashSet<>();
 
+    /**
+     * The asserted parents and children of classes, excluding the implicit root.
+     */
+    private final HierarchyAdjacencyCache<OWLClass> adjacencyCache;
+
+    /**
+     * The ancestors and descendants of classes, including the implicit root.
+     */
+    private final HierarchyClosureCache<OWLClass> closureCache;
+
     @Inject
     public ClassHierarchyProvider(@Nonnull @RootOntology OWLOntology rootOntology,
                                   @Nonnull @ClassHierarchyRoot OWLClass rootCls) {
         this.root = checkNotNull(rootCls);
         this.rootOntology = checkNotNull(rootOntology);
+        adjacencyCache = new HierarchyAdjacencyCache<>(this::extractParents, this::extractChildren);
+        closureCache = new HierarchyClosureCache<>(this::getParents, this::getChildren);
         rootFinder = new TerminalElementFinder<>(cls -> {
             Collection<OWLClass> parents = getParents(cls);
             parents.remove(root);
@@ -78,7 +91,6 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
         Set<OWLClass> changedClasses = new HashSet<>();
         changedClasses.add(root);
         List<OWLAxiomChange> filteredChanges = filterIrrelevantChanges(changes);
-        updateImplicitRoots(filteredChanges);
         for (OWLOntologyChange change : filteredChanges) {
             changedClasses.addAll(change.getSignature()
                                         .stream()
@@ -87,14 +99,30 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
                                         .map(entity -> (OWLClass) entity)
                                         .collect(toList()));
         }
+        // The parents and children of a class only depend upon axioms that reference the class.  The
+        // cache must be up to date before the implicit roots are recomputed, because they are found from the parents.
+        adjacencyCache.invalidate(changedClasses);
+        updateImplicitRoots(filteredChanges);
         changedClasses.forEach(this::registerNodeChanged);
-        rootFinder.getTerminalElements()
-                  .stream()
-                  .filter(cls -> !oldTerminalElements.contains(cls))
-                  .forEach(this::registerNodeChanged);
-        oldTerminalElements.stream()
-                           .filter(cls -> !rootFinder.getTerminalElements().contains(cls))
-                           .forEach(this::registerNodeChanged);
+        Set<OWLClass> newTerminalElements = rootFinder.getTerminalElements()
+                                                      .stream()
+                                                      .filter(cls -> !oldTerminalElements.contains(cls))
+                                                      .collect(toSet());
+        Set<OWLClass> removedTerminalElements = oldTerminalElements.stream()
+                                                                   .filter(cls -> !rootFinder.getTerminalElements().contains(cls))
+                                                                   .collect(toSet());
+        newTerminalElements.forEach(this::registerNodeChanged);
+        removedTerminalElements.forEach(this::registerNodeChanged);
+        // The root is an ancestor of every class, so it is only invalidated when its children have changed
+        Set<OWLClass> classesWithChangedParents = new HashSet<>(changedClasses);
+        classesWithChangedParents.remove(root);
+        classesWithChangedParents.addAll(newTerminalElements);
+        classesWithChangedParents.addAll(removedTerminalElements);
+        Set<OWLClass> classesWithChangedChildren = new HashSet<>(classesWithChangedParents);
+        if (!newTerminalElements.isEmpty() || !removedTerminalElements.isEmpty()) {
+            classesWithChangedChildren.add(root);
+        }
+        closureCache.invalidate(classesWithChangedParents, classesWithChangedChildren);
         notifyNodeChanges();
     }
 
@@ -160,16 +188,14 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
         if (object.equals(root)) {
             result = new HashSet<>();
             result.addAll(rootFinder.getTerminalElements());
-            result.addAll(extractChildren(object));
+            result.addAll(adjacencyCache.getChildren(object));
             result.remove(object);
         }
         else {
-            result = extractChildren(object);
-            for (Iterator<OWLClass> it = result.iterator(); it.hasNext();) {
-                OWLClass curChild = it.next();
-                if (getAncestors(object).contains(curChild)) {
-                    it.remove();
-                }
+            result = adjacencyCache.getChildren(object);
+            if (!result.isEmpty()) {
+                Set<OWLClass> ancestors = getAncestors(object);
+                result.removeAll(ancestors);
             }
         }
 
@@ -199,28 +225,49 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
     }
 
 
+    @Override
+    public Set<OWLClass> getAncestors(OWLClass object) {
+        return closureCache.getAncestors(object);
+    }
+
+
+    @Override
+    public Set<OWLClass> getDescendants(OWLClass object) {
+        return closureCache.getDescendants(object);
+    }
+
+
+    @Override
+    public boolean isAncestor(OWLClass object, OWLClass ancestor) {
+        return closureCache.isAncestor(object, ancestor);
+    }
+
+
     public Set<OWLClass> getParents(OWLClass object) {
-        ParentClassExtractor parentClassExtractor = new ParentClassExtractor();
         // If the object is thing then there are no
         // parents
         if (object.equals(root)) {
             return Collections.emptySet();
         }
-        Set<OWLClass> result = new HashSet<>();
+        Set<OWLClass> result = adjacencyCache.getParents(object);
         // Thing if the object is a root class
         if (rootFinder.getTerminalElements().contains(object)) {
             result.add(root);
         }
-        // Not a root, so must have another parent
+        return result;
+    }
+
+
+    private Set<OWLClass> extractParents(OWLClass cls) {
+        ParentClassExtractor parentClassExtractor = new ParentClassExtractor();
         parentClassExtractor.reset();
-        parentClassExtractor.setCurrentClass(object);
+        parentClassExtractor.setCurrentClass(cls);
         for (OWLOntology ont : getOntologies()) {
-            for (OWLAxiom ax : ont.getAxioms(object, Imports.EXCLUDED)) {
+            for (OWLAxiom ax : ont.getAxioms(cls, Imports.EXCLUDED)) {
                 ax.accept(parentClassExtractor);
             }
         }
-        result.addAll(parentClassExtractor.getResult());
-        return result;
+        return parentClassExtractor.getResult();
     }
 
 
@@ -236,7 +283,7 @@ public class ClassHierarchyProvider extends AbstractHierarchyProvider<OWLClass>
         Set<OWLClass> ancestors = getAncestors(object);
         if (ancestors.contains(object)) {
             result.addAll(ancestors.stream()
-                                   .filter(cls -> getAncestors(cls).contains(object))
+                                   .filter(cls -> isAncestor(cls, object))
                                    .collect(toList()));
             result.remove(object);
             result.remove(root);
@@ -19,6 +19,6 @@ public class DataPropertyDataPropertyAncestorChecker implements HasHasAncestor<O
 
     @Override
     public boolean hasAncestor(OWLDataProperty node, OWLDataProperty node2) {
-        return node.equals(node2) || hierarchyProvider.getAncestors(node).contains(node2);
+        return node.equals(node2) || hierarchyProvider.isAncestor(node, node2);
     }
 }
@@ -0,0 +1,162 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the parents and children of nodes in a hierarchy.  Nodes are interned as int ids and the parents and
+ * children of each node are held as arrays of ids.  The parents or children of a node are computed by the supplied
+ * functions the first time that they are requested and are then served from the cache until the node is
+ * invalidated.
+ *
+ * Values that are computed while nodes are being invalidated are not cached, so a value that was computed from
+ * the state of the ontologies before a change cannot be cached after the change has been processed.
+ *
+ * This class is thread safe.
+ */
+public class HierarchyAdjacencyCache<N> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Function<N, ? extends Collection<N>> parentsFunction;
+
+    private final Function<N, ? extends Collection<N>> childrenFunction;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    private final Map<N, Integer> ids = new HashMap<>();
+
+    private final List<N> nodes = new ArrayList<>();
+
+    /**
+     * Parent ids indexed by node id.  A {@code null} entry means that the parents have not been computed.
+     */
+    private int[][] parents = new int[INITIAL_CAPACITY][];
+
+    /**
+     * Child ids indexed by node id.  A {@code null} entry means that the children have not been computed.
+     */
+    private int[][] children = new int[INITIAL_CAPACITY][];
+
+    private long version = 0;
+
+    /**
+     * @param parentsFunction A function that computes the parents of a node.
+     * @param childrenFunction A function that computes the children of a node.
+     */
+    public HierarchyAdjacencyCache(@Nonnull Function<N, ? extends Collection<N>> parentsFunction,
+                                   @Nonnull Function<N, ? extends Collection<N>> childrenFunction) {
+        this.parentsFunction = checkNotNull(parentsFunction);
+        this.childrenFunction = checkNotNull(childrenFunction);
+    }
+
+    /**
+     * Gets the parents of the specified node.
+     * @return A fresh mutable set containing the parents of the node.
+     */
+    @Nonnull
+    public Set<N> getParents(@Nonnull N node) {
+        return get(node, true);
+    }
+
+    /**
+     * Gets the children of the specified node.
+     * @return A fresh mutable set containing the children of the node.
+     */
+    @Nonnull
+    public Set<N> getChildren(@Nonnull N node) {
+        return get(node, false);
+    }
+
+    private Set<N> get(N node, boolean getParents) {
+        long computedAtVersion;
+        try {
+            readLock.lock();
+            Integer id = ids.get(node);
+            if (id != null) {
+                int[] adjacentIds = getParents ? parents[id] : children[id];
+                if (adjacentIds != null) {
+                    return toNodes(adjacentIds);
+                }
+            }
+            computedAtVersion = version;
+        } finally {
+            readLock.unlock();
+        }
+        Collection<N> adjacentNodes = getParents ? parentsFunction.apply(node) : childrenFunction.apply(node);
+        try {
+            writeLock.lock();
+            if (version == computedAtVersion) {
+                int id = intern(node);
+                int[] adjacentIds = new int[adjacentNodes.size()];
+                int i = 0;
+                for (N adjacentNode : adjacentNodes) {
+                    adjacentIds[i] = intern(adjacentNode);
+                    i++;
+                }
+                if (getParents) {
+                    parents[id] = adjacentIds;
+                }
+                else {
+                    children[id] = adjacentIds;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return new HashSet<>(adjacentNodes);
+    }
+
+    private Set<N> toNodes(int[] nodeIds) {
+        Set<N> result = new HashSet<>(nodeIds.length * 2);
+        for (int nodeId : nodeIds) {
+            result.add(nodes.get(nodeId));
+        }
+        return result;
+    }
+
+    private int intern(N node) {
+        Integer id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        int nextId = nodes.size();
+        nodes.add(node);
+        ids.put(node, nextId);
+        if (nextId == parents.length) {
+            parents = Arrays.copyOf(parents, nextId * 2);
+            children = Arrays.copyOf(children, nextId * 2);
+        }
+        return nextId;
+    }
+
+    /**
+     * Discards the cached parents and children of the specified nodes.
+     * @param invalidatedNodes The nodes.
+     */
+    public void invalidate(@Nonnull Collection<N> invalidatedNodes) {
+        try {
+            writeLock.lock();
+            version++;
+            for (N node : invalidatedNodes) {
+                Integer id = ids.get(node);
+                if (id != null) {
+                    parents[id] = null;
+                    children[id] = null;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
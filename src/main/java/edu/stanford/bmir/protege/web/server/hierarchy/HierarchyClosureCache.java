@@ -0,0 +1,330 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the ancestors and descendants of nodes in a hierarchy.  Nodes are interned as int ids and the ancestors
+ * and descendants of each node are held as sorted arrays of ids.  The ancestors or descendants of a node are
+ * computed from the supplied parents and children functions the first time that they are requested, reusing the
+ * cached ancestors or descendants of the nodes that are reached, and are then served from the cache until they are
+ * invalidated or evicted.
+ *
+ * The total number of ids that are held in cached closures is bounded, and the least recently used closures are
+ * evicted when the bound is reached.  Ids that are no longer held in any cached closure, for example the ids of
+ * nodes that have been removed from the hierarchy, are released when the number of interned nodes has doubled.
+ *
+ * When the parents or children of some nodes change only the cached closures that contain, or belong to, one of
+ * those nodes are discarded.  The ancestors of a node can only change if the parents of the node, or of one of
+ * its ancestors, change, and similarly for descendants, so the closures of nodes elsewhere in the hierarchy are kept.
+ *
+ * Values that are computed while nodes are being invalidated are not cached, so a value that was computed from
+ * the state of the ontologies before a change cannot be cached after the change has been processed.
+ *
+ * This class is thread safe.
+ */
+public class HierarchyClosureCache<N> {
+
+    /**
+     * The default maximum number of ids that are held in the cached ancestors, and separately in the cached
+     * descendants.
+     */
+    private static final long DEFAULT_MAXIMUM_CACHED_IDS = 4_000_000;
+
+    private static final int MINIMUM_COMPACTION_SIZE = 1024;
+
+    private final Function<N, ? extends Collection<N>> parentsFunction;
+
+    private final Function<N, ? extends Collection<N>> childrenFunction;
+
+    private final long maximumCachedIds;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    private Map<N, Integer> ids = new HashMap<>();
+
+    private List<N> nodes = new ArrayList<>();
+
+    /**
+     * The number of interned nodes at which ids that are no longer used are released.
+     */
+    private int compactionSize = MINIMUM_COMPACTION_SIZE;
+
+    /**
+     * Sorted ancestor ids keyed by node id.
+     */
+    private Cache<Integer, int[]> ancestors;
+
+    /**
+     * Sorted descendant ids keyed by node id.
+     */
+    private Cache<Integer, int[]> descendants;
+
+    private long version = 0;
+
+    /**
+     * @param parentsFunction A function that computes the parents of a node.
+     * @param childrenFunction A function that computes the children of a node.
+     */
+    public HierarchyClosureCache(@Nonnull Function<N, ? extends Collection<N>> parentsFunction,
+                                 @Nonnull Function<N, ? extends Collection<N>> childrenFunction) {
+        this(parentsFunction, childrenFunction, DEFAULT_MAXIMUM_CACHED_IDS);
+    }
+
+    HierarchyClosureCache(@Nonnull Function<N, ? extends Collection<N>> parentsFunction,
+                          @Nonnull Function<N, ? extends Collection<N>> childrenFunction,
+                          long maximumCachedIds) {
+        checkArgument(maximumCachedIds > 0, "The maximum number of cached ids must be greater than zero");
+        this.parentsFunction = checkNotNull(parentsFunction);
+        this.childrenFunction = checkNotNull(childrenFunction);
+        this.maximumCachedIds = maximumCachedIds;
+        this.ancestors = createClosureCache();
+        this.descendants = createClosureCache();
+    }
+
+    private Cache<Integer, int[]> createClosureCache() {
+        return CacheBuilder.newBuilder()
+                           .maximumWeight(maximumCachedIds)
+                           .weigher((Integer id, int[] closure) -> closure.length + 1)
+                           .build();
+    }
+
+    /**
+     * Gets the ancestors of the specified node.  The node is only an ancestor of itself if it is in a cycle.
+     * @return A fresh mutable set containing the ancestors of the node.
+     */
+    @Nonnull
+    public Set<N> getAncestors(@Nonnull N node) {
+        return getClosure(node, true);
+    }
+
+    /**
+     * Gets the descendants of the specified node.  The node is only a descendant of itself if it is in a cycle.
+     * @return A fresh mutable set containing the descendants of the node.
+     */
+    @Nonnull
+    public Set<N> getDescendants(@Nonnull N node) {
+        return getClosure(node, false);
+    }
+
+    /**
+     * Determines whether one node is an ancestor of another node.  If the ancestors of the node are cached then
+     * this is a binary search of the cached ancestor ids.
+     * @param node The node.
+     * @param ancestor The possible ancestor.
+     * @return true if ancestor is an ancestor of node, otherwise false.
+     */
+    public boolean isAncestor(@Nonnull N node, @Nonnull N ancestor) {
+        try {
+            readLock.lock();
+            Integer id = ids.get(node);
+            int[] ancestorIds = id != null ? ancestors.getIfPresent(id) : null;
+            if (ancestorIds != null) {
+                Integer ancestorId = ids.get(ancestor);
+                return ancestorId != null && Arrays.binarySearch(ancestorIds, ancestorId) >= 0;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        return getClosure(node, true).contains(ancestor);
+    }
+
+    private Set<N> getClosure(N node, boolean getAncestors) {
+        long computedAtVersion;
+        try {
+            readLock.lock();
+            Set<N> cachedClosure = getCachedClosure(node, getAncestors);
+            if (cachedClosure != null) {
+                return cachedClosure;
+            }
+            computedAtVersion = version;
+        } finally {
+            readLock.unlock();
+        }
+        Function<N, ? extends Collection<N>> adjacentNodesFunction = getAncestors ? parentsFunction : childrenFunction;
+        Set<N> closure = new HashSet<>();
+        Deque<N> toExpand = new ArrayDeque<>();
+        toExpand.push(node);
+        while (!toExpand.isEmpty()) {
+            N current = toExpand.pop();
+            for (N adjacentNode : adjacentNodesFunction.apply(current)) {
+                if (closure.add(adjacentNode)) {
+                    Set<N> cachedClosure = getCachedClosureWithReadLock(adjacentNode, getAncestors);
+                    if (cachedClosure != null) {
+                        closure.addAll(cachedClosure);
+                    }
+                    else {
+                        toExpand.push(adjacentNode);
+                    }
+                }
+            }
+        }
+        try {
+            writeLock.lock();
+            if (version == computedAtVersion) {
+                compactIfNecessary();
+                int id = intern(node);
+                int[] closureIds = new int[closure.size()];
+                int i = 0;
+                for (N closureNode : closure) {
+                    closureIds[i] = intern(closureNode);
+                    i++;
+                }
+                Arrays.sort(closureIds);
+                (getAncestors ? ancestors : descendants).put(id, closureIds);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return closure;
+    }
+
+    private Set<N> getCachedClosureWithReadLock(N node, boolean getAncestors) {
+        try {
+            readLock.lock();
+            return getCachedClosure(node, getAncestors);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private Set<N> getCachedClosure(N node, boolean getAncestors) {
+        Integer id = ids.get(node);
+        if (id == null) {
+            return null;
+        }
+        int[] closureIds = (getAncestors ? ancestors : descendants).getIfPresent(id);
+        if (closureIds == null) {
+            return null;
+        }
+        Set<N> result = new HashSet<>(closureIds.length * 2);
+        for (int closureId : closureIds) {
+            result.add(nodes.get(closureId));
+        }
+        return result;
+    }
+
+    private int intern(N node) {
+        Integer id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        int nextId = nodes.size();
+        nodes.add(node);
+        ids.put(node, nextId);
+        return nextId;
+    }
+
+    /**
+     * Releases the ids of nodes that are not held in any cached closure, once the number of interned nodes has
+     * reached the compaction size.  The remaining nodes are interned again and the cached closures are rewritten
+     * with the new ids.  Must be called with the write lock held.
+     */
+    private void compactIfNecessary() {
+        if (nodes.size() < compactionSize) {
+            return;
+        }
+        List<N> previousNodes = nodes;
+        ids = new HashMap<>();
+        nodes = new ArrayList<>();
+        ancestors = compact(ancestors, previousNodes);
+        descendants = compact(descendants, previousNodes);
+        compactionSize = Math.max(MINIMUM_COMPACTION_SIZE, nodes.size() * 2);
+    }
+
+    private Cache<Integer, int[]> compact(Cache<Integer, int[]> closures, List<N> previousNodes) {
+        Cache<Integer, int[]> compactedClosures = createClosureCache();
+        closures.asMap().forEach((id, closureIds) -> {
+            int[] compactedIds = new int[closureIds.length];
+            for (int i = 0; i < closureIds.length; i++) {
+                compactedIds[i] = intern(previousNodes.get(closureIds[i]));
+            }
+            Arrays.sort(compactedIds);
+            compactedClosures.put(intern(previousNodes.get(id)), compactedIds);
+        });
+        return compactedClosures;
+    }
+
+    /**
+     * Gets the number of nodes that are interned.
+     */
+    int getInternedNodeCount() {
+        try {
+            readLock.lock();
+            return nodes.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of ids that are held in the cached ancestors and descendants.
+     */
+    long getCachedIdCount() {
+        try {
+            readLock.lock();
+            return getCachedIdCount(ancestors) + getCachedIdCount(descendants);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static long getCachedIdCount(Cache<Integer, int[]> closures) {
+        return closures.asMap().values().stream()
+                       .mapToLong(closureIds -> closureIds.length)
+                       .sum();
+    }
+
+    /**
+     * Discards the cached ancestors and descendants that may have been changed by changes to the parents or
+     * children of the specified nodes.
+     * @param nodesWithChangedParents The nodes whose parents may have changed.  The cached ancestors of these
+     *                                nodes, and of their cached descendants, are discarded.
+     * @param nodesWithChangedChildren The nodes whose children may have changed.  The cached descendants of these
+     *                                 nodes, and of their cached ancestors, are discarded.
+     */
+    public void invalidate(@Nonnull Collection<N> nodesWithChangedParents,
+                           @Nonnull Collection<N> nodesWithChangedChildren) {
+        try {
+            writeLock.lock();
+            version++;
+            invalidate(ancestors, toIds(nodesWithChangedParents));
+            invalidate(descendants, toIds(nodesWithChangedChildren));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private BitSet toIds(Collection<N> nodesToConvert) {
+        BitSet result = new BitSet();
+        for (N node : nodesToConvert) {
+            Integer id = ids.get(node);
+            if (id != null) {
+                result.set(id);
+            }
+        }
+        return result;
+    }
+
+    private static void invalidate(Cache<Integer, int[]> closures, BitSet changedIds) {
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        closures.asMap().entrySet().removeIf(entry -> changedIds.get(entry.getKey())
+                || Arrays.stream(entry.getValue()).anyMatch(changedIds::get));
+    }
+}
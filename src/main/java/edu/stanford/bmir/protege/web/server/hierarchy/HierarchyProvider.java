@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.server.hierarchy;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -28,12 +29,41 @@ public interface HierarchyProvider<N> extends HasGetAncestors<N> {
     Set<N> getAncestors(N object);
 
 
+    /**
+     * Determines whether one object is an ancestor of another object.
+     * @param object The object.
+     * @param ancestor The possible ancestor.
+     * @return true if ancestor is an ancestor of object, otherwise false.  An object is only an ancestor of
+     * itself if it is in a cycle.
+     */
+    boolean isAncestor(N object, N ancestor);
+
+
     Set<N> getEquivalents(N object);
 
 
     Set<List<N>> getPathsToRoot(N object);
 
 
+    /**
+     * Gets a shortest path from a root of the hierarchy to the specified object.
+     * @param object The object.
+     * @return The path, which starts with a root and ends with the object, or empty if there is no path from a
+     * root to the object.
+     */
+    Optional<List<N>> getShortestPathToRoot(N object);
+
+
+    /**
+     * Gets at most the specified number of paths from the roots of the hierarchy to the specified object.
+     * @param object The object.
+     * @param maxPaths The maximum number of paths.  Must be at least one.
+     * @return The paths, each of which starts with a root and ends with the object.  The first path is a
+     * shortest path.  Empty if there is no path from a root to the object.
+     */
+    List<List<N>> getPathsToRoot(N object, int maxPaths);
+
+
     boolean containsReference(N object);
 
 
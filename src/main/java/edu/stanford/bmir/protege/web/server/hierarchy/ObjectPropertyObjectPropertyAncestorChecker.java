@@ -19,6 +19,6 @@ public class ObjectPropertyObjectPropertyAncestorChecker implements HasHasAncest
 
     @Override
     public boolean hasAncestor(OWLObjectProperty node, OWLObjectProperty node2) {
-        return node.equals(node2) || hierarchyProvider.getAncestors(node).contains(node2);
+        return node.equals(node2) || hierarchyProvider.isAncestor(node, node2);
     }
 }
@@ -0,0 +1,54 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import edu.stanford.bmir.protege.web.server.issues.EntityDiscussionThreadRepository;
+import edu.stanford.bmir.protege.web.server.watches.WatchManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Retrieves the open comment counts and watches that decorate the nodes in a tree.  The decorations for all of the
+ * nodes that are displayed together, for example the children of a node that has been expanded, are retrieved
+ * with one query for the comment counts and one query for the watches, regardless of the number of nodes.
+ */
+public class TreeNodeDecorationService {
+
+    @Nonnull
+    private final EntityDiscussionThreadRepository discussionThreadRepository;
+
+    @Inject
+    public TreeNodeDecorationService(@Nonnull EntityDiscussionThreadRepository discussionThreadRepository) {
+        this.discussionThreadRepository = checkNotNull(discussionThreadRepository);
+    }
+
+    /**
+     * Gets the decorations for the specified nodes.
+     * @param projectId The project that the nodes belong to.
+     * @param watchManager The watch manager for the project.
+     * @param userId The user whose watches decorate the nodes.
+     * @param nodes The nodes.
+     * @return The decorations for the nodes.
+     */
+    @Nonnull
+    public TreeNodeDecorations getDecorations(@Nonnull ProjectId projectId,
+                                              @Nonnull WatchManager watchManager,
+                                              @Nonnull UserId userId,
+                                              @Nonnull Collection<? extends OWLEntity> nodes) {
+        checkNotNull(projectId);
+        checkNotNull(watchManager);
+        checkNotNull(userId);
+        checkNotNull(nodes);
+        Map<OWLEntity, Integer> openCommentsCounts = discussionThreadRepository.getOpenCommentsCounts(projectId, nodes);
+        Set<Watch> watches = watchManager.getDirectWatches(nodes, userId);
+        return new TreeNodeDecorations(openCommentsCounts, watches);
+    }
+}
@@ -0,0 +1,61 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The open comment counts and watches for a set of tree nodes.
+ */
+public class TreeNodeDecorations {
+
+    private final ImmutableMap<OWLEntity, Integer> openCommentsCounts;
+
+    private final ImmutableSetMultimap<OWLEntity, Watch> watches;
+
+    public TreeNodeDecorations(@Nonnull Map<OWLEntity, Integer> openCommentsCounts,
+                               @Nonnull Set<Watch> watches) {
+        this.openCommentsCounts = ImmutableMap.copyOf(checkNotNull(openCommentsCounts));
+        ImmutableSetMultimap.Builder<OWLEntity, Watch> watchesBuilder = ImmutableSetMultimap.builder();
+        for (Watch watch : watches) {
+            watchesBuilder.put(watch.getEntity(), watch);
+        }
+        this.watches = watchesBuilder.build();
+    }
+
+    /**
+     * Gets the number of comments in open threads for the specified node.
+     * @param node The node.
+     * @return The number of comments.  Zero if the node is not decorated by these decorations.
+     */
+    public int getOpenCommentsCount(@Nonnull OWLEntity node) {
+        Integer count = openCommentsCounts.get(checkNotNull(node));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Gets the watches that are directly attached to the specified node.
+     * @param node The node.
+     * @return The watches.  Empty if the node is not decorated by these decorations.
+     */
+    @Nonnull
+    public Set<Watch> getWatches(@Nonnull OWLEntity node) {
+        return watches.get(checkNotNull(node));
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("TreeNodeDecorations")
+                .add("openCommentsCounts", openCommentsCounts)
+                .add("watches", watches)
+                .toString();
+    }
+}
@@ -1,5 +1,6 @@
 package edu.stanford.bmir.protege.web.server.inject;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.mongodb.client.MongoDatabase;
 import dagger.Module;
 import dagger.Provides;
@@ -19,7 +20,7 @@ import edu.stanford.bmir.protege.web.server.dispatch.DispatchServiceExecutor;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.ActionHandlerRegistryImpl;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.DispatchServiceExecutorImpl;
 import edu.stanford.bmir.protege.web.server.download.DownloadGeneratorExecutor;
-import edu.stanford.bmir.protege.web.server.download.FileTransferExecutor;
+import edu.stanford.bmir.protege.web.server.download.DownloadWarmerExecutor;
 import edu.stanford.bmir.protege.web.server.logging.DefaultLogger;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.mail.*;
@@ -49,6 +50,8 @@ import java.util.Collections;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 /**
  * Matthew Horridge
@@ -58,7 +61,6 @@ import java.util.concurrent.Executors;
 @Module
 public class ApplicationModule {
 
-    private static final int MAX_FILE_DOWNLOAD_THREADS = 5;
 
     @Provides
     @ApplicationSingleton
@@ -168,6 +170,12 @@ public class ApplicationModule {
         return povider.get();
     }
 
+    @Provides
+    @EventsLongPollTimeout
+    public long provideEventsLongPollTimeout(EventsLongPollTimeoutProvider provider) {
+        return provider.get();
+    }
+
     @Provides
     @MailProperties
     @ApplicationSingleton
@@ -220,9 +228,28 @@ public class ApplicationModule {
     }
 
     @Provides
-    @FileTransferExecutor
-    public ExecutorService provideFileTransferExecutorService() {
-        return Executors.newFixedThreadPool(MAX_FILE_DOWNLOAD_THREADS);
+    @ApplicationSingleton
+    @ProjectLoaderExecutor
+    public ExecutorService provideProjectLoaderExecutorService() {
+        // Bounded so that opening several large projects at once does not swamp the server
+        int threadCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+        return Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+                .setNameFormat("project-loader-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    @Provides
+    @ApplicationSingleton
+    @DownloadWarmerExecutor
+    public ScheduledExecutorService provideDownloadWarmerExecutorService() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("download-warmer-%d")
+                .setDaemon(true)
+                .build());
+        // Warmings are cancelled and rescheduled on every commit, so cancelled warmings must not pile up in the queue
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
     }
 
     @Provides
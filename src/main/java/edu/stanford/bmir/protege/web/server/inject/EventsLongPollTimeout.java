@@ -0,0 +1,13 @@
+package edu.stanford.bmir.protege.web.server.inject;
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Qualifies the time, in milliseconds, that a long poll for project events waits before it times out.
+ */
+@Qualifier
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EventsLongPollTimeout {
+}
@@ -0,0 +1,26 @@
+package edu.stanford.bmir.protege.web.server.inject;
+
+import edu.stanford.bmir.protege.web.server.app.WebProtegeProperties;
+import edu.stanford.bmir.protege.web.shared.app.WebProtegePropertyName;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class EventsLongPollTimeoutProvider implements Provider<Long> {
+
+    private final WebProtegeProperties webProtegeProperties;
+
+    @Inject
+    public EventsLongPollTimeoutProvider(WebProtegeProperties webProtegeProperties) {
+        this.webProtegeProperties = checkNotNull(webProtegeProperties);
+    }
+
+    @Override
+    public Long get() {
+        String timeout = webProtegeProperties.getEventsLongPollTimeout()
+                                             .orElse(WebProtegePropertyName.EVENTS_LONG_POLL_TIMEOUT.getDefaultValue().get());
+        return Long.parseLong(timeout);
+    }
+}
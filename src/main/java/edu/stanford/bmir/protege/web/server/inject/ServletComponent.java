@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.server.inject;
 import dagger.Subcomponent;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.DispatchServiceImpl;
 import edu.stanford.bmir.protege.web.server.download.ProjectDownloadServlet;
+import edu.stanford.bmir.protege.web.server.events.ProjectEventsLongPollServlet;
 import edu.stanford.bmir.protege.web.server.legacy.OntologyServiceOWLAPIImpl;
 import edu.stanford.bmir.protege.web.server.upload.FileUploadServlet;
 
@@ -25,4 +26,6 @@ public interface ServletComponent {
 
     FileUploadServlet getFileUploadServlet();
 
+    ProjectEventsLongPollServlet getProjectEventsLongPollServlet();
+
 }
@@ -9,6 +9,7 @@ import edu.stanford.bmir.protege.web.server.collection.CreateCollectionItemsActi
 import edu.stanford.bmir.protege.web.server.collection.GetCollectionItemsActionHandler;
 import edu.stanford.bmir.protege.web.server.crud.GetEntityCrudKitSettingsActionHandler;
 import edu.stanford.bmir.protege.web.server.crud.SetEntityCrudKitSettingsActionHandler;
+import edu.stanford.bmir.protege.web.server.csv.GetCSVImportProgressActionHandler;
 import edu.stanford.bmir.protege.web.server.csv.ImportCSVFileActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.handlers.*;
@@ -195,6 +196,11 @@ public class ProjectActionHandlersModule {
         return handler;
     }
 
+    @Provides(type = SET)
+    public ProjectActionHandler provideGetCSVImportProgressActionHandler(GetCSVImportProgressActionHandler handler) {
+        return handler;
+    }
+
     @Provides(type = SET)
     public ProjectActionHandler provideGetUsageActionHandler(GetUsageActionHandler handler) {
         return handler;
@@ -3,6 +3,7 @@ package edu.stanford.bmir.protege.web.server.inject.project;
 import dagger.Subcomponent;
 import edu.stanford.bmir.protege.web.server.dispatch.impl.ProjectActionHandlerRegistry;
 import edu.stanford.bmir.protege.web.server.project.Project;
+import edu.stanford.bmir.protege.web.server.project.ProjectOpener;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 
 /**
@@ -21,5 +22,7 @@ public interface ProjectComponent {
     @Deprecated
     Project getProject();
 
+    ProjectOpener getProjectOpener();
+
     ProjectActionHandlerRegistry getActionHandlerRegistry();
 }
@@ -24,7 +24,10 @@ public class ProjectDirectoryFactory {
         return new File(getProjectDataDirectory(), projectId.getId());
     }
 
-    private File getProjectDataDirectory() {
+    /**
+     * Gets the directory that contains the directories of all projects.
+     */
+    public File getProjectDataDirectory() {
         return new File(getDataStoreDirectory(), "project-data");
     }
 
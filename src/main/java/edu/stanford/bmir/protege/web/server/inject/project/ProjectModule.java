@@ -30,6 +30,7 @@ import edu.stanford.bmir.protege.web.server.renderer.OWLObjectRendererImpl;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManagerImpl;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotPolicy;
 import edu.stanford.bmir.protege.web.server.revision.RevisionStore;
 import edu.stanford.bmir.protege.web.server.revision.RevisionStoreProvider;
 import edu.stanford.bmir.protege.web.server.shortform.*;
@@ -115,6 +116,12 @@ public class ProjectModule {
         return provider.get();
     }
 
+    @Provides
+    @RevisionSnapshotDirectory
+    public File provideRevisionSnapshotDirectory(RevisionSnapshotDirectoryProvider provider) {
+        return provider.get();
+    }
+
     @Provides
     @ProjectSpecificUiConfigurationDataDirectory
     public File provideProjectSpecificUiConfigurationDataDirectory(ProjectSpecificUiConfigurationDataDirectoryProvider provider) {
@@ -336,6 +343,11 @@ public class ProjectModule {
         return provider.get();
     }
 
+    @Provides
+    public RevisionSnapshotPolicy provideRevisionSnapshotPolicy() {
+        return RevisionSnapshotPolicy.getDefault();
+    }
+
     @Provides
     public LegacyEntityDataProvider provideLegacyEntityDataProvider(LegacyEntityDataManager renderingManager) {
         return renderingManager;
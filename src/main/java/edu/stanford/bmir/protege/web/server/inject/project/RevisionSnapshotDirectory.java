@@ -0,0 +1,13 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+
+
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Qualifier
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RevisionSnapshotDirectory {
+}
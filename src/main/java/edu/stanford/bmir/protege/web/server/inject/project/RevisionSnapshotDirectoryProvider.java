@@ -0,0 +1,28 @@
+package edu.stanford.bmir.protege.web.server.inject.project;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.io.File;
+
+/**
+ * Provides the directory that revision snapshots are stored in.  This sits alongside the change history file.
+ */
+public class RevisionSnapshotDirectoryProvider implements Provider<File> {
+
+    private static final String CHANGE_DATA_DIRECTORY_NAME = "change-data";
+
+    private static final String SNAPSHOTS_DIRECTORY_NAME = "snapshots";
+
+    private final File projectDirectory;
+
+
+    @Inject
+    public RevisionSnapshotDirectoryProvider(@ProjectDirectory File projectDirectory) {
+        this.projectDirectory = projectDirectory;
+    }
+
+    @Override
+    public File get() {
+        return new File(new File(projectDirectory, CHANGE_DATA_DIRECTORY_NAME), SNAPSHOTS_DIRECTORY_NAME);
+    }
+}
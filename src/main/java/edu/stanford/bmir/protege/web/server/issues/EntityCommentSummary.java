@@ -0,0 +1,230 @@
+package edu.stanford.bmir.protege.web.server.issues;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.issues.Comment;
+import edu.stanford.bmir.protege.web.shared.issues.EntityDiscussionThread;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.mongodb.morphia.annotations.*;
+import org.mongodb.morphia.utils.IndexType;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.issues.EntityCommentSummary.*;
+
+/**
+ * A summary of the discussion threads that are attached to an entity.  Summaries are maintained by the
+ * {@link EntityDiscussionThreadRepository} as threads and comments are written, so that the comment statistics
+ * for an entity, or for all of the commented entities in a project, can be read without loading the threads.
+ * There is only a summary for an entity if the threads for the entity contain at least one comment.
+ */
+@Entity(value = "EntityCommentSummaries", noClassnameStored = true)
+@Indexes({
+                 @Index(fields = {
+                         @Field(PROJECT_ID),
+                         @Field(ENTITY)},
+                        options = @IndexOptions(unique = true)),
+                 @Index(fields = {
+                         @Field(PROJECT_ID),
+                         @Field(value = LAST_MODIFIED, type = IndexType.DESC)})
+         }
+)
+public class EntityCommentSummary {
+
+    public static final String PROJECT_ID = "projectId";
+
+    public static final String ENTITY = "entity";
+
+    public static final String THREAD_COUNT = "threadCount";
+
+    public static final String OPEN_THREAD_COUNT = "openThreadCount";
+
+    public static final String COMMENT_COUNT = "commentCount";
+
+    public static final String OPEN_COMMENT_COUNT = "openCommentCount";
+
+    public static final String LAST_MODIFIED = "lastModified";
+
+    public static final String LAST_MODIFIED_BY = "lastModifiedBy";
+
+    public static final String PARTICIPANTS = "participants";
+
+    @Nonnull
+    @Property(PROJECT_ID)
+    private ProjectId projectId;
+
+    @Nonnull
+    @Property(ENTITY)
+    private OWLEntity entity;
+
+    @Property(THREAD_COUNT)
+    private int threadCount;
+
+    @Property(OPEN_THREAD_COUNT)
+    private int openThreadCount;
+
+    @Property(COMMENT_COUNT)
+    private int commentCount;
+
+    @Property(OPEN_COMMENT_COUNT)
+    private int openCommentCount;
+
+    @Property(LAST_MODIFIED)
+    private long lastModified;
+
+    @Nonnull
+    @Property(LAST_MODIFIED_BY)
+    private UserId lastModifiedBy;
+
+    @Nonnull
+    @Property(PARTICIPANTS)
+    private List<UserId> participants;
+
+    public EntityCommentSummary(@Nonnull ProjectId projectId,
+                                @Nonnull OWLEntity entity,
+                                int threadCount,
+                                int openThreadCount,
+                                int commentCount,
+                                int openCommentCount,
+                                long lastModified,
+                                @Nonnull UserId lastModifiedBy,
+                                @Nonnull List<UserId> participants) {
+        this.projectId = checkNotNull(projectId);
+        this.entity = checkNotNull(entity);
+        this.threadCount = threadCount;
+        this.openThreadCount = openThreadCount;
+        this.commentCount = commentCount;
+        this.openCommentCount = openCommentCount;
+        this.lastModified = lastModified;
+        this.lastModifiedBy = checkNotNull(lastModifiedBy);
+        this.participants = ImmutableList.copyOf(participants);
+    }
+
+    /**
+     * For Morphia, which requires a no-argument constructor to read summaries.
+     */
+    private EntityCommentSummary() {
+    }
+
+    /**
+     * Summarizes the specified threads.
+     * @param projectId The project that the threads belong to.
+     * @param entity The entity that the threads are attached to.
+     * @param threads The threads.
+     * @return The summary, or empty if the threads do not contain any comments.
+     */
+    @Nonnull
+    public static Optional<EntityCommentSummary> summarize(@Nonnull ProjectId projectId,
+                                                           @Nonnull OWLEntity entity,
+                                                           @Nonnull Collection<EntityDiscussionThread> threads) {
+        int openThreadCount = 0;
+        int commentCount = 0;
+        int openCommentCount = 0;
+        Comment lastComment = null;
+        Set<UserId> participants = new LinkedHashSet<>();
+        for (EntityDiscussionThread thread : threads) {
+            boolean open = thread.getStatus().isOpen();
+            if (open) {
+                openThreadCount++;
+            }
+            for (Comment comment : thread.getComments()) {
+                commentCount++;
+                if (open) {
+                    openCommentCount++;
+                }
+                participants.add(comment.getCreatedBy());
+                if (lastComment == null || getLastModified(comment) > getLastModified(lastComment)) {
+                    lastComment = comment;
+                }
+            }
+        }
+        if (lastComment == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new EntityCommentSummary(projectId,
+                                                    entity,
+                                                    threads.size(),
+                                                    openThreadCount,
+                                                    commentCount,
+                                                    openCommentCount,
+                                                    getLastModified(lastComment),
+                                                    lastComment.getCreatedBy(),
+                                                    ImmutableList.copyOf(participants)));
+    }
+
+    private static long getLastModified(Comment comment) {
+        return comment.getUpdatedAt().orElse(comment.getCreatedAt());
+    }
+
+    @Nonnull
+    public ProjectId getProjectId() {
+        return projectId;
+    }
+
+    @Nonnull
+    public OWLEntity getEntity() {
+        return entity;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getOpenThreadCount() {
+        return openThreadCount;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    /**
+     * Gets the number of comments in the open threads for the entity.
+     */
+    public int getOpenCommentCount() {
+        return openCommentCount;
+    }
+
+    /**
+     * Gets the time at which the most recently created or updated comment was created or updated.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Nonnull
+    public UserId getLastModifiedBy() {
+        return lastModifiedBy;
+    }
+
+    /**
+     * Gets the users that have commented on the entity, in the order in which they first commented.
+     */
+    @Nonnull
+    public List<UserId> getParticipants() {
+        return ImmutableList.copyOf(participants);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("EntityCommentSummary")
+                .add("projectId", projectId)
+                .add("entity", entity)
+                .add("threadCount", threadCount)
+                .add("openThreadCount", openThreadCount)
+                .add("commentCount", commentCount)
+                .add("openCommentCount", openCommentCount)
+                .add("lastModified", lastModified)
+                .add("lastModifiedBy", lastModifiedBy)
+                .add("participants", participants)
+                .toString();
+    }
+}
@@ -1,38 +1,96 @@
 package edu.stanford.bmir.protege.web.server.issues;
 
+import com.google.common.util.concurrent.Striped;
 import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
 import edu.stanford.bmir.protege.web.shared.issues.*;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import org.mongodb.morphia.Datastore;
+import org.mongodb.morphia.UpdateOptions;
+import org.mongodb.morphia.query.FindOptions;
 import org.mongodb.morphia.query.Query;
 import org.mongodb.morphia.query.UpdateOperations;
 import org.mongodb.morphia.query.UpdateResults;
 import org.semanticweb.owlapi.model.OWLEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.issues.EntityDiscussionThread.*;
+import static java.util.stream.Collectors.groupingBy;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 5 Oct 2016
+ *
+ * Stores discussion threads.  An {@link EntityCommentSummary} is maintained for each commented entity.  Each method
+ * that writes threads or comments recomputes the summaries for the entities whose threads it changed, from the
+ * threads for those entities, before it returns.
  */
+@ApplicationSingleton
 public class EntityDiscussionThreadRepository {
 
+    private static final Logger logger = LoggerFactory.getLogger(EntityDiscussionThreadRepository.class);
+
     public static final String MATCHED_COMMENT_PATH = "comments.$";
 
+    private static final int SUMMARY_LOCK_STRIPES = 64;
+
+    private static final String SUMMARY_BACKFILL_COLLECTION_NAME = "EntityCommentSummaryBackfill";
+
+    private static final String SUMMARY_BACKFILL_COMPLETED_ID = "completed";
+
     @Nonnull
     private final Datastore datastore;
 
+    /**
+     * Serializes the recomputation of the summary for an entity, so that a summary that was computed before a
+     * write cannot replace one that was computed after the write.
+     */
+    private final Striped<Lock> summaryLocks = Striped.lock(SUMMARY_LOCK_STRIPES);
+
     @Inject
     public EntityDiscussionThreadRepository(@Nonnull Datastore datastore) {
         this.datastore = checkNotNull(datastore);
         this.datastore.ensureIndexes();
+        this.datastore.ensureIndexes(EntityCommentSummary.class);
+        buildCommentSummariesIfNecessary();
+    }
+
+    /**
+     * Builds the summaries for all of the commented entities, which is necessary for threads that were created
+     * before summaries were maintained.  A marker document is saved once the summaries have been built.  If the
+     * build is interrupted then there is no marker and the summaries are built again the next time that the
+     * repository is created.
+     */
+    private void buildCommentSummariesIfNecessary() {
+        DBCollection backfillCollection = datastore.getDB().getCollection(SUMMARY_BACKFILL_COLLECTION_NAME);
+        BasicDBObject completedMarker = new BasicDBObject("_id", SUMMARY_BACKFILL_COMPLETED_ID);
+        if (backfillCollection.count(completedMarker) != 0) {
+            return;
+        }
+        if (datastore.getCount(EntityDiscussionThread.class) != 0) {
+            logger.info("Building comment summaries");
+            List<?> projectIds = datastore.getCollection(EntityDiscussionThread.class).distinct(PROJECT_ID);
+            for (Object projectId : projectIds) {
+                getThreadsInProject(ProjectId.get(projectId.toString()))
+                        .stream()
+                        .collect(groupingBy(EntityDiscussionThread::getEntity))
+                        .forEach((entity, threads) -> {
+                            ProjectId id = ProjectId.get(projectId.toString());
+                            saveCommentSummary(id, entity, EntityCommentSummary.summarize(id, entity, threads));
+                        });
+            }
+            logger.info("Built comment summaries for {} projects", projectIds.size());
+        }
+        backfillCollection.save(completedMarker);
     }
 
     public List<EntityDiscussionThread> findThreads(@Nonnull ProjectId projectId,
@@ -48,23 +106,85 @@ public class EntityDiscussionThreadRepository {
 
     public int getCommentsCount(@Nonnull ProjectId projectId,
                                 @Nonnull OWLEntity entity) {
-        return findThreads(projectId, entity).stream()
-                                             .map(thread -> thread.getComments().size())
-                                             .reduce((left, right) -> left + right)
-                                             .orElse(0);
+        return getCommentSummary(projectId, entity).map(EntityCommentSummary::getCommentCount)
+                                                   .orElse(0);
     }
 
     public int getOpenCommentsCount(@Nonnull ProjectId projectId,
                                     @Nonnull OWLEntity entity) {
-        return findThreads(projectId, entity).stream()
-                                             .filter(thread -> thread.getStatus() == Status.OPEN)
-                                             .map(thread -> thread.getComments().size())
-                                             .reduce((left, right) -> left + right)
-                                             .orElse(0);
+        return getCommentSummary(projectId, entity).map(EntityCommentSummary::getOpenCommentCount)
+                                                   .orElse(0);
+    }
+
+    /**
+     * Gets the number of comments in open threads for each of the specified entities.  The counts are read from
+     * the comment summaries of the entities with a single query.
+     * @param projectId The project.
+     * @param entities The entities.
+     * @return A map from each entity that has comments in open threads to the number of comments.  Entities that
+     * do not have any comments in open threads are not contained in the map.
+     */
+    @Nonnull
+    public Map<OWLEntity, Integer> getOpenCommentsCounts(@Nonnull ProjectId projectId,
+                                                         @Nonnull Collection<? extends OWLEntity> entities) {
+        if (entities.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<EntityCommentSummary> summaries = createQueryForSummaries(projectId)
+                .field(EntityCommentSummary.ENTITY).in(entities)
+                .field(EntityCommentSummary.OPEN_COMMENT_COUNT).greaterThan(0)
+                .asList();
+        Map<OWLEntity, Integer> result = new HashMap<>();
+        summaries.forEach(summary -> result.put(summary.getEntity(), summary.getOpenCommentCount()));
+        return result;
+    }
+
+    /**
+     * Gets the comment summary for the specified entity.
+     * @return The summary, or empty if there are no comments on the entity.
+     */
+    @Nonnull
+    public Optional<EntityCommentSummary> getCommentSummary(@Nonnull ProjectId projectId,
+                                                            @Nonnull OWLEntity entity) {
+        return Optional.ofNullable(createQueryForSummary(projectId, entity).get());
+    }
+
+    /**
+     * Gets the comment summaries for the commented entities in the specified project.
+     * @return The summaries, most recently modified first.
+     */
+    @Nonnull
+    public List<EntityCommentSummary> getCommentSummaries(@Nonnull ProjectId projectId) {
+        return createQueryForSummaries(projectId)
+                .order("-" + EntityCommentSummary.LAST_MODIFIED)
+                .asList();
+    }
+
+    /**
+     * Gets a range of the comment summaries for the commented entities in the specified project, most recently
+     * modified first.  The range is read using the index on the project id and last modified time, so only the
+     * summaries in the range are read.
+     * @param skip The number of summaries to skip.
+     * @param limit The maximum number of summaries to get.
+     * @return The summaries, most recently modified first.
+     */
+    @Nonnull
+    public List<EntityCommentSummary> getCommentSummaries(@Nonnull ProjectId projectId, int skip, int limit) {
+        return createQueryForSummaries(projectId)
+                .order("-" + EntityCommentSummary.LAST_MODIFIED)
+                .asList(new FindOptions().skip(skip).limit(limit));
+    }
+
+    /**
+     * Gets the number of commented entities in the specified project.
+     */
+    public long getCommentSummaryCount(@Nonnull ProjectId projectId) {
+        return createQueryForSummaries(projectId).count();
     }
 
     public void saveThread(@Nonnull EntityDiscussionThread thread) {
         datastore.save(thread);
+        updateCommentSummary(thread.getProjectId(), thread.getEntity());
     }
 
     public void addCommentToThread(@Nonnull ThreadId threadId,
@@ -72,12 +192,15 @@ public class EntityDiscussionThreadRepository {
         Query<EntityDiscussionThread> query = createQueryForThread(threadId);
         UpdateOperations<EntityDiscussionThread> ops = getUpdateOperations().push(COMMENTS, comment);
         datastore.update(query, ops, false);
+        getThread(threadId).ifPresent(this::updateCommentSummary);
     }
 
     public Optional<EntityDiscussionThread> setThreadStatus(@Nonnull ThreadId threadId,
                                                             @Nonnull Status status) {
         datastore.updateFirst(createQueryForThread(threadId), getUpdateOperations().set(STATUS, status));
-        return Optional.ofNullable(datastore.get(EntityDiscussionThread.class, threadId));
+        Optional<EntityDiscussionThread> thread = Optional.ofNullable(datastore.get(EntityDiscussionThread.class, threadId));
+        thread.ifPresent(this::updateCommentSummary);
+        return thread;
     }
 
 
@@ -94,6 +217,8 @@ public class EntityDiscussionThreadRepository {
         UpdateOperations<EntityDiscussionThread> updateOperations = datastore.createUpdateOperations(EntityDiscussionThread.class);
         updateOperations.set("entity", withEntity);
         datastore.update(query, updateOperations);
+        updateCommentSummary(projectId, entity);
+        updateCommentSummary(projectId, withEntity);
     }
 
     private UpdateOperations<EntityDiscussionThread> getUpdateOperations() {
@@ -111,6 +236,7 @@ public class EntityDiscussionThreadRepository {
         UpdateOperations<EntityDiscussionThread> update = getUpdateOperations()
                 .set(MATCHED_COMMENT_PATH, comment);
         datastore.updateFirst(query, update);
+        getThread(id).ifPresent(this::updateCommentSummary);
     }
 
     public Optional<EntityDiscussionThread> findThreadByCommentId(CommentId commentId) {
@@ -120,11 +246,13 @@ public class EntityDiscussionThreadRepository {
     }
 
     public boolean deleteComment(CommentId commentId) {
+        Optional<EntityDiscussionThread> thread = findThreadByCommentId(commentId);
         Query<EntityDiscussionThread> query = datastore.createQuery(EntityDiscussionThread.class)
                                                        .field(COMMENTS_ID).equal(commentId);
         UpdateOperations<EntityDiscussionThread> update = getUpdateOperations()
                 .removeAll(COMMENTS, new BasicDBObject("_id", commentId.getId()));
         UpdateResults updateResults = datastore.updateFirst(query, update);
+        thread.ifPresent(this::updateCommentSummary);
         return updateResults.getUpdatedCount() == 1;
     }
 
@@ -133,4 +261,57 @@ public class EntityDiscussionThreadRepository {
                         .field(PROJECT_ID).equal(projectId)
                         .asList();
     }
+
+    private void updateCommentSummary(@Nonnull EntityDiscussionThread thread) {
+        updateCommentSummary(thread.getProjectId(), thread.getEntity());
+    }
+
+    /**
+     * Recomputes the comment summary for the specified entity from the threads for the entity.
+     */
+    private void updateCommentSummary(@Nonnull ProjectId projectId,
+                                      @Nonnull OWLEntity entity) {
+        Lock lock = summaryLocks.get(Arrays.asList(projectId, entity));
+        try {
+            lock.lock();
+            List<EntityDiscussionThread> threads = findThreads(projectId, entity);
+            saveCommentSummary(projectId, entity, EntityCommentSummary.summarize(projectId, entity, threads));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void saveCommentSummary(@Nonnull ProjectId projectId,
+                                    @Nonnull OWLEntity entity,
+                                    @Nonnull Optional<EntityCommentSummary> summary) {
+        Query<EntityCommentSummary> query = createQueryForSummary(projectId, entity);
+        if (!summary.isPresent()) {
+            datastore.delete(query);
+            return;
+        }
+        EntityCommentSummary s = summary.get();
+        UpdateOperations<EntityCommentSummary> update = datastore.createUpdateOperations(EntityCommentSummary.class)
+                .set(EntityCommentSummary.PROJECT_ID, projectId)
+                .set(EntityCommentSummary.ENTITY, entity)
+                .set(EntityCommentSummary.THREAD_COUNT, s.getThreadCount())
+                .set(EntityCommentSummary.OPEN_THREAD_COUNT, s.getOpenThreadCount())
+                .set(EntityCommentSummary.COMMENT_COUNT, s.getCommentCount())
+                .set(EntityCommentSummary.OPEN_COMMENT_COUNT, s.getOpenCommentCount())
+                .set(EntityCommentSummary.LAST_MODIFIED, s.getLastModified())
+                .set(EntityCommentSummary.LAST_MODIFIED_BY, s.getLastModifiedBy())
+                .set(EntityCommentSummary.PARTICIPANTS, s.getParticipants());
+        datastore.update(query, update, new UpdateOptions().upsert(true));
+    }
+
+    private Query<EntityCommentSummary> createQueryForSummaries(@Nonnull ProjectId projectId) {
+        return datastore.createQuery(EntityCommentSummary.class)
+                        .disableValidation()
+                        .field(EntityCommentSummary.PROJECT_ID).equal(projectId);
+    }
+
+    private Query<EntityCommentSummary> createQueryForSummary(@Nonnull ProjectId projectId,
+                                                              @Nonnull OWLEntity entity) {
+        return createQueryForSummaries(projectId)
+                .field(EntityCommentSummary.ENTITY).equal(entity);
+    }
 }
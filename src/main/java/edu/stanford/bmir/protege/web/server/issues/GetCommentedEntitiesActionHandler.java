@@ -8,21 +8,15 @@ import edu.stanford.bmir.protege.web.server.mansyntax.render.HasGetRendering;
 import edu.stanford.bmir.protege.web.server.pagination.Pager;
 import edu.stanford.bmir.protege.web.shared.entity.CommentedEntityData;
 import edu.stanford.bmir.protege.web.shared.issues.*;
+import edu.stanford.bmir.protege.web.shared.pagination.Page;
 import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
-import edu.stanford.bmir.protege.web.shared.user.UserId;
-import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLOntology;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import static edu.stanford.bmir.protege.web.shared.entity.CommentedEntityData.byEntity;
-import static edu.stanford.bmir.protege.web.shared.entity.CommentedEntityData.byLastModified;
-import static java.util.Comparator.comparing;
-import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -62,48 +56,51 @@ public class GetCommentedEntitiesActionHandler extends AbstractHasProjectActionH
     public GetCommentedEntitiesResult execute(GetCommentedEntitiesAction action,
                                                  ExecutionContext executionContext) {
         PageRequest request = action.getPageRequest();
-        List<EntityDiscussionThread> allThreads = repository.getThreadsInProject(action.getProjectId());
-
-
-        Map<OWLEntity, List<EntityDiscussionThread>> commentsByEntity = allThreads.stream()
-                                                                                  .collect(groupingBy(
-                                                                                          EntityDiscussionThread::getEntity));
-
-        List<CommentedEntityData> result = new ArrayList<>();
-        commentsByEntity.forEach((entity, threads) -> {
-            if (rootOntology.containsEntityInSignature(entity)) {
-                int totalThreadCount = threads.size();
-                int openThreadCount = (int) threads.stream()
-                                                   .filter(thread -> thread.getStatus().isOpen())
-                                                   .count();
-                List<Comment> entityComments = threads.stream()
-                                                      .flatMap(thread -> thread.getComments()
-                                                                               .stream())
-                                                      .collect(toList());
-                Comment lastComment = entityComments.stream()
-                                                    .max(comparing(c -> c.getUpdatedAt().orElse(c.getCreatedAt()))).get();
-
-                List<UserId> participants = entityComments.stream()
-                                                          .map(Comment::getCreatedBy)
-                                                          .collect(toList());
-                result.add(new CommentedEntityData(
-                        renderer.getRendering(entity),
-                        totalThreadCount,
-                        openThreadCount,
-                        entityComments.size(),
-                        lastComment.getUpdatedAt().orElse(lastComment.getCreatedAt()),
-                        lastComment.getCreatedBy(),
-                        participants
-                ));
-            }
-        });
         if(action.getSortingKey() == SortingKey.SORT_BY_ENTITY) {
-            result.sort(byEntity);
+            // Entities are sorted by their renderings, so every entity must be rendered
+            List<CommentedEntityData> result = repository.getCommentSummaries(action.getProjectId()).stream()
+                                                         .filter(this::isInSignature)
+                                                         .map(this::toCommentedEntityData)
+                                                         .sorted(byEntity)
+                                                         .collect(toList());
+            Pager<CommentedEntityData> pager = Pager.getPagerForPageSize(result, request.getPageSize());
+            return new GetCommentedEntitiesResult(action.getProjectId(), pager.getPage(request.getPageNumber()));
         }
         else {
-            result.sort(byLastModified);
+            // Only the summaries on the requested page are read and rendered.  Summaries of entities that are no
+            // longer in the signature are counted but not shown, so a page may hold fewer elements than the page
+            // size.
+            int pageSize = request.getPageSize();
+            long totalElements = repository.getCommentSummaryCount(action.getProjectId());
+            int pageCount = Math.max(1, (int) ((totalElements + pageSize - 1) / pageSize));
+            int pageNumber = Math.min(Math.max(request.getPageNumber(), 1), pageCount);
+            List<CommentedEntityData> pageElements = repository.getCommentSummaries(action.getProjectId(),
+                                                                                    (pageNumber - 1) * pageSize,
+                                                                                    pageSize).stream()
+                                                               .filter(this::isInSignature)
+                                                               .map(this::toCommentedEntityData)
+                                                               .collect(toList());
+            return new GetCommentedEntitiesResult(action.getProjectId(),
+                                                  new Page<>(pageNumber,
+                                                             pageCount,
+                                                             pageElements,
+                                                             totalElements));
         }
-        Pager<CommentedEntityData> pager = Pager.getPagerForPageSize(result, request.getPageSize());
-        return new GetCommentedEntitiesResult(action.getProjectId(), pager.getPage(request.getPageNumber()));
+    }
+
+    private boolean isInSignature(EntityCommentSummary summary) {
+        return rootOntology.containsEntityInSignature(summary.getEntity());
+    }
+
+    private CommentedEntityData toCommentedEntityData(EntityCommentSummary summary) {
+        return new CommentedEntityData(
+                renderer.getRendering(summary.getEntity()),
+                summary.getThreadCount(),
+                summary.getOpenThreadCount(),
+                summary.getCommentCount(),
+                summary.getLastModified(),
+                summary.getLastModifiedBy(),
+                summary.getParticipants()
+        );
     }
 }
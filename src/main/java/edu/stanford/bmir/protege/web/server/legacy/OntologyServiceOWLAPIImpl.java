@@ -7,7 +7,8 @@ import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
-import edu.stanford.bmir.protege.web.server.issues.EntityDiscussionThreadRepository;
+import edu.stanford.bmir.protege.web.server.hierarchy.TreeNodeDecorationService;
+import edu.stanford.bmir.protege.web.server.hierarchy.TreeNodeDecorations;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.project.Project;
 import edu.stanford.bmir.protege.web.server.project.ProjectManager;
@@ -60,16 +61,16 @@ public class OntologyServiceOWLAPIImpl extends WebProtegeRemoteServiceServlet im
     private final ProjectManager projectManager;
 
     @Nonnull
-    private final EntityDiscussionThreadRepository entityDiscussionThreadRepository;
+    private final TreeNodeDecorationService treeNodeDecorationService;
 
     @Inject
     public OntologyServiceOWLAPIImpl(
             @Nonnull WebProtegeLogger logger,
             @Nonnull ProjectManager projectManager,
-            @Nonnull EntityDiscussionThreadRepository discussionThreadRepository) {
+            @Nonnull TreeNodeDecorationService treeNodeDecorationService) {
         super(logger);
         this.projectManager = projectManager;
-        this.entityDiscussionThreadRepository = discussionThreadRepository;
+        this.treeNodeDecorationService = treeNodeDecorationService;
     }
 
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
@@ -213,32 +214,44 @@ public class OntologyServiceOWLAPIImpl extends WebProtegeRemoteServiceServlet im
 
         boolean checkForDeprecated = project.getRootOntology()
                                             .containsAnnotationPropertyInSignature(OWLRDFVocabulary.OWL_DEPRECATED.getIRI());
+        // The children of each subclass are needed to filter out deprecated leaves, so they are computed once and
+        // reused for the child counts
+        Map<OWLClass, Integer> subclassSubclassesCounts = new LinkedHashMap<>();
+        Set<OWLClass> deprecatedSubclasses = new HashSet<>();
         for (OWLClass subclass : new ArrayList<OWLClass>(hierarchyProvider.getChildren(cls))) {
             boolean deprecated = false;
             if (checkForDeprecated) {
                 deprecated = project.isDeprecated(subclass);
             }
-            if (!deprecated || !hierarchyProvider.getChildren(subclass).isEmpty()) {
-                Set<OWLClass> children = hierarchyProvider.getChildren(subclass);
-                int subClassSubClassesCount = children.size();
-                String browserText = rm.getBrowserText(subclass);
-                String name = subclass.getIRI().toString();
-                SubclassEntityData data = new SubclassEntityData(name,
-                                                                 browserText,
-                                                                 new HashSet<EntityData>(0),
-                                                                 subClassSubClassesCount);
-                data.setDeprecated(deprecated);
-                int commentsCount = entityDiscussionThreadRepository.getOpenCommentsCount(project.getProjectId(),
-                                                                                          subclass);
-                data.setLocalAnnotationsCount(commentsCount);
-                Set<Watch> directWatches = project.getWatchManager().getDirectWatches(subclass, getUserId());
-                if (!directWatches.isEmpty()) {
-                    data.setWatches(directWatches);
+            int subClassSubClassesCount = hierarchyProvider.getChildren(subclass).size();
+            if (!deprecated || subClassSubClassesCount != 0) {
+                subclassSubclassesCounts.put(subclass, subClassSubClassesCount);
+                if (deprecated) {
+                    deprecatedSubclasses.add(subclass);
                 }
-                data.setValueType(ValueType.Cls);
-                result.add(data);
             }
         }
+        TreeNodeDecorations decorations = treeNodeDecorationService.getDecorations(project.getProjectId(),
+                                                                                   project.getWatchManager(),
+                                                                                   getUserId(),
+                                                                                   subclassSubclassesCounts.keySet());
+        for (Map.Entry<OWLClass, Integer> entry : subclassSubclassesCounts.entrySet()) {
+            OWLClass subclass = entry.getKey();
+            String browserText = rm.getBrowserText(subclass);
+            String name = subclass.getIRI().toString();
+            SubclassEntityData data = new SubclassEntityData(name,
+                                                             browserText,
+                                                             new HashSet<EntityData>(0),
+                                                             entry.getValue());
+            data.setDeprecated(deprecatedSubclasses.contains(subclass));
+            data.setLocalAnnotationsCount(decorations.getOpenCommentsCount(subclass));
+            Set<Watch> directWatches = decorations.getWatches(subclass);
+            if (!directWatches.isEmpty()) {
+                data.setWatches(directWatches);
+            }
+            data.setValueType(ValueType.Cls);
+            result.add(data);
+        }
         Collections.sort(result, new Comparator<SubclassEntityData>() {
             public int compare(SubclassEntityData o1, SubclassEntityData o2) {
                 if (o1.isDeprecated()) {
@@ -392,36 +405,33 @@ public class OntologyServiceOWLAPIImpl extends WebProtegeRemoteServiceServlet im
             // Here we go again!  Which one?!?!
             OWLEntity entity = RenderingManager.selectEntity(entities);
             if (entity.isOWLClass()) {
-                Set<List<OWLClass>> paths = project.getClassHierarchyProvider().getPathsToRoot(entity.asOWLClass());
-                if (!paths.isEmpty()) {
-                    for (OWLClass cls : paths.iterator().next()) {
+                Optional<List<OWLClass>> path = project.getClassHierarchyProvider().getShortestPathToRoot(entity.asOWLClass());
+                if (path.isPresent()) {
+                    for (OWLClass cls : path.get()) {
                         result.add(rm.getEntityData(cls));
                     }
                 }
             }
             else if (entity.isOWLObjectProperty()) {
-                Set<List<OWLObjectProperty>> paths = project.getObjectPropertyHierarchyProvider()
-                                                            .getPathsToRoot(entity.asOWLObjectProperty());
-                if (!paths.isEmpty()) {
-                    for (OWLObjectProperty prop : paths.iterator().next()) {
+                Optional<List<OWLObjectProperty>> path = project.getObjectPropertyHierarchyProvider().getShortestPathToRoot(entity.asOWLObjectProperty());
+                if (path.isPresent()) {
+                    for (OWLObjectProperty prop : path.get()) {
                         result.add(rm.getEntityData(prop));
                     }
                 }
             }
             else if (entity.isOWLDataProperty()) {
-                Set<List<OWLDataProperty>> paths = project.getDataPropertyHierarchyProvider()
-                                                          .getPathsToRoot(entity.asOWLDataProperty());
-                if (!paths.isEmpty()) {
-                    for (OWLDataProperty prop : paths.iterator().next()) {
+                Optional<List<OWLDataProperty>> path = project.getDataPropertyHierarchyProvider().getShortestPathToRoot(entity.asOWLDataProperty());
+                if (path.isPresent()) {
+                    for (OWLDataProperty prop : path.get()) {
                         result.add(rm.getEntityData(prop));
                     }
                 }
             }
             else if (entity.isOWLAnnotationProperty()) {
-                Set<List<OWLAnnotationProperty>> paths = project.getAnnotationPropertyHierarchyProvider()
-                                                                .getPathsToRoot(entity.asOWLAnnotationProperty());
-                if (!paths.isEmpty()) {
-                    for (OWLAnnotationProperty prop : paths.iterator().next()) {
+                Optional<List<OWLAnnotationProperty>> path = project.getAnnotationPropertyHierarchyProvider().getShortestPathToRoot(entity.asOWLAnnotationProperty());
+                if (path.isPresent()) {
+                    for (OWLAnnotationProperty prop : path.get()) {
                         result.add(rm.getEntityData(prop));
                     }
                 }
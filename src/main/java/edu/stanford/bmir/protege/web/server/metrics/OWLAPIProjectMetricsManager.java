@@ -99,7 +99,7 @@ public class OWLAPIProjectMetricsManager {
                 }
             }
         } finally {
-            writeLock.lock();
+            writeLock.unlock();
         }
     }
 
@@ -1,41 +1,54 @@
 package edu.stanford.bmir.protege.web.server.project;
 
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.access.ProjectResource;
-import edu.stanford.bmir.protege.web.server.access.Subject;
 import edu.stanford.bmir.protege.web.server.change.*;
 import edu.stanford.bmir.protege.web.server.change.HasApplyChanges;
 import edu.stanford.bmir.protege.web.server.crud.*;
+import edu.stanford.bmir.protege.web.server.download.ProjectDownloadWarmer;
 import edu.stanford.bmir.protege.web.server.events.EventManager;
 import edu.stanford.bmir.protege.web.server.events.EventTranslatorManager;
+import edu.stanford.bmir.protege.web.server.frame.ClassFrameCache;
 import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
-import edu.stanford.bmir.protege.web.server.owlapi.OWLEntityCreator;
 import edu.stanford.bmir.protege.web.server.owlapi.RenameMap;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.server.search.EntitySearchIndex;
 import edu.stanford.bmir.protege.web.server.webhook.ProjectChangedWebhookInvoker;
 import edu.stanford.bmir.protege.web.shared.DataFactory;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
+import edu.stanford.bmir.protege.web.shared.access.ActionId;
 import edu.stanford.bmir.protege.web.shared.crud.EntityCrudKitSuffixSettings;
 import edu.stanford.bmir.protege.web.shared.crud.EntityShortForm;
 import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.permissions.PermissionDeniedException;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.util.OWLObjectDuplicator;
 import org.semanticweb.owlapi.vocab.Namespaces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -44,6 +57,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.server.access.Subject.forUser;
 import static edu.stanford.bmir.protege.web.shared.access.BuiltInAction.*;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -52,7 +66,15 @@ import static java.util.stream.Collectors.toList;
  * 20 Jun 2017
  */
 @ProjectSingleton
-public class ChangeManager implements HasApplyChanges {
+public class ChangeManager implements HasApplyChanges, HasDispose {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeManager.class);
+
+    /**
+     * The number of times that changes are generated optimistically before falling back to generating changes
+     * whilst holding the commit lock.
+     */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
 
     @Nonnull
     private final ProjectId projectId;
@@ -70,6 +92,9 @@ public class ChangeManager implements HasApplyChanges {
     @Nonnull
     private final ProjectChangedWebhookInvoker projectChangedWebhookInvoker;
 
+    @Nonnull
+    private final ProjectDownloadWarmer projectDownloadWarmer;
+
     @Nonnull
     private final EventManager<ProjectEvent<?>> projectEventManager;
 
@@ -103,6 +128,17 @@ public class ChangeManager implements HasApplyChanges {
     @Nonnull
     private final OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider;
 
+    @Nonnull
+    private final EntitySearchIndex entitySearchIndex;
+
+    @Nonnull
+    private final ClassFrameCache classFrameCache;
+
+    @Nonnull
+    private final PrefixedNameExpander prefixedNameExpander = PrefixedNameExpander.builder()
+                                                                                  .withNamespaces(Namespaces.values())
+                                                                                  .build();
+
     @Nonnull
     private final ReadWriteLock projectChangeLock = new ReentrantReadWriteLock();
 
@@ -112,8 +148,25 @@ public class ChangeManager implements HasApplyChanges {
     @Nonnull
     private final Lock projectChangeWriteLock = projectChangeLock.writeLock();
 
+    /**
+     * Held while committing changes.  Change generation does not hold this lock, except when changes have been
+     * regenerated too many times because of conflicting commits.
+     */
+    @Nonnull
+    private final Lock commitLock = new ReentrantLock();
+
+    @Nonnull
+    private final ExecutorService postCommitExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("post-commit-%d")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * The most recent commit of a revision.  Changes that were generated against an earlier commit point are
+     * regenerated.  Published under the commit lock.
+     */
     @Nonnull
-    private final Lock changeProcesssingLock = new ReentrantLock();
+    private volatile CommitPoint lastCommitPoint = CommitPoint.INITIAL;
 
     @Inject
     public ChangeManager(@Nonnull ProjectId projectId,
@@ -131,7 +184,10 @@ public class ChangeManager implements HasApplyChanges {
                          @Nonnull ClassHierarchyProvider classHierarchyProvider,
                          @Nonnull OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider,
                          @Nonnull OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider,
-                         @Nonnull OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider) {
+                         @Nonnull OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider,
+                         @Nonnull EntitySearchIndex entitySearchIndex,
+                         @Nonnull ClassFrameCache classFrameCache,
+                         @Nonnull ProjectDownloadWarmer projectDownloadWarmer) {
         this.projectId = projectId;
         this.rootOntology = rootOntology;
         this.accessManager = accessManager;
@@ -148,6 +204,9 @@ public class ChangeManager implements HasApplyChanges {
         this.objectPropertyHierarchyProvider = objectPropertyHierarchyProvider;
         this.dataPropertyHierarchyProvider = dataPropertyHierarchyProvider;
         this.annotationPropertyHierarchyProvider = annotationPropertyHierarchyProvider;
+        this.entitySearchIndex = entitySearchIndex;
+        this.classFrameCache = classFrameCache;
+        this.projectDownloadWarmer = projectDownloadWarmer;
     }
 
     /**
@@ -180,7 +239,9 @@ public class ChangeManager implements HasApplyChanges {
      *                                   necessary where the changes depend on the structure/state of the ontology.  This method guarantees that no third
      *                                   party
      *                                   ontology changes will take place between the {@link ChangeListGenerator#generateChanges(ChangeGenerationContext)}
-     *                                   method being called and the changes being applied.
+     *                                   method being called and the changes being applied.  Changes are generated
+     *                                   optimistically and are regenerated if a third party modifies the project
+     *                                   before they are applied, so the generator may be called more than once.
      * @param changeDescriptionGenerator A generator that describes the changes that took place.
      * @return A {@link ChangeApplicationResult} that describes the changes which took place an any renaminings.
      * @throws NullPointerException      if any parameters are {@code null}.
@@ -198,105 +259,293 @@ public class ChangeManager implements HasApplyChanges {
         //noinspection ResultOfMethodCallIgnored
         checkNotNull(changeDescriptionGenerator);
 
-        // Final check of whether the user can actually edit the project
-        Subject subject = forUser(userId);
-        ProjectResource projectResource = new ProjectResource(projectId);
-        if (!accessManager.hasPermission(subject,
-                                         projectResource,
-                                         EDIT_ONTOLOGY.getActionId())) {
+        // Final check of whether the user can actually edit the project.  The action closure is also used to check
+        // that the user can create any fresh entities.
+        Set<ActionId> actionClosure = accessManager.getActionClosure(forUser(userId), new ProjectResource(projectId));
+        if (!actionClosure.contains(EDIT_ONTOLOGY.getActionId())) {
             throw new PermissionDeniedException("You do not have permission to edit this project");
         }
 
-        final List<OWLOntologyChange> appliedChanges;
-        final ChangeApplicationResult<R> finalResult;
+        // Changes are generated optimistically, without excluding other writers, and are then committed if the
+        // project has not been modified in the meantime.  If it has then the changes are generated again.
+        // Entities are minted once for the request, rather than once per attempt, so that retries do not use up
+        // entity ids
+        MintedEntities mintedEntities = new MintedEntities();
+        Optional<ChangeCommit<R>> commit = Optional.empty();
+        for (int attempt = 1; !commit.isPresent(); attempt++) {
+            commit = tryApplyChanges(userId,
+                                     actionClosure,
+                                     mintedEntities,
+                                     changeListGenerator,
+                                     changeDescriptionGenerator,
+                                     attempt);
+        }
+
+        // Wait for the post-commit work, so that the caller sees the effects of its changes in hierarchies and
+        // events, and for the revision to be written to disk.  This happens outside of the commit lock so that
+        // other changes can be committed in the meantime.
+        ChangeCommit<R> committedChanges = commit.get();
+        committedChanges.awaitPostCommitWork();
+        Optional<RevisionNumber> revisionNumber = committedChanges.getRevision().map(Revision::getRevisionNumber);
+        revisionNumber.ifPresent(changeManager::awaitPersisted);
+        ChangeApplicationResult<R> result = committedChanges.getResult();
+        return new ChangeApplicationResult<>(result.getSubject(),
+                                             result.getChangeList(),
+                                             result.getRenameMap(),
+                                             revisionNumber);
+    }
+
+    /**
+     * Makes an attempt at generating and committing changes.
+     * @param attempt The attempt number, starting at one.  Attempts up to {@link #MAX_OPTIMISTIC_ATTEMPTS} generate
+     *                the changes optimistically.  Later attempts generate the changes whilst holding the commit lock,
+     *                which means that they cannot conflict with other commits.
+     * @return The commit, or an empty value if the project was modified while the changes were being generated.
+     */
+    private <R> Optional<ChangeCommit<R>> tryApplyChanges(UserId userId,
+                                                          Set<ActionId> actionClosure,
+                                                          MintedEntities mintedEntities,
+                                                          ChangeListGenerator<R> changeListGenerator,
+                                                          ChangeDescriptionGenerator<R> changeDescriptionGenerator,
+                                                          int attempt) {
+        boolean optimistic = attempt <= MAX_OPTIMISTIC_ATTEMPTS;
+        try {
+            if (!optimistic) {
+                commitLock.lock();
+            }
+            // Generation may depend upon the hierarchies, so make sure that they are up to date with respect to
+            // the commit that we generate against
+            CommitPoint basis = lastCommitPoint;
+            basis.awaitPostCommitWork();
+            GeneratedChanges<R> generatedChanges;
+            try {
+                generatedChanges = generateChanges(userId, actionClosure, mintedEntities, changeListGenerator);
+            } catch (PermissionDeniedException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // The generator may have seen the ontology in the middle of a commit
+                if (optimistic && basis != lastCommitPoint) {
+                    logger.info("{} Change generation failed due to a concurrent commit ({}).  Retrying.",
+                                projectId,
+                                e.getMessage());
+                    return Optional.empty();
+                }
+                throw e;
+            }
+            Optional<ChangeCommit<R>> commit = commitChanges(userId,
+                                                             basis,
+                                                             generatedChanges,
+                                                             changeListGenerator,
+                                                             changeDescriptionGenerator);
+            if (!commit.isPresent()) {
+                logger.info("{} Changes were generated against {} but the project was modified before they " +
+                                    "could be applied (attempt {}).  Regenerating changes.",
+                            projectId,
+                            basis,
+                            attempt);
+            }
+            return commit;
+        } finally {
+            if (!optimistic) {
+                commitLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Generates the changes, mints entities for fresh entity IRIs, and minimises the resulting changes.  This takes
+     * place without excluding other writers.
+     * @param actionClosure The action closure of the user, which is used to check that the user can create the
+     *                      fresh entities.
+     * @param mintedEntities The entities that have been minted by earlier attempts for the same request.
+     */
+    private <R> GeneratedChanges<R> generateChanges(UserId userId,
+                                                    Set<ActionId> actionClosure,
+                                                    MintedEntities mintedEntities,
+                                                    ChangeListGenerator<R> changeListGenerator) {
+        final ChangeGenerationContext context = new ChangeGenerationContext(userId);
+        OntologyChangeList<R> gen = changeListGenerator.generateChanges(context);
+
+        // We have our changes
 
+        List<OWLOntologyChange> changes = gen.getChanges();
 
         // The following must take into consideration fresh entity IRIs.  Entity IRIs are minted on the server, so
         // ontology changes may contain fresh entity IRIs as place holders. We need to make sure these get replaced
         // with true entity IRIs
-        try {
-            // Compute the changes that need to take place.  We don't allow any other writes here because the
-            // generation of the changes may depend upon the state of the project
-            changeProcesssingLock.lock();
-
-            final ChangeGenerationContext context = new ChangeGenerationContext(userId);
-            OntologyChangeList<R> gen = changeListGenerator.generateChanges(context);
-
-            // We have our changes
-
-            List<OWLOntologyChange> changes = gen.getChanges();
-
-            // We coin fresh entities for places where tmp: is the scheme - the name for the entity comes from
-            // the fragment
-            final Map<IRI, IRI> iriRenameMap = new HashMap<>();
-
-            final ChangeSetEntityCrudSession session = getEntityCrudKitHandler().createChangeSetSession();
-            Set<OWLOntologyChange> changesToRename = new HashSet<>();
-            List<OWLOntologyChange> freshEntityChanges = new ArrayList<>();
-            for (OWLOntologyChange change : changes) {
-                for (OWLEntity entity : change.getSignature()) {
-                    if (DataFactory.isFreshEntity(entity)) {
-                        if (entity.isOWLClass()) {
-                            if (!accessManager.hasPermission(subject, projectResource, CREATE_CLASS.getActionId())) {
-                                throw new PermissionDeniedException("You do not have permission to create new classes");
-                            }
-                        }
-                        else if (entity.isOWLObjectProperty() || entity.isOWLDataProperty() || entity.isOWLAnnotationProperty()) {
-                            if (!accessManager.hasPermission(subject, projectResource, CREATE_PROPERTY.getActionId())) {
-                                throw new PermissionDeniedException("You do not have permission to create new properties");
-                            }
-                        }
-                        else if (entity.isOWLNamedIndividual()) {
-                            if (!accessManager.hasPermission(subject,
-                                                             projectResource,
-                                                             CREATE_INDIVIDUAL.getActionId())) {
-                                throw new PermissionDeniedException("You do not have permission to create new individuals");
-                            }
-                        }
-                        else if (entity.isOWLDatatype()) {
-                            if (!accessManager.hasPermission(subject, projectResource, CREATE_DATATYPE.getActionId())) {
-                                throw new PermissionDeniedException("You do not have permission to create new datatypes");
-                            }
-                        }
-                        changesToRename.add(change);
-                        IRI currentIRI = entity.getIRI();
-                        if (!iriRenameMap.containsKey(currentIRI)) {
-                            String shortName = DataFactory.getFreshEntityShortName(entity);
-                            OWLEntityCreator<? extends OWLEntity> creator = getEntityCreator(session,
-                                                                                             userId,
-                                                                                             shortName,
-                                                                                             (EntityType<? extends OWLEntity>) entity
-                                                                                                     .getEntityType());
-                            freshEntityChanges.addAll(creator.getChanges());
-                            IRI replacementIRI = creator.getEntity().getIRI();
-                            iriRenameMap.put(currentIRI, replacementIRI);
-                        }
-                    }
+
+        // We coin fresh entities for places where tmp: is the scheme - the name for the entity comes from
+        // the fragment.  The fresh entities are collected first so that permissions are checked once per entity
+        // type and so that the entities can be minted in bulk.
+        Map<IRI, OWLEntity> freshEntities = new LinkedHashMap<>();
+        Set<OWLOntologyChange> changesToRename = new HashSet<>();
+        for (OWLOntologyChange change : changes) {
+            for (OWLEntity entity : change.getSignature()) {
+                if (DataFactory.isFreshEntity(entity)) {
+                    changesToRename.add(change);
+                    freshEntities.putIfAbsent(entity.getIRI(), entity);
                 }
             }
+        }
+        checkCreatePermissions(freshEntities.values(), actionClosure);
+
+        final Map<IRI, IRI> iriRenameMap = new HashMap<>();
+        List<OWLOntologyChange> freshEntityChanges = createFreshEntities(userId,
+                                                                         freshEntities.values(),
+                                                                         mintedEntities,
+                                                                         iriRenameMap);
+
+        List<OWLOntologyChange> allChangesIncludingRenames = new ArrayList<>();
+        final OWLObjectDuplicator duplicator = new OWLObjectDuplicator(dataFactory, iriRenameMap);
+        for (OWLOntologyChange change : changes) {
+            if (changesToRename.contains(change)) {
+                OWLOntologyChange replacementChange = getRenamedChange(change, duplicator);
+                allChangesIncludingRenames.add(replacementChange);
+            }
+            else {
+                allChangesIncludingRenames.add(change);
+            }
+        }
+
+        allChangesIncludingRenames.addAll(freshEntityChanges);
 
+        List<OWLOntologyChange> minimisedChanges = getMinimisedChanges(allChangesIncludingRenames);
+        return new GeneratedChanges<>(gen.getResult(), minimisedChanges, new RenameMap(iriRenameMap));
+    }
 
-            List<OWLOntologyChange> allChangesIncludingRenames = new ArrayList<>();
-            final OWLObjectDuplicator duplicator = new OWLObjectDuplicator(dataFactory, iriRenameMap);
-            for (OWLOntologyChange change : changes) {
-                if (changesToRename.contains(change)) {
-                    OWLOntologyChange replacementChange = getRenamedChange(change, duplicator);
-                    allChangesIncludingRenames.add(replacementChange);
+    /**
+     * Checks that the user can create entities of the types of the specified fresh entities.
+     * @throws PermissionDeniedException if the user cannot create one of the types of entity.
+     */
+    private static void checkCreatePermissions(Collection<OWLEntity> freshEntities,
+                                               Set<ActionId> actionClosure) {
+        Set<EntityType<?>> entityTypes = freshEntities.stream()
+                                                      .map(OWLEntity::getEntityType)
+                                                      .collect(toCollection(LinkedHashSet::new));
+        for (EntityType<?> entityType : entityTypes) {
+            if (entityType.equals(EntityType.CLASS)) {
+                if (!actionClosure.contains(CREATE_CLASS.getActionId())) {
+                    throw new PermissionDeniedException("You do not have permission to create new classes");
                 }
-                else {
-                    allChangesIncludingRenames.add(change);
+            }
+            else if (entityType.equals(EntityType.OBJECT_PROPERTY)
+                    || entityType.equals(EntityType.DATA_PROPERTY)
+                    || entityType.equals(EntityType.ANNOTATION_PROPERTY)) {
+                if (!actionClosure.contains(CREATE_PROPERTY.getActionId())) {
+                    throw new PermissionDeniedException("You do not have permission to create new properties");
+                }
+            }
+            else if (entityType.equals(EntityType.NAMED_INDIVIDUAL)) {
+                if (!actionClosure.contains(CREATE_INDIVIDUAL.getActionId())) {
+                    throw new PermissionDeniedException("You do not have permission to create new individuals");
+                }
+            }
+            else if (entityType.equals(EntityType.DATATYPE)) {
+                if (!actionClosure.contains(CREATE_DATATYPE.getActionId())) {
+                    throw new PermissionDeniedException("You do not have permission to create new datatypes");
                 }
             }
+        }
+    }
 
-            allChangesIncludingRenames.addAll(freshEntityChanges);
+    /**
+     * Creates entities for fresh entities.  A fresh entity whose short name is the name of an existing entity of
+     * the same type is replaced by the existing entity.  A fresh entity that was minted by an earlier attempt is
+     * replaced by the entity that was minted for it.  The remaining fresh entities are minted in bulk, one batch
+     * per entity type, using the entity crud kit for the project.
+     * @param mintedEntities The entities minted by earlier attempts.  Newly minted entities are added to this.
+     * @param iriRenameMap A map that is filled with the replacement IRI for each fresh entity IRI.
+     * @return The changes that create the minted entities.
+     */
+    private List<OWLOntologyChange> createFreshEntities(UserId userId,
+                                                        Collection<OWLEntity> freshEntities,
+                                                        MintedEntities mintedEntities,
+                                                        Map<IRI, IRI> iriRenameMap) {
+        if (freshEntities.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ListMultimap<EntityType<?>, OWLEntity> entitiesToMint = MultimapBuilder.linkedHashKeys()
+                                                                               .arrayListValues()
+                                                                               .build();
+        Set<IRI> usedMintedIris = new HashSet<>();
+        for (OWLEntity entity : freshEntities) {
+            IRI mintedIri = mintedEntities.getMintedIri(entity.getIRI());
+            if (mintedIri != null) {
+                iriRenameMap.put(entity.getIRI(), mintedIri);
+                usedMintedIris.add(mintedIri);
+                continue;
+            }
+            String shortName = DataFactory.getFreshEntityShortName(entity);
+            Optional<? extends OWLEntity> existingEntity = getEntityOfTypeIfPresent(entity.getEntityType(), shortName);
+            if (existingEntity.isPresent()) {
+                iriRenameMap.put(entity.getIRI(), existingEntity.get().getIRI());
+            }
+            else {
+                entitiesToMint.put(entity.getEntityType(), entity);
+            }
+        }
+        if (!entitiesToMint.isEmpty()) {
+            EntityCrudKitHandler<EntityCrudKitSuffixSettings, ChangeSetEntityCrudSession> handler =
+                    getEntityCrudKitHandler();
+            ChangeSetEntityCrudSession session = handler.createChangeSetSession();
+            EntityCrudContext context = getEntityCrudContext(userId);
+            for (EntityType<?> entityType : entitiesToMint.keySet()) {
+                List<OWLEntity> entities = entitiesToMint.get(entityType);
+                mintEntities(handler, session, context, entityType, entities, mintedEntities);
+                for (OWLEntity entity : entities) {
+                    IRI mintedIri = mintedEntities.getMintedIri(entity.getIRI());
+                    iriRenameMap.put(entity.getIRI(), mintedIri);
+                    usedMintedIris.add(mintedIri);
+                }
+            }
+        }
+        return mintedEntities.getCreationChanges(usedMintedIris);
+    }
 
-            List<OWLOntologyChange> minimisedChanges = getMinimisedChanges(allChangesIncludingRenames);
+    private <E extends OWLEntity> void mintEntities(EntityCrudKitHandler<EntityCrudKitSuffixSettings, ChangeSetEntityCrudSession> handler,
+                                                    ChangeSetEntityCrudSession session,
+                                                    EntityCrudContext context,
+                                                    EntityType<E> entityType,
+                                                    List<OWLEntity> freshEntities,
+                                                    MintedEntities mintedEntities) {
+        List<EntityShortForm> shortForms = freshEntities.stream()
+                                                        .map(DataFactory::getFreshEntityShortName)
+                                                        .map(EntityShortForm::get)
+                                                        .collect(toList());
+        OntologyChangeList.Builder<E> builder = OntologyChangeList.builder();
+        List<E> minted = handler.createAll(session, entityType, shortForms, context, builder);
+        for (int i = 0; i < freshEntities.size(); i++) {
+            mintedEntities.putMintedIri(freshEntities.get(i).getIRI(), minted.get(i).getIRI());
+        }
+        mintedEntities.addCreationChanges(builder.build().getChanges());
+    }
 
+    /**
+     * Commits generated changes.  Only this step excludes other writers.  The changes are applied and logged
+     * while holding the project write lock.  The remaining work (updating the hierarchies and search index,
+     * translating and posting events, and invoking webhooks) is handed over to the post-commit executor, which
+     * performs it asynchronously in commit order.
+     * @param basis The commit point that the changes were generated against.
+     * @return The commit, or an empty value if there have been other commits since the basis commit point.
+     */
+    private <R> Optional<ChangeCommit<R>> commitChanges(UserId userId,
+                                                        CommitPoint basis,
+                                                        GeneratedChanges<R> generatedChanges,
+                                                        ChangeListGenerator<R> changeListGenerator,
+                                                        ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
+        try {
+            commitLock.lock();
+            if (basis != lastCommitPoint) {
+                return Optional.empty();
+            }
+            List<OWLOntologyChange> minimisedChanges = generatedChanges.getChanges();
             final EventTranslatorManager eventTranslatorManager = eventTranslatorManagerProvider.get();
             eventTranslatorManager.prepareForOntologyChanges(minimisedChanges);
 
             // Now we do the actual changing, so we lock the project here.  No writes or reads can take place whilst
             // we apply the changes
+            final List<OWLOntologyChange> appliedChanges;
+            final ChangeApplicationResult<R> finalResult;
             final Optional<Revision> revision;
             try {
                 projectChangeWriteLock.lock();
@@ -304,12 +553,14 @@ public class ChangeManager implements HasApplyChanges {
                 List<OWLOntologyChange> effectiveChanges = getEffectiveChanges(minimisedChanges);
                 manager.getDelegate().applyChanges(effectiveChanges);
                 appliedChanges = effectiveChanges;
-                final RenameMap renameMap = new RenameMap(iriRenameMap);
-                Optional<R> renamedResult = getRenamedResult(changeListGenerator, gen.getResult(), renameMap);
+                final RenameMap renameMap = generatedChanges.getRenameMap();
+                Optional<R> renamedResult = getRenamedResult(changeListGenerator, generatedChanges.getResult(), renameMap);
                 finalResult = new ChangeApplicationResult<>(renamedResult, appliedChanges, renameMap);
                 if (!appliedChanges.isEmpty()) {
-                    Revision rev = logAndBroadcastAppliedChanges(userId, finalResult, changeDescriptionGenerator);
+                    Revision rev = logAppliedChanges(userId, finalResult, changeDescriptionGenerator);
                     revision = Optional.of(rev);
+                    // Invalidated before reads are released so that stale frames are not served for the revision
+                    classFrameCache.handleChanges(rev.getRevisionNumber(), appliedChanges);
                     projectDetailsRepository.setModified(projectId, rev.getTimestamp(), userId);
                 }
                 else {
@@ -319,27 +570,69 @@ public class ChangeManager implements HasApplyChanges {
                 // Release for reads
                 projectChangeWriteLock.unlock();
             }
-
-
-            if (revision.isPresent() && !(changeListGenerator instanceof SilentChangeListGenerator)) {
-                List<ProjectEvent<?>> highLevelEvents = new ArrayList<>();
-                Revision rev = revision.get();
-                eventTranslatorManager.translateOntologyChanges(rev, appliedChanges, highLevelEvents);
-                if (changeListGenerator instanceof HasHighLevelEvents) {
-                    highLevelEvents.addAll(((HasHighLevelEvents) changeListGenerator).getHighLevelEvents());
-                }
-                projectEventManager.postEvents(highLevelEvents);
-                projectChangedWebhookInvoker.invoke(userId,
-                                                    rev.getRevisionNumber(),
-                                                    rev.getTimestamp());
+            if (!revision.isPresent()) {
+                // Nothing changed, so there is nothing for the post-commit executor to do
+                return Optional.of(new ChangeCommit<>(finalResult, revision, basis));
             }
+            Revision rev = revision.get();
+            // The post-commit work always completes normally, so that a failure does not propagate to later commits
+            // that wait for it
+            CompletableFuture<Void> postCommitWork = CompletableFuture.runAsync(
+                    () -> handleCommittedChanges(userId, rev, appliedChanges, eventTranslatorManager, changeListGenerator),
+                    postCommitExecutor)
+                    .exceptionally(t -> {
+                        logger.error("{} An error occurred whilst handling the changes in revision {}: {}",
+                                     projectId,
+                                     rev.getRevisionNumber(),
+                                     t.getMessage(),
+                                     t);
+                        return null;
+                    });
+            CommitPoint commitPoint = new CommitPoint(Optional.of(rev.getRevisionNumber()), postCommitWork);
+            lastCommitPoint = commitPoint;
+            return Optional.of(new ChangeCommit<>(finalResult, revision, commitPoint));
         } finally {
-            changeProcesssingLock.unlock();
+            commitLock.unlock();
         }
+    }
 
-        return finalResult;
+    /**
+     * Performs the work that follows the commit of a revision.  Runs on the post-commit executor.
+     */
+    private void handleCommittedChanges(UserId userId,
+                                        Revision revision,
+                                        List<OWLOntologyChange> appliedChanges,
+                                        EventTranslatorManager eventTranslatorManager,
+                                        ChangeListGenerator<?> changeListGenerator) {
+        // TODO: THis list of "listeners" should be injected
+        classHierarchyProvider.handleChanges(appliedChanges);
+        objectPropertyHierarchyProvider.handleChanges(appliedChanges);
+        dataPropertyHierarchyProvider.handleChanges(appliedChanges);
+        annotationPropertyHierarchyProvider.handleChanges(appliedChanges);
+        entitySearchIndex.handleChanges(appliedChanges);
+//        metricsManager.handleOntologyChanges(changes);
 
+        if (!(changeListGenerator instanceof SilentChangeListGenerator)) {
+            List<ProjectEvent<?>> highLevelEvents = new ArrayList<>();
+            eventTranslatorManager.translateOntologyChanges(revision, appliedChanges, highLevelEvents);
+            if (changeListGenerator instanceof HasHighLevelEvents) {
+                highLevelEvents.addAll(((HasHighLevelEvents) changeListGenerator).getHighLevelEvents());
+            }
+            projectEventManager.postEvents(highLevelEvents);
+            projectChangedWebhookInvoker.invoke(userId,
+                                                revision.getRevisionNumber(),
+                                                revision.getTimestamp());
+        }
+        projectDownloadWarmer.handleProjectChanged(projectId, userId);
+    }
 
+    /**
+     * Waits for the post-commit work of all committed changes to finish and then stops the post-commit executor.
+     */
+    @Override
+    public void dispose() {
+        lastCommitPoint.awaitPostCommitWork();
+        postCommitExecutor.shutdown();
     }
 
     private List<OWLOntologyChange> getEffectiveChanges(List<OWLOntologyChange> minimisedChanges) {
@@ -427,9 +720,9 @@ public class ChangeManager implements HasApplyChanges {
     }
 
 
-    private <R> Revision logAndBroadcastAppliedChanges(UserId userId,
-                                                       ChangeApplicationResult<R> finalResult,
-                                                       ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
+    private <R> Revision logAppliedChanges(UserId userId,
+                                           ChangeApplicationResult<R> finalResult,
+                                           ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
         // Generate a description for the changes that were actually applied
         String changeDescription = changeDescriptionGenerator.generateChangeDescription(finalResult);
         // Log the changes
@@ -438,17 +731,7 @@ public class ChangeManager implements HasApplyChanges {
                                                                  .map(OWLOntologyChange::getChangeRecord)
                                                                  .collect(toList());
         Revision revision = changeManager.addRevision(userId, changeRecords, changeDescription);
-
-        // TODO: THis list of "listeners" should be injected
-        List<OWLOntologyChange> changes = finalResult.getChangeList();
-        documentStore.saveOntologyChanges(changes);
-
-        classHierarchyProvider.handleChanges(changes);
-        objectPropertyHierarchyProvider.handleChanges(changes);
-        dataPropertyHierarchyProvider.handleChanges(changes);
-        annotationPropertyHierarchyProvider.handleChanges(changes);
-//        metricsManager.handleOntologyChanges(changes);
-
+        documentStore.saveOntologyChanges(finalResult.getChangeList());
         return revision;
     }
 
@@ -516,29 +799,8 @@ public class ChangeManager implements HasApplyChanges {
     }
 
 
-    private <E extends OWLEntity> OWLEntityCreator<E> getEntityCreator(ChangeSetEntityCrudSession session,
-                                                                       UserId userId,
-                                                                       String shortName,
-                                                                       EntityType<E> entityType) {
-        Optional<E> entity = getEntityOfTypeIfPresent(entityType, shortName);
-        if (entity.isPresent()) {
-            return new OWLEntityCreator<>(entity.get(), Collections.emptyList());
-        }
-        OntologyChangeList.Builder<E> builder = OntologyChangeList.builder();
-        EntityCrudKitHandler<EntityCrudKitSuffixSettings, ChangeSetEntityCrudSession> handler =
-                getEntityCrudKitHandler();
-        handler.createChangeSetSession();
-        E ent = handler.create(session, entityType,
-                               EntityShortForm.get(shortName),
-                               getEntityCrudContext(userId),
-                               builder);
-        return new OWLEntityCreator<>(ent, builder.build().getChanges());
-
-    }
-
     public EntityCrudContext getEntityCrudContext(UserId userId) {
-        PrefixedNameExpander expander = PrefixedNameExpander.builder().withNamespaces(Namespaces.values()).build();
-        return new EntityCrudContext(userId, rootOntology, dataFactory, expander);
+        return new EntityCrudContext(userId, rootOntology, dataFactory, prefixedNameExpander);
     }
 
     @SuppressWarnings("unchecked")
@@ -556,4 +818,131 @@ public class ChangeManager implements HasApplyChanges {
     public <S extends EntityCrudKitSuffixSettings, C extends ChangeSetEntityCrudSession> EntityCrudKitHandler<S, C> getEntityCrudKitHandler() {
         return (EntityCrudKitHandler<S, C>) entityCrudKitHandlerCache.getHandler();
     }
+    /**
+     * Changes that have been generated but not yet committed.
+     */
+    private static class GeneratedChanges<R> {
+
+        private final Optional<R> result;
+
+        private final List<OWLOntologyChange> changes;
+
+        private final RenameMap renameMap;
+
+        private GeneratedChanges(Optional<R> result, List<OWLOntologyChange> changes, RenameMap renameMap) {
+            this.result = result;
+            this.changes = changes;
+            this.renameMap = renameMap;
+        }
+
+        public Optional<R> getResult() {
+            return result;
+        }
+
+        public List<OWLOntologyChange> getChanges() {
+            return changes;
+        }
+
+        public RenameMap getRenameMap() {
+            return renameMap;
+        }
+    }
+
+    /**
+     * The entities that have been minted for fresh entities during one request, along with the changes that create
+     * them.  These are reused if the changes for the request have to be generated again.
+     */
+    private static class MintedEntities {
+
+        private final Map<IRI, IRI> mintedIris = new HashMap<>();
+
+        private final List<OWLOntologyChange> creationChanges = new ArrayList<>();
+
+        @Nullable
+        public IRI getMintedIri(IRI freshEntityIri) {
+            return mintedIris.get(freshEntityIri);
+        }
+
+        public void putMintedIri(IRI freshEntityIri, IRI mintedIri) {
+            mintedIris.put(freshEntityIri, mintedIri);
+        }
+
+        public void addCreationChanges(List<OWLOntologyChange> changes) {
+            creationChanges.addAll(changes);
+        }
+
+        /**
+         * Gets the changes that create the specified minted entities.
+         */
+        public List<OWLOntologyChange> getCreationChanges(Set<IRI> mintedEntityIris) {
+            if (mintedEntityIris.isEmpty()) {
+                return Collections.emptyList();
+            }
+            return creationChanges.stream()
+                                  .filter(change -> change.getSignature()
+                                                          .stream()
+                                                          .anyMatch(entity -> mintedEntityIris.contains(entity.getIRI())))
+                                  .collect(toList());
+        }
+    }
+
+    /**
+     * Identifies a commit along with the post-commit work for that commit.
+     */
+    private static class CommitPoint {
+
+        private static final CommitPoint INITIAL = new CommitPoint(Optional.empty(),
+                                                                   CompletableFuture.completedFuture(null));
+
+        private final Optional<RevisionNumber> revisionNumber;
+
+        private final CompletableFuture<Void> postCommitWork;
+
+        private CommitPoint(Optional<RevisionNumber> revisionNumber, CompletableFuture<Void> postCommitWork) {
+            this.revisionNumber = revisionNumber;
+            this.postCommitWork = postCommitWork;
+        }
+
+        /**
+         * Waits for the post-commit work for this commit, and therefore for all earlier commits, to finish.
+         */
+        public void awaitPostCommitWork() {
+            postCommitWork.join();
+        }
+
+        @Override
+        public String toString() {
+            return revisionNumber.map(RevisionNumber::toString).orElse("the initial state of the project");
+        }
+    }
+
+    /**
+     * The outcome of committing generated changes.
+     */
+    private static class ChangeCommit<R> {
+
+        private final ChangeApplicationResult<R> result;
+
+        private final Optional<Revision> revision;
+
+        private final CommitPoint commitPoint;
+
+        private ChangeCommit(ChangeApplicationResult<R> result, Optional<Revision> revision, CommitPoint commitPoint) {
+            this.result = result;
+            this.revision = revision;
+            this.commitPoint = commitPoint;
+        }
+
+        public ChangeApplicationResult<R> getResult() {
+            return result;
+        }
+
+        public Optional<Revision> getRevision() {
+            return revision;
+        }
+
+        public void awaitPostCommitWork() {
+            commitPoint.awaitPostCommitWork();
+        }
+    }
 }
@@ -76,7 +76,22 @@ public class ImportsCacheManager {
             return new ImportsCacheIRIMapper(iri2Document, projectId);
         }
         finally {
-            WRITE_LOCK.lock();
+            WRITE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Gets the documents that hold the cached imports.  This should be called after {@link #getIRIMapper()},
+     * which reads the cached imports from disk.
+     * @return The document IRIs of the cached imports.
+     */
+    public Set<IRI> getCachedImportDocuments() {
+        try {
+            READ_LOCK.lock();
+            return new HashSet<>(iri2Document.values());
+        }
+        finally {
+            READ_LOCK.unlock();
         }
     }
 
@@ -18,6 +18,7 @@ import edu.stanford.bmir.protege.web.server.metrics.OWLAPIProjectMetricsManager;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.server.usage.AnnotationReferenceIndex;
 import edu.stanford.bmir.protege.web.server.watches.WatchManager;
 import edu.stanford.bmir.protege.web.server.watches.WatchedChangesManager;
 import edu.stanford.bmir.protege.web.shared.HasDataFactory;
@@ -75,6 +76,8 @@ public class Project implements HasDispose, HasDataFactory, HasContainsEntityInS
 
     private final OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider;
 
+    private final AnnotationReferenceIndex annotationReferenceIndex;
+
     private final RevisionManager changeManager;
 
     private final ProjectChangesManager projectChangesManager;
@@ -114,6 +117,7 @@ public class Project implements HasDispose, HasDataFactory, HasContainsEntityInS
                    OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider,
                    OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider,
                    OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider,
+                   AnnotationReferenceIndex annotationReferenceIndex,
                    RevisionManager changeManager,
                    ProjectChangesManager projectChangesManager,
                    WatchedChangesManager watchedChangesManager,
@@ -136,6 +140,7 @@ public class Project implements HasDispose, HasDataFactory, HasContainsEntityInS
         this.objectPropertyHierarchyProvider = objectPropertyHierarchyProvider;
         this.dataPropertyHierarchyProvider = dataPropertyHierarchyProvider;
         this.annotationPropertyHierarchyProvider = annotationPropertyHierarchyProvider;
+        this.annotationReferenceIndex = annotationReferenceIndex;
         this.changeManager = changeManager;
         this.projectChangesManager = projectChangesManager;
         this.watchedChangesManager = watchedChangesManager;
@@ -754,11 +759,16 @@ public class Project implements HasDispose, HasDataFactory, HasContainsEntityInS
 
     @Override
     public void dispose() {
+        // Disposed after the change manager so that revisions from post-commit work are written
+        chgMan.dispose();
+        changeManager.dispose();
+        renderingManager.dispose();
         projectEventManager.dispose();
         classHierarchyProvider.dispose();
         objectPropertyHierarchyProvider.dispose();
         dataPropertyHierarchyProvider.dispose();
         annotationPropertyHierarchyProvider.dispose();
+        annotationReferenceIndex.dispose();
     }
 
 }
@@ -70,6 +70,11 @@ public class ProjectCache {
      */
     private static final long DORMANT_PROJECT_TIME_MS = 3 * 60 * 1000;
 
+    /**
+     * The period between logging the event statistics of the active projects (in ms).  Every 10 minutes.
+     */
+    private static final int EVENT_STATISTICS_LOG_PERIOD_MS = 10 * 60 * 1000;
+
     private final ApplicationComponent applicationComponent;
 
     @Inject
@@ -84,6 +89,12 @@ public class ProjectCache {
                 purgeDormantProjects();
             }
         }, 0, PURGE_CHECK_PERIOD_MS);
+        timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                logEventStatistics();
+            }
+        }, EVENT_STATISTICS_LOG_PERIOD_MS, EVENT_STATISTICS_LOG_PERIOD_MS);
         projectIdInterner = Interners.newWeakInterner();
 
     }
@@ -120,6 +131,19 @@ public class ProjectCache {
         }
     }
 
+    private void logEventStatistics() {
+        // Runs on the purge timer thread, which must not be killed by an exception
+        try {
+            for (ProjectId projectId : getCachedProjectIds()) {
+                getProjectIfActive(projectId).ifPresent(project -> {
+                    logger.info("{} Project event statistics: {}", projectId, project.getEventManager().getStatistics());
+                });
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not log project event statistics: {}", e.getMessage(), e);
+        }
+    }
+
     public Project getProject(ProjectId projectId) throws ProjectDocumentNotFoundException {
         return getProjectInternal(projectId, AccessMode.NORMAL);
     }
@@ -164,8 +188,9 @@ public class ProjectCache {
     private ProjectComponent getProjectInjector(ProjectId projectId) {
         ProjectComponent projectComponent = projectId2ProjectComponent.get(projectId);
         if (projectComponent == null) {
-            logger.info("Request for unloaded project %s.", projectId.getId());
+            logger.info("Request for unloaded project {}.", projectId.getId());
             projectComponent = applicationComponent.getProjectComponent(new ProjectModule(projectId));
+            projectComponent.getProjectOpener().open();
             projectId2ProjectComponent.put(projectId, projectComponent);
         }
         return projectComponent;
@@ -197,6 +222,7 @@ public class ProjectCache {
             ProjectComponent projectComponent = projectId2ProjectComponent.remove(projectId);
             lastAccessMap.remove(projectId);
             Project project  = projectComponent.getProject();
+            logger.info("{} Project event statistics: {}", projectId, project.getEventManager().getStatistics());
             project.dispose();
         }
         finally {
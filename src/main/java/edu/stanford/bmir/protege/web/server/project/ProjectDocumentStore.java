@@ -3,10 +3,12 @@ package edu.stanford.bmir.protege.web.server.project;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntologyDocument;
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
 import edu.stanford.bmir.protege.web.server.util.IdUtil;
 import edu.stanford.bmir.protege.web.server.util.MemoryMonitor;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
 import org.semanticweb.binaryowl.BinaryOWLMetadata;
 import org.semanticweb.binaryowl.BinaryOWLOntologyDocumentSerializer;
 import org.semanticweb.binaryowl.change.OntologyChangeDataList;
@@ -14,7 +16,9 @@ import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentFormat;
 import org.semanticweb.owlapi.change.OWLOntologyChangeData;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 import org.semanticweb.owlapi.io.FileDocumentSource;
+import org.semanticweb.owlapi.io.IRIDocumentSource;
 import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.OntologyCopy;
 import org.semanticweb.owlapi.util.SimpleIRIMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,7 +28,13 @@ import javax.inject.Provider;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -38,6 +48,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * Essentially manages the location and layout of a project on disk.  There is no commitment to how a project is
  * stored.
  * </p>
+ * <p>
+ * When a project is loaded, the cached imports of the project are parsed in parallel, each into its own manager,
+ * and are then moved into the project manager before the root ontology is loaded.  The OWL API holds the manager
+ * lock while it parses an ontology, so ontologies that are parsed into the same manager are parsed one at a time.
+ * </p>
  */
 @ProjectSingleton
 public class ProjectDocumentStore {
@@ -58,14 +73,22 @@ public class ProjectDocumentStore {
 
     private final Provider<ImportsCacheManager> importsCacheManagerProvider;
 
+    private final ExecutorService projectLoaderExecutor;
+
+    private final ProjectOpenStatusTracker statusTracker;
+
 
     @Inject
     public ProjectDocumentStore(ProjectId projectId,
                                 @RootOntologyDocument File rootOntologyDocument,
-                                Provider<ImportsCacheManager> importsCacheManagerProvider) {
+                                Provider<ImportsCacheManager> importsCacheManagerProvider,
+                                @ProjectLoaderExecutor ExecutorService projectLoaderExecutor,
+                                ProjectOpenStatusTracker statusTracker) {
         this.projectId = projectId;
         this.rootOntologyDocument = rootOntologyDocument;
         this.importsCacheManagerProvider = importsCacheManagerProvider;
+        this.projectLoaderExecutor = projectLoaderExecutor;
+        this.statusTracker = statusTracker;
     }
 
 
@@ -133,6 +156,8 @@ public class ProjectDocumentStore {
     private OWLOntology loadProjectOntologiesIntoManager(OWLOntologyManager manager) throws OWLOntologyCreationException {
         logger.info("{} Loading project" , projectId);
         long t0 = System.currentTimeMillis();
+        AtomicInteger loadedOntologyCount = new AtomicInteger();
+        AtomicInteger ontologyCount = new AtomicInteger(1);
         OWLOntologyLoaderListener loaderListener = new OWLOntologyLoaderListener() {
             public void startedLoadingOntology(LoadingStartedEvent event) {
                 logger.info("{} Ontology loading started: {}",
@@ -141,14 +166,15 @@ public class ProjectDocumentStore {
             }
 
             public void finishedLoadingOntology(LoadingFinishedEvent event) {
-                // Give something else a chance - in case we have LOTS of imports
-                Thread.yield();
                 if (event.isSuccessful()) {
                     logger.info("{} Ontology loading finished: (Loaded:  {})",
                                 projectId, event.getDocumentIRI(),
                                 event.getOntologyID());
-                    MemoryMonitor memoryMonitor = new MemoryMonitor(logger);
-                    memoryMonitor.monitorMemoryUsage();
+                    if (event.isImported()) {
+                        // An import that was not cached
+                        ontologyCount.incrementAndGet();
+                    }
+                    reportOntologyLoaded(loadedOntologyCount, ontologyCount);
                 }
                 else {
                     logger.info("Ontology loading failed: {} (Reason: )", projectId, event.getException().getMessage());
@@ -175,9 +201,16 @@ public class ProjectDocumentStore {
             OWLOntologyLoaderConfiguration config = new OWLOntologyLoaderConfiguration();
             config = config.setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
             config = config.setReportStackTraces(true);
+            Set<IRI> cachedImportDocuments = importsCacheManager.getCachedImportDocuments();
+            ontologyCount.addAndGet(cachedImportDocuments.size());
+            List<OWLOntology> preloadedImports = preloadCachedImports(manager,
+                                                                      cachedImportDocuments,
+                                                                      loadedOntologyCount,
+                                                                      ontologyCount);
             FileDocumentSource documentSource = new FileDocumentSource(rootOntologyDocument);
             logger.info("{} Loading root ontology imports closure.", projectId);
             OWLOntology rootOntology = manager.loadOntologyFromOntologyDocument(documentSource, config);
+            resolvePreloadedImports(manager, rootOntology, preloadedImports, config);
             importsCacheManager.cacheImports(rootOntology);
             return rootOntology;
 
@@ -193,6 +226,95 @@ public class ProjectDocumentStore {
         }
     }
 
+    private void reportOntologyLoaded(AtomicInteger loadedOntologyCount, AtomicInteger ontologyCount) {
+        statusTracker.setStatus(projectId, ProjectOpenStatus.loadingOntologies(loadedOntologyCount.incrementAndGet(),
+                                                                               ontologyCount.get()));
+    }
+
+    /**
+     * Parses the cached imports in parallel and moves them into the specified manager, so that they are found,
+     * rather than parsed, when the imports of the root ontology are loaded.
+     * @return The ontologies that were moved into the manager.
+     */
+    private List<OWLOntology> preloadCachedImports(OWLOntologyManager manager,
+                                                   Collection<IRI> cachedImportDocuments,
+                                                   AtomicInteger loadedOntologyCount,
+                                                   AtomicInteger ontologyCount) {
+        List<CompletableFuture<Optional<OWLOntology>>> parsedImports = new ArrayList<>();
+        for (IRI documentIRI : cachedImportDocuments) {
+            parsedImports.add(CompletableFuture.supplyAsync(() -> {
+                Optional<OWLOntology> parsedImport = parseCachedImport(documentIRI);
+                reportOntologyLoaded(loadedOntologyCount, ontologyCount);
+                return parsedImport;
+            }, projectLoaderExecutor));
+        }
+        List<OWLOntology> preloadedImports = new ArrayList<>();
+        for (CompletableFuture<Optional<OWLOntology>> parsedImport : parsedImports) {
+            Optional<OWLOntology> ont = parsedImport.join();
+            if (!ont.isPresent()) {
+                continue;
+            }
+            OWLOntologyID ontologyID = ont.get().getOntologyID();
+            if (manager.contains(ontologyID)) {
+                logger.info("{} Cached import is a duplicate: {}", projectId, ontologyID);
+                continue;
+            }
+            try {
+                preloadedImports.add(manager.copyOntology(ont.get(), OntologyCopy.MOVE));
+            } catch (OWLOntologyCreationException e) {
+                // The import will be loaded with the root ontology instead
+                logger.warn("{} Could not preload cached import {}: {}", projectId, ontologyID, e.getMessage());
+            }
+        }
+        return preloadedImports;
+    }
+
+    private Optional<OWLOntology> parseCachedImport(IRI documentIRI) {
+        OWLOntologyManager importManager = WebProtegeOWLManager.createConcurrentOWLOntologyManager();
+        // Imports of imports are cached too, so they are not resolved here.  Any that are not cached
+        // are resolved once the root ontology has been loaded.
+        importManager.getIRIMappers().clear();
+        OWLOntologyLoaderConfiguration config = new OWLOntologyLoaderConfiguration()
+                .setMissingImportHandlingStrategy(MissingImportHandlingStrategy.SILENT);
+        try {
+            OWLOntology ontology = importManager.loadOntologyFromOntologyDocument(new IRIDocumentSource(documentIRI),
+                                                                                  config);
+            logger.info("{} Loaded cached import: {}", projectId, ontology.getOntologyID());
+            return Optional.of(ontology);
+        } catch (OWLOntologyCreationException | RuntimeException e) {
+            logger.warn("{} Could not load cached import from {}: {}", projectId, documentIRI, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Loads any imports of the preloaded imports that were not cached, and removes the preloaded imports that are
+     * no longer imported by the root ontology.
+     */
+    private void resolvePreloadedImports(OWLOntologyManager manager,
+                                         OWLOntology rootOntology,
+                                         List<OWLOntology> preloadedImports,
+                                         OWLOntologyLoaderConfiguration config) {
+        Set<OWLOntology> importsClosure = rootOntology.getImportsClosure();
+        for (OWLOntology preloadedImport : preloadedImports) {
+            if (!importsClosure.contains(preloadedImport)) {
+                continue;
+            }
+            for (OWLImportsDeclaration importsDeclaration : preloadedImport.getImportsDeclarations()) {
+                if (manager.getImportedOntology(importsDeclaration) == null) {
+                    manager.makeLoadImportRequest(importsDeclaration, config);
+                }
+            }
+        }
+        Set<OWLOntology> resolvedImportsClosure = rootOntology.getImportsClosure();
+        for (OWLOntology preloadedImport : preloadedImports) {
+            if (!resolvedImportsClosure.contains(preloadedImport)) {
+                logger.info("{} Cached import is no longer imported: {}", projectId, preloadedImport.getOntologyID());
+                manager.removeOntology(preloadedImport);
+            }
+        }
+    }
+
     private OWLOntology createFreshProjectOntology(OWLOntologyManager manager) throws OWLOntologyCreationException, OWLOntologyStorageException {
         logger.info("Creating a fresh project with an Id of {}" , projectId);
         File parentDirectory = rootOntologyDocument.getParentFile();
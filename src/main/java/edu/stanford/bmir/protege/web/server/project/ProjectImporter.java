@@ -83,6 +83,7 @@ public class ProjectImporter {
             OWLOntology ontology = importer.importRawProjectSources(projectSources);
 
             generateInitialChanges(owner, rootOntologyManager);
+            revisionStore.dispose();
             writeNewProject(rootOntologyManager, ontology);
             deleteSourceFile(uploadedFile);
         }
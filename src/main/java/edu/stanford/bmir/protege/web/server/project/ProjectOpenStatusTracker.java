@@ -0,0 +1,47 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import edu.stanford.bmir.protege.web.shared.inject.ApplicationSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Tracks the status of projects that are being opened.  A status is only held while a project is being opened.
+ */
+@ApplicationSingleton
+public class ProjectOpenStatusTracker {
+
+    private final ConcurrentMap<ProjectId, ProjectOpenStatus> statusMap = new ConcurrentHashMap<>();
+
+    @Inject
+    public ProjectOpenStatusTracker() {
+    }
+
+    public void setStatus(@Nonnull ProjectId projectId, @Nonnull ProjectOpenStatus status) {
+        statusMap.put(checkNotNull(projectId), checkNotNull(status));
+    }
+
+    /**
+     * Clears the status of the specified project.  This should be called once the project has been opened, or
+     * once opening the project has failed.
+     */
+    public void clearStatus(@Nonnull ProjectId projectId) {
+        statusMap.remove(checkNotNull(projectId));
+    }
+
+    /**
+     * Gets the status of the specified project.
+     * @return The status, or empty if the project is not being opened.
+     */
+    @Nonnull
+    public Optional<ProjectOpenStatus> getStatus(@Nonnull ProjectId projectId) {
+        return Optional.ofNullable(statusMap.get(checkNotNull(projectId)));
+    }
+}
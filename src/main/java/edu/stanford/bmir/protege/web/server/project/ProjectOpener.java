@@ -0,0 +1,151 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import com.google.common.base.Stopwatch;
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import edu.stanford.bmir.protege.web.server.metrics.OWLAPIProjectMetricsManager;
+import edu.stanford.bmir.protege.web.server.shortform.WebProtegeBidirectionalShortFormProvider;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenPhase;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Opens a project.  The ontologies in the project are loaded first.  Once the axioms are in memory, the
+ * hierarchies and the short form index, which only read the ontologies, are built concurrently on the project
+ * loader executor, rather than one after the other as the project is injected.  The progress of opening the
+ * project is reported to the {@link ProjectOpenStatusTracker}.
+ */
+@ProjectSingleton
+public class ProjectOpener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectOpener.class);
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final ExecutorService projectLoaderExecutor;
+
+    @Nonnull
+    private final ProjectOpenStatusTracker statusTracker;
+
+    @Nonnull
+    private final Provider<OWLOntology> rootOntologyProvider;
+
+    @Nonnull
+    private final Provider<ClassHierarchyProvider> classHierarchyProvider;
+
+    @Nonnull
+    private final Provider<OWLObjectPropertyHierarchyProvider> objectPropertyHierarchyProvider;
+
+    @Nonnull
+    private final Provider<OWLDataPropertyHierarchyProvider> dataPropertyHierarchyProvider;
+
+    @Nonnull
+    private final Provider<OWLAnnotationPropertyHierarchyProvider> annotationPropertyHierarchyProvider;
+
+    @Nonnull
+    private final Provider<WebProtegeBidirectionalShortFormProvider> shortFormProvider;
+
+    @Nonnull
+    private final Provider<OWLAPIProjectMetricsManager> metricsManager;
+
+    @Nonnull
+    private final Provider<Project> projectProvider;
+
+    @Inject
+    public ProjectOpener(@Nonnull ProjectId projectId,
+                         @Nonnull @ProjectLoaderExecutor ExecutorService projectLoaderExecutor,
+                         @Nonnull ProjectOpenStatusTracker statusTracker,
+                         @Nonnull @RootOntology Provider<OWLOntology> rootOntologyProvider,
+                         @Nonnull Provider<ClassHierarchyProvider> classHierarchyProvider,
+                         @Nonnull Provider<OWLObjectPropertyHierarchyProvider> objectPropertyHierarchyProvider,
+                         @Nonnull Provider<OWLDataPropertyHierarchyProvider> dataPropertyHierarchyProvider,
+                         @Nonnull Provider<OWLAnnotationPropertyHierarchyProvider> annotationPropertyHierarchyProvider,
+                         @Nonnull Provider<WebProtegeBidirectionalShortFormProvider> shortFormProvider,
+                         @Nonnull Provider<OWLAPIProjectMetricsManager> metricsManager,
+                         @Nonnull Provider<Project> projectProvider) {
+        this.projectId = checkNotNull(projectId);
+        this.projectLoaderExecutor = checkNotNull(projectLoaderExecutor);
+        this.statusTracker = checkNotNull(statusTracker);
+        this.rootOntologyProvider = checkNotNull(rootOntologyProvider);
+        this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
+        this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
+        this.dataPropertyHierarchyProvider = checkNotNull(dataPropertyHierarchyProvider);
+        this.annotationPropertyHierarchyProvider = checkNotNull(annotationPropertyHierarchyProvider);
+        this.shortFormProvider = checkNotNull(shortFormProvider);
+        this.metricsManager = checkNotNull(metricsManager);
+        this.projectProvider = checkNotNull(projectProvider);
+    }
+
+    /**
+     * Opens the project.
+     * @return The opened project.
+     */
+    @Nonnull
+    public Project open() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            statusTracker.setStatus(projectId, ProjectOpenStatus.loadingOntologies(0, 1));
+            rootOntologyProvider.get();
+            logger.info("{} Loaded ontologies in {} ms", projectId, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            statusTracker.setStatus(projectId, ProjectOpenStatus.get(ProjectOpenPhase.BUILDING_INDEXES));
+            buildIndexes();
+            Project project = projectProvider.get();
+            logger.info("{} Opened project in {} ms", projectId, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+            return project;
+        } finally {
+            statusTracker.clearStatus(projectId);
+        }
+    }
+
+    private void buildIndexes() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        List<Provider<?>> indexes = Arrays.asList(classHierarchyProvider,
+                                                  objectPropertyHierarchyProvider,
+                                                  dataPropertyHierarchyProvider,
+                                                  annotationPropertyHierarchyProvider,
+                                                  shortFormProvider);
+        CompletableFuture<?>[] builds = indexes.stream()
+                                               .map(index -> CompletableFuture.runAsync(index::get, projectLoaderExecutor))
+                                               .toArray(CompletableFuture<?>[]::new);
+        try {
+            CompletableFuture.allOf(builds).join();
+            logger.info("{} Built hierarchies and indexes in {} ms",
+                        projectId,
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } catch (RuntimeException e) {
+            // Anything that could not be built is built again, and the error is reported, when the project is
+            // injected
+            logger.warn("{} An error occurred whilst building the hierarchies and indexes: {}",
+                        projectId,
+                        e.getMessage());
+        }
+        // Metrics are not needed to open the project so they are computed in the background
+        CompletableFuture.runAsync(() -> metricsManager.get().getMetrics(), projectLoaderExecutor)
+                         .exceptionally(t -> {
+                             logger.warn("{} An error occurred whilst computing metrics: {}",
+                                         projectId,
+                                         t.getMessage());
+                             return null;
+                         });
+    }
+}
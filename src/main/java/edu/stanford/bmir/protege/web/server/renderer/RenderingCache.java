@@ -0,0 +1,190 @@
+package edu.stanford.bmir.protege.web.server.renderer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.mansyntax.render.LiteralStyle;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObject;
+import org.semanticweb.owlapi.util.OWLObjectVisitorAdapter;
+import org.semanticweb.owlapi.util.OWLObjectWalker;
+import org.semanticweb.owlapi.util.StructureWalker.AnnotationWalkingControl;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A bounded cache of HTML renderings keyed by the rendered object, the literal style and the set of
+ * highlighted phrases.  Each rendering records the IRIs that it depends on (the IRIs of the entities in the
+ * signature of the object along with any IRIs that appear as annotation subjects or values).  When the
+ * rendering of an entity changes, only the renderings that depend on the IRI of that entity are invalidated.
+ * A rendering that was computed while an invalidation took place is not added to the cache, because it may
+ * have been computed from stale short forms.
+ */
+public class RenderingCache {
+
+    /**
+     * The maximum number of renderings that are held in memory.
+     */
+    private static final long MAXIMUM_SIZE = 20_000;
+
+    private final Cache<Key, Rendering> cache;
+
+    private long invalidationCount = 0;
+
+    public RenderingCache() {
+        this(MAXIMUM_SIZE);
+    }
+
+    public RenderingCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maximumSize)
+                            .recordStats()
+                            .build();
+    }
+
+    /**
+     * Gets the rendering of the specified object, computing and caching it if it is not already present.
+     * @param object The object to be rendered.
+     * @param literalStyle The literal style used for the rendering.
+     * @param highlightedPhrases The highlighted phrases used for the rendering.
+     * @param renderer A supplier that renders the object on a cache miss.
+     * @return The rendering.
+     */
+    @Nonnull
+    public String get(@Nonnull OWLObject object,
+                      @Nonnull LiteralStyle literalStyle,
+                      @Nonnull Set<String> highlightedPhrases,
+                      @Nonnull Supplier<String> renderer) {
+        Key key = new Key(object, literalStyle, ImmutableSet.copyOf(highlightedPhrases));
+        Rendering cachedRendering = cache.getIfPresent(key);
+        if (cachedRendering != null) {
+            return cachedRendering.html;
+        }
+        long invalidationCountAtStart = getInvalidationCount();
+        String html = checkNotNull(renderer.get());
+        put(key, new Rendering(html, getDependencies(object)), invalidationCountAtStart);
+        return html;
+    }
+
+    private synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    private synchronized void put(Key key, Rendering rendering, long invalidationCountAtStart) {
+        if (invalidationCount == invalidationCountAtStart) {
+            cache.put(key, rendering);
+        }
+    }
+
+    /**
+     * Invalidates the renderings that depend on any of the specified IRIs.
+     * @param iris The IRIs.  These are typically the IRIs of entities whose short forms have changed.
+     */
+    public synchronized void invalidate(@Nonnull Collection<IRI> iris) {
+        invalidationCount++;
+        if (iris.isEmpty()) {
+            return;
+        }
+        Set<IRI> irisToInvalidate = ImmutableSet.copyOf(iris);
+        cache.asMap().values().removeIf(rendering -> !Collections.disjoint(rendering.dependencies, irisToInvalidate));
+    }
+
+    /**
+     * Invalidates all cached renderings.
+     */
+    public synchronized void invalidateAll() {
+        invalidationCount++;
+        cache.invalidateAll();
+    }
+
+    @Nonnull
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private static ImmutableSet<IRI> getDependencies(OWLObject object) {
+        ImmutableSet.Builder<IRI> dependencies = ImmutableSet.builder();
+        for (OWLEntity entity : object.getSignature()) {
+            dependencies.add(entity.getIRI());
+        }
+        OWLObjectWalker<OWLObject> walker = new OWLObjectWalker<>(Collections.singleton(object),
+                                                                      AnnotationWalkingControl.WALK_ANNOTATIONS);
+        walker.walkStructure(new OWLObjectVisitorAdapter() {
+            @Override
+            public void visit(IRI iri) {
+                dependencies.add(iri);
+            }
+        });
+        return dependencies.build();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("RenderingCache")
+                .add("size", cache.size())
+                .add("stats", cache.stats())
+                .toString();
+    }
+
+    private static final class Key {
+
+        private final OWLObject object;
+
+        private final LiteralStyle literalStyle;
+
+        private final ImmutableSet<String> highlightedPhrases;
+
+        private Key(@Nonnull OWLObject object,
+                    @Nonnull LiteralStyle literalStyle,
+                    @Nonnull ImmutableSet<String> highlightedPhrases) {
+            this.object = checkNotNull(object);
+            this.literalStyle = checkNotNull(literalStyle);
+            this.highlightedPhrases = checkNotNull(highlightedPhrases);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(object, literalStyle, highlightedPhrases);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return this.object.equals(other.object)
+                    && this.literalStyle.equals(other.literalStyle)
+                    && this.highlightedPhrases.equals(other.highlightedPhrases);
+        }
+    }
+
+    private static final class Rendering {
+
+        private final String html;
+
+        private final ImmutableSet<IRI> dependencies;
+
+        private Rendering(String html, ImmutableSet<IRI> dependencies) {
+            this.html = html;
+            this.dependencies = dependencies;
+        }
+    }
+}
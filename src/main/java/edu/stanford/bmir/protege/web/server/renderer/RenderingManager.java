@@ -6,6 +6,8 @@ import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
 import edu.stanford.bmir.protege.web.server.logging.WebProtegeLogger;
 import edu.stanford.bmir.protege.web.server.mansyntax.render.*;
+import edu.stanford.bmir.protege.web.server.shortform.ShortFormChangeListener;
+import edu.stanford.bmir.protege.web.server.shortform.WebProtegeBidirectionalShortFormProvider;
 import edu.stanford.bmir.protege.web.shared.BrowserTextProvider;
 import edu.stanford.bmir.protege.web.shared.DataFactory;
 import edu.stanford.bmir.protege.web.shared.entity.*;
@@ -25,12 +27,16 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.util.*;
 
+import static java.util.stream.Collectors.toList;
+
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 08/03/2012
  *
+ * HTML renderings of objects are cached.  Cached renderings are invalidated for the entities whose short forms
+ * change, or whose deprecation status changes.
  */
 @ProjectSingleton
 public class RenderingManager implements BrowserTextProvider, HasGetFrameRendering, HasGetRendering, HasHtmlBrowserText {
@@ -56,20 +62,31 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
 
     private final ManchesterSyntaxObjectRenderer renderer;
 
+    private final ManchesterSyntaxEntityFrameRenderer frameRenderer;
+
     private final OWLObjectRenderer owlObjectRenderer = new ManchesterOWLSyntaxOWLObjectRendererImpl();
 
+    private final RenderingCache renderingCache = new RenderingCache();
+
+    private final WebProtegeBidirectionalShortFormProvider webProtegeShortFormProvider;
+
+    private final ShortFormChangeListener shortFormChangeListener = this::handleShortFormsChanged;
+
+    private final OWLOntologyChangeListener deprecationChangeListener = this::handleOntologyChanges;
+
     @Inject
     public RenderingManager(@RootOntology OWLOntology rootOnt,
                             OWLDataFactory dataFactory,
                             EntityIRIChecker entityIRIChecker,
                             DeprecatedEntityChecker deprecatedChecker,
-                            BidirectionalShortFormProvider shortFormProvider,
+                            WebProtegeBidirectionalShortFormProvider shortFormProvider,
                             OntologyIRIShortFormProvider ontologyIRIShortFormProvider,
                             HighlightedEntityChecker highlightedEntityChecker,
                             WebProtegeLogger logger) {
         this.rootOntology = rootOnt;
         this.dataFactory = dataFactory;
         this.shortFormProvider = shortFormProvider;
+        this.webProtegeShortFormProvider = shortFormProvider;
         this.ontologyIRIShortFormProvider = ontologyIRIShortFormProvider;
         this.logger = logger;
         this.renderer = new ManchesterSyntaxObjectRenderer(
@@ -109,7 +126,21 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
 
         this.highlightEntityChecker = highlightedEntityChecker;
 
+        ManchesterSyntaxObjectRenderer frameObjectRenderer = new ManchesterSyntaxObjectRenderer(
+                shortFormProvider,
+                entityIRIChecker,
+                LiteralStyle.REGULAR,
+                new DefaultHttpLinkRenderer(),
+                new MarkdownLiteralRenderer());
+        this.frameRenderer = new ManchesterSyntaxEntityFrameRenderer(
+                rootOntology,
+                shortFormProvider, ontologyIRIShortFormProvider, frameObjectRenderer,
+                highlightEntityChecker, deprecatedEntityChecker, new DefaultItemStyleProvider(), NestedAnnotationStyle.COMPACT);
+
         owlObjectRenderer.setShortFormProvider(shortFormProvider);
+
+        webProtegeShortFormProvider.addShortFormChangeListener(shortFormChangeListener);
+        rootOntology.getOWLOntologyManager().addOntologyChangeListener(deprecationChangeListener);
     }
 
     /**
@@ -223,22 +254,16 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
             return "";
         }
         OWLEntity entity = (OWLEntity) subject;
-        ManchesterSyntaxObjectRenderer objectRenderer = new ManchesterSyntaxObjectRenderer(shortFormProvider,
-                entityIRIChecker,
-                LiteralStyle.REGULAR,
-                new DefaultHttpLinkRenderer(),
-                new MarkdownLiteralRenderer());
-        ManchesterSyntaxEntityFrameRenderer renderer = new ManchesterSyntaxEntityFrameRenderer(
-                rootOntology,
-                shortFormProvider, ontologyIRIShortFormProvider, objectRenderer,
-                highlightEntityChecker, deprecatedEntityChecker, new DefaultItemStyleProvider(), NestedAnnotationStyle.COMPACT);
         StringBuilder builder = new StringBuilder();
-        renderer.render(entity, builder);
+        frameRenderer.render(entity, builder);
         return builder.toString();
     }
 
     public String getHTMLBrowserText(OWLObject object) {
-        return getHTMLBrowserText(object, entity -> false);
+        return renderingCache.get(object,
+                                  LiteralStyle.BRACKETED,
+                                  Collections.emptySet(),
+                                  () -> getHTMLBrowserText(object, entity -> false));
     }
 
     @Override
@@ -247,13 +272,39 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
     }
 
     public String getHTMLBrowserText(OWLObject object, final Set<String> highlightedPhrases) {
-        return getHTMLBrowserText(object, entity -> highlightedPhrases.contains(getShortForm(entity)));
+        return renderingCache.get(object,
+                                  LiteralStyle.BRACKETED,
+                                  highlightedPhrases,
+                                  () -> getHTMLBrowserText(object, entity -> highlightedPhrases.contains(getShortForm(entity))));
     }
 
+    /**
+     * Gets the HTML browser text for an object using an arbitrary highlight checker.  Renderings produced
+     * by this method are not cached.
+     */
     public String getHTMLBrowserText(OWLObject object, HighlightedEntityChecker highlightChecker) {
         return renderer.render(object, highlightChecker, deprecatedEntityChecker);
     }
 
+    private void handleShortFormsChanged(Set<OWLEntity> entities) {
+        renderingCache.invalidate(entities.stream().map(OWLEntity::getIRI).collect(toList()));
+    }
+
+    private void handleOntologyChanges(List<? extends OWLOntologyChange> changes) {
+        List<IRI> deprecatedIRIs = new ArrayList<>();
+        for (OWLOntologyChange change : changes) {
+            if (change.isAxiomChange() && change.getAxiom() instanceof OWLAnnotationAssertionAxiom) {
+                OWLAnnotationAssertionAxiom ax = (OWLAnnotationAssertionAxiom) change.getAxiom();
+                if (ax.isDeprecatedIRIAssertion() && ax.getSubject() instanceof IRI) {
+                    deprecatedIRIs.add((IRI) ax.getSubject());
+                }
+            }
+        }
+        if (!deprecatedIRIs.isEmpty()) {
+            renderingCache.invalidate(deprecatedIRIs);
+        }
+    }
+
 
     /**
      * Selects a single entity from a set of entities.  The selection procedure works by sorting the entities in the
@@ -359,5 +410,8 @@ public class RenderingManager implements BrowserTextProvider, HasGetFrameRenderi
     }
 
     public void dispose() {
+        webProtegeShortFormProvider.removeShortFormChangeListener(shortFormChangeListener);
+        rootOntology.getOWLOntologyManager().removeOntologyChangeListener(deprecationChangeListener);
+        renderingCache.invalidateAll();
     }
 }
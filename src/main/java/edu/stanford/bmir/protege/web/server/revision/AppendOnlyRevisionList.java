@@ -0,0 +1,99 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An append-only list of revisions that is stored in fixed-size segments.  Appending a revision never copies
+ * existing revisions, so the cost of an append does not depend on the length of the history.  Snapshots of
+ * the list are cheap to take and are not affected by later appends, which means that they can be handed out
+ * to readers without any further locking.
+ *
+ * This class is not thread safe.  Appends must be made under an external lock and snapshots must be published
+ * safely (for example, by taking them under the same lock).
+ */
+public class AppendOnlyRevisionList {
+
+    private static final int SEGMENT_SHIFT = 10;
+
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private static final int INITIAL_SEGMENT_CAPACITY = 4;
+
+    /**
+     * The segments.  Segments are shared with snapshots.  This is safe because the list only ever writes to
+     * positions that are beyond the size of every snapshot that has been taken.  When the array of segments
+     * is full it is replaced by a larger copy, so snapshots that hold the old array are not affected.
+     */
+    private Revision[][] segments = new Revision[INITIAL_SEGMENT_CAPACITY][];
+
+    private int size = 0;
+
+    public AppendOnlyRevisionList() {
+    }
+
+    public AppendOnlyRevisionList(@Nonnull List<Revision> revisions) {
+        revisions.forEach(this::add);
+    }
+
+    /**
+     * Appends a revision to the end of this list.
+     * @param revision The revision.  Not {@code null}.
+     */
+    public void add(@Nonnull Revision revision) {
+        checkNotNull(revision);
+        int segmentIndex = size >>> SEGMENT_SHIFT;
+        if (segmentIndex == segments.length) {
+            segments = Arrays.copyOf(segments, segments.length * 2);
+        }
+        if (segments[segmentIndex] == null) {
+            segments[segmentIndex] = new Revision[SEGMENT_SIZE];
+        }
+        segments[segmentIndex][size & SEGMENT_MASK] = revision;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Takes a snapshot of this list.  The snapshot is an unmodifiable random access list that contains the
+     * revisions in this list at the time the snapshot was taken.
+     */
+    @Nonnull
+    public List<Revision> snapshot() {
+        return new Snapshot(segments, size);
+    }
+
+    private static class Snapshot extends AbstractList<Revision> implements RandomAccess {
+
+        private final Revision[][] segments;
+
+        private final int size;
+
+        private Snapshot(Revision[][] segments, int size) {
+            this.segments = segments;
+            this.size = size;
+        }
+
+        @Override
+        public Revision get(int index) {
+            checkElementIndex(index, size);
+            return segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingInputStream;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.binaryowl.BinaryOWLMetadata;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A persistent index over a change history file.  The index records the header of each revision along with
+ * the byte range that the revision occupies in the change history file, so that the revision list can be
+ * loaded without decoding any changes.  The index is stored next to the change history file.  If the index
+ * is missing or does not match the change history file then it is rebuilt, and if the change history file
+ * has grown since the index was last written then only the new revisions are scanned.
+ */
+public class ChangeHistoryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeHistoryIndex.class);
+
+    private static final int MAGIC_NUMBER = 0x57504349;
+
+    private static final int VERSION = 1;
+
+    private static final String INDEX_FILE_NAME_SUFFIX = ".index";
+
+    private final ProjectId projectId;
+
+    private final File changeHistoryFile;
+
+    private final File indexFile;
+
+    private final OWLDataFactory dataFactory;
+
+    public ChangeHistoryIndex(@Nonnull ProjectId projectId,
+                              @Nonnull File changeHistoryFile,
+                              @Nonnull OWLDataFactory dataFactory) {
+        this.projectId = checkNotNull(projectId);
+        this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.dataFactory = checkNotNull(dataFactory);
+        this.indexFile = new File(changeHistoryFile.getParentFile(),
+                                  changeHistoryFile.getName() + INDEX_FILE_NAME_SUFFIX);
+    }
+
+    @Nonnull
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    /**
+     * Loads the index entries, bringing the index up to date with the change history file if necessary.
+     * @return The entries, in the order that the revisions appear in the change history file.
+     * @throws IOException If the index could not be read or written, or if the change history file could
+     * not be scanned.
+     */
+    @Nonnull
+    public synchronized ImmutableList<ChangeHistoryIndexEntry> load() throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        long changeHistoryLength = changeHistoryFile.length();
+        List<ChangeHistoryIndexEntry> entries = new ArrayList<>();
+        boolean intact = readIndexFile(entries);
+        if (!intact || !isConsistent(entries, changeHistoryLength)) {
+            logger.info("{} Change history index is missing or out of date.  Rebuilding index.", projectId);
+            entries.clear();
+            writeIndexFile(entries);
+        }
+        long indexedLength = entries.isEmpty() ? 0 : entries.get(entries.size() - 1).getEndOffset();
+        if (indexedLength < changeHistoryLength) {
+            List<ChangeHistoryIndexEntry> scannedEntries = scan(indexedLength, changeHistoryLength);
+            appendToIndexFile(scannedEntries);
+            entries.addAll(scannedEntries);
+            logger.info("{} Indexed {} revisions in the change history", projectId, scannedEntries.size());
+        }
+        stopwatch.stop();
+        logger.info("{} Loaded change history index ({} revisions) in {} ms",
+                    projectId,
+                    entries.size(),
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return ImmutableList.copyOf(entries);
+    }
+
+    /**
+     * Appends an entry to the index.  The entry must describe a revision that was appended to the end of the
+     * change history file.
+     * @param entry The entry.
+     * @throws IOException If the entry could not be written.
+     */
+    public synchronized void append(@Nonnull ChangeHistoryIndexEntry entry) throws IOException {
+        appendToIndexFile(ImmutableList.of(checkNotNull(entry)));
+    }
+
+    /**
+     * Reads the entries in the index file.
+     * @param entries A list that the entries are added to.
+     * @return {@code true} if the index file was read without error, or {@code false} if the index file
+     * is missing, has the wrong format, or ends with a partially written entry.
+     */
+    private boolean readIndexFile(List<ChangeHistoryIndexEntry> entries) throws IOException {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        long indexFileLength = indexFile.length();
+        CountingInputStream countingInputStream = new CountingInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try (DataInputStream input = new DataInputStream(countingInputStream)) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+                return false;
+            }
+            while (countingInputStream.getCount() < indexFileLength) {
+                entries.add(ChangeHistoryIndexEntry.read(input));
+            }
+            return true;
+        } catch (IOException e) {
+            // Includes a truncated header or an entry that was only partially written
+            logger.warn("{} Could not read change history index: {}", projectId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isConsistent(List<ChangeHistoryIndexEntry> entries, long changeHistoryLength) {
+        long expectedStartOffset = 0;
+        for (ChangeHistoryIndexEntry entry : entries) {
+            if (entry.getStartOffset() != expectedStartOffset || entry.getEndOffset() <= entry.getStartOffset()) {
+                return false;
+            }
+            expectedStartOffset = entry.getEndOffset();
+        }
+        return expectedStartOffset <= changeHistoryLength;
+    }
+
+    /**
+     * Scans the specified region of the change history file and creates index entries for the revisions
+     * that it contains.  The region must start on a revision boundary.
+     */
+    private List<ChangeHistoryIndexEntry> scan(long fromOffset, long toOffset) throws IOException {
+        List<ChangeHistoryIndexEntry> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(changeHistoryFile.toPath(), StandardOpenOption.READ)) {
+            channel.position(fromOffset);
+            // The file position that is reported by the change log reader is not a byte offset, so we count
+            // the bytes that have been consumed ourselves.  The reader does not read ahead of the list that
+            // it has just handled.
+            CountingInputStream inputStream = new CountingInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            changeLog.readChanges(inputStream, dataFactory, (list, skipSetting, filePosition) -> {
+                long startOffset = entries.isEmpty() ? fromOffset : entries.get(entries.size() - 1).getEndOffset();
+                long endOffset = fromOffset + inputStream.getCount();
+                entries.add(createEntry(list.getMetadata(),
+                                        list.getTimestamp(),
+                                        list.getChangeRecords().size(),
+                                        startOffset,
+                                        endOffset));
+            }, SkipSetting.SKIP_NONE);
+        } catch (RuntimeException e) {
+            throw new IOException("Could not scan change history: " + e.getMessage(), e);
+        }
+        long scannedOffset = entries.isEmpty() ? fromOffset : entries.get(entries.size() - 1).getEndOffset();
+        if (scannedOffset != toOffset) {
+            logger.warn("{} Change history contains unreadable data after offset {}", projectId, scannedOffset);
+        }
+        return entries;
+    }
+
+    private static ChangeHistoryIndexEntry createEntry(BinaryOWLMetadata metadata,
+                                                       long timestamp,
+                                                       int size,
+                                                       long startOffset,
+                                                       long endOffset) {
+        String userName = metadata.getStringAttribute(RevisionSerializationVocabulary.USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), "");
+        long revisionNumber = metadata.getLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), 0L);
+        String description = metadata.getStringAttribute(RevisionSerializationVocabulary.DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), "");
+        return new ChangeHistoryIndexEntry(revisionNumber,
+                                           userName,
+                                           timestamp,
+                                           description,
+                                           size,
+                                           startOffset,
+                                           endOffset);
+    }
+
+    private void writeIndexFile(List<ChangeHistoryIndexEntry> entries) throws IOException {
+        indexFile.getParentFile().mkdirs();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(VERSION);
+            for (ChangeHistoryIndexEntry entry : entries) {
+                entry.write(output);
+            }
+        }
+    }
+
+    private void appendToIndexFile(List<ChangeHistoryIndexEntry> entries) throws IOException {
+        if (!indexFile.exists()) {
+            writeIndexFile(entries);
+            return;
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            for (ChangeHistoryIndexEntry entry : entries) {
+                entry.write(output);
+            }
+        }
+    }
+}
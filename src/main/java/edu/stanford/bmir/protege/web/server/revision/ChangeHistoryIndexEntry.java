@@ -0,0 +1,158 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+
+import javax.annotation.Nonnull;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An entry in a {@link ChangeHistoryIndex}.  An entry holds the header of a revision (user, timestamp,
+ * description and number of changes) along with the position of the revision in the change history file.
+ */
+public class ChangeHistoryIndexEntry {
+
+    private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+    private final long revisionNumber;
+
+    private final String userName;
+
+    private final long timestamp;
+
+    private final String description;
+
+    private final int size;
+
+    private final long startOffset;
+
+    private final long endOffset;
+
+    public ChangeHistoryIndexEntry(long revisionNumber,
+                                   @Nonnull String userName,
+                                   long timestamp,
+                                   @Nonnull String description,
+                                   int size,
+                                   long startOffset,
+                                   long endOffset) {
+        this.revisionNumber = revisionNumber;
+        this.userName = checkNotNull(userName);
+        this.timestamp = timestamp;
+        this.description = checkNotNull(description);
+        this.size = size;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    /**
+     * Creates an entry for a revision that was written at the specified position in the change history file.
+     */
+    public static ChangeHistoryIndexEntry get(@Nonnull Revision revision, long startOffset, long endOffset) {
+        return new ChangeHistoryIndexEntry(revision.getRevisionNumber().getValue(),
+                                           revision.getUserId().getUserName(),
+                                           revision.getTimestamp(),
+                                           revision.getHighLevelDescription(),
+                                           revision.getSize(),
+                                           startOffset,
+                                           endOffset);
+    }
+
+    public RevisionNumber getRevisionNumber() {
+        return RevisionNumber.getRevisionNumber(revisionNumber);
+    }
+
+    public UserId getUserId() {
+        return UserId.getUserId(userName);
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the position of the first byte of the revision in the change history file.
+     */
+    public long getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * Gets the position that follows the last byte of the revision in the change history file.
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    void write(@Nonnull DataOutput output) throws IOException {
+        output.writeLong(revisionNumber);
+        writeString(output, userName);
+        output.writeLong(timestamp);
+        writeString(output, description);
+        output.writeInt(size);
+        output.writeLong(startOffset);
+        output.writeLong(endOffset);
+    }
+
+    static ChangeHistoryIndexEntry read(@Nonnull DataInput input) throws IOException {
+        long revisionNumber = input.readLong();
+        String userName = readString(input);
+        long timestamp = input.readLong();
+        String description = readString(input);
+        int size = input.readInt();
+        long startOffset = input.readLong();
+        long endOffset = input.readLong();
+        return new ChangeHistoryIndexEntry(revisionNumber,
+                                           userName,
+                                           timestamp,
+                                           description,
+                                           size,
+                                           startOffset,
+                                           endOffset);
+    }
+
+    /**
+     * Descriptions can be longer than the limit imposed by {@link DataOutput#writeUTF(String)} so strings
+     * are written as a length followed by UTF-8 bytes.
+     */
+    private static void writeString(DataOutput output, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInput input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length in change history index: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ChangeHistoryIndexEntry")
+                .add("revision", revisionNumber)
+                .add("user", userName)
+                .add("timestamp", timestamp)
+                .add("size", size)
+                .add("start", startOffset)
+                .add("end", endOffset)
+                .toString();
+    }
+}
@@ -0,0 +1,297 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.binaryowl.BinaryOWLMetadata;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Appends revisions to the change history file using group commit.  Revisions are queued and a single writer
+ * thread drains the queue, serializes all of the queued revisions into one buffer, writes the buffer to an open
+ * {@link FileChannel} and then forces it to disk.  Once the writer has picked up a revision it waits for a short
+ * batching window for further revisions to arrive.  These, and any revisions that are queued while a write is in
+ * progress, are written together in one batch, so the cost of forcing the file to disk is shared by concurrent
+ * edits.  Each call to {@link #append(Revision)} returns a future that completes once the revision is durable.
+ */
+public class ChangeHistoryJournal implements HasDispose {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeHistoryJournal.class);
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private static final long DEFAULT_BATCH_WINDOW_MILLIS = 2;
+
+    private static final long DISPOSE_TIMEOUT_SECONDS = 60;
+
+    private final ProjectId projectId;
+
+    private final File changeHistoryFile;
+
+    private final ChangeHistoryIndex changeHistoryIndex;
+
+    private final RevisionSubjectIndex subjectIndex;
+
+    private final long batchWindowMillis;
+
+    private final BlockingQueue<PendingRevision> pendingRevisions = new LinkedBlockingQueue<>();
+
+    private final ExecutorService writerExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("change-history-writer-%d")
+            .setDaemon(true)
+            .build());
+
+    private volatile boolean disposed = false;
+
+    private FileChannel channel;
+
+    public ChangeHistoryJournal(@Nonnull ProjectId projectId,
+                                @Nonnull File changeHistoryFile,
+                                @Nonnull ChangeHistoryIndex changeHistoryIndex,
+                                @Nonnull RevisionSubjectIndex subjectIndex) {
+        this(projectId, changeHistoryFile, changeHistoryIndex, subjectIndex, DEFAULT_BATCH_WINDOW_MILLIS);
+    }
+
+    /**
+     * Creates a journal.
+     * @param batchWindowMillis The time, in milliseconds, that the writer waits for further revisions after it
+     *                          picks up a revision.  Zero means that only revisions that are already queued are
+     *                          batched.
+     */
+    public ChangeHistoryJournal(@Nonnull ProjectId projectId,
+                                @Nonnull File changeHistoryFile,
+                                @Nonnull ChangeHistoryIndex changeHistoryIndex,
+                                @Nonnull RevisionSubjectIndex subjectIndex,
+                                long batchWindowMillis) {
+        checkArgument(batchWindowMillis >= 0, "The batch window must not be negative");
+        this.projectId = checkNotNull(projectId);
+        this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.changeHistoryIndex = checkNotNull(changeHistoryIndex);
+        this.subjectIndex = checkNotNull(subjectIndex);
+        this.batchWindowMillis = batchWindowMillis;
+    }
+
+    /**
+     * Checks that this journal accepts revisions.
+     * @throws IllegalStateException if this journal has been disposed.
+     */
+    public void checkNotDisposed() {
+        if (disposed) {
+            throw new IllegalStateException("The change history journal for project " + projectId + " has been disposed");
+        }
+    }
+
+    /**
+     * Queues a revision to be appended to the change history.  Revisions are written in the order in which
+     * they are queued.
+     * @param revision The revision.
+     * @return A future that completes when the revision has been written and forced to disk, or that completes
+     * exceptionally if the revision could not be written.
+     * @throws IllegalStateException if this journal has been disposed.
+     */
+    @Nonnull
+    public CompletableFuture<Void> append(@Nonnull Revision revision) {
+        checkNotNull(revision);
+        checkNotDisposed();
+        PendingRevision pendingRevision = new PendingRevision(revision);
+        pendingRevisions.add(pendingRevision);
+        try {
+            writerExecutor.submit(this::writePendingRevisions);
+        } catch (RejectedExecutionException e) {
+            // Disposed between the check above and the submission
+            pendingRevisions.remove(pendingRevision);
+            throw new IllegalStateException("The change history journal for project " + projectId + " has been disposed");
+        }
+        return pendingRevision.future;
+    }
+
+    /**
+     * Writes the revisions that are currently queued.  Runs on the writer thread.  If an earlier invocation
+     * drained the queue then there is nothing to do.
+     */
+    private void writePendingRevisions() {
+        List<PendingRevision> batch = new ArrayList<>();
+        pendingRevisions.drainTo(batch, MAX_BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return;
+        }
+        awaitBatch(batch);
+        List<ChangeHistoryIndexEntry> indexEntries;
+        try {
+            indexEntries = write(batch);
+        } catch (IOException | RuntimeException e) {
+            logger.error("{} An error occurred whilst writing {} revisions to the change history.  Cause: {}",
+                         projectId,
+                         batch.size(),
+                         e.getMessage(),
+                         e);
+            batch.forEach(pendingRevision -> pendingRevision.future.completeExceptionally(e));
+            return;
+        }
+        batch.forEach(pendingRevision -> pendingRevision.future.complete(null));
+        try {
+            for (ChangeHistoryIndexEntry entry : indexEntries) {
+                changeHistoryIndex.append(entry);
+            }
+        } catch (IOException e) {
+            // The index is brought up to date the next time that it is loaded
+            logger.warn("{} Could not update change history index.  Cause: {}", projectId, e.getMessage());
+        }
+        try {
+            subjectIndex.flush();
+        } catch (IOException e) {
+            // The index is rebuilt from the change history the next time that it is loaded
+            logger.warn("{} Could not update revision subject index.  Cause: {}", projectId, e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the revisions that are queued within the batching window to the batch.
+     */
+    private void awaitBatch(List<PendingRevision> batch) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        try {
+            while (batch.size() < MAX_BATCH_SIZE) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                PendingRevision next = pendingRevisions.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+                pendingRevisions.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<ChangeHistoryIndexEntry> write(List<PendingRevision> batch) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+        FileChannel fileChannel = getChannel();
+        long startOffset = fileChannel.size();
+        List<ChangeHistoryIndexEntry> indexEntries = new ArrayList<>();
+        for (PendingRevision pendingRevision : batch) {
+            long revisionStartOffset = startOffset + buffer.size();
+            changeLog.appendChanges(toChangeRecordList(pendingRevision.revision), buffer);
+            indexEntries.add(ChangeHistoryIndexEntry.get(pendingRevision.revision,
+                                                         revisionStartOffset,
+                                                         startOffset + buffer.size()));
+        }
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer.toByteArray());
+        try {
+            while (byteBuffer.hasRemaining()) {
+                fileChannel.write(byteBuffer);
+            }
+            fileChannel.force(false);
+        } catch (IOException e) {
+            // Remove any partially written revisions so that the change history remains readable
+            closeChannel();
+            try (FileChannel truncatingChannel = FileChannel.open(changeHistoryFile.toPath(), StandardOpenOption.WRITE)) {
+                truncatingChannel.truncate(startOffset);
+            } catch (IOException truncationException) {
+                e.addSuppressed(truncationException);
+            }
+            throw e;
+        }
+        return indexEntries;
+    }
+
+    /**
+     * Converts a revision into the change record list (changes plus metadata) that is written to the change log.
+     * @param revision The revision.
+     * @return The change record list.
+     */
+    static OntologyChangeRecordList toChangeRecordList(Revision revision) {
+        BinaryOWLMetadata metadata = new BinaryOWLMetadata();
+        metadata.setStringAttribute(RevisionSerializationVocabulary.USERNAME_METADATA_ATTRIBUTE.getVocabularyName(), revision.getUserId().getUserName());
+        metadata.setLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getRevisionNumber().getValue());
+        metadata.setStringAttribute(RevisionSerializationVocabulary.DESCRIPTION_META_DATA_ATTRIBUTE.getVocabularyName(), revision.getHighLevelDescription());
+        metadata.setStringAttribute(RevisionSerializationVocabulary.REVISION_TYPE_META_DATA_ATTRIBUTE.getVocabularyName(), RevisionType.EDIT.name());
+        return new OntologyChangeRecordList(revision.getTimestamp(), metadata, revision.getChanges());
+    }
+
+    private FileChannel getChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            changeHistoryFile.getParentFile().mkdirs();
+            channel = FileChannel.open(changeHistoryFile.toPath(),
+                                       StandardOpenOption.CREATE,
+                                       StandardOpenOption.WRITE,
+                                       StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("{} Could not close change history file.  Cause: {}", projectId, e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Writes any queued revisions and then closes the change history file.  Waits for the writes to finish.
+     */
+    @Override
+    public synchronized void dispose() {
+        if (disposed) {
+            return;
+        }
+        disposed = true;
+        writerExecutor.submit(() -> {
+            while (!pendingRevisions.isEmpty()) {
+                writePendingRevisions();
+            }
+            closeChannel();
+        });
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(DISPOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.error("{} Timed out whilst writing queued revisions to the change history", projectId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class PendingRevision {
+
+        private final Revision revision;
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingRevision(Revision revision) {
+            this.revision = revision;
+        }
+    }
+}
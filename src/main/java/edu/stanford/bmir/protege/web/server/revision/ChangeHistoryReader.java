@@ -0,0 +1,122 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads the changes for individual revisions from a change history file using the byte ranges recorded in a
+ * {@link ChangeHistoryIndex}.  The region of the file that holds a revision is read into a buffer from a
+ * shared file and decoded on demand.  Recently decoded revisions are softly cached so that repeated requests
+ * (for example, when browsing the change history) do not decode the same revision over and over again.
+ *
+ * The file is read through a {@link RandomAccessFile} rather than a {@link java.nio.channels.FileChannel}.  A
+ * file channel is closed when a thread that is blocked on it is interrupted, which would make reads fail for
+ * every other request in the project.
+ */
+public class ChangeHistoryReader {
+
+    private static final int MAX_CACHED_REVISIONS = 256;
+
+    private final File changeHistoryFile;
+
+    private final OWLDataFactory dataFactory;
+
+    private final Cache<Long, ImmutableList<OWLOntologyChangeRecord>> decodedChangesCache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHED_REVISIONS)
+            .softValues()
+            .build();
+
+    private RandomAccessFile file;
+
+    public ChangeHistoryReader(@Nonnull File changeHistoryFile,
+                               @Nonnull OWLDataFactory dataFactory) {
+        this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.dataFactory = checkNotNull(dataFactory);
+    }
+
+    /**
+     * Creates a revision whose changes are read from the change history file when they are requested.
+     * @param entry The index entry that describes the revision.
+     */
+    @Nonnull
+    public Revision createRevision(@Nonnull ChangeHistoryIndexEntry entry) {
+        return new Revision(entry.getUserId(),
+                            entry.getRevisionNumber(),
+                            entry.getSize(),
+                            () -> getChangeRecords(entry),
+                            entry.getTimestamp(),
+                            entry.getDescription());
+    }
+
+    /**
+     * Gets the change records for the revision described by the specified index entry.
+     * @throws UncheckedIOException If the changes could not be read.
+     */
+    @Nonnull
+    public ImmutableList<OWLOntologyChangeRecord> getChangeRecords(@Nonnull ChangeHistoryIndexEntry entry) {
+        try {
+            return decodedChangesCache.get(entry.getStartOffset(), () -> readChangeRecords(entry));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private ImmutableList<OWLOntologyChangeRecord> readChangeRecords(ChangeHistoryIndexEntry entry) throws IOException {
+        long length = entry.getEndOffset() - entry.getStartOffset();
+        byte[] buffer = new byte[Math.toIntExact(length)];
+        readFully(entry, buffer);
+        ImmutableList.Builder<OWLOntologyChangeRecord> records = ImmutableList.builder();
+        BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+        changeLog.readChanges(new ByteArrayInputStream(buffer), dataFactory, (list, skipSetting, filePosition) -> {
+            records.addAll(list.getChangeRecords());
+        }, SkipSetting.SKIP_NONE);
+        return records.build();
+    }
+
+    /**
+     * Reads the bytes for the specified revision.  The file pointer is shared by all readers, so the seek and
+     * the read are done under the lock.  Decoding the bytes is not.
+     */
+    private synchronized void readFully(ChangeHistoryIndexEntry entry, byte[] buffer) throws IOException {
+        if (file == null) {
+            file = new RandomAccessFile(changeHistoryFile, "r");
+        }
+        file.seek(entry.getStartOffset());
+        try {
+            file.readFully(buffer);
+        } catch (EOFException e) {
+            throw new EOFException("Unexpected end of change history whilst reading revision "
+                                           + entry.getRevisionNumber().getValue());
+        }
+    }
+
+    /**
+     * Closes the underlying file.  The file is reopened if further changes are read.
+     */
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+        decodedChangesCache.invalidateAll();
+    }
+}
@@ -0,0 +1,74 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import org.semanticweb.owlapi.change.OWLOntologyChangeData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.change.SetOntologyIDData;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Replays change records (from revisions or from snapshots) into an ontology manager, creating ontologies
+ * as they are first mentioned.
+ */
+public class OntologyChangeRecordReplayer {
+
+    private final OWLOntologyManager manager;
+
+    private final OWLOntologyID singletonAnonymousId = new OWLOntologyID();
+
+    public OntologyChangeRecordReplayer(@Nonnull OWLOntologyManager manager) {
+        this.manager = checkNotNull(manager);
+    }
+
+    @Nonnull
+    public OWLOntologyManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Replays the specified revision.
+     * @param revision The revision to replay.
+     */
+    public void replay(@Nonnull Revision revision) throws OWLOntologyCreationException {
+        for (OWLOntologyChangeRecord record : revision) {
+            replay(record);
+        }
+    }
+
+    /**
+     * Replays the specified change record.
+     * @param record The record to replay.
+     */
+    public void replay(@Nonnull OWLOntologyChangeRecord record) throws OWLOntologyCreationException {
+        // Anonymous ontologies are not handled nicely at all.
+        OWLOntologyChangeRecord normalisedChangeRecord = normaliseChangeRecord(record);
+        OWLOntologyID ontologyId = normalisedChangeRecord.getOntologyID();
+        if (!manager.contains(ontologyId)) {
+            manager.createOntology(ontologyId);
+        }
+        OWLOntologyChange change = normalisedChangeRecord.createOntologyChange(manager);
+        manager.applyChange(change);
+    }
+
+    private OWLOntologyChangeRecord normaliseChangeRecord(OWLOntologyChangeRecord changeRecord) {
+        OWLOntologyID ontologyID = changeRecord.getOntologyID();
+        if (ontologyID.isAnonymous()) {
+            OWLOntologyChangeData data = changeRecord.getData();
+            if (data instanceof SetOntologyIDData && ((SetOntologyIDData) data).getNewId().isAnonymous()) {
+                // Snapshots record empty anonymous ontologies in this way
+                data = new SetOntologyIDData(singletonAnonymousId);
+            }
+            return new OWLOntologyChangeRecord(singletonAnonymousId, data);
+        }
+        else {
+            // As is
+            return changeRecord;
+        }
+    }
+}
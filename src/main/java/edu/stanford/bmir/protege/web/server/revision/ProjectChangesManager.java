@@ -11,6 +11,8 @@ import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
 import edu.stanford.bmir.protege.web.shared.diff.DiffElement;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.pagination.Page;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.semanticweb.owlapi.change.AxiomChangeData;
 import org.semanticweb.owlapi.change.OWLOntologyChangeData;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
@@ -24,6 +26,9 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction.DEFAULT_DIFF_PAGE_SIZE;
+import static java.util.stream.Collectors.toList;
+
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
@@ -32,11 +37,20 @@ import java.util.stream.Collectors;
 @ProjectSingleton
 public class ProjectChangesManager {
 
-    public static final int DEFAULT_CHANGE_LIMIT = 50;
+    private static final PageRequest DEFAULT_DIFF_PAGE_REQUEST = PageRequest.requestPageWithSize(1, DEFAULT_DIFF_PAGE_SIZE);
 
-    private final RevisionManager revisionManager;
+    /**
+     * The maximum number of revisions that are rendered for one request.  Requests arrive through GWT
+     * deserialization, which bypasses the argument checks in the action, so limits are enforced here.
+     */
+    static final int MAX_REVISION_COUNT = 200;
+
+    /**
+     * The maximum number of diff elements that are rendered for each revision in one request.
+     */
+    static final int MAX_DIFF_PAGE_SIZE = 1000;
 
-    private final EntitiesByRevisionCache entitiesByRevisionCache;
+    private final RevisionManager revisionManager;
 
     private final RenderingManager browserTextProvider;
 
@@ -46,77 +60,122 @@ public class ProjectChangesManager {
 
     @Inject
     public ProjectChangesManager(@Nonnull RevisionManager revisionManager,
-                                 @Nonnull EntitiesByRevisionCache entitiesByRevisionCache,
                                  @Nonnull RenderingManager browserTextProvider,
                                  @Nonnull Comparator<OWLOntologyChangeRecord> changeRecordComparator,
                                  @Nonnull WebProtegeOntologyIRIShortFormProvider ontologyIRIShortFormProvider) {
         this.revisionManager = revisionManager;
-        this.entitiesByRevisionCache = entitiesByRevisionCache;
         this.ontologyIRIShortFormProvider = ontologyIRIShortFormProvider;
         this.browserTextProvider = browserTextProvider;
         this.changeRecordComparator = changeRecordComparator;
     }
 
-    public ImmutableList<ProjectChange> getProjectChanges(Optional<OWLEntity> subject) {
+    /**
+     * Gets a window of project changes.  Only the revisions in the window are examined and rendered.  If a subject
+     * is specified then the window is found from the numbers of the revisions that change the subject, and only the
+     * revisions in the window are retrieved.
+     * @param subject An optional subject.  If present, only changes to axioms that have this subject are returned.
+     * @param beforeRevision An optional cursor.  If present, only revisions before this revision are returned,
+     *                       otherwise revisions are returned starting with the head revision.
+     * @param revisionCount The maximum number of revisions to return.  This is clamped to between one and
+     *                      {@link #MAX_REVISION_COUNT}.
+     * @param diffPageRequest The page of diff elements to render for each revision.  The page number is clamped
+     *                        to at least one and the page size to between one and {@link #MAX_DIFF_PAGE_SIZE}.
+     * @return The changes, most recent revision first, along with the cursor for the next window.
+     */
+    public ProjectChangesPage getProjectChanges(Optional<OWLEntity> subject,
+                                                Optional<RevisionNumber> beforeRevision,
+                                                int revisionCount,
+                                                PageRequest diffPageRequest) {
+        int clampedRevisionCount = Math.max(1, Math.min(revisionCount, MAX_REVISION_COUNT));
+        List<Revision> window = new ArrayList<>();
+        Optional<RevisionNumber> nextBeforeRevision;
+        if (subject.isPresent()) {
+            ImmutableList<RevisionNumber> revisionNumbers =
+                    revisionManager.getRevisionNumbersForSubject(subject.get().getIRI());
+            int endIndex = getEndIndex(revisionNumbers, beforeRevision, revisionNumber -> revisionNumber);
+            int startIndex = Math.max(0, endIndex - clampedRevisionCount);
+            for (RevisionNumber revisionNumber : revisionNumbers.subList(startIndex, endIndex)) {
+                revisionManager.getRevision(revisionNumber).ifPresent(window::add);
+            }
+            nextBeforeRevision = startIndex > 0 ? Optional.of(revisionNumbers.get(startIndex)) : Optional.empty();
+        }
+        else {
+            List<Revision> revisions = revisionManager.getRevisions();
+            int endIndex = getEndIndex(revisions, beforeRevision, Revision::createEmptyRevisionWithRevisionNumber);
+            int startIndex = Math.max(0, endIndex - clampedRevisionCount);
+            window.addAll(revisions.subList(startIndex, endIndex));
+            nextBeforeRevision = startIndex > 0 ?
+                    Optional.of(revisions.get(startIndex).getRevisionNumber()) : Optional.empty();
+        }
         ImmutableList.Builder<ProjectChange> changes = ImmutableList.builder();
-        for (Revision revision : revisionManager.getRevisions()) {
-            getProjectChangesForRevision(revision, subject, changes);
+        for (int i = window.size() - 1; i >= 0; i--) {
+            getProjectChangesForRevision(window.get(i), subject, diffPageRequest, changes);
+        }
+        return new ProjectChangesPage(changes.build(), nextBeforeRevision);
+    }
+
+    /**
+     * Gets the index of the first element of a list, in ascending order of revision number, that is not before
+     * the specified cursor.
+     * @param toKey Creates the key that is used to search the list for the cursor.
+     */
+    private static <T extends Comparable<? super T>> int getEndIndex(List<T> list,
+                                                                     Optional<RevisionNumber> beforeRevision,
+                                                                     Function<RevisionNumber, T> toKey) {
+        if (!beforeRevision.isPresent() || beforeRevision.get().isHead()) {
+            return list.size();
+        }
+        int index = Collections.binarySearch(list, toKey.apply(beforeRevision.get()));
+        if (index >= 0) {
+            return index;
+        }
+        else {
+            return -(index + 1);
         }
-        return changes.build();
     }
 
     public ImmutableList<ProjectChange> getProjectChangesForSubjectInRevision(OWLEntity subject, Revision revision) {
         ImmutableList.Builder<ProjectChange> resultBuilder = ImmutableList.builder();
-        getProjectChangesForRevision(revision, Optional.of(subject), resultBuilder);
+        getProjectChangesForRevision(revision, Optional.of(subject), DEFAULT_DIFF_PAGE_REQUEST, resultBuilder);
         return resultBuilder.build();
     }
 
     private void getProjectChangesForRevision(Revision revision,
                                               Optional<OWLEntity> subject,
+                                              PageRequest diffPageRequest,
                                               ImmutableList.Builder<ProjectChange> changesBuilder) {
-        if (subject.isPresent() && !entitiesByRevisionCache.containsEntity(revision, subject.get())) {
-            return;
-        }
-
         Map<Optional<IRI>, List<OWLOntologyChangeRecord>> recordsBySubject = getChangeRecordsBySubject(revision);
 
-        List<OWLOntologyChangeRecord> limitedRecords = new ArrayList<>();
-        final int totalChanges;
+        List<OWLOntologyChangeRecord> records;
         if (subject.isPresent()) {
-            List<OWLOntologyChangeRecord> records = recordsBySubject.get(subject.map(OWLEntity::getIRI));
+            records = recordsBySubject.get(subject.map(OWLEntity::getIRI));
             if(records ==  null) {
                 // Nothing in this revision that changes the subject
                 return;
             }
-            totalChanges = records.size();
-            limitedRecords.addAll(records);
         }
         else {
-            totalChanges = revision.getSize();
-            for (Map.Entry<Optional<IRI>, List<OWLOntologyChangeRecord>> entry : recordsBySubject.entrySet()) {
-                limitedRecords.addAll(entry.getValue());
-                if (limitedRecords.size() >= DEFAULT_CHANGE_LIMIT) {
-                    break;
-                }
-            }
+            // Keep the changes for each subject together
+            records = recordsBySubject.values().stream()
+                                      .flatMap(List::stream)
+                                      .collect(toList());
         }
+        final int totalChanges = records.size();
+        int pageSize = Math.max(1, Math.min(diffPageRequest.getPageSize(), MAX_DIFF_PAGE_SIZE));
+        int pageCount = (int) Math.max(1, ((long) totalChanges + pageSize - 1) / pageSize);
+        int pageNumber = Math.max(1, Math.min(diffPageRequest.getPageNumber(), pageCount));
+        int fromIndex = (int) Math.min(totalChanges, (long) (pageNumber - 1) * pageSize);
+        int toIndex = (int) Math.min(totalChanges, (long) fromIndex + pageSize);
+        List<OWLOntologyChangeRecord> pageRecords = records.subList(fromIndex, toIndex);
 
         Revision2DiffElementsTranslator translator = new Revision2DiffElementsTranslator(ontologyIRIShortFormProvider);
 
         List<DiffElement<String, OWLOntologyChangeRecord>> axiomDiffElements = translator.getDiffElementsFromRevision(
-                limitedRecords);
+                pageRecords);
         sortDiff(axiomDiffElements);
         List<DiffElement<String, SafeHtml>> renderedDiffElements = renderDiffElements(axiomDiffElements);
-        int pageElements = renderedDiffElements.size();
-        int pageCount;
-        if(pageElements == 0) {
-            pageCount = 1;
-        }
-        else {
-            pageCount = totalChanges / pageElements + (totalChanges % pageElements);
-        }
         Page<DiffElement<String, SafeHtml>> page = new Page<>(
-                1,
+                pageNumber,
                 pageCount,
                 renderedDiffElements,
                 totalChanges
@@ -133,7 +192,7 @@ public class ProjectChangesManager {
 
     private static Map<Optional<IRI>, List<OWLOntologyChangeRecord>> getChangeRecordsBySubject(Revision revision) {
         return revision.getChanges().stream()
-                .collect(Collectors.groupingBy(ProjectChangesManager::getAxiom));
+                .collect(Collectors.groupingBy(ProjectChangesManager::getAxiom, LinkedHashMap::new, toList()));
     }
 
     private static Optional<IRI> getAxiom(OWLOntologyChangeRecord rec) {
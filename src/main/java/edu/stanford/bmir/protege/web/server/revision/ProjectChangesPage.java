@@ -0,0 +1,52 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+
+import javax.annotation.Nonnull;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A window of project changes along with the cursor that retrieves the next window.
+ */
+public class ProjectChangesPage {
+
+    private final ImmutableList<ProjectChange> changes;
+
+    private final Optional<RevisionNumber> nextBeforeRevision;
+
+    public ProjectChangesPage(@Nonnull ImmutableList<ProjectChange> changes,
+                              @Nonnull Optional<RevisionNumber> nextBeforeRevision) {
+        this.changes = checkNotNull(changes);
+        this.nextBeforeRevision = checkNotNull(nextBeforeRevision);
+    }
+
+    /**
+     * Gets the changes, most recent revision first.
+     */
+    @Nonnull
+    public ImmutableList<ProjectChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Gets the revision that should be used as the cursor for the next window of changes.
+     * @return The revision number, or an empty value if there are no earlier changes.
+     */
+    @Nonnull
+    public Optional<RevisionNumber> getNextBeforeRevision() {
+        return nextBeforeRevision;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ProjectChangesPage")
+                .add("changes", changes.size())
+                .add("nextBeforeRevision", nextBeforeRevision.orElse(null))
+                .toString();
+    }
+}
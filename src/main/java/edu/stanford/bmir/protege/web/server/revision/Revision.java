@@ -8,6 +8,8 @@ import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
 
 import javax.annotation.Nonnull;
 import java.util.Iterator;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -27,7 +29,9 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
 
     private long timestamp;
 
-    private final ImmutableList<OWLOntologyChangeRecord> changes;
+    private final IntSupplier sizeSupplier;
+
+    private final Supplier<ImmutableList<OWLOntologyChangeRecord>> changesSupplier;
 
     private final String highLevelDescription;
 
@@ -35,7 +39,28 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                     ImmutableList<OWLOntologyChangeRecord> changes,
                     long timestamp,
                     String highLevelDescription) {
-        this.changes = checkNotNull(changes);
+        checkNotNull(changes);
+        this.changesSupplier = () -> changes;
+        this.sizeSupplier = changes::size;
+        this.userId = checkNotNull(userId);
+        this.revisionNumber = checkNotNull(revisionNumber);
+        this.timestamp = timestamp;
+        this.highLevelDescription = checkNotNull(highLevelDescription);
+    }
+
+    /**
+     * Creates a revision whose changes are loaded on demand.
+     * @param size The number of changes in the revision.
+     * @param changesSupplier A supplier of the changes.  The supplier is called each time the changes are
+     *                        requested, so it is free to decide whether or not the changes are retained.
+     */
+    public Revision(UserId userId, RevisionNumber revisionNumber,
+                    int size,
+                    Supplier<ImmutableList<OWLOntologyChangeRecord>> changesSupplier,
+                    long timestamp,
+                    String highLevelDescription) {
+        this.changesSupplier = checkNotNull(changesSupplier);
+        this.sizeSupplier = () -> size;
         this.userId = checkNotNull(userId);
         this.revisionNumber = checkNotNull(revisionNumber);
         this.timestamp = timestamp;
@@ -43,11 +68,11 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
     }
 
     public int getSize() {
-        return changes.size();
+        return sizeSupplier.getAsInt();
     }
 
     public ImmutableList<OWLOntologyChangeRecord> getChanges() {
-        return changes;
+        return changesSupplier.get();
     }
 
     public static Revision createEmptyRevisionWithRevisionNumber(RevisionNumber revision) {
@@ -75,7 +100,7 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
     }
 
     public Iterator<OWLOntologyChangeRecord> iterator() {
-        return changes.iterator();
+        return getChanges().iterator();
     }
 
 
@@ -86,7 +111,7 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                 .addValue(userId)
                 .add("timestamp", timestamp)
                 .add("description", highLevelDescription)
-                .add("changes", changes.size())
+                .add("changes", getSize())
                 .toString();
     }
 
@@ -103,11 +128,12 @@ public class Revision implements Iterable<OWLOntologyChangeRecord>, Comparable<R
                 && this.revisionNumber.equals(other.revisionNumber)
                 && this.timestamp == other.timestamp
                 && this.highLevelDescription.equals(other.highLevelDescription)
-                && this.changes.equals(other.changes);
+                && this.getSize() == other.getSize()
+                && this.getChanges().equals(other.getChanges());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(userId, revisionNumber, timestamp, highLevelDescription, changes);
+        return Objects.hashCode(userId, revisionNumber, timestamp, highLevelDescription, getSize());
     }
 }
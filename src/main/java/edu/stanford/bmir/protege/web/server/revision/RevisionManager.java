@@ -1,11 +1,14 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
+import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.change.HasGetRevisionSummary;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 
 import javax.annotation.Nonnull;
@@ -18,7 +21,7 @@ import java.util.Optional;
  * 02/06/15
  */
 @ProjectSingleton
-public interface RevisionManager extends HasGetRevisionSummary {
+public interface RevisionManager extends HasGetRevisionSummary, HasDispose {
 
     /**
      * Gets the revision number of the current revision.  A revision number corresponding to zero indicated that
@@ -57,6 +60,22 @@ public interface RevisionManager extends HasGetRevisionSummary {
     @Nonnull
     List<Revision> getRevisions();
 
+    /**
+     * Gets the revisions that change axioms that have the specified IRI as their subject.
+     * @param subject The subject.  Not {@code null}.
+     * @return The revisions in ascending order of revision number.  Not {@code null}.
+     */
+    @Nonnull
+    List<Revision> getRevisionsForSubject(@Nonnull IRI subject);
+
+    /**
+     * Gets the numbers of the revisions that change axioms that have the specified IRI as their subject.
+     * @param subject The subject.  Not {@code null}.
+     * @return The revision numbers in ascending order.  Not {@code null}.
+     */
+    @Nonnull
+    ImmutableList<RevisionNumber> getRevisionNumbersForSubject(@Nonnull IRI subject);
+
     @Nonnull
     OWLOntologyManager getOntologyManagerForRevision(@Nonnull RevisionNumber revision);
 
@@ -76,4 +95,12 @@ public interface RevisionManager extends HasGetRevisionSummary {
                          @Nonnull List<? extends OWLOntologyChangeRecord> changes,
                          @Nonnull String desc);
 
+    /**
+     * Waits until the revision that has the specified revision number has been durably written to the change
+     * history.  Returns immediately if the revision has already been written.
+     * @param revisionNumber The revision number.  Not {@code null}.
+     * @throws java.io.UncheckedIOException if the revision could not be written.
+     */
+    void awaitPersisted(@Nonnull RevisionNumber revisionNumber);
+
 }
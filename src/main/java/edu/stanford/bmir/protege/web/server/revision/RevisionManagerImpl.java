@@ -1,21 +1,29 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
 import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
-import org.semanticweb.owlapi.model.OWLOntologyChange;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
-import org.semanticweb.owlapi.model.OWLOntologyID;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -32,17 +40,44 @@ import static java.util.stream.Collectors.toList;
 @ProjectSingleton
 public class RevisionManagerImpl implements RevisionManager {
 
+    private static final Logger logger = LoggerFactory.getLogger(RevisionManagerImpl.class);
+
+    private static final long SNAPSHOT_TIMEOUT_SECONDS = 60;
+
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
     private final Lock readLock = readWriteLock.readLock();
 
     private final Lock writeLock = readWriteLock.writeLock();
 
+    private final ProjectId projectId;
+
     private final RevisionStore revisionStore;
 
+    private final RevisionSnapshotStore snapshotStore;
+
+    private final RevisionSnapshotPolicy snapshotPolicy;
+
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("revision-snapshot-writer-%d")
+            .setDaemon(true)
+            .build());
+
+    private boolean snapshotCountersInitialised = false;
+
+    private long revisionsSinceSnapshot = 0;
+
+    private long changesSinceSnapshot = 0;
+
     @Inject
-    public RevisionManagerImpl(@Nonnull RevisionStore revisionStore) {
+    public RevisionManagerImpl(@Nonnull ProjectId projectId,
+                               @Nonnull RevisionStore revisionStore,
+                               @Nonnull RevisionSnapshotStore snapshotStore,
+                               @Nonnull RevisionSnapshotPolicy snapshotPolicy) {
+        this.projectId = checkNotNull(projectId);
         this.revisionStore = checkNotNull(revisionStore);
+        this.snapshotStore = checkNotNull(snapshotStore);
+        this.snapshotPolicy = checkNotNull(snapshotPolicy);
     }
 
     @Nonnull
@@ -61,13 +96,22 @@ public class RevisionManagerImpl implements RevisionManager {
                     ImmutableList.copyOf(changes),
                     timestamp,
                     highlevelDescription);
+            if (!snapshotCountersInitialised) {
+                initialiseSnapshotCounters();
+            }
             revisionStore.addRevision(revision);
+            scheduleSnapshotIfDue(revision);
             return revision;
         } finally {
             writeLock.unlock();
         }
     }
 
+    @Override
+    public void awaitPersisted(@Nonnull RevisionNumber revisionNumber) {
+        revisionStore.awaitPersisted(revisionNumber);
+    }
+
 
     @Nonnull
     @Override
@@ -80,21 +124,12 @@ public class RevisionManagerImpl implements RevisionManager {
     public OWLOntologyManager getOntologyManagerForRevision(@Nonnull RevisionNumber revision) {
         try {
             OWLOntologyManager manager = WebProtegeOWLManager.createOWLOntologyManager();
-            final OWLOntologyID singletonOntologyId = new OWLOntologyID();
+            OntologyChangeRecordReplayer replayer = new OntologyChangeRecordReplayer(manager);
+            RevisionNumber replayFrom = replayNearestSnapshot(revision, replayer);
             for (Revision rev : revisionStore.getRevisions()) {
-                if (rev.getRevisionNumber().compareTo(revision) <= 0) {
-                    for (OWLOntologyChangeRecord record : rev) {
-                        // Anonymous ontologies are not handled nicely at all.
-                        OWLOntologyChangeRecord normalisedChangeRecord = normaliseChangeRecord(record,
-                                                                                               singletonOntologyId);
-                        OWLOntologyID ontologyId = normalisedChangeRecord.getOntologyID();
-                        if (!manager.contains(ontologyId)) {
-                            manager.createOntology(ontologyId);
-                        }
-
-                        OWLOntologyChange change = normalisedChangeRecord.createOntologyChange(manager);
-                        manager.applyChange(change);
-                    }
+                if (rev.getRevisionNumber().compareTo(replayFrom) > 0
+                        && (revision.isHead() || rev.getRevisionNumber().compareTo(revision) <= 0)) {
+                    replayer.replay(rev);
                 }
             }
             if (manager.getOntologies().isEmpty()) {
@@ -107,16 +142,71 @@ public class RevisionManagerImpl implements RevisionManager {
         }
     }
 
-    private OWLOntologyChangeRecord normaliseChangeRecord(OWLOntologyChangeRecord changeRecord,
-                                                          OWLOntologyID singletonAnonymousId) {
-        OWLOntologyID ontologyID = changeRecord.getOntologyID();
-        if (ontologyID.isAnonymous()) {
-            return new OWLOntologyChangeRecord(singletonAnonymousId, changeRecord.getData());
+    /**
+     * Replays the nearest snapshot that is not after the specified revision.
+     * @return The revision number of the replayed snapshot, or revision zero if no snapshot was replayed.
+     */
+    private RevisionNumber replayNearestSnapshot(RevisionNumber revision,
+                                                 OntologyChangeRecordReplayer replayer) throws OWLOntologyCreationException {
+        Optional<RevisionNumber> snapshotRevisionNumber = snapshotStore.getNearestSnapshotRevisionNumber(revision);
+        if (!snapshotRevisionNumber.isPresent()) {
+            return RevisionNumber.getRevisionNumber(0);
         }
-        else {
-            // As is
-            return changeRecord;
+        try {
+            List<OWLOntologyChangeRecord> records = new ArrayList<>();
+            snapshotStore.readSnapshot(snapshotRevisionNumber.get(), records::add);
+            for (OWLOntologyChangeRecord record : records) {
+                replayer.replay(record);
+            }
+            return snapshotRevisionNumber.get();
+        } catch (IOException e) {
+            logger.error("{} Could not read revision snapshot at revision {}.  Replaying full history.  Cause: {}",
+                         projectId,
+                         snapshotRevisionNumber.get().getValue(),
+                         e.getMessage(),
+                         e);
+            replayer.getManager().getOntologies().forEach(replayer.getManager()::removeOntology);
+            return RevisionNumber.getRevisionNumber(0);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the head revision in the background if the snapshot policy says that one is due.
+     */
+    private void scheduleSnapshotIfDue(@Nonnull Revision revision) {
+        revisionsSinceSnapshot++;
+        changesSinceSnapshot += revision.getSize();
+        if (!snapshotPolicy.isSnapshotDue(revisionsSinceSnapshot, changesSinceSnapshot)) {
+            return;
+        }
+        revisionsSinceSnapshot = 0;
+        changesSinceSnapshot = 0;
+        RevisionNumber revisionNumber = revision.getRevisionNumber();
+        snapshotExecutor.submit(() -> {
+            try {
+                OWLOntologyManager manager = getOntologyManagerForRevision(revisionNumber);
+                snapshotStore.writeSnapshot(revisionNumber, manager);
+                snapshotStore.applyRetentionPolicy(snapshotPolicy);
+            } catch (Exception e) {
+                logger.error("{} Could not write revision snapshot at revision {}.  Cause: {}",
+                             projectId,
+                             revisionNumber.getValue(),
+                             e.getMessage(),
+                             e);
+            }
+        });
+    }
+
+    private void initialiseSnapshotCounters() {
+        RevisionNumber latestSnapshot = snapshotStore.getNearestSnapshotRevisionNumber(RevisionNumber.getHeadRevisionNumber())
+                                                     .orElse(RevisionNumber.getRevisionNumber(0));
+        for (Revision rev : revisionStore.getRevisions()) {
+            if (rev.getRevisionNumber().compareTo(latestSnapshot) > 0) {
+                revisionsSinceSnapshot++;
+                changesSinceSnapshot += rev.getSize();
+            }
         }
+        snapshotCountersInitialised = true;
     }
 
     @Nonnull
@@ -125,6 +215,22 @@ public class RevisionManagerImpl implements RevisionManager {
         return revisionStore.getRevisions();
     }
 
+    @Nonnull
+    @Override
+    public List<Revision> getRevisionsForSubject(@Nonnull IRI subject) {
+        List<Revision> result = new ArrayList<>();
+        for (RevisionNumber revisionNumber : revisionStore.getRevisionNumbersForSubject(subject)) {
+            revisionStore.getRevision(revisionNumber).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Nonnull
+    @Override
+    public ImmutableList<RevisionNumber> getRevisionNumbersForSubject(@Nonnull IRI subject) {
+        return revisionStore.getRevisionNumbersForSubject(subject);
+    }
+
     /**
      * Gets the specified revision
      *
@@ -168,4 +274,20 @@ public class RevisionManagerImpl implements RevisionManager {
                                    revision.getHighLevelDescription());
     }
 
+    /**
+     * Waits for queued revision snapshots to be written and then writes any outstanding revisions and closes the
+     * revision store.
+     */
+    @Override
+    public void dispose() {
+        snapshotExecutor.shutdown();
+        try {
+            if (!snapshotExecutor.awaitTermination(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("{} Timed out whilst waiting for revision snapshots to be written", projectId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        revisionStore.dispose();
+    }
 }
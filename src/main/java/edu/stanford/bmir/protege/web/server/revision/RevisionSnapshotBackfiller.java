@@ -0,0 +1,123 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Writes snapshots for the existing history of a project.  The history is replayed once, starting from the
+ * latest existing snapshot.  Snapshots are written at the revisions where the snapshot policy says that one is
+ * due, but only if the policy would retain them, so that no snapshot is written just to be pruned again.
+ */
+public class RevisionSnapshotBackfiller {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevisionSnapshotBackfiller.class);
+
+    private final ProjectId projectId;
+
+    private final RevisionStore revisionStore;
+
+    private final RevisionSnapshotStore snapshotStore;
+
+    private final RevisionSnapshotPolicy snapshotPolicy;
+
+    @Inject
+    public RevisionSnapshotBackfiller(@Nonnull ProjectId projectId,
+                                      @Nonnull RevisionStore revisionStore,
+                                      @Nonnull RevisionSnapshotStore snapshotStore,
+                                      @Nonnull RevisionSnapshotPolicy snapshotPolicy) {
+        this.projectId = checkNotNull(projectId);
+        this.revisionStore = checkNotNull(revisionStore);
+        this.snapshotStore = checkNotNull(snapshotStore);
+        this.snapshotPolicy = checkNotNull(snapshotPolicy);
+    }
+
+    /**
+     * Writes any missing snapshots and then applies the retention policy.
+     * @return The number of snapshots that were written.
+     */
+    public int backfill() throws IOException, OWLOntologyCreationException {
+        OWLOntologyManager manager = WebProtegeOWLManager.createOWLOntologyManager();
+        OntologyChangeRecordReplayer replayer = new OntologyChangeRecordReplayer(manager);
+        RevisionNumber latestSnapshot = RevisionNumber.getRevisionNumber(0);
+        Optional<RevisionNumber> existingSnapshot = snapshotStore.getNearestSnapshotRevisionNumber(
+                RevisionNumber.getHeadRevisionNumber());
+        if (existingSnapshot.isPresent()) {
+            latestSnapshot = existingSnapshot.get();
+        }
+        List<Revision> revisions = revisionStore.getRevisions();
+        Set<RevisionNumber> snapshotsToWrite = getSnapshotsToWrite(revisions, latestSnapshot);
+        if (snapshotsToWrite.isEmpty()) {
+            snapshotStore.applyRetentionPolicy(snapshotPolicy);
+            logger.info("{} Wrote 0 revision snapshots", projectId);
+            return 0;
+        }
+        if (existingSnapshot.isPresent()) {
+            List<OWLOntologyChangeRecord> records = new ArrayList<>();
+            snapshotStore.readSnapshot(latestSnapshot, records::add);
+            for (OWLOntologyChangeRecord record : records) {
+                replayer.replay(record);
+            }
+        }
+        int written = 0;
+        for (Revision revision : revisions) {
+            if (revision.getRevisionNumber().compareTo(latestSnapshot) <= 0) {
+                continue;
+            }
+            replayer.replay(revision);
+            if (snapshotsToWrite.contains(revision.getRevisionNumber())) {
+                snapshotStore.writeSnapshot(revision.getRevisionNumber(), manager);
+                written++;
+                if (written == snapshotsToWrite.size()) {
+                    break;
+                }
+            }
+        }
+        snapshotStore.applyRetentionPolicy(snapshotPolicy);
+        logger.info("{} Wrote {} revision snapshots", projectId, written);
+        return written;
+    }
+
+    /**
+     * Works out which of the snapshots that are due after the latest snapshot will be retained by the policy,
+     * taking into account the snapshots that already exist.  Only the revision sizes are needed for this.
+     */
+    private Set<RevisionNumber> getSnapshotsToWrite(List<Revision> revisions, RevisionNumber latestSnapshot) {
+        List<RevisionNumber> dueSnapshots = new ArrayList<>();
+        long revisionsSinceSnapshot = 0;
+        long changesSinceSnapshot = 0;
+        for (Revision revision : revisions) {
+            if (revision.getRevisionNumber().compareTo(latestSnapshot) <= 0) {
+                continue;
+            }
+            revisionsSinceSnapshot++;
+            changesSinceSnapshot += revision.getSize();
+            if (snapshotPolicy.isSnapshotDue(revisionsSinceSnapshot, changesSinceSnapshot)) {
+                dueSnapshots.add(revision.getRevisionNumber());
+                revisionsSinceSnapshot = 0;
+                changesSinceSnapshot = 0;
+            }
+        }
+        List<RevisionNumber> allSnapshots = new ArrayList<>(snapshotStore.getSnapshotRevisionNumbers());
+        allSnapshots.addAll(dueSnapshots);
+        Set<RevisionNumber> snapshotsToWrite = new HashSet<>(snapshotPolicy.getRetainedSnapshots(allSnapshots));
+        snapshotsToWrite.retainAll(dueSnapshots);
+        return snapshotsToWrite;
+    }
+}
@@ -0,0 +1,129 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Determines when revision snapshots are taken and how many of them are retained.  A snapshot is due when
+ * either the number of revisions or the number of changes since the last snapshot reaches a threshold.
+ *
+ * The most recent snapshots are all retained.  Older snapshots are thinned out so that one snapshot is kept
+ * for each span of {@code historicalSnapshotSpacing} revisions.  Materializing any revision therefore replays
+ * a bounded number of revisions, however far back in the history it is, while the number of snapshots on disk
+ * grows only with the length of the history divided by the spacing.
+ */
+public class RevisionSnapshotPolicy {
+
+    private static final int DEFAULT_REVISION_INTERVAL = 1000;
+
+    private static final long DEFAULT_CHANGE_INTERVAL = 250_000;
+
+    private static final int DEFAULT_RECENT_SNAPSHOT_COUNT = 5;
+
+    private static final long DEFAULT_HISTORICAL_SNAPSHOT_SPACING = 10_000;
+
+    private final int revisionInterval;
+
+    private final long changeInterval;
+
+    private final int recentSnapshotCount;
+
+    private final long historicalSnapshotSpacing;
+
+    /**
+     * Creates a policy.
+     * @param revisionInterval The number of revisions after which a snapshot becomes due.  Must be positive.
+     * @param changeInterval The number of changes after which a snapshot becomes due.  Must be positive.
+     * @param recentSnapshotCount The number of most recent snapshots that are always kept.  Must be positive.
+     * @param historicalSnapshotSpacing The number of revisions covered by each of the older snapshots that are
+     *                                  kept.  Must be positive.
+     */
+    public RevisionSnapshotPolicy(int revisionInterval,
+                                  long changeInterval,
+                                  int recentSnapshotCount,
+                                  long historicalSnapshotSpacing) {
+        checkArgument(revisionInterval > 0, "Revision interval must be positive");
+        checkArgument(changeInterval > 0, "Change interval must be positive");
+        checkArgument(recentSnapshotCount > 0, "Recent snapshot count must be positive");
+        checkArgument(historicalSnapshotSpacing > 0, "Historical snapshot spacing must be positive");
+        this.revisionInterval = revisionInterval;
+        this.changeInterval = changeInterval;
+        this.recentSnapshotCount = recentSnapshotCount;
+        this.historicalSnapshotSpacing = historicalSnapshotSpacing;
+    }
+
+    public static RevisionSnapshotPolicy getDefault() {
+        return new RevisionSnapshotPolicy(DEFAULT_REVISION_INTERVAL,
+                                          DEFAULT_CHANGE_INTERVAL,
+                                          DEFAULT_RECENT_SNAPSHOT_COUNT,
+                                          DEFAULT_HISTORICAL_SNAPSHOT_SPACING);
+    }
+
+    public int getRevisionInterval() {
+        return revisionInterval;
+    }
+
+    public long getChangeInterval() {
+        return changeInterval;
+    }
+
+    public int getRecentSnapshotCount() {
+        return recentSnapshotCount;
+    }
+
+    public long getHistoricalSnapshotSpacing() {
+        return historicalSnapshotSpacing;
+    }
+
+    /**
+     * Determines whether a snapshot is due.
+     * @param revisionsSinceSnapshot The number of revisions since the last snapshot (or since the start of the
+     *                               history if there are no snapshots).
+     * @param changesSinceSnapshot The number of changes in those revisions.
+     * @return {@code true} if a snapshot should be taken, otherwise {@code false}.
+     */
+    public boolean isSnapshotDue(long revisionsSinceSnapshot, long changesSinceSnapshot) {
+        return revisionsSinceSnapshot >= revisionInterval || changesSinceSnapshot >= changeInterval;
+    }
+
+    /**
+     * Selects the snapshots that should be retained from the specified snapshots.  The most recent snapshots
+     * are retained, together with the earliest snapshot in each span of {@code historicalSnapshotSpacing}
+     * revisions.
+     * @param snapshotRevisionNumbers The revision numbers of the snapshots in ascending order.
+     * @return The revision numbers of the snapshots to retain, in ascending order.
+     */
+    @Nonnull
+    public ImmutableList<RevisionNumber> getRetainedSnapshots(@Nonnull List<RevisionNumber> snapshotRevisionNumbers) {
+        Set<RevisionNumber> retained = new LinkedHashSet<>();
+        long previousSpan = -1;
+        int firstRecentSnapshot = snapshotRevisionNumbers.size() - recentSnapshotCount;
+        for (int i = 0; i < snapshotRevisionNumbers.size(); i++) {
+            RevisionNumber revisionNumber = snapshotRevisionNumbers.get(i);
+            long span = revisionNumber.getValue() / historicalSnapshotSpacing;
+            if (span != previousSpan || i >= firstRecentSnapshot) {
+                retained.add(revisionNumber);
+            }
+            previousSpan = span;
+        }
+        return ImmutableList.copyOf(retained);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("RevisionSnapshotPolicy")
+                .add("revisionInterval", revisionInterval)
+                .add("changeInterval", changeInterval)
+                .add("recentSnapshotCount", recentSnapshotCount)
+                .add("historicalSnapshotSpacing", historicalSnapshotSpacing)
+                .toString();
+    }
+}
@@ -0,0 +1,212 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.inject.project.RevisionSnapshotDirectory;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.binaryowl.BinaryOWLMetadata;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
+import org.semanticweb.binaryowl.chunk.SkipSetting;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.AddImportData;
+import org.semanticweb.owlapi.change.AddOntologyAnnotationData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.change.SetOntologyIDData;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Stores snapshots of the state of a project's ontologies at specific revisions.  A snapshot is written in the
+ * same binary change log format as the change history and consists of one list of "add" change records per
+ * ontology.  Materializing a revision can then start from the nearest snapshot and replay only the changes
+ * that were made after it.
+ */
+public class RevisionSnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevisionSnapshotStore.class);
+
+    private static final String SNAPSHOT_FILE_NAME_PREFIX = "revision-";
+
+    private static final String SNAPSHOT_FILE_NAME_SUFFIX = ".snapshot";
+
+    private static final String TEMP_FILE_NAME_SUFFIX = ".tmp";
+
+    private final ProjectId projectId;
+
+    private final File snapshotDirectory;
+
+    private final OWLDataFactory dataFactory;
+
+    @Inject
+    public RevisionSnapshotStore(@Nonnull ProjectId projectId,
+                                 @Nonnull @RevisionSnapshotDirectory File snapshotDirectory,
+                                 @Nonnull OWLDataFactory dataFactory) {
+        this.projectId = checkNotNull(projectId);
+        this.snapshotDirectory = checkNotNull(snapshotDirectory);
+        this.dataFactory = checkNotNull(dataFactory);
+    }
+
+    /**
+     * Gets the revision numbers of the snapshots in this store.
+     * @return The revision numbers in ascending order.
+     */
+    @Nonnull
+    public synchronized ImmutableList<RevisionNumber> getSnapshotRevisionNumbers() {
+        File[] files = snapshotDirectory.listFiles();
+        if (files == null) {
+            return ImmutableList.of();
+        }
+        List<RevisionNumber> result = new ArrayList<>();
+        for (File file : files) {
+            parseRevisionNumber(file.getName()).ifPresent(result::add);
+        }
+        result.sort(RevisionNumber::compareTo);
+        return ImmutableList.copyOf(result);
+    }
+
+    /**
+     * Gets the revision number of the latest snapshot that is not after the specified revision.
+     * @param revisionNumber The revision number.  If this is the head revision number then the latest snapshot
+     *                       is returned.
+     * @return The revision number of the snapshot, or an empty value if there is no such snapshot.
+     */
+    @Nonnull
+    public Optional<RevisionNumber> getNearestSnapshotRevisionNumber(@Nonnull RevisionNumber revisionNumber) {
+        Optional<RevisionNumber> nearest = Optional.empty();
+        for (RevisionNumber snapshotRevisionNumber : getSnapshotRevisionNumbers()) {
+            if (revisionNumber.isHead() || snapshotRevisionNumber.compareTo(revisionNumber) <= 0) {
+                nearest = Optional.of(snapshotRevisionNumber);
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Reads the change records that make up the snapshot at the specified revision.
+     * @param revisionNumber The revision number of the snapshot.
+     * @param recordConsumer A consumer for the change records.
+     * @throws IOException If the snapshot could not be read.
+     */
+    public void readSnapshot(@Nonnull RevisionNumber revisionNumber,
+                             @Nonnull Consumer<OWLOntologyChangeRecord> recordConsumer) throws IOException {
+        File snapshotFile = getSnapshotFile(revisionNumber);
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(snapshotFile))) {
+            BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+            changeLog.readChanges(inputStream, dataFactory, (list, skipSetting, filePosition) -> {
+                list.getChangeRecords().forEach(recordConsumer);
+            }, SkipSetting.SKIP_NONE);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the ontologies in the specified manager.  The manager must contain the state of the
+     * project ontologies at the specified revision.  The snapshot is written to a temporary file first and
+     * then moved into place so that a partially written snapshot is never visible.
+     * @param revisionNumber The revision number that the snapshot corresponds to.
+     * @param manager The manager that contains the ontologies.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public void writeSnapshot(@Nonnull RevisionNumber revisionNumber,
+                              @Nonnull OWLOntologyManager manager) throws IOException {
+        snapshotDirectory.mkdirs();
+        File snapshotFile = getSnapshotFile(revisionNumber);
+        File tempFile = new File(snapshotDirectory, snapshotFile.getName() + TEMP_FILE_NAME_SUFFIX);
+        Files.deleteIfExists(tempFile.toPath());
+        BinaryOWLOntologyChangeLog changeLog = new BinaryOWLOntologyChangeLog();
+        long timestamp = System.currentTimeMillis();
+        for (OWLOntology ontology : manager.getOntologies()) {
+            BinaryOWLMetadata metadata = new BinaryOWLMetadata();
+            metadata.setLongAttribute(RevisionSerializationVocabulary.REVISION_META_DATA_ATTRIBUTE.getVocabularyName(),
+                                      revisionNumber.getValue());
+            changeLog.appendChanges(new OntologyChangeRecordList(timestamp, metadata, getChangeRecords(ontology)),
+                                    tempFile);
+        }
+        synchronized (this) {
+            Files.move(tempFile.toPath(),
+                       snapshotFile.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        }
+        logger.info("{} Wrote revision snapshot at revision {}", projectId, revisionNumber.getValue());
+    }
+
+    /**
+     * Deletes the snapshots that are not retained by the specified policy.
+     * @param policy The policy.
+     */
+    public synchronized void applyRetentionPolicy(@Nonnull RevisionSnapshotPolicy policy) {
+        ImmutableList<RevisionNumber> revisionNumbers = getSnapshotRevisionNumbers();
+        ImmutableList<RevisionNumber> retained = policy.getRetainedSnapshots(revisionNumbers);
+        for (RevisionNumber revisionNumber : revisionNumbers) {
+            if (retained.contains(revisionNumber)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(getSnapshotFile(revisionNumber).toPath());
+                logger.info("{} Deleted revision snapshot at revision {}", projectId, revisionNumber.getValue());
+            } catch (IOException e) {
+                logger.error("{} Could not delete revision snapshot at revision {}: {}",
+                             projectId,
+                             revisionNumber.getValue(),
+                             e.getMessage(),
+                             e);
+            }
+        }
+    }
+
+    private static ImmutableList<OWLOntologyChangeRecord> getChangeRecords(OWLOntology ont) {
+        ImmutableList.Builder<OWLOntologyChangeRecord> changeRecordList = ImmutableList.builder();
+        OWLOntologyID ontologyId = ont.getOntologyID();
+        for (OWLImportsDeclaration importsDeclaration : ont.getImportsDeclarations()) {
+            changeRecordList.add(new OWLOntologyChangeRecord(ontologyId, new AddImportData(importsDeclaration)));
+        }
+        for (OWLAnnotation annotation : ont.getAnnotations()) {
+            changeRecordList.add(new OWLOntologyChangeRecord(ontologyId, new AddOntologyAnnotationData(annotation)));
+        }
+        for (OWLAxiom axiom : ont.getAxioms()) {
+            changeRecordList.add(new OWLOntologyChangeRecord(ontologyId, new AddAxiomData(axiom)));
+        }
+        ImmutableList<OWLOntologyChangeRecord> changeRecords = changeRecordList.build();
+        if (changeRecords.isEmpty()) {
+            // An ontology without any content still has to be recreated when the snapshot is read
+            return ImmutableList.of(new OWLOntologyChangeRecord(ontologyId, new SetOntologyIDData(ontologyId)));
+        }
+        return changeRecords;
+    }
+
+    private File getSnapshotFile(RevisionNumber revisionNumber) {
+        return new File(snapshotDirectory,
+                        SNAPSHOT_FILE_NAME_PREFIX + revisionNumber.getValue() + SNAPSHOT_FILE_NAME_SUFFIX);
+    }
+
+    private static Optional<RevisionNumber> parseRevisionNumber(String fileName) {
+        if (!fileName.startsWith(SNAPSHOT_FILE_NAME_PREFIX) || !fileName.endsWith(SNAPSHOT_FILE_NAME_SUFFIX)) {
+            return Optional.empty();
+        }
+        String value = fileName.substring(SNAPSHOT_FILE_NAME_PREFIX.length(),
+                                          fileName.length() - SNAPSHOT_FILE_NAME_SUFFIX.length());
+        try {
+            return Optional.of(RevisionNumber.getRevisionNumber(Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
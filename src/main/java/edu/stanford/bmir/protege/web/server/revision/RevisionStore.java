@@ -1,9 +1,12 @@
 package edu.stanford.bmir.protege.web.server.revision;
 
 import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.model.IRI;
 
 import javax.annotation.Nonnull;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,14 +14,15 @@ import java.util.Optional;
  * Stanford Center for Biomedical Informatics Research
  * 29/05/15
  */
-public interface RevisionStore {
+public interface RevisionStore extends HasDispose {
 
     /**
      * Gets all of the revisions.
-     * @return The revisions in an immutable list.
+     * @return The revisions in an unmodifiable list.  The list is a snapshot that is not affected by
+     * revisions that are subsequently added.
      */
     @Nonnull
-    ImmutableList<Revision> getRevisions();
+    List<Revision> getRevisions();
 
     /**
      * Gets the revision that has the specified revision number.
@@ -29,6 +33,14 @@ public interface RevisionStore {
     @Nonnull
     Optional<Revision> getRevision(@Nonnull RevisionNumber revisionNumber);
 
+    /**
+     * Gets the numbers of the revisions that change axioms that have the specified IRI as their subject.
+     * @param subject The subject.  Not {@code null}.
+     * @return The revision numbers in ascending order.  Not {@code null}.
+     */
+    @Nonnull
+    ImmutableList<RevisionNumber> getRevisionNumbersForSubject(@Nonnull IRI subject);
+
     /**
      * Add the specified revision to this revision store.  The revision must have a number that is beyond the revision
      * number of the current revision otherwise an IllegalArgumentException will be thrown.
@@ -36,6 +48,14 @@ public interface RevisionStore {
      */
     void addRevision(@Nonnull Revision revision);
 
+    /**
+     * Waits until the revision that has the specified revision number has been durably written to the change
+     * history.  Returns immediately if the revision has already been written.
+     * @param revisionNumber The revision number.  Not {@code null}.
+     * @throws java.io.UncheckedIOException if the revision could not be written.
+     */
+    void awaitPersisted(@Nonnull RevisionNumber revisionNumber);
+
     /**
      * Gets the revision number of the latest revision.
      * @return The revision number of the latest revision.  If there are no revisions then a revision number
@@ -13,6 +13,7 @@ import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
 import org.semanticweb.binaryowl.change.OntologyChangeRecordList;
 import org.semanticweb.binaryowl.chunk.SkipSetting;
 import org.semanticweb.owlapi.change.*;
+import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLOntologyID;
@@ -25,13 +26,19 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -47,9 +54,11 @@ public class RevisionStoreImpl implements RevisionStore {
 
     private static final Logger logger = LoggerFactory.getLogger(RevisionStoreImpl.class);
 
-    private final ExecutorService changeSerializationExucutor = Executors.newSingleThreadExecutor();
+    private static final long PERSISTENCE_TIMEOUT_SECONDS = 60;
 
-    private ImmutableList<Revision> revisions = ImmutableList.of();
+    private AppendOnlyRevisionList revisionList = new AppendOnlyRevisionList();
+
+    private volatile List<Revision> revisions = revisionList.snapshot();
 
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
@@ -64,6 +73,22 @@ public class RevisionStoreImpl implements RevisionStore {
 
     private final File changeHistoryFile;
 
+    private final ChangeHistoryIndex changeHistoryIndex;
+
+    private final ChangeHistoryReader changeHistoryReader;
+
+    private final ChangeHistoryJournal changeHistoryJournal;
+
+    private final RevisionSubjectIndex subjectIndex;
+
+    private final ConcurrentMap<RevisionNumber, CompletableFuture<Void>> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * The revisions that could not be written to the change history.  The change history on disk is missing
+     * these revisions.
+     */
+    private final Set<RevisionNumber> unsavedRevisions = ConcurrentHashMap.newKeySet();
+
 
     @Inject
     public RevisionStoreImpl(@Nonnull ProjectId projectId,
@@ -72,6 +97,10 @@ public class RevisionStoreImpl implements RevisionStore {
         this.projectId = checkNotNull(projectId);
         this.dataFactory = checkNotNull(dataFactory);
         this.changeHistoryFile = checkNotNull(changeHistoryFile);
+        this.changeHistoryIndex = new ChangeHistoryIndex(projectId, changeHistoryFile, dataFactory);
+        this.changeHistoryReader = new ChangeHistoryReader(changeHistoryFile, dataFactory);
+        this.subjectIndex = new RevisionSubjectIndex(projectId, changeHistoryFile);
+        this.changeHistoryJournal = new ChangeHistoryJournal(projectId, changeHistoryFile, changeHistoryIndex, subjectIndex);
     }
 
     @Nonnull
@@ -106,7 +135,7 @@ public class RevisionStoreImpl implements RevisionStore {
 
     @Nonnull
     @Override
-    public ImmutableList<Revision> getRevisions() {
+    public List<Revision> getRevisions() {
         try {
             readLock.lock();
             return revisions;
@@ -115,9 +144,17 @@ public class RevisionStoreImpl implements RevisionStore {
         }
     }
 
+    @Nonnull
+    @Override
+    public ImmutableList<RevisionNumber> getRevisionNumbersForSubject(@Nonnull IRI subject) {
+        return subjectIndex.getRevisionNumbers(subject);
+    }
+
     @Override
     public void addRevision(@Nonnull Revision revision) {
         checkNotNull(revision);
+        // Fail before taking the lock rather than from under it
+        changeHistoryJournal.checkNotDisposed();
         try {
             writeLock.lock();
             if(revision.getRevisionNumber().compareTo(getCurrentRevisionNumber()) <= 0) {
@@ -127,10 +164,10 @@ public class RevisionStoreImpl implements RevisionStore {
                         getCurrentRevisionNumber().getValue()
                 ));
             }
-            ImmutableList.Builder<Revision> extendedList = ImmutableList.builder();
-            extendedList.addAll(revisions);
-            extendedList.add(revision);
-            revisions = extendedList.build();
+            revisionList.add(revision);
+            revisions = revisionList.snapshot();
+            // Added before the revision is queued for writing so that its record is written in the same batch
+            subjectIndex.add(revision);
             persistChanges(revision);
         } finally {
             writeLock.unlock();
@@ -143,8 +180,49 @@ public class RevisionStoreImpl implements RevisionStore {
             writeLock.lock();
             if(!changeHistoryFile.exists()) {
                 changeHistoryFile.getParentFile().mkdirs();
-                return;
             }
+            else {
+                try {
+                    loadFromIndex();
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("{} Could not load change history from index.  Loading full change history.  Cause: {}",
+                                projectId, e.getMessage(), e);
+                    loadAllChanges();
+                }
+            }
+            loadSubjectIndex();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void loadSubjectIndex() {
+        try {
+            subjectIndex.load(revisions);
+        } catch (IOException | RuntimeException e) {
+            logger.error("{} Could not load revision subject index.  Cause: {}", projectId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads the revision headers from the change history index.  The changes for each revision are only read
+     * from the change history file when they are requested.
+     */
+    private void loadFromIndex() throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        ImmutableList<ChangeHistoryIndexEntry> entries = changeHistoryIndex.load();
+        ImmutableList.Builder<Revision> revisionsBuilder = ImmutableList.builder();
+        for (ChangeHistoryIndexEntry entry : entries) {
+            revisionsBuilder.add(changeHistoryReader.createRevision(entry));
+        }
+        setRevisions(revisionsBuilder.build());
+        stopwatch.stop();
+        logger.info("{} Change history loading complete.  Loaded {} revision headers in {} ms.", projectId, revisions.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    private void loadAllChanges() {
+        try {
+            writeLock.lock();
             final ImmutableList.Builder<Revision> revisionsBuilder = ImmutableList.builder();
             try {
                 Stopwatch stopwatch = Stopwatch.createStarted();
@@ -171,7 +249,7 @@ public class RevisionStoreImpl implements RevisionStore {
                 }, SkipSetting.SKIP_NONE);
                 inputStream.close();
                 stopwatch.stop();
-                revisions = revisionsBuilder.build();
+                setRevisions(revisionsBuilder.build());
                 logger.info("{} Change history loading complete.  Loaded {} revisions in {} ms.", projectId, revisions.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
 
             } catch (Exception e) {
@@ -185,6 +263,11 @@ public class RevisionStoreImpl implements RevisionStore {
     }
 
 
+    private void setRevisions(List<Revision> loadedRevisions) {
+        revisionList = new AppendOnlyRevisionList(loadedRevisions);
+        revisions = revisionList.snapshot();
+    }
+
     private int getRevisionIndexForRevision(RevisionNumber revision) {
         try {
             readLock.lock();
@@ -265,22 +348,61 @@ public class RevisionStoreImpl implements RevisionStore {
     }
 
     private void persistChanges(Revision revision) {
-        try {
-            writeLock.lock();
-            RevisionSerializationTask revisionSerializationTask = new RevisionSerializationTask(changeHistoryFile, revision);
-            if (revisions.size() != 1) {
-                changeSerializationExucutor.submit(revisionSerializationTask);
-            } else {
-                // Save immediately
-                try {
-                    logger.info("{} Saving first revision of project", projectId);
-                    revisionSerializationTask.call();
-                } catch (IOException e) {
-                    logger.error("{} An error occurred whilst saving the first revision of the project.  Cause: {}.", projectId, e.getMessage(), e);
-                }
+        RevisionNumber revisionNumber = revision.getRevisionNumber();
+        CompletableFuture<Void> write = changeHistoryJournal.append(revision);
+        pendingWrites.put(revisionNumber, write);
+        write.whenComplete((result, error) -> {
+            if (error != null) {
+                // Recorded before the write is removed so that anyone waiting for it finds out about the failure
+                unsavedRevisions.add(revisionNumber);
+                logger.error("{} Revision {} could not be saved.  The change history on disk does not contain this revision.",
+                             projectId,
+                             revisionNumber.getValue());
             }
-        } finally {
-            writeLock.unlock();
+            pendingWrites.remove(revisionNumber);
+        });
+        if (revisions.size() == 1) {
+            // Save immediately
+            logger.info("{} Saving first revision of project", projectId);
+            try {
+                awaitPersisted(revisionNumber);
+            } catch (UncheckedIOException e) {
+                logger.error("{} An error occurred whilst saving the first revision of the project.  Cause: {}.", projectId, e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void awaitPersisted(@Nonnull RevisionNumber revisionNumber) {
+        CompletableFuture<Void> write = pendingWrites.get(checkNotNull(revisionNumber));
+        if (write == null) {
+            if (unsavedRevisions.contains(revisionNumber)) {
+                throw new UncheckedIOException(new IOException("Revision " + revisionNumber.getValue() + " could not be saved"));
+            }
+            return;
+        }
+        try {
+            write.get(PERSISTENCE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted whilst saving revision " + revisionNumber.getValue()));
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(new IOException("Revision " + revisionNumber.getValue() + " could not be saved", e.getCause()));
+        } catch (TimeoutException e) {
+            throw new UncheckedIOException(new IOException("Timed out whilst saving revision " + revisionNumber.getValue()));
+        }
+    }
+
+    /**
+     * Writes any outstanding revisions and closes the change history.
+     */
+    @Override
+    public void dispose() {
+        changeHistoryJournal.dispose();
+        try {
+            changeHistoryReader.close();
+        } catch (IOException e) {
+            logger.warn("{} Could not close change history reader.  Cause: {}", projectId, e.getMessage());
         }
     }
 }
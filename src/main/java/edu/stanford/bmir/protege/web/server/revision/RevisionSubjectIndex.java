@@ -0,0 +1,257 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.axiom.AxiomIRISubjectProvider;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.semanticweb.owlapi.change.AxiomChangeData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A persistent index from the subjects of changes to the revisions that contain those changes.  The subject of a
+ * change is the IRI subject of the axiom that it adds or removes.  For each subject the index holds the numbers
+ * of the revisions that change it, in ascending order, so that the history of an entity can be retrieved without
+ * examining every revision.  The index is stored next to the change history file and has one record per revision.
+ * Revisions are added to the index in memory and their records are appended to the index file in batches by
+ * {@link #flush()}, which the {@link ChangeHistoryJournal} calls after it has written a batch of revisions.  If
+ * the stored index does not match the revisions in the change history then it is rebuilt.
+ */
+public class RevisionSubjectIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevisionSubjectIndex.class);
+
+    private static final int MAGIC_NUMBER = 0x57505349;
+
+    private static final int VERSION = 1;
+
+    private static final String INDEX_FILE_NAME_SUFFIX = ".subjects";
+
+    private final ProjectId projectId;
+
+    private final File indexFile;
+
+    private final AxiomIRISubjectProvider subjectProvider = new AxiomIRISubjectProvider(IRI::compareTo);
+
+    private final Map<IRI, List<RevisionNumber>> revisionNumbersBySubject = new HashMap<>();
+
+    private final List<RevisionNumber> indexedRevisionNumbers = new ArrayList<>();
+
+    /**
+     * The records of added revisions that have not been appended to the index file yet.
+     */
+    private final List<Record> unwrittenRecords = new ArrayList<>();
+
+    public RevisionSubjectIndex(@Nonnull ProjectId projectId,
+                                @Nonnull File changeHistoryFile) {
+        this.projectId = checkNotNull(projectId);
+        this.indexFile = new File(changeHistoryFile.getParentFile(),
+                                  changeHistoryFile.getName() + INDEX_FILE_NAME_SUFFIX);
+    }
+
+    @Nonnull
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    /**
+     * Loads the index and brings it up to date with the specified revisions.
+     * @param revisions The revisions in the change history, in ascending order of revision number.
+     * @throws IOException If the index could not be read or written.
+     */
+    public synchronized void load(@Nonnull List<Revision> revisions) throws IOException {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        revisionNumbersBySubject.clear();
+        indexedRevisionNumbers.clear();
+        unwrittenRecords.clear();
+        List<Record> records = new ArrayList<>();
+        boolean intact = readIndexFile(records);
+        if (!intact || !isPrefixOf(records, revisions)) {
+            logger.info("{} Revision subject index is missing or out of date.  Rebuilding index.", projectId);
+            records.clear();
+            writeIndexFile(records);
+        }
+        records.forEach(this::addToMap);
+        List<Record> newRecords = new ArrayList<>();
+        for (Revision revision : revisions.subList(records.size(), revisions.size())) {
+            newRecords.add(createRecord(revision));
+        }
+        appendToIndexFile(newRecords);
+        newRecords.forEach(this::addToMap);
+        stopwatch.stop();
+        logger.info("{} Loaded revision subject index ({} revisions, {} subjects, {} newly indexed) in {} ms",
+                    projectId,
+                    indexedRevisionNumbers.size(),
+                    revisionNumbersBySubject.size(),
+                    newRecords.size(),
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Adds a revision to the index in memory.  The revision must come after all revisions that have already been
+     * indexed.  The record of the revision is written to the index file by the next {@link #flush()}.
+     * @param revision The revision.
+     */
+    public synchronized void add(@Nonnull Revision revision) {
+        Record record = createRecord(revision);
+        addToMap(record);
+        unwrittenRecords.add(record);
+    }
+
+    /**
+     * Appends the records of the revisions that have been added since the last flush to the index file, with
+     * one write.  Flushes must not be run concurrently.
+     * @throws IOException If the records could not be written.  They are not retried.  A gap in the index file
+     * is detected, and the index rebuilt, when it is next loaded.
+     */
+    public void flush() throws IOException {
+        List<Record> records;
+        synchronized (this) {
+            if (unwrittenRecords.isEmpty()) {
+                return;
+            }
+            records = new ArrayList<>(unwrittenRecords);
+            unwrittenRecords.clear();
+        }
+        appendToIndexFile(records);
+    }
+
+    /**
+     * Gets the numbers of the revisions that contain changes to axioms that have the specified subject.
+     * @param subject The subject.
+     * @return The revision numbers in ascending order.
+     */
+    @Nonnull
+    public synchronized ImmutableList<RevisionNumber> getRevisionNumbers(@Nonnull IRI subject) {
+        List<RevisionNumber> revisionNumbers = revisionNumbersBySubject.get(checkNotNull(subject));
+        if (revisionNumbers == null) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.copyOf(revisionNumbers);
+    }
+
+    private Record createRecord(Revision revision) {
+        Set<IRI> subjects = new TreeSet<>();
+        for (OWLOntologyChangeRecord changeRecord : revision) {
+            if (changeRecord.getData() instanceof AxiomChangeData) {
+                subjectProvider.getSubject(((AxiomChangeData) changeRecord.getData()).getAxiom())
+                               .ifPresent(subjects::add);
+            }
+        }
+        return new Record(revision.getRevisionNumber(), ImmutableList.copyOf(subjects));
+    }
+
+    private void addToMap(Record record) {
+        indexedRevisionNumbers.add(record.revisionNumber);
+        for (IRI subject : record.subjects) {
+            revisionNumbersBySubject.computeIfAbsent(subject, s -> new ArrayList<>(2)).add(record.revisionNumber);
+        }
+    }
+
+    private static boolean isPrefixOf(List<Record> records, List<Revision> revisions) {
+        if (records.size() > revisions.size()) {
+            return false;
+        }
+        for (int i = 0; i < records.size(); i++) {
+            if (!records.get(i).revisionNumber.equals(revisions.get(i).getRevisionNumber())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the records in the index file.
+     * @return {@code true} if the index file was read without error, or {@code false} if the index file is
+     * missing, has the wrong format, or ends with a partially written record.
+     */
+    private boolean readIndexFile(List<Record> records) throws IOException {
+        if (!indexFile.exists()) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (input.readInt() != MAGIC_NUMBER || input.readInt() != VERSION) {
+                return false;
+            }
+            while (true) {
+                long revisionNumber;
+                try {
+                    revisionNumber = input.readLong();
+                } catch (EOFException e) {
+                    return true;
+                }
+                int subjectCount = input.readInt();
+                ImmutableList.Builder<IRI> subjects = ImmutableList.builder();
+                for (int i = 0; i < subjectCount; i++) {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    subjects.add(IRI.create(new String(bytes, StandardCharsets.UTF_8)));
+                }
+                records.add(new Record(RevisionNumber.getRevisionNumber(revisionNumber), subjects.build()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // Includes a truncated header or a record that was only partially written
+            logger.warn("{} Could not read revision subject index: {}", projectId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void writeIndexFile(List<Record> records) throws IOException {
+        indexFile.getParentFile().mkdirs();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(VERSION);
+            for (Record record : records) {
+                record.write(output);
+            }
+        }
+    }
+
+    private void appendToIndexFile(List<Record> records) throws IOException {
+        if (!indexFile.exists()) {
+            writeIndexFile(records);
+            return;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            for (Record record : records) {
+                record.write(output);
+            }
+        }
+    }
+
+    private static class Record {
+
+        private final RevisionNumber revisionNumber;
+
+        private final ImmutableList<IRI> subjects;
+
+        private Record(RevisionNumber revisionNumber, ImmutableList<IRI> subjects) {
+            this.revisionNumber = revisionNumber;
+            this.subjects = subjects;
+        }
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeLong(revisionNumber.getValue());
+            output.writeInt(subjects.size());
+            for (IRI subject : subjects) {
+                byte[] bytes = subject.toString().getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package edu.stanford.bmir.protege.web.server.search;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import edu.stanford.bmir.protege.web.server.mansyntax.render.HasGetRendering;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.obolibrary.obo2owl.Obo2OWLConstants;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.Imports;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static edu.stanford.bmir.protege.web.server.util.ProtegeStreams.entityStream;
+
+/**
+ * An inverted trigram index over the browser text (and OBO IRI remainders) of the entities in a project.  The index
+ * is used to find candidate entities for a search without rendering and scanning every entity in the signature.
+ * Candidates are a superset of the actual matches; callers are expected to check each candidate.
+ * </p>
+ * <p>
+ * The index is built lazily, the first time that it is searched, and is then kept up to date by passing applied
+ * ontology changes to {@link #handleChanges(List)}.
+ * </p>
+ */
+@ProjectSingleton
+public class EntitySearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitySearchIndex.class);
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int MIN_REMOVED_ENTRIES_FOR_COMPACTION = 1000;
+
+    private static final Set<EntityType<?>> ALL_ENTITY_TYPES = ImmutableSet.copyOf(EntityType.values());
+
+    @Nonnull
+    private final ProjectId projectId;
+
+    @Nonnull
+    private final OWLOntology rootOntology;
+
+    @Nonnull
+    private final HasGetRendering renderer;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Lock readLock = readWriteLock.readLock();
+
+    private final Lock writeLock = readWriteLock.writeLock();
+
+    /**
+     * Entries indexed by entry id.  Removed entries are set to {@code null} and their ids are not reused until the
+     * index is compacted.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    private final Map<OWLEntity, Integer> entryIds = new HashMap<>();
+
+    private final Map<String, PostingList> postingLists = new HashMap<>();
+
+    private int removedEntriesCount = 0;
+
+    private boolean built = false;
+
+    @Inject
+    public EntitySearchIndex(@Nonnull ProjectId projectId,
+                             @Nonnull @RootOntology OWLOntology rootOntology,
+                             @Nonnull HasGetRendering renderer) {
+        this.projectId = checkNotNull(projectId);
+        this.rootOntology = checkNotNull(rootOntology);
+        this.renderer = checkNotNull(renderer);
+    }
+
+    /**
+     * Gets the entities that may match the specified search words.  Every entity whose browser text, or OBO IRI
+     * remainder, contains all of the search words (ignoring case) is included.  Some entities that do not match
+     * may also be included.
+     *
+     * @param entityTypes The types of entities to return.
+     * @param searchWords The search words.
+     * @return The candidate entities, along with their renderings.
+     */
+    @Nonnull
+    public List<OWLEntityData> getCandidates(@Nonnull Set<EntityType<?>> entityTypes,
+                                             @Nonnull String[] searchWords) {
+        ensureBuilt();
+        try {
+            readLock.lock();
+            List<PostingList> requiredPostingLists = new ArrayList<>();
+            for (String searchWord : searchWords) {
+                String normalisedSearchWord = normalise(searchWord);
+                for (int i = 0; i + GRAM_LENGTH <= normalisedSearchWord.length(); i++) {
+                    PostingList postingList = postingLists.get(normalisedSearchWord.substring(i, i + GRAM_LENGTH));
+                    if (postingList == null) {
+                        // No entity contains this trigram, so nothing can match
+                        return Collections.emptyList();
+                    }
+                    requiredPostingLists.add(postingList);
+                }
+            }
+            List<OWLEntityData> result = new ArrayList<>();
+            if (requiredPostingLists.isEmpty()) {
+                // All of the search words are shorter than a trigram
+                for (Entry entry : entries) {
+                    if (entry != null && entityTypes.contains(entry.getEntityType())) {
+                        result.add(entry.entityData);
+                    }
+                }
+                return result;
+            }
+            requiredPostingLists.sort(Comparator.comparing(PostingList::size));
+            PostingList smallest = requiredPostingLists.get(0);
+            List<PostingList> others = requiredPostingLists.subList(1, requiredPostingLists.size());
+            for (int i = 0; i < smallest.size(); i++) {
+                int entryId = smallest.get(i);
+                Entry entry = entries.get(entryId);
+                if (entry != null && entityTypes.contains(entry.getEntityType()) && containsAll(others, entryId)) {
+                    result.add(entry.entityData);
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private static boolean containsAll(List<PostingList> postingLists, int entryId) {
+        for (PostingList postingList : postingLists) {
+            if (!postingList.contains(entryId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates the index in response to ontology changes that have been applied to the project ontologies.
+     *
+     * @param changes The applied changes.
+     */
+    public void handleChanges(@Nonnull List<? extends OWLOntologyChange> changes) {
+        try {
+            writeLock.lock();
+            if (!built) {
+                // Will be built from the current state of the ontologies when it is first used
+                return;
+            }
+            Set<OWLEntity> affectedEntities = new HashSet<>();
+            for (OWLOntologyChange change : changes) {
+                affectedEntities.addAll(change.getSignature());
+                if (change.isAxiomChange() && change.getAxiom() instanceof OWLAnnotationAssertionAxiom) {
+                    OWLAnnotationSubject subject = ((OWLAnnotationAssertionAxiom) change.getAxiom()).getSubject();
+                    if (subject instanceof IRI) {
+                        affectedEntities.addAll(rootOntology.getEntitiesInSignature((IRI) subject, Imports.INCLUDED));
+                    }
+                }
+            }
+            for (OWLEntity entity : affectedEntities) {
+                if (rootOntology.containsEntityInSignature(entity, Imports.INCLUDED)) {
+                    OWLEntityData entityData = renderer.getRendering(entity);
+                    Integer entryId = entryIds.get(entity);
+                    if (entryId == null || !entries.get(entryId).hasSameText(entityData)) {
+                        remove(entity);
+                        add(entityData);
+                    }
+                }
+                else {
+                    remove(entity);
+                }
+            }
+            if (removedEntriesCount > MIN_REMOVED_ENTRIES_FOR_COMPACTION && removedEntriesCount > entryIds.size()) {
+                compact();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        try {
+            readLock.lock();
+            if (built) {
+                return;
+            }
+        } finally {
+            readLock.unlock();
+        }
+        try {
+            writeLock.lock();
+            if (built) {
+                return;
+            }
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            entityStream(ALL_ENTITY_TYPES, rootOntology, Imports.INCLUDED)
+                    .filter(entity -> !entryIds.containsKey(entity))
+                    .map(renderer::getRendering)
+                    .forEach(this::add);
+            built = true;
+            logger.info("{} Built entity search index for {} entities ({} trigrams) in {} ms",
+                        projectId,
+                        entryIds.size(),
+                        postingLists.size(),
+                        stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void add(OWLEntityData entityData) {
+        Entry entry = new Entry(entityData);
+        int entryId = entries.size();
+        entries.add(entry);
+        entryIds.put(entityData.getEntity(), entryId);
+        addPostings(entry, entryId);
+    }
+
+    private void addPostings(Entry entry, int entryId) {
+        for (String gram : entry.getGrams()) {
+            postingLists.computeIfAbsent(gram, g -> new PostingList()).add(entryId);
+        }
+    }
+
+    private void remove(OWLEntity entity) {
+        Integer entryId = entryIds.remove(entity);
+        if (entryId != null) {
+            // Posting lists are not updated.  Removed entries are skipped when searching and purged by compaction.
+            entries.set(entryId, null);
+            removedEntriesCount++;
+        }
+    }
+
+    private void compact() {
+        List<Entry> liveEntries = new ArrayList<>(entryIds.size());
+        for (Entry entry : entries) {
+            if (entry != null) {
+                liveEntries.add(entry);
+            }
+        }
+        entries.clear();
+        entryIds.clear();
+        postingLists.clear();
+        removedEntriesCount = 0;
+        for (Entry entry : liveEntries) {
+            int entryId = entries.size();
+            entries.add(entry);
+            entryIds.put(entry.entityData.getEntity(), entryId);
+            addPostings(entry, entryId);
+        }
+        logger.info("{} Compacted entity search index", projectId);
+    }
+
+    @Nonnull
+    private static String normalise(@Nonnull String s) {
+        return s.toLowerCase(Locale.ENGLISH);
+    }
+
+    @Nullable
+    static String getOboIriRemainder(@Nonnull IRI iri) {
+        if (!iri.toString().startsWith(Obo2OWLConstants.DEFAULT_IRI_PREFIX)) {
+            return null;
+        }
+        Optional<String> remainder = iri.getRemainder();
+        return remainder.orNull();
+    }
+
+    private static class Entry {
+
+        private final OWLEntityData entityData;
+
+        private Entry(OWLEntityData entityData) {
+            this.entityData = entityData;
+        }
+
+        private EntityType<?> getEntityType() {
+            return entityData.getEntity().getEntityType();
+        }
+
+        private boolean hasSameText(OWLEntityData other) {
+            return entityData.getBrowserText().equals(other.getBrowserText());
+        }
+
+        private Set<String> getGrams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(entityData.getBrowserText(), grams);
+            String remainder = getOboIriRemainder(entityData.getEntity().getIRI());
+            if (remainder != null) {
+                addGrams(remainder, grams);
+            }
+            return grams;
+        }
+
+        private static void addGrams(String text, Set<String> grams) {
+            String normalisedText = normalise(text);
+            for (int i = 0; i + GRAM_LENGTH <= normalisedText.length(); i++) {
+                grams.add(normalisedText.substring(i, i + GRAM_LENGTH));
+            }
+        }
+    }
+
+    /**
+     * A list of entry ids in ascending order.  Entry ids are allocated in ascending order so appending keeps
+     * the list sorted.
+     */
+    private static class PostingList {
+
+        private int[] entryIds = new int[2];
+
+        private int size = 0;
+
+        private void add(int entryId) {
+            if (size == entryIds.length) {
+                entryIds = Arrays.copyOf(entryIds, size * 2);
+            }
+            entryIds[size] = entryId;
+            size++;
+        }
+
+        private int get(int index) {
+            return entryIds[index];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private boolean contains(int entryId) {
+            return Arrays.binarySearch(entryIds, 0, size, entryId) >= 0;
+        }
+    }
+}
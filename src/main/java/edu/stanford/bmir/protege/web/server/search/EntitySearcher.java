@@ -18,8 +18,11 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -57,9 +60,7 @@ public class EntitySearcher {
     private final UserId userId;
 
     @Nonnull
-    private final Supplier<Stream<OWLEntity>> entityStreamSupplier;
-
-    private HasGetRendering renderingSupplier;
+    private final Supplier<Stream<OWLEntityData>> renderedEntityStreamSupplier;
 
     @Nonnull
     private final Set<EntityType<?>> entityTypes;
@@ -88,11 +89,28 @@ public class EntitySearcher {
                            @Nonnull String searchString) {
         this.projectId = checkNotNull(projectId);
         this.userId = checkNotNull(userId);
-        this.entityStreamSupplier = checkNotNull(entityStreamSupplier);
-        this.renderingSupplier = checkNotNull(renderingSupplier);
+        checkNotNull(entityStreamSupplier);
+        checkNotNull(renderingSupplier);
         this.entityTypes = new HashSet<>(checkNotNull(entityTypes));
         this.searchString = checkNotNull(searchString);
         this.searchWords = searchString.split("\\s+");
+        this.renderedEntityStreamSupplier = () -> entityStreamSupplier.get()
+                                                                      .filter(this::isRequiredEntityType)
+                                                                      .map(renderingSupplier::getRendering);
+    }
+
+    private EntitySearcher(@Nonnull ProjectId projectId,
+                           @Nonnull UserId userId,
+                           @Nonnull EntitySearchIndex searchIndex,
+                           @Nonnull Set<EntityType<?>> entityTypes,
+                           @Nonnull String searchString) {
+        this.projectId = checkNotNull(projectId);
+        this.userId = checkNotNull(userId);
+        checkNotNull(searchIndex);
+        this.entityTypes = new HashSet<>(checkNotNull(entityTypes));
+        this.searchString = checkNotNull(searchString);
+        this.searchWords = searchString.split("\\s+");
+        this.renderedEntityStreamSupplier = () -> searchIndex.getCandidates(this.entityTypes, searchWords).stream();
     }
 
     public static EntitySearcher get(@Nonnull ProjectId projectId,
@@ -109,6 +127,22 @@ public class EntitySearcher {
                                   searchString);
     }
 
+    /**
+     * Gets an entity searcher that searches the candidates provided by a search index rather than scanning
+     * every entity.
+     */
+    public static EntitySearcher get(@Nonnull ProjectId projectId,
+                                     @Nonnull UserId userId,
+                                     @Nonnull EntitySearchIndex searchIndex,
+                                     @Nonnull Set<EntityType<?>> entityTypes,
+                                     @Nonnull String searchString) {
+        return new EntitySearcher(projectId,
+                                  userId,
+                                  searchIndex,
+                                  entityTypes,
+                                  searchString);
+    }
+
     /**
      * Gets the skip setting.  The default value is 0.
      *
@@ -179,17 +213,23 @@ public class EntitySearcher {
         searchCounter.reset();
         results.clear();
         Pattern searchPattern = compileSearchPattern(searchWords);
-        entityStreamSupplier.get()
-                            .filter(this::isRequiredEntityType)
-                            .peek(this::incrementSearchCounter)
-                            .map(this::performMatch)
-                            .filter(m -> m != null)
-                            .peek(this::incrementMatchCounter)
-                            .sorted()
-                            .skip(skip)
-                            .limit(limit)
-                            .map(m -> toSearchResult(searchPattern, m))
-                            .forEach(results::add);
+        // Only the best skip + limit matches are retained.  The queue is ordered worst match first.
+        int retainedMatchesCount = (int) Math.min((long) skip + limit, Integer.MAX_VALUE);
+        PriorityQueue<SearchMatch> bestMatches = new PriorityQueue<>(Math.max(1, Math.min(retainedMatchesCount, 1024)),
+                                                                     Comparator.reverseOrder());
+        renderedEntityStreamSupplier.get()
+                                    .peek(this::incrementSearchCounter)
+                                    .map(this::performMatch)
+                                    .filter(m -> m != null)
+                                    .peek(this::incrementMatchCounter)
+                                    .forEach(m -> retainBestMatch(bestMatches, retainedMatchesCount, m));
+        List<SearchMatch> sortedMatches = new ArrayList<>(bestMatches);
+        Collections.sort(sortedMatches);
+        sortedMatches.stream()
+                     .skip(skip)
+                     .limit(limit)
+                     .map(m -> toSearchResult(searchPattern, m))
+                     .forEach(results::add);
         logger.info(BROWSING,
                     "{} {} Performed entity search for \"{}\".  Found {} matches in {} entities in {} ms.",
                     projectId,
@@ -200,6 +240,21 @@ public class EntitySearcher {
                     stopwatch.elapsed(TimeUnit.MILLISECONDS));
     }
 
+    private static void retainBestMatch(PriorityQueue<SearchMatch> bestMatches,
+                                        int retainedMatchesCount,
+                                        SearchMatch match) {
+        if (retainedMatchesCount == 0) {
+            return;
+        }
+        if (bestMatches.size() < retainedMatchesCount) {
+            bestMatches.add(match);
+        }
+        else if (match.compareTo(bestMatches.peek()) < 0) {
+            bestMatches.poll();
+            bestMatches.add(match);
+        }
+    }
+
     private boolean isRequiredEntityType(OWLEntity e) {
         return entityTypes.contains(e.getEntityType());
     }
@@ -215,7 +270,7 @@ public class EntitySearcher {
         return Pattern.compile(searchWordsPattern.toString(), CASE_INSENSITIVE);
     }
 
-    private void incrementSearchCounter(OWLEntity entity) {
+    private void incrementSearchCounter(OWLEntityData entityData) {
         searchCounter.increment();
     }
 
@@ -241,8 +296,7 @@ public class EntitySearcher {
     }
 
     @Nullable
-    private SearchMatch performMatch(@Nonnull OWLEntity e) {
-        OWLEntityData rendering = renderingSupplier.getRendering(e);
+    private SearchMatch performMatch(@Nonnull OWLEntityData rendering) {
         boolean matchedRendering = true;
         // All search words must be found
         for (String searchWord : searchWords) {
@@ -3,8 +3,6 @@ package edu.stanford.bmir.protege.web.server.search;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.dispatch.AbstractHasProjectActionHandler;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
-import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
-import edu.stanford.bmir.protege.web.server.mansyntax.render.HasGetRendering;
 import edu.stanford.bmir.protege.web.shared.pagination.Page;
 import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
@@ -12,16 +10,12 @@ import edu.stanford.bmir.protege.web.shared.search.EntitySearchResult;
 import edu.stanford.bmir.protege.web.shared.search.PerformEntitySearchAction;
 import edu.stanford.bmir.protege.web.shared.search.PerformEntitySearchResult;
 import org.semanticweb.owlapi.model.EntityType;
-import org.semanticweb.owlapi.model.OWLOntology;
-import org.semanticweb.owlapi.model.parameters.Imports;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.util.List;
 import java.util.Set;
 
-import static edu.stanford.bmir.protege.web.server.util.ProtegeStreams.entityStream;
-
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
@@ -33,21 +27,15 @@ public class PerformEntitySearchActionHandler extends AbstractHasProjectActionHa
     private final ProjectId projectId;
 
     @Nonnull
-    private final HasGetRendering renderer;
-
-    @Nonnull
-    @RootOntology
-    private final OWLOntology rootOntology;
+    private final EntitySearchIndex searchIndex;
 
     @Inject
     public PerformEntitySearchActionHandler(@Nonnull AccessManager accessManager,
                                             @Nonnull ProjectId projectId,
-                                            @Nonnull HasGetRendering renderer,
-                                            @Nonnull @RootOntology OWLOntology rootOntology) {
+                                            @Nonnull EntitySearchIndex searchIndex) {
         super(accessManager);
         this.projectId = projectId;
-        this.renderer = renderer;
-        this.rootOntology = rootOntology;
+        this.searchIndex = searchIndex;
     }
 
     @Override
@@ -62,10 +50,7 @@ public class PerformEntitySearchActionHandler extends AbstractHasProjectActionHa
         String searchString = action.getSearchString();
         EntitySearcher entitySearcher = EntitySearcher.get(projectId,
                                                            executionContext.getUserId(),
-                                                           () -> entityStream(entityTypes,
-                                                                              rootOntology,
-                                                                              Imports.INCLUDED),
-                                                           renderer,
+                                                           searchIndex,
                                                            entityTypes,
                                                            searchString);
         PageRequest pageRequest = action.getPageRequest();
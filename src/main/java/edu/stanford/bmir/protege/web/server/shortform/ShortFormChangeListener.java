@@ -0,0 +1,19 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import java.util.Set;
+
+/**
+ * A listener that is notified when the short forms of entities change.
+ */
+public interface ShortFormChangeListener {
+
+    /**
+     * Called after the short forms of the specified entities have changed.  An entity is also included
+     * if it has been added to, or removed from, the signature of the project ontologies.
+     * @param entities The entities.  Not empty.
+     */
+    void handleShortFormsChanged(@Nonnull Set<OWLEntity> entities);
+}
@@ -0,0 +1,277 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import edu.stanford.bmir.protege.web.shared.entity.EntityNameUtils;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatcher;
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A word index of entity short forms.  A short form is split into words at its word starts (as defined by
+ * {@link EntityNameUtils#isWordStart(String, int)}) and the index maps each lower case word to the short forms
+ * that contain it, in a sorted map.  Words are shared by the short forms that contain them, so the index does not
+ * hold a copy of the remainder of a short form for every word in it.  A search string occurs at a word start in
+ * a short form if it is a prefix of a word in the short form, which is found with a single range lookup, or if it
+ * continues past the end of the word, in which case the word is a prefix of the search string and is found with a
+ * lookup for each prefix of the search string.  Either way, only the short forms that contain a candidate word
+ * are examined, rather than every short form in the project.
+ *
+ * Only exact, word and word prefix matches are found in the word index.  Matches that start in the middle of a
+ * word are found by checking the short forms of candidate entities that are supplied by the caller, typically
+ * from the trigram index of the project.  Candidates are only checked when the word index does not provide enough
+ * matches.
+ *
+ * The index may be read concurrently with updates.  The short forms for a word are held in a concurrent set
+ * that is updated in place, so adding or removing a short form costs the same however many short forms share
+ * its words, and readers iterate over the sets without copying them.  It is kept in sync with the short forms of entities by
+ * {@link WebProtegeBidirectionalShortFormProvider}.
+ */
+@ProjectSingleton
+public class ShortFormIndex {
+
+    private static final Comparator<ShortFormMatch> MATCH_ORDER =
+            Comparator.comparing(ShortFormMatch::getMatchResult)
+                      .thenComparing(ShortFormMatch::getShortForm, String.CASE_INSENSITIVE_ORDER)
+                      .thenComparing(ShortFormMatch::getEntity);
+
+    /**
+     * The minimum length of a search string for which matches in the middle of a word are looked for.  Shorter
+     * search strings would match too many short forms to be useful.
+     */
+    public static final int MIN_SUBSTRING_SEARCH_LENGTH = 3;
+
+    private final ConcurrentNavigableMap<String, Set<Entry>> wordIndex = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<OWLEntity, String> shortForms = new ConcurrentHashMap<>();
+
+    private final Lock writeLock = new ReentrantLock();
+
+    @Inject
+    public ShortFormIndex() {
+    }
+
+    /**
+     * Adds an entity with the specified short form to the index.  Any previous short form for the entity is
+     * replaced.
+     * @param entity The entity.
+     * @param shortForm The short form of the entity.
+     */
+    public void put(@Nonnull OWLEntity entity, @Nonnull String shortForm) {
+        checkNotNull(entity);
+        checkNotNull(shortForm);
+        try {
+            writeLock.lock();
+            String previousShortForm = shortForms.put(entity, shortForm);
+            if (previousShortForm != null) {
+                removeWordStarts(new Entry(entity, previousShortForm));
+            }
+            Entry entry = new Entry(entity, shortForm);
+            for (String key : getWordKeys(shortForm)) {
+                wordIndex.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(entry);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entity from the index.
+     * @param entity The entity.
+     */
+    public void remove(@Nonnull OWLEntity entity) {
+        checkNotNull(entity);
+        try {
+            writeLock.lock();
+            String shortForm = shortForms.remove(entity);
+            if (shortForm != null) {
+                removeWordStarts(new Entry(entity, shortForm));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removeWordStarts(Entry entry) {
+        for (String key : getWordKeys(entry.shortForm)) {
+            wordIndex.computeIfPresent(key, (k, entries) -> {
+                entries.remove(entry);
+                return entries.isEmpty() ? null : entries;
+            });
+        }
+    }
+
+    /**
+     * Finds the best matches for the specified search string.
+     * @param searchString The search string.  The search is not case sensitive.
+     * @param entityTypes The types of entities to match.
+     * @param limit The maximum number of matches to return.
+     * @return The matches, ordered by their {@link EntityNameMatchResult}, best first.  At most {@code limit}
+     * matches are returned.
+     */
+    @Nonnull
+    public List<ShortFormMatch> getMatches(@Nonnull String searchString,
+                                           @Nonnull Set<EntityType<?>> entityTypes,
+                                           int limit) {
+        return getMatches(searchString, entityTypes, limit, Collections::emptyList);
+    }
+
+    /**
+     * Finds the best matches for the specified search string, including matches that start in the middle of a
+     * word.
+     * @param searchString The search string.  The search is not case sensitive.
+     * @param entityTypes The types of entities to match.
+     * @param limit The maximum number of matches to return.
+     * @param substringCandidates Supplies the entities whose short forms may contain the search string in the
+     *                            middle of a word.  This is only called if fewer than {@code limit} matches are
+     *                            found at word starts, and the search string is at least
+     *                            {@link #MIN_SUBSTRING_SEARCH_LENGTH} characters long.
+     * @return The matches, ordered by their {@link EntityNameMatchResult}, best first.  At most {@code limit}
+     * matches are returned.
+     */
+    @Nonnull
+    public List<ShortFormMatch> getMatches(@Nonnull String searchString,
+                                           @Nonnull Set<EntityType<?>> entityTypes,
+                                           int limit,
+                                           @Nonnull Supplier<? extends Collection<OWLEntity>> substringCandidates) {
+        checkNotNull(entityTypes);
+        checkNotNull(substringCandidates);
+        checkArgument(limit >= 0, "limit must not be negative");
+        String prefix = searchString.toLowerCase();
+        EntityNameMatcher matcher = new EntityNameMatcher(searchString);
+        // The worst match so far is at the head so that it can be replaced
+        PriorityQueue<ShortFormMatch> bestMatches = new PriorityQueue<>(MATCH_ORDER.reversed());
+        Set<Entry> seen = new HashSet<>();
+        List<Set<Entry>> candidates = new ArrayList<>();
+        // Words that start with the search string
+        for (Map.Entry<String, Set<Entry>> indexEntry : wordIndex.tailMap(prefix, true).entrySet()) {
+            if (!indexEntry.getKey().startsWith(prefix)) {
+                break;
+            }
+            candidates.add(indexEntry.getValue());
+        }
+        // Words that the search string continues past the end of
+        for (int length = 1; length < prefix.length(); length++) {
+            Set<Entry> entries = wordIndex.get(prefix.substring(0, length));
+            if (entries != null) {
+                candidates.add(entries);
+            }
+        }
+        for (Set<Entry> entries : candidates) {
+            for (Entry entry : entries) {
+                if (entityTypes.contains(entry.entity.getEntityType())
+                        && occursAtWordStart(searchString, entry.shortForm)
+                        && seen.add(entry)) {
+                    Optional<EntityNameMatchResult> matchResult = matcher.findIn(entry.shortForm);
+                    matchResult.ifPresent(result -> retainBestMatch(new ShortFormMatch(entry.entity,
+                                                                                       entry.shortForm,
+                                                                                       result),
+                                                                    bestMatches,
+                                                                    limit));
+                }
+            }
+        }
+        if (bestMatches.size() < limit && searchString.length() >= MIN_SUBSTRING_SEARCH_LENGTH) {
+            for (OWLEntity entity : substringCandidates.get()) {
+                String shortForm = shortForms.get(entity);
+                if (shortForm != null
+                        && entityTypes.contains(entity.getEntityType())
+                        && seen.add(new Entry(entity, shortForm))) {
+                    Optional<EntityNameMatchResult> matchResult = matcher.findIn(shortForm);
+                    matchResult.ifPresent(result -> retainBestMatch(new ShortFormMatch(entity, shortForm, result),
+                                                                    bestMatches,
+                                                                    limit));
+                }
+            }
+        }
+        List<ShortFormMatch> result = new ArrayList<>(bestMatches);
+        result.sort(MATCH_ORDER);
+        return result;
+    }
+
+    private static void retainBestMatch(ShortFormMatch match, PriorityQueue<ShortFormMatch> bestMatches, int limit) {
+        if (bestMatches.size() < limit) {
+            bestMatches.add(match);
+        }
+        else if (limit > 0 && MATCH_ORDER.compare(match, bestMatches.peek()) < 0) {
+            bestMatches.poll();
+            bestMatches.add(match);
+        }
+    }
+
+    private static boolean occursAtWordStart(@Nonnull String searchString, @Nonnull String shortForm) {
+        int lastStart = Math.min(shortForm.length() - 1, shortForm.length() - searchString.length());
+        for (int i = 0; i <= lastStart; i++) {
+            if (EntityNameUtils.isWordStart(shortForm, i)
+                    && shortForm.regionMatches(true, i, searchString, 0, searchString.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the lower case words in a short form.  Each word runs from a word start to the next word start, or to
+     * the end of the short form.
+     */
+    @Nonnull
+    private static Set<String> getWordKeys(@Nonnull String shortForm) {
+        Set<String> keys = new HashSet<>();
+        int wordStart = -1;
+        for (int i = 0; i < shortForm.length(); i++) {
+            if (EntityNameUtils.isWordStart(shortForm, i)) {
+                if (wordStart != -1) {
+                    keys.add(shortForm.substring(wordStart, i).toLowerCase());
+                }
+                wordStart = i;
+            }
+        }
+        if (wordStart != -1) {
+            keys.add(shortForm.substring(wordStart).toLowerCase());
+        }
+        return keys;
+    }
+
+    private static class Entry {
+
+        private final OWLEntity entity;
+
+        private final String shortForm;
+
+        private Entry(OWLEntity entity, String shortForm) {
+            this.entity = entity;
+            this.shortForm = shortForm;
+        }
+
+        @Override
+        public int hashCode() {
+            return entity.hashCode() + 13 * shortForm.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) obj;
+            return this.entity.equals(other.entity) && this.shortForm.equals(other.shortForm);
+        }
+    }
+}
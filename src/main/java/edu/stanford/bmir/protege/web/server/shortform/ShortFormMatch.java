@@ -0,0 +1,53 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchResult;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An entity whose short form matched a search string, along with where the search string was found.
+ */
+public class ShortFormMatch {
+
+    private final OWLEntity entity;
+
+    private final String shortForm;
+
+    private final EntityNameMatchResult matchResult;
+
+    public ShortFormMatch(@Nonnull OWLEntity entity,
+                          @Nonnull String shortForm,
+                          @Nonnull EntityNameMatchResult matchResult) {
+        this.entity = checkNotNull(entity);
+        this.shortForm = checkNotNull(shortForm);
+        this.matchResult = checkNotNull(matchResult);
+    }
+
+    @Nonnull
+    public OWLEntity getEntity() {
+        return entity;
+    }
+
+    @Nonnull
+    public String getShortForm() {
+        return shortForm;
+    }
+
+    @Nonnull
+    public EntityNameMatchResult getMatchResult() {
+        return matchResult;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ShortFormMatch")
+                .addValue(entity)
+                .add("shortForm", shortForm)
+                .add("matchResult", matchResult)
+                .toString();
+    }
+}
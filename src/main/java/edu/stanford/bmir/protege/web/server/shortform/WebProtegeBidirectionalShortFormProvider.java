@@ -1,6 +1,8 @@
 package edu.stanford.bmir.protege.web.server.shortform;
 
+import com.google.common.collect.ImmutableSet;
 import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
 import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.util.BidirectionalShortFormProvider;
 import org.semanticweb.owlapi.util.OWLAxiomVisitorAdapter;
@@ -10,13 +12,18 @@ import org.semanticweb.owlapi.vocab.OWL2Datatype;
 import org.semanticweb.owlapi.vocab.OWLRDFVocabulary;
 import org.semanticweb.owlapi.vocab.SKOSVocabulary;
 
+import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Author: Matthew Horridge<br>
  * Stanford University<br>
@@ -26,20 +33,33 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * This class is thread safe.
  * </p>
  */
+@ProjectSingleton
 public class WebProtegeBidirectionalShortFormProvider implements BidirectionalShortFormProvider {
 
     private OWLOntology rootOntology;
 
     private BidirectionalShortFormProviderAdapterEx delegate;
 
+    private ShortFormIndex shortFormIndex;
+
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
 
+    private final List<ShortFormChangeListener> shortFormChangeListeners = new CopyOnWriteArrayList<>();
+
     @Inject
-    public WebProtegeBidirectionalShortFormProvider(@RootOntology OWLOntology rootOntology, ShortFormProvider shortFormProvider) {
+    public WebProtegeBidirectionalShortFormProvider(@RootOntology OWLOntology rootOntology,
+                                                    ShortFormProvider shortFormProvider,
+                                                    ShortFormIndex shortFormIndex) {
         this.rootOntology = rootOntology;
+        this.shortFormIndex = shortFormIndex;
         final Set<OWLOntology> importsClosure = rootOntology.getImportsClosure();
         delegate = new BidirectionalShortFormProviderAdapterEx(importsClosure, shortFormProvider);
         setupBuiltinObjectRenderings(rootOntology);
+        for(String shortForm : delegate.getShortForms()) {
+            for(OWLEntity entity : delegate.getEntities(shortForm)) {
+                shortFormIndex.put(entity, shortForm);
+            }
+        }
 
         OWLOntologyManager manager = rootOntology.getOWLOntologyManager();
         manager.addOntologyChangeListener(new OWLOntologyChangeListener() {
@@ -116,7 +136,21 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
         }
     }
 
+    /**
+     * Adds a listener that is notified when the short forms of entities change.  Listeners are notified
+     * after the short forms have been updated and outside of any lock held by this provider.
+     * @param listener The listener.
+     */
+    public void addShortFormChangeListener(@Nonnull ShortFormChangeListener listener) {
+        shortFormChangeListeners.add(checkNotNull(listener));
+    }
+
+    public void removeShortFormChangeListener(@Nonnull ShortFormChangeListener listener) {
+        shortFormChangeListeners.remove(checkNotNull(listener));
+    }
+
     public void dispose() {
+        shortFormChangeListeners.clear();
     }
 
 
@@ -132,7 +166,7 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
 
 
     private void updateRenderings(List<? extends OWLOntologyChange> changes) {
-
+        Set<OWLEntity> changedEntities = new LinkedHashSet<>();
         readWriteLock.writeLock().lock();
         try {
             for (OWLOntologyChange chg : changes) {
@@ -152,9 +186,22 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
                 for (OWLEntity entity : entities) {
                     if (!processed.contains(entity)) {
                         processed.add(entity);
+                        String previousShortForm = delegate.getShortForm(entity);
+                        boolean previouslyPresent = delegate.getEntities(previousShortForm).contains(entity);
                         delegate.remove(entity);
                         if (rootOntology.containsEntityInSignature(entity, true)) {
                             delegate.add(entity);
+                            String shortForm = delegate.getShortForm(entity);
+                            shortFormIndex.put(entity, shortForm);
+                            if (!previouslyPresent || !shortForm.equals(previousShortForm)) {
+                                changedEntities.add(entity);
+                            }
+                        }
+                        else if (!entity.isBuiltIn()) {
+                            shortFormIndex.remove(entity);
+                            if (previouslyPresent) {
+                                changedEntities.add(entity);
+                            }
                         }
                     }
                 }
@@ -164,6 +211,12 @@ public class WebProtegeBidirectionalShortFormProvider implements BidirectionalSh
         finally {
             readWriteLock.writeLock().unlock();
         }
+        if (!changedEntities.isEmpty()) {
+            Set<OWLEntity> entities = ImmutableSet.copyOf(changedEntities);
+            for (ShortFormChangeListener listener : shortFormChangeListeners) {
+                listener.handleShortFormsChanged(entities);
+            }
+        }
     }
 
 
@@ -0,0 +1,246 @@
+package edu.stanford.bmir.protege.web.server.usage;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.SetMultimap;
+import edu.stanford.bmir.protege.web.server.inject.project.RootOntology;
+import edu.stanford.bmir.protege.web.shared.HasDispose;
+import edu.stanford.bmir.protege.web.shared.inject.ProjectSingleton;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.AxiomAnnotations;
+import org.semanticweb.owlapi.model.parameters.Imports;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An index from IRIs to the annotation axioms that reference them in a position that is not indexed by the
+ * OWL API.  These positions are the value of an annotation assertion, and the domain or range of an annotation
+ * property domain or range axiom.  The index covers the imports closure of the root ontology and is maintained
+ * from the changes that are applied to the ontologies.  The index is built the first time that it is used, so
+ * that projects in which usage is never requested do not pay for it.
+ *
+ * The change listener is called while the ontology manager applies changes, so the index lock is taken after
+ * the manager's lock.  To keep to this order the index is built from the ontologies without holding the index
+ * lock.  Changes that are applied while the index is being built are buffered and replayed against the new index
+ * before it is swapped in.
+ *
+ * This class is thread safe.
+ */
+@ProjectSingleton
+public class AnnotationReferenceIndex implements HasDispose {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnnotationReferenceIndex.class);
+
+    private final ProjectId projectId;
+
+    private final OWLOntology rootOntology;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private final Object buildLock = new Object();
+
+    private SetMultimap<IRI, OWLAxiom> axiomsByIRI = LinkedHashMultimap.create();
+
+    private final OWLOntologyChangeListener changeListener = this::handleOntologyChanges;
+
+    private volatile boolean built = false;
+
+    /**
+     * The changes that have been applied while the index is being built, or {@code null} if the index is not
+     * being built.
+     */
+    private List<OWLOntologyChange> bufferedChanges = null;
+
+    @Inject
+    public AnnotationReferenceIndex(@Nonnull ProjectId projectId,
+                                    @Nonnull @RootOntology OWLOntology rootOntology) {
+        this.projectId = checkNotNull(projectId);
+        this.rootOntology = checkNotNull(rootOntology);
+        rootOntology.getOWLOntologyManager().addOntologyChangeListener(changeListener);
+    }
+
+    /**
+     * Gets the annotation axioms that reference the specified IRI as an annotation value, an annotation
+     * property domain or an annotation property range.
+     * @param iri The IRI.
+     * @return The axioms.
+     */
+    @Nonnull
+    public Set<OWLAxiom> getReferencingAxioms(@Nonnull IRI iri) {
+        checkNotNull(iri);
+        ensureBuilt();
+        try {
+            readWriteLock.readLock().lock();
+            return ImmutableSet.copyOf(axiomsByIRI.get(iri));
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        if (built) {
+            return;
+        }
+        synchronized (buildLock) {
+            if (built) {
+                return;
+            }
+            try {
+                readWriteLock.writeLock().lock();
+                bufferedChanges = new ArrayList<>();
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+            SetMultimap<IRI, OWLAxiom> index = buildIndex();
+            while (true) {
+                List<OWLOntologyChange> changes;
+                try {
+                    readWriteLock.writeLock().lock();
+                    if (bufferedChanges.isEmpty()) {
+                        axiomsByIRI = index;
+                        bufferedChanges = null;
+                        built = true;
+                        return;
+                    }
+                    changes = bufferedChanges;
+                    bufferedChanges = new ArrayList<>();
+                } finally {
+                    readWriteLock.writeLock().unlock();
+                }
+                if (!applyChanges(index, changes)) {
+                    index = buildIndex();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds an index from the ontologies in the imports closure of the root ontology.
+     */
+    private SetMultimap<IRI, OWLAxiom> buildIndex() {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        SetMultimap<IRI, OWLAxiom> index = LinkedHashMultimap.create();
+        for (OWLOntology ont : rootOntology.getImportsClosure()) {
+            for (OWLAnnotationAssertionAxiom ax : ont.getAxioms(AxiomType.ANNOTATION_ASSERTION)) {
+                add(index, ax);
+            }
+            for (OWLAnnotationPropertyDomainAxiom ax : ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_DOMAIN)) {
+                add(index, ax);
+            }
+            for (OWLAnnotationPropertyRangeAxiom ax : ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_RANGE)) {
+                add(index, ax);
+            }
+        }
+        stopwatch.stop();
+        logger.info("{} Built annotation reference index ({} references) in {} ms",
+                    projectId,
+                    index.size(),
+                    stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        return index;
+    }
+
+    private void handleOntologyChanges(List<? extends OWLOntologyChange> changes) {
+        try {
+            readWriteLock.writeLock().lock();
+            if (!built) {
+                if (bufferedChanges != null) {
+                    // Replayed before the index that is being built is swapped in
+                    bufferedChanges.addAll(changes);
+                }
+                // Otherwise the changes will be seen when the index is built
+                return;
+            }
+            if (!applyChanges(axiomsByIRI, changes)) {
+                axiomsByIRI = buildIndex();
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies changes to an index.
+     * @return {@code false} if the changes include an import change, in which case the set of ontologies that
+     * are covered has changed and the index must be rebuilt, otherwise {@code true}.
+     */
+    private boolean applyChanges(SetMultimap<IRI, OWLAxiom> index, List<? extends OWLOntologyChange> changes) {
+        for (OWLOntologyChange change : changes) {
+            if (change.isImportChange()) {
+                return false;
+            }
+        }
+        Set<OWLOntology> importsClosure = rootOntology.getImportsClosure();
+        for (OWLOntologyChange change : changes) {
+            if (change.isAxiomChange() && importsClosure.contains(change.getOntology())) {
+                if (change.isAddAxiom()) {
+                    add(index, change.getAxiom());
+                }
+                else {
+                    remove(index, change.getAxiom());
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void add(SetMultimap<IRI, OWLAxiom> index, OWLAxiom axiom) {
+        getReferencedIRI(axiom).ifPresent(iri -> index.put(iri, axiom));
+    }
+
+    private void remove(SetMultimap<IRI, OWLAxiom> index, OWLAxiom axiom) {
+        // The axiom may still be asserted in another ontology in the imports closure
+        if (rootOntology.containsAxiom(axiom, Imports.INCLUDED, AxiomAnnotations.CONSIDER_AXIOM_ANNOTATIONS)) {
+            return;
+        }
+        getReferencedIRI(axiom).ifPresent(iri -> index.remove(iri, axiom));
+    }
+
+    private static Optional<IRI> getReferencedIRI(OWLAxiom axiom) {
+        if (axiom instanceof OWLAnnotationAssertionAxiom) {
+            OWLAnnotationValue value = ((OWLAnnotationAssertionAxiom) axiom).getValue();
+            if (value instanceof IRI) {
+                return Optional.of((IRI) value);
+            }
+            return Optional.empty();
+        }
+        else if (axiom instanceof OWLAnnotationPropertyDomainAxiom) {
+            return Optional.of(((OWLAnnotationPropertyDomainAxiom) axiom).getDomain());
+        }
+        else if (axiom instanceof OWLAnnotationPropertyRangeAxiom) {
+            return Optional.of(((OWLAnnotationPropertyRangeAxiom) axiom).getRange());
+        }
+        else {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stops maintaining the index from changes to the ontologies.
+     */
+    @Override
+    public void dispose() {
+        rootOntology.getOWLOntologyManager().removeOntologyChangeListener(changeListener);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("AnnotationReferenceIndex")
+                .add("projectId", projectId)
+                .toString();
+    }
+}
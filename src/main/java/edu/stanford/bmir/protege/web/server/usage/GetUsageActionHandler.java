@@ -14,10 +14,7 @@ import org.semanticweb.owlapi.model.*;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Author: Matthew Horridge<br>
@@ -37,15 +34,20 @@ public class GetUsageActionHandler extends AbstractHasProjectActionHandler<GetUs
     @Nonnull
     private final RenderingManager renderingManager;
 
+    @Nonnull
+    private final AnnotationReferenceIndex annotationReferenceIndex;
+
     @Inject
     public GetUsageActionHandler(@Nonnull AccessManager accessManager,
                                  @Nonnull ProjectId projectId,
                                  @Nonnull @RootOntology OWLOntology rootOntology,
-                                 @Nonnull RenderingManager renderingManager) {
+                                 @Nonnull RenderingManager renderingManager,
+                                 @Nonnull AnnotationReferenceIndex annotationReferenceIndex) {
         super(accessManager);
         this.projectId = projectId;
         this.rootOntology = rootOntology;
         this.renderingManager = renderingManager;
+        this.annotationReferenceIndex = annotationReferenceIndex;
     }
 
     @Override
@@ -61,91 +63,49 @@ public class GetUsageActionHandler extends AbstractHasProjectActionHandler<GetUs
 
     @Override
     public GetUsageResult execute(GetUsageAction action, ExecutionContext executionContext) {
-        List<UsageReference> usage = new ArrayList<UsageReference>();
         final OWLEntity subject = action.getSubject();
-        ReferencingAxiomVisitor visitor = new ReferencingAxiomVisitor(subject, rootOntology, renderingManager);
         final UsageFilter usageFilter = action.getUsageFilter();
-        int totalReferenceCount = 0;
-        int counter = 0;
-
-        final IRI subjectIRI = subject.getIRI();
-        for (OWLOntology ont : rootOntology.getImportsClosure()) {
-            Set<OWLAxiom> references = ont.getReferencingAxioms(subject);
-            for (OWLAxiom reference : references) {
-                counter = processAxiom(reference, usageFilter, action, usage, visitor, counter);
-                totalReferenceCount++;
-            }
-
-
-            final Set<OWLAnnotationAssertionAxiom> annotationAssertionAxioms = ont.getAxioms(AxiomType.ANNOTATION_ASSERTION);
-            for (OWLAnnotationAssertionAxiom ax : annotationAssertionAxioms) {
-                if (ax.getSubject().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getValue().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-            }
-            final Set<OWLAnnotationPropertyRangeAxiom> annotationPropertyRangeAxioms = ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_RANGE);
-            for (OWLAnnotationPropertyRangeAxiom ax : annotationPropertyRangeAxioms) {
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getRange().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
+        Set<OWLAxiom> references = getReferencingAxioms(subject);
+        ReferencingAxiomVisitor visitor = new ReferencingAxiomVisitor(subject, rootOntology, renderingManager);
+        List<UsageReference> usage = new ArrayList<>();
+        int totalUsageCount = 0;
+        for (OWLAxiom reference : references) {
+            if (!usageFilter.isIncluded(reference.getAxiomType())) {
+                continue;
             }
-            final Set<OWLAnnotationPropertyDomainAxiom> annotationPropertyDomainAxioms = ont.getAxioms(AxiomType.ANNOTATION_PROPERTY_DOMAIN);
-            for (OWLAnnotationPropertyDomainAxiom ax : annotationPropertyDomainAxioms) {
-                if (ax.getProperty().equals(subject)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
-                }
-                if (ax.getDomain().equals(subjectIRI)) {
-                    counter = processAxiom(ax, usageFilter, action, usage, visitor, counter);
-                    totalReferenceCount++;
+            for (Optional<OWLEntity> axiomSubject : reference.accept(visitor)) {
+                if (isIncludedBySubject(usageFilter, action, axiomSubject)) {
+                    totalUsageCount++;
+                    // Only the references on the page are rendered
+                    if (usage.size() < action.getPageSize()) {
+                        usage.add(visitor.render(reference, axiomSubject));
+                    }
                 }
             }
         }
-
-
-
-
         Collections.sort(usage, new UsageReferenceComparator(subject));
-        return new GetUsageResult(projectId, usage, totalReferenceCount);
+        return new GetUsageResult(projectId, usage, totalUsageCount);
     }
 
-    private int processAxiom(OWLAxiom reference, UsageFilter usageFilter, GetUsageAction action, List<UsageReference> result, ReferencingAxiomVisitor visitor, int counter) {
-        if (usageFilter.isIncluded(reference.getAxiomType())) {
-            counter++;
-            if (counter <= action.getPageSize()) {
-                final Set<UsageReference> refs = reference.accept(visitor);
-                for (UsageReference ref : refs) {
-                    if (isIncludedBySubject(usageFilter, action, ref)) {
-                        if (counter <= action.getPageSize()) {
-                            result.addAll(refs);
-                        }
-                    }
-                }
-            }
-
+    /**
+     * Gets the axioms that reference the specified entity, either directly or by its IRI.
+     */
+    private Set<OWLAxiom> getReferencingAxioms(OWLEntity subject) {
+        Set<OWLAxiom> references = new LinkedHashSet<>();
+        final IRI subjectIRI = subject.getIRI();
+        for (OWLOntology ont : rootOntology.getImportsClosure()) {
+            references.addAll(ont.getReferencingAxioms(subject));
+            references.addAll(ont.getAnnotationAssertionAxioms(subjectIRI));
         }
-        return counter;
+        references.addAll(annotationReferenceIndex.getReferencingAxioms(subjectIRI));
+        return references;
     }
 
-    private boolean isIncludedBySubject(UsageFilter usageFilter, GetUsageAction action, UsageReference ref) {
-        if(!ref.getAxiomSubject().isPresent()) {
+    private boolean isIncludedBySubject(UsageFilter usageFilter, GetUsageAction action, Optional<OWLEntity> subject) {
+        if(!subject.isPresent()) {
             return true;
         }
-        final OWLEntity axiomSubject = ref.getAxiomSubject().get();
+        final OWLEntity axiomSubject = subject.get();
         if(!usageFilter.isIncluded(axiomSubject.getEntityType())) {
             return false;
         }
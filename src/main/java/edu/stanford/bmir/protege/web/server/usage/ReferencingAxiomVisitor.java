@@ -19,8 +19,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * Stanford University<br>
  * Bio-Medical Informatics Research Group<br>
  * Date: 11/07/2013
+ * <p>
+ *     Gets the subjects of the references that an axiom makes to an entity.  References are only rendered, with
+ *     {@link #render(OWLAxiom, Optional)}, once they have been selected for display.
+ * </p>
  */
-public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<UsageReference>> {
+public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<Optional<OWLEntity>>> {
 
     @Nonnull
     private final OWLEntity usageOf;
@@ -40,15 +44,15 @@ public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<UsageRefer
         this.renderingManager = checkNotNull(renderingManager);
     }
 
-    private Set<UsageReference> translate(Set<? extends OWLObject> subjects, OWLAxiom axiom) {
-        Set<UsageReference> result = new HashSet<>();
+    private Set<Optional<OWLEntity>> translate(Set<? extends OWLObject> subjects, OWLAxiom axiom) {
+        Set<Optional<OWLEntity>> result = new HashSet<>();
         for(OWLObject subject : subjects) {
             result.addAll(translate(subject, axiom));
         }
         return result;
     }
 
-    private Set<UsageReference> translate(OWLObject subject, OWLAxiom axiom) {
+    private Set<Optional<OWLEntity>> translate(OWLObject subject, OWLAxiom axiom) {
         Optional<OWLEntity> axiomSubject = Optional.empty();
         if(subject instanceof OWLEntity) {
             axiomSubject = Optional.of((OWLEntity) subject);
@@ -70,6 +74,17 @@ public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<UsageRefer
                 return translate((OWLEntity) predicate, axiom);
             }
         }
+        return Collections.singleton(axiomSubject);
+    }
+
+    /**
+     * Renders a reference to the usage entity.
+     * @param axiom The referencing axiom.
+     * @param axiomSubject The subject of the axiom, as returned by visiting the axiom.
+     * @return The rendered reference.
+     */
+    @Nonnull
+    public UsageReference render(@Nonnull OWLAxiom axiom, @Nonnull Optional<OWLEntity> axiomSubject) {
         final String useageOfBrowserText = renderingManager.getBrowserText(usageOf);
         String rendering = renderingManager.getHTMLBrowserText(axiom, Collections.singleton(useageOfBrowserText));
         Optional<String> subjectRendering;
@@ -79,156 +94,156 @@ public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<UsageRefer
         else {
             subjectRendering = Optional.empty();
         }
-        return Collections.singleton(new UsageReference(axiom.getAxiomType(), rendering, axiomSubject, subjectRendering));
+        return new UsageReference(axiom.getAxiomType(), rendering, axiomSubject, subjectRendering);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSubClassOfAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSubClassOfAxiom axiom) {
         return translate(axiom.getSubClass(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLNegativeObjectPropertyAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLNegativeObjectPropertyAssertionAxiom axiom) {
         return translate(axiom.getSubject(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLAsymmetricObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLAsymmetricObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLReflexiveObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLReflexiveObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDisjointClassesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDisjointClassesAxiom axiom) {
         return translate((OWLEntity) null, axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDataPropertyDomainAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDataPropertyDomainAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLObjectPropertyDomainAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLObjectPropertyDomainAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLEquivalentObjectPropertiesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLEquivalentObjectPropertiesAxiom axiom) {
         return translate(axiom.getProperties(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLNegativeDataPropertyAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLNegativeDataPropertyAssertionAxiom axiom) {
         return translate(axiom.getSubject(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDifferentIndividualsAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDifferentIndividualsAxiom axiom) {
         return translate((OWLEntity) null, axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDisjointDataPropertiesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDisjointDataPropertiesAxiom axiom) {
         return translate(axiom.getProperties(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDisjointObjectPropertiesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDisjointObjectPropertiesAxiom axiom) {
         return translate(axiom.getProperties(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLObjectPropertyRangeAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLObjectPropertyRangeAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLObjectPropertyAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLObjectPropertyAssertionAxiom axiom) {
         return translate(axiom.getSubject(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLFunctionalObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLFunctionalObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSubObjectPropertyOfAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSubObjectPropertyOfAxiom axiom) {
         return translate(axiom.getSubProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDisjointUnionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDisjointUnionAxiom axiom) {
         return translate(axiom.getOWLClass(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDeclarationAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDeclarationAxiom axiom) {
         return translate(axiom.getEntity(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLAnnotationAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLAnnotationAssertionAxiom axiom) {
         return translate(axiom.getSubject(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSymmetricObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSymmetricObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDataPropertyRangeAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDataPropertyRangeAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLFunctionalDataPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLFunctionalDataPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLEquivalentDataPropertiesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLEquivalentDataPropertiesAxiom axiom) {
         return translate(axiom.getProperties(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLClassAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLClassAssertionAxiom axiom) {
         return translate(axiom.getIndividual(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLEquivalentClassesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLEquivalentClassesAxiom axiom) {
         if(axiom.containsNamedEquivalentClass()) {
             return translate(axiom.getNamedClasses(), axiom);
         }
@@ -240,85 +255,85 @@ public class ReferencingAxiomVisitor implements OWLAxiomVisitorEx<Set<UsageRefer
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDataPropertyAssertionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDataPropertyAssertionAxiom axiom) {
         return translate(axiom.getSubject(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLTransitiveObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLTransitiveObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLIrreflexiveObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLIrreflexiveObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSubDataPropertyOfAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSubDataPropertyOfAxiom axiom) {
         return translate(axiom.getSubProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLInverseFunctionalObjectPropertyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLInverseFunctionalObjectPropertyAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSameIndividualAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSameIndividualAxiom axiom) {
         return translate(axiom.getIndividuals(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSubPropertyChainOfAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSubPropertyChainOfAxiom axiom) {
         return translate(axiom.getSuperProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLInverseObjectPropertiesAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLInverseObjectPropertiesAxiom axiom) {
         return translate(axiom.getProperties(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLHasKeyAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLHasKeyAxiom axiom) {
         return translate(axiom.getClassExpression(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLDatatypeDefinitionAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLDatatypeDefinitionAxiom axiom) {
         return translate(axiom.getDatatype(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull SWRLRule rule) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull SWRLRule rule) {
         return translate(rule.getHead(), rule);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLSubAnnotationPropertyOfAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLSubAnnotationPropertyOfAxiom axiom) {
         return translate(axiom.getSubProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLAnnotationPropertyDomainAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLAnnotationPropertyDomainAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 
     @Nonnull
     @Override
-    public Set<UsageReference> visit(@Nonnull OWLAnnotationPropertyRangeAxiom axiom) {
+    public Set<Optional<OWLEntity>> visit(@Nonnull OWLAnnotationPropertyRangeAxiom axiom) {
         return translate(axiom.getProperty(), axiom);
     }
 }
@@ -6,6 +6,7 @@ import edu.stanford.bmir.protege.web.shared.watches.Watch;
 import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
+import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -51,4 +52,14 @@ public interface WatchManager {
      */
     Set<Watch> getDirectWatches(@Nonnull OWLEntity watchedObject,
                                 @Nonnull UserId userId);
+
+    /**
+     * Gets the watches that are attached to any of the specified entities by the specified user.  The watches
+     * are retrieved with a single query.
+     * @param watchedObjects The entities to which the watches are attached.
+     * @param userId The user who the watches belong to.
+     * @return The watches.
+     */
+    Set<Watch> getDirectWatches(@Nonnull Collection<? extends OWLEntity> watchedObjects,
+                                @Nonnull UserId userId);
 }
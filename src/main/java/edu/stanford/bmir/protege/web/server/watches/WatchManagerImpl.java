@@ -16,6 +16,7 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -106,6 +107,19 @@ public class WatchManagerImpl implements WatchManager {
                          .collect(toSet());
     }
 
+    @Override
+    public Set<Watch> getDirectWatches(@Nonnull Collection<? extends OWLEntity> watchedObjects,
+                                       @Nonnull UserId userId) {
+        if (watchedObjects.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return repository.findWatchRecords(projectId,
+                                           userId,
+                                           watchedObjects).stream()
+                         .map(this::toWatch)
+                         .collect(toSet());
+    }
+
     private void handleEntityFrameChanged(@Nonnull OWLEntity entity, @Nonnull UserId byUser) {
         Collection<Watch> watches = findWatchRecordsForEntity(entity);
         if (watches.isEmpty()) {
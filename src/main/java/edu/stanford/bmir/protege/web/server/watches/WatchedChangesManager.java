@@ -2,7 +2,6 @@ package edu.stanford.bmir.protege.web.server.watches;
 
 import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.hierarchy.HierarchyProvider;
-import edu.stanford.bmir.protege.web.server.revision.EntitiesByRevisionCache;
 import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
@@ -13,10 +12,7 @@ import org.semanticweb.owlapi.model.*;
 import org.semanticweb.owlapi.search.EntitySearcher;
 
 import javax.inject.Inject;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static edu.stanford.bmir.protege.web.shared.watches.WatchType.BRANCH;
@@ -43,8 +39,6 @@ public class WatchedChangesManager {
 
     private final ProjectChangesManager projectChangesManager;
 
-    private final EntitiesByRevisionCache entitiesByRevisionCache;
-
     @Inject
     public WatchedChangesManager(ProjectChangesManager projectChangesManager,
                                  HierarchyProvider<OWLClass> classHierarchyProvider,
@@ -52,8 +46,7 @@ public class WatchedChangesManager {
                                  HierarchyProvider<OWLDataProperty> dataPropertyHierarchyProvider,
                                  HierarchyProvider<OWLAnnotationProperty> annotationPropertyHierarchyProvider,
                                  HasImportsClosure rootOntologyImportsClosureProvider,
-                                 RevisionManager changeManager,
-                                 EntitiesByRevisionCache entitiesByRevisionCache) {
+                                 RevisionManager changeManager) {
         this.projectChangesManager = checkNotNull(projectChangesManager);
         this.classHierarchyProvider = checkNotNull(classHierarchyProvider);
         this.objectPropertyHierarchyProvider = checkNotNull(objectPropertyHierarchyProvider);
@@ -61,105 +54,83 @@ public class WatchedChangesManager {
         this.annotationPropertyHierarchyProvider = checkNotNull(annotationPropertyHierarchyProvider);
         this.rootOntologyImportsClosureProvider = checkNotNull(rootOntologyImportsClosureProvider);
         this.changeManager = checkNotNull(changeManager);
-        this.entitiesByRevisionCache = checkNotNull(entitiesByRevisionCache);
     }
 
     public ImmutableList<ProjectChange> getProjectChangesForWatches(Set<Watch> watches) {
-        Set<OWLEntity> superEntities = new HashSet<>();
-        Set<OWLEntity> directWatches = new HashSet<>();
+        Set<OWLEntity> watchedEntities = new HashSet<>();
         for (Watch watch : watches) {
+            OWLEntity entity = watch.getEntity();
+            watchedEntities.add(entity);
             if (watch.getType() == BRANCH) {
-                OWLEntity entity = watch.getEntity();
-                superEntities.add(entity);
-                directWatches.add(entity);
-            }
-            else {
-                directWatches.add(watch.getEntity());
+                watchedEntities.addAll(getBranchEntities(entity));
             }
         }
-        if (superEntities.isEmpty() && directWatches.isEmpty()) {
+        if (watchedEntities.isEmpty()) {
             return ImmutableList.of();
         }
+        // Only look at the revisions that change the watched entities
+        SortedMap<Revision, Set<OWLEntity>> watchedEntitiesByRevision = new TreeMap<>();
+        for (OWLEntity watchedEntity : watchedEntities) {
+            for (Revision revision : changeManager.getRevisionsForSubject(watchedEntity.getIRI())) {
+                watchedEntitiesByRevision.computeIfAbsent(revision, r -> new HashSet<>()).add(watchedEntity);
+            }
+        }
         ImmutableList.Builder<ProjectChange> result = ImmutableList.builder();
-        List<Revision> revisionsCopy = changeManager.getRevisions();
-        for (Revision revision : revisionsCopy) {
-            for (OWLEntity watchedEntity : getWatchedEntities(superEntities, directWatches, revision)) {
-                ImmutableList<ProjectChange> changes = projectChangesManager.getProjectChangesForSubjectInRevision(watchedEntity, revision);
+        for (Map.Entry<Revision, Set<OWLEntity>> entry : watchedEntitiesByRevision.entrySet()) {
+            for (OWLEntity watchedEntity : entry.getValue()) {
+                ImmutableList<ProjectChange> changes = projectChangesManager.getProjectChangesForSubjectInRevision(watchedEntity, entry.getKey());
                 result.addAll(changes);
             }
         }
         return result.build();
     }
 
-    private Set<OWLEntity> getWatchedEntities(Set<OWLEntity> superEntities, Set<OWLEntity> directWatches, Revision revision) {
-        Set<OWLEntity> watchedEntities = new HashSet<>();
-        Set<OWLEntity> entities = entitiesByRevisionCache.getEntities(revision);
-        for (OWLEntity entity : entities) {
-            if (directWatches.contains(entity)) {
-                watchedEntities.add(entity);
-            }
-            else {
-                boolean watchedByAncestor = isWatchedByAncestor(superEntities, entity);
-                if (watchedByAncestor) {
-                    watchedEntities.add(entity);
-                }
-            }
-        }
-        return watchedEntities;
-    }
-
-
-    private Boolean isWatchedByAncestor(final Set<OWLEntity> watchedAncestors, OWLEntity entity) {
-        return entity.accept(new OWLEntityVisitorEx<Boolean>() {
+    /**
+     * Gets the entities that are watched by a branch watch on the specified entity, not including the entity itself.
+     */
+    private Set<OWLEntity> getBranchEntities(OWLEntity entity) {
+        return entity.accept(new OWLEntityVisitorEx<Set<OWLEntity>>() {
             @Override
-            public Boolean visit(OWLClass cls) {
-                final Set<? extends OWLEntity> ancestors = classHierarchyProvider.getAncestors(cls);
-                return isWatchedByAncestor(ancestors);
+            public Set<OWLEntity> visit(OWLClass cls) {
+                Set<OWLEntity> result = new HashSet<>();
+                Set<OWLClass> branchClasses = new HashSet<>(classHierarchyProvider.getDescendants(cls));
+                result.addAll(branchClasses);
+                branchClasses.add(cls);
+                // Individuals are watched by watches on the branches that contain their types
+                for (OWLClass branchClass : branchClasses) {
+                    for (OWLIndividual individual : EntitySearcher.getIndividuals(branchClass, rootOntologyImportsClosureProvider.getImportsClosure())) {
+                        if (individual.isNamed()) {
+                            result.add(individual.asOWLNamedIndividual());
+                        }
+                    }
+                }
+                return result;
             }
 
-
             @Override
-            public Boolean visit(OWLObjectProperty property) {
-                return isWatchedByAncestor(objectPropertyHierarchyProvider.getAncestors(property));
+            public Set<OWLEntity> visit(OWLObjectProperty property) {
+                return new HashSet<>(objectPropertyHierarchyProvider.getDescendants(property));
             }
 
             @Override
-            public Boolean visit(OWLDataProperty property) {
-                return isWatchedByAncestor(dataPropertyHierarchyProvider.getAncestors(property));
+            public Set<OWLEntity> visit(OWLDataProperty property) {
+                return new HashSet<>(dataPropertyHierarchyProvider.getDescendants(property));
             }
 
             @Override
-            public Boolean visit(OWLNamedIndividual individual) {
-                final Collection<OWLClassExpression> types = EntitySearcher.getTypes(individual, rootOntologyImportsClosureProvider.getImportsClosure());
-                for (OWLClassExpression ce : types) {
-                    if (!ce.isAnonymous()) {
-                        if (isWatchedByAncestor(classHierarchyProvider.getAncestors(ce.asOWLClass()))) {
-                            return true;
-                        }
-                    }
-                }
-                return false;
+            public Set<OWLEntity> visit(OWLNamedIndividual individual) {
+                return Collections.emptySet();
             }
 
             @Override
-            public Boolean visit(OWLDatatype datatype) {
-                return false;
+            public Set<OWLEntity> visit(OWLDatatype datatype) {
+                return Collections.emptySet();
             }
 
             @Override
-            public Boolean visit(OWLAnnotationProperty property) {
-                return isWatchedByAncestor(annotationPropertyHierarchyProvider.getAncestors(property));
-            }
-
-            private Boolean isWatchedByAncestor(Set<? extends OWLEntity> ancestors) {
-                for (OWLEntity anc : ancestors) {
-                    if (watchedAncestors.contains(anc)) {
-                        return true;
-                    }
-                }
-                return false;
+            public Set<OWLEntity> visit(OWLAnnotationProperty property) {
+                return new HashSet<>(annotationPropertyHierarchyProvider.getDescendants(property));
             }
-
         });
     }
 
@@ -36,7 +36,10 @@ public enum WebProtegePropertyName {
     MONGO_DB_HOST("mongodb.host", PropertyValue.ofString("localhost")),
 
     @WebProtegePropertiesDocumentation(description = "The port number of the mongodb server", example = "27017")
-    MONGO_DB_PORT("mongodb.port", PropertyValue.ofInteger(27017));
+    MONGO_DB_PORT("mongodb.port", PropertyValue.ofInteger(27017)),
+
+    @WebProtegePropertiesDocumentation(description = "The maximum time, in milliseconds, that a request for project events waits for new events before it returns", example = "30000")
+    EVENTS_LONG_POLL_TIMEOUT("events.longpoll.timeout", PropertyValue.ofInteger(30000));
 
     private static class PropertyValue {
 
@@ -6,35 +6,81 @@ import edu.stanford.bmir.protege.web.shared.HasProjectId;
 import edu.stanford.bmir.protege.web.shared.annotations.GwtSerializationConstructor;
 import edu.stanford.bmir.protege.web.shared.dispatch.Action;
 import edu.stanford.bmir.protege.web.shared.dispatch.ProjectAction;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.semanticweb.owlapi.model.OWLEntity;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Matthew Horridge
  * Stanford Center for Biomedical Informatics Research
  * 24/02/15
+ *
+ * Gets a page of project changes.  Changes are returned one revision at a time, starting with the most recent
+ * revision that comes before a cursor revision.  Within each revision, one page of diff elements is rendered.
  */
 public class GetProjectChangesAction implements ProjectAction<GetProjectChangesResult> {
 
+    public static final int DEFAULT_REVISION_COUNT = 20;
+
+    public static final int DEFAULT_DIFF_PAGE_SIZE = 50;
+
     private ProjectId projectId;
 
     @Nullable
     private OWLEntity subject;
 
+    @Nullable
+    private RevisionNumber beforeRevision;
+
+    private int revisionCount;
+
+    private PageRequest diffPageRequest;
+
     @GwtSerializationConstructor
     private GetProjectChangesAction() {
     }
 
+    /**
+     * Creates an action that gets the first page of changes, starting with the head revision.
+     * @param projectId The project.
+     * @param subject An optional subject.  If present, only changes to axioms that have this subject are returned.
+     */
     public GetProjectChangesAction(@Nonnull ProjectId projectId,
                                    @Nonnull Optional<OWLEntity> subject) {
+        this(projectId,
+             subject,
+             Optional.empty(),
+             DEFAULT_REVISION_COUNT,
+             PageRequest.requestPageWithSize(1, DEFAULT_DIFF_PAGE_SIZE));
+    }
+
+    /**
+     * @param projectId The project.
+     * @param subject An optional subject.  If present, only changes to axioms that have this subject are returned.
+     * @param beforeRevision An optional cursor.  If present, only revisions that come before this revision are
+     *                       returned.  If absent, revisions are returned starting with the head revision.
+     * @param revisionCount The maximum number of revisions to return.
+     * @param diffPageRequest The page of diff elements to return for each revision.
+     */
+    public GetProjectChangesAction(@Nonnull ProjectId projectId,
+                                   @Nonnull Optional<OWLEntity> subject,
+                                   @Nonnull Optional<RevisionNumber> beforeRevision,
+                                   int revisionCount,
+                                   @Nonnull PageRequest diffPageRequest) {
+        checkArgument(revisionCount > 0, "revisionCount must be greater than zero");
         this.projectId = checkNotNull(projectId);
         this.subject = checkNotNull(subject).orElse(null);
+        this.beforeRevision = checkNotNull(beforeRevision).orElse(null);
+        this.revisionCount = revisionCount;
+        this.diffPageRequest = checkNotNull(diffPageRequest);
     }
 
     @Nonnull
@@ -46,9 +92,23 @@ public class GetProjectChangesAction implements ProjectAction<GetProjectChangesR
         return Optional.ofNullable(subject);
     }
 
+    @Nonnull
+    public Optional<RevisionNumber> getBeforeRevision() {
+        return Optional.ofNullable(beforeRevision);
+    }
+
+    public int getRevisionCount() {
+        return revisionCount;
+    }
+
+    @Nonnull
+    public PageRequest getDiffPageRequest() {
+        return diffPageRequest;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(projectId);
+        return Objects.hashCode(projectId, subject, beforeRevision, revisionCount, diffPageRequest);
     }
 
     @Override
@@ -61,7 +121,10 @@ public class GetProjectChangesAction implements ProjectAction<GetProjectChangesR
         }
         GetProjectChangesAction other = (GetProjectChangesAction) obj;
         return this.projectId.equals(other.projectId)
-                && java.util.Objects.equals(this.subject, other.subject);
+                && java.util.Objects.equals(this.subject, other.subject)
+                && java.util.Objects.equals(this.beforeRevision, other.beforeRevision)
+                && this.revisionCount == other.revisionCount
+                && this.diffPageRequest.equals(other.diffPageRequest);
     }
 
 
@@ -70,6 +133,9 @@ public class GetProjectChangesAction implements ProjectAction<GetProjectChangesR
         return MoreObjects.toStringHelper("GetProjectChangesAction")
                 .addValue(projectId)
                 .addValue(subject)
+                .add("beforeRevision", beforeRevision)
+                .add("revisionCount", revisionCount)
+                .add("diffPage", diffPageRequest.getPageNumber())
                 .toString();
     }
 }
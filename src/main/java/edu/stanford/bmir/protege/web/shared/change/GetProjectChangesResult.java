@@ -3,6 +3,11 @@ package edu.stanford.bmir.protege.web.shared.change;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Optional;
 
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -16,6 +21,9 @@ public class GetProjectChangesResult implements Result {
 
     private ImmutableList<ProjectChange> changes;
 
+    @Nullable
+    private RevisionNumber nextBeforeRevision;
+
     /**
      * For serialization purposes only
      */
@@ -23,16 +31,37 @@ public class GetProjectChangesResult implements Result {
     }
 
     public GetProjectChangesResult(ImmutableList<ProjectChange> changes) {
+        this(changes, Optional.empty());
+    }
+
+    /**
+     * @param changes The changes, most recent revision first.
+     * @param nextBeforeRevision The cursor that retrieves the next page of changes, or an empty value if there
+     *                           are no more changes.
+     */
+    public GetProjectChangesResult(ImmutableList<ProjectChange> changes,
+                                   Optional<RevisionNumber> nextBeforeRevision) {
         this.changes = checkNotNull(changes);
+        this.nextBeforeRevision = checkNotNull(nextBeforeRevision).orElse(null);
     }
 
     public ImmutableList<ProjectChange> getChanges() {
         return changes;
     }
 
+    /**
+     * Gets the cursor that retrieves the next page of changes.
+     * @return The revision that should be used as the cursor of the next request, or an empty value if
+     * there are no more changes.
+     */
+    @Nonnull
+    public Optional<RevisionNumber> getNextBeforeRevision() {
+        return Optional.ofNullable(nextBeforeRevision);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(changes);
+        return Objects.hashCode(changes, nextBeforeRevision);
     }
 
     @Override
@@ -44,7 +73,8 @@ public class GetProjectChangesResult implements Result {
             return false;
         }
         GetProjectChangesResult other = (GetProjectChangesResult) obj;
-        return this.changes.equals(other.changes);
+        return this.changes.equals(other.changes)
+                && java.util.Objects.equals(this.nextBeforeRevision, other.nextBeforeRevision);
     }
 
 
@@ -52,6 +82,7 @@ public class GetProjectChangesResult implements Result {
     public String toString() {
         return toStringHelper("GetProjectChangesResult")
                 .addValue(changes)
+                .add("nextBeforeRevision", nextBeforeRevision)
                 .toString();
     }
 }
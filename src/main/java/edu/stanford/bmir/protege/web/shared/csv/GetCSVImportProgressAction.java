@@ -0,0 +1,30 @@
+package edu.stanford.bmir.protege.web.shared.csv;
+
+import edu.stanford.bmir.protege.web.client.csv.DocumentId;
+import edu.stanford.bmir.protege.web.client.dispatch.AbstractHasProjectAction;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gets the progress of an import of a csv file that is underway, or that failed part of the way through.
+ */
+public class GetCSVImportProgressAction extends AbstractHasProjectAction<GetCSVImportProgressResult> {
+
+    private DocumentId documentId;
+
+    /**
+     * For serialization only
+     */
+    private GetCSVImportProgressAction() {
+    }
+
+    public GetCSVImportProgressAction(ProjectId projectId, DocumentId documentId) {
+        super(projectId);
+        this.documentId = checkNotNull(documentId);
+    }
+
+    public DocumentId getDocumentId() {
+        return documentId;
+    }
+}
@@ -0,0 +1,25 @@
+package edu.stanford.bmir.protege.web.shared.csv;
+
+import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+
+public class GetCSVImportProgressResult implements Result {
+
+    private int importedRowCount;
+
+    /**
+     * For serialization purposes only
+     */
+    private GetCSVImportProgressResult() {
+    }
+
+    public GetCSVImportProgressResult(int importedRowCount) {
+        this.importedRowCount = importedRowCount;
+    }
+
+    /**
+     * Gets the number of rows that have been imported so far.
+     */
+    public int getImportedRowCount() {
+        return importedRowCount;
+    }
+}
@@ -13,4 +13,11 @@ public class ProjectDownloadConstants {
     public static final String REVISION = "revision";
 
     public static final String FORMAT = "format";
+
+    /**
+     * A parameter that requests the state of the generation of a download instead of the download itself.  The
+     * response is a plain text {@link ProjectDownloadState} followed by a space and the number of bytes that have
+     * been written so far.
+     */
+    public static final String STATUS = "status";
 }
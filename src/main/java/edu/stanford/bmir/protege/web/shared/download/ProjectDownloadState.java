@@ -0,0 +1,27 @@
+package edu.stanford.bmir.protege.web.shared.download;
+
+/**
+ * The state of the generation of a project download.
+ */
+public enum ProjectDownloadState {
+
+    /**
+     * The download is waiting to be generated.
+     */
+    QUEUED,
+
+    /**
+     * The download is being generated.
+     */
+    GENERATING,
+
+    /**
+     * The download has been generated and is ready to be transferred.
+     */
+    READY,
+
+    /**
+     * The download could not be generated.
+     */
+    FAILED
+}
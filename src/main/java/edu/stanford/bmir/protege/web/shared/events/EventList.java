@@ -27,6 +27,7 @@ public class EventList<E extends WebProtegeEvent<?>> implements Serializable {
 
     private List<E> events;
 
+    private boolean eventsMissed;
 
     /**
      * For serialization only
@@ -46,6 +47,17 @@ public class EventList<E extends WebProtegeEvent<?>> implements Serializable {
         this.events = new ArrayList<E>(checkNotNull(events));
     }
 
+    /**
+     * Creates an event list that may be missing some of the events between its start and end tags.
+     * @param eventsMissed {@code true} if events after the start tag were discarded before they could be
+     *                     retrieved, in which case the recipient should reload its state rather than rely on
+     *                     the events.
+     */
+    public EventList(EventTag startTag, Collection<E> events, EventTag endTag, boolean eventsMissed) {
+        this(startTag, events, endTag);
+        this.eventsMissed = eventsMissed;
+    }
+
     public int size() {
         if(events == null) {
             return 0;
@@ -59,6 +71,14 @@ public class EventList<E extends WebProtegeEvent<?>> implements Serializable {
         return events == null || events.size() == 0;
     }
 
+    /**
+     * Determines whether events after the start tag of this list were discarded before they could be retrieved.
+     * @return {@code true} if events were missed, otherwise {@code false}.
+     */
+    public boolean isEventsMissed() {
+        return eventsMissed;
+    }
+
     public EventTag getStartTag() {
         return startTag;
     }
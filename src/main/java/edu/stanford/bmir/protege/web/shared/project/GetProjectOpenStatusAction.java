@@ -0,0 +1,59 @@
+package edu.stanford.bmir.protege.web.shared.project;
+
+import com.google.common.base.Objects;
+import edu.stanford.bmir.protege.web.shared.HasProjectId;
+import edu.stanford.bmir.protege.web.shared.dispatch.Action;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Gets the status of the opening of a project.  This is not a project action, so that it can be executed
+ * without waiting for the project to be opened.
+ */
+public class GetProjectOpenStatusAction implements Action<GetProjectOpenStatusResult>, HasProjectId {
+
+    private ProjectId projectId;
+
+    /**
+     * For serialization purposes only
+     */
+    private GetProjectOpenStatusAction() {
+    }
+
+    public GetProjectOpenStatusAction(@Nonnull ProjectId projectId) {
+        this.projectId = checkNotNull(projectId);
+    }
+
+    @Nonnull
+    @Override
+    public ProjectId getProjectId() {
+        return projectId;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(projectId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof GetProjectOpenStatusAction)) {
+            return false;
+        }
+        GetProjectOpenStatusAction other = (GetProjectOpenStatusAction) obj;
+        return this.projectId.equals(other.projectId);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("GetProjectOpenStatusAction")
+                .addValue(projectId)
+                .toString();
+    }
+}
@@ -0,0 +1,27 @@
+package edu.stanford.bmir.protege.web.shared.project;
+
+import edu.stanford.bmir.protege.web.shared.dispatch.Result;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class GetProjectOpenStatusResult implements Result {
+
+    private ProjectOpenStatus status;
+
+    /**
+     * For serialization purposes only
+     */
+    private GetProjectOpenStatusResult() {
+    }
+
+    public GetProjectOpenStatusResult(@Nonnull ProjectOpenStatus status) {
+        this.status = checkNotNull(status);
+    }
+
+    @Nonnull
+    public ProjectOpenStatus getStatus() {
+        return status;
+    }
+}
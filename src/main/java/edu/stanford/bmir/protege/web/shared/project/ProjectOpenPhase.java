@@ -0,0 +1,28 @@
+package edu.stanford.bmir.protege.web.shared.project;
+
+/**
+ * The phase that the opening of a project is in.
+ */
+public enum ProjectOpenPhase {
+
+    /**
+     * The project is not open and is not being opened.
+     */
+    NOT_OPEN,
+
+    /**
+     * The ontologies in the project are being loaded.
+     */
+    LOADING_ONTOLOGIES,
+
+    /**
+     * The ontologies in the project have been loaded, and the hierarchies and indexes for the project are being
+     * built.
+     */
+    BUILDING_INDEXES,
+
+    /**
+     * The project is open.
+     */
+    OPEN
+}
@@ -0,0 +1,94 @@
+package edu.stanford.bmir.protege.web.shared.project;
+
+import com.google.common.base.Objects;
+import com.google.gwt.user.client.rpc.IsSerializable;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The status of the opening of a project.  While the ontologies in a project are being loaded the status holds
+ * the number of ontologies that have been loaded along with the number of ontologies that are expected to be
+ * loaded.
+ */
+public class ProjectOpenStatus implements IsSerializable {
+
+    private ProjectOpenPhase phase;
+
+    private int loadedOntologyCount;
+
+    private int ontologyCount;
+
+    /**
+     * For serialization purposes only
+     */
+    private ProjectOpenStatus() {
+    }
+
+    private ProjectOpenStatus(@Nonnull ProjectOpenPhase phase, int loadedOntologyCount, int ontologyCount) {
+        this.phase = checkNotNull(phase);
+        this.loadedOntologyCount = loadedOntologyCount;
+        this.ontologyCount = ontologyCount;
+    }
+
+    public static ProjectOpenStatus get(@Nonnull ProjectOpenPhase phase) {
+        return new ProjectOpenStatus(phase, 0, 0);
+    }
+
+    public static ProjectOpenStatus loadingOntologies(int loadedOntologyCount, int ontologyCount) {
+        return new ProjectOpenStatus(ProjectOpenPhase.LOADING_ONTOLOGIES,
+                                     loadedOntologyCount,
+                                     Math.max(loadedOntologyCount, ontologyCount));
+    }
+
+    @Nonnull
+    public ProjectOpenPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Gets the number of ontologies that have been loaded.  Only meaningful if the phase is
+     * {@link ProjectOpenPhase#LOADING_ONTOLOGIES}.
+     */
+    public int getLoadedOntologyCount() {
+        return loadedOntologyCount;
+    }
+
+    /**
+     * Gets the number of ontologies that are expected to be loaded.  Only meaningful if the phase is
+     * {@link ProjectOpenPhase#LOADING_ONTOLOGIES}.
+     */
+    public int getOntologyCount() {
+        return ontologyCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(phase, loadedOntologyCount, ontologyCount);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof ProjectOpenStatus)) {
+            return false;
+        }
+        ProjectOpenStatus other = (ProjectOpenStatus) obj;
+        return this.phase == other.phase
+                && this.loadedOntologyCount == other.loadedOntologyCount
+                && this.ontologyCount == other.ontologyCount;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper("ProjectOpenStatus")
+                .addValue(phase)
+                .add("loadedOntologies", loadedOntologyCount)
+                .add("ontologies", ontologyCount)
+                .toString();
+    }
+}
@@ -0,0 +1,133 @@
+package edu.stanford.bmir.protege.web.server.access;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.access.ActionId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ActionClosureCache_TestCase {
+
+    private ActionClosureCache cache;
+
+    private Subject subject;
+
+    private Resource projectResource;
+
+    private Resource otherProjectResource;
+
+    private Set<ActionId> actions;
+
+    private AtomicInteger loadCount;
+
+    private Supplier<Set<ActionId>> loader;
+
+    @Before
+    public void setUp() {
+        cache = new ActionClosureCache();
+        subject = Subject.forUser("The User");
+        projectResource = ProjectResource.forProject(ProjectId.get("12345678-1234-1234-1234-123456789abc"));
+        otherProjectResource = ProjectResource.forProject(ProjectId.get("12345678-1234-1234-1234-123456789abd"));
+        actions = ImmutableSet.of(new ActionId("ViewProject"));
+        loadCount = new AtomicInteger();
+        loader = () -> {
+            loadCount.incrementAndGet();
+            return actions;
+        };
+    }
+
+    @Test
+    public void shouldReturnLoadedClosure() {
+        assertThat(cache.get(subject, projectResource, loader), is(actions));
+    }
+
+    @Test
+    public void shouldLoadClosureOnce() {
+        cache.get(subject, projectResource, loader);
+        cache.get(subject, projectResource, loader);
+        assertThat(loadCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldRecordHitsAndMisses() {
+        cache.get(subject, projectResource, loader);
+        cache.get(subject, projectResource, loader);
+        assertThat(cache.getStats().missCount(), is(1L));
+        assertThat(cache.getStats().hitCount(), is(1L));
+    }
+
+    @Test
+    public void shouldReloadClosureAfterResourceInvalidation() {
+        cache.get(subject, projectResource, loader);
+        cache.invalidate(projectResource);
+        cache.get(subject, projectResource, loader);
+        assertThat(loadCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotInvalidateOtherResources() {
+        cache.get(subject, otherProjectResource, loader);
+        cache.invalidate(projectResource);
+        cache.get(subject, otherProjectResource, loader);
+        assertThat(loadCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldReloadClosureAfterInvalidateAll() {
+        cache.get(subject, projectResource, loader);
+        cache.invalidateAll();
+        cache.get(subject, projectResource, loader);
+        assertThat(loadCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldBoundSize() {
+        ActionClosureCache boundedCache = new ActionClosureCache(1);
+        boundedCache.get(subject, projectResource, loader);
+        boundedCache.get(subject, otherProjectResource, loader);
+        assertThat(boundedCache.size(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCacheClosureLoadedAcrossInvalidation() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        Supplier<Set<ActionId>> slowLoader = () -> {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                invalidated.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return actions;
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> load = executor.submit(() -> cache.get(subject, projectResource, slowLoader));
+            loadStarted.await(10, TimeUnit.SECONDS);
+            cache.invalidate(projectResource);
+            invalidated.countDown();
+            load.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        cache.get(subject, projectResource, loader);
+        assertThat(loadCount.get(), is(2));
+    }
+}
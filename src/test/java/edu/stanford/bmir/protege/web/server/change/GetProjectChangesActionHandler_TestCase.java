@@ -4,9 +4,12 @@ import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.access.AccessManager;
 import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
 import edu.stanford.bmir.protege.web.server.revision.ProjectChangesManager;
+import edu.stanford.bmir.protege.web.server.revision.ProjectChangesPage;
 import edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction;
 import edu.stanford.bmir.protege.web.shared.change.GetProjectChangesResult;
 import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,11 +51,21 @@ public class GetProjectChangesActionHandler_TestCase {
     @Mock
     private AccessManager accessManager;
 
+    private Optional<RevisionNumber> beforeRevision = Optional.of(RevisionNumber.getRevisionNumber(10));
+
+    private Optional<RevisionNumber> nextBeforeRevision = Optional.of(RevisionNumber.getRevisionNumber(5));
+
+    private PageRequest diffPageRequest = PageRequest.requestPageWithSize(2, 25);
+
     @Before
     public void setUp() throws Exception {
         when(action.getSubject()).thenReturn(subject);
+        when(action.getBeforeRevision()).thenReturn(beforeRevision);
+        when(action.getRevisionCount()).thenReturn(5);
+        when(action.getDiffPageRequest()).thenReturn(diffPageRequest);
         handler = new GetProjectChangesActionHandler(accessManager, changeManager);
-        when(changeManager.getProjectChanges(subject)).thenReturn(projectChanges);
+        when(changeManager.getProjectChanges(subject, beforeRevision, 5, diffPageRequest))
+                .thenReturn(new ProjectChangesPage(projectChanges, nextBeforeRevision));
     }
 
     @Test
@@ -60,4 +73,10 @@ public class GetProjectChangesActionHandler_TestCase {
         GetProjectChangesResult result = handler.execute(action, context);
         assertThat(result.getChanges(), is(projectChanges));
     }
+
+    @Test
+    public void shouldReturnCursorForNextPage() {
+        GetProjectChangesResult result = handler.execute(action, context);
+        assertThat(result.getNextBeforeRevision(), is(nextBeforeRevision));
+    }
 }
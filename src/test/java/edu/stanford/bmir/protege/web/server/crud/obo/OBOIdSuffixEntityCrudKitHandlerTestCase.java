@@ -0,0 +1,105 @@
+package edu.stanford.bmir.protege.web.server.crud.obo;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.change.OntologyChangeList;
+import edu.stanford.bmir.protege.web.server.crud.EntityCrudContext;
+import edu.stanford.bmir.protege.web.shared.crud.EntityCrudKitPrefixSettings;
+import edu.stanford.bmir.protege.web.shared.crud.EntityShortForm;
+import edu.stanford.bmir.protege.web.shared.crud.oboid.OBOIdSuffixSettings;
+import edu.stanford.bmir.protege.web.shared.crud.oboid.UserIdRange;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.*;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.util.List;
+import java.util.Optional;
+
+import static edu.stanford.bmir.protege.web.server.OWLEntityMatcher.hasIRI;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OBOIdSuffixEntityCrudKitHandlerTestCase {
+
+    private static final String PREFIX = "http://stuff/ONT_";
+
+    @Mock
+    private EntityCrudContext crudContext;
+
+    @Mock
+    private OWLOntology ontology;
+
+    private UserId userId = UserId.getUserId("Matthew");
+
+    private OBOIdSession session;
+
+    private OntologyChangeList.Builder<OWLClass> builder;
+
+    private OBOIdSuffixEntityCrudKitHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        when(crudContext.getDataFactory()).thenReturn(new OWLDataFactoryImpl());
+        when(crudContext.getTargetOntology()).thenReturn(ontology);
+        when(crudContext.getTargetLanguage()).thenReturn(Optional.empty());
+        when(crudContext.getUserId()).thenReturn(userId);
+        when(ontology.containsEntityInSignature(any(IRI.class), anyBoolean())).thenReturn(false);
+        EntityCrudKitPrefixSettings prefixSettings = new EntityCrudKitPrefixSettings(PREFIX);
+        OBOIdSuffixSettings suffixSettings = new OBOIdSuffixSettings(7, ImmutableList.of(new UserIdRange(userId, 10, 13)));
+        handler = new OBOIdSuffixEntityCrudKitHandler(prefixSettings, suffixSettings);
+        session = handler.createChangeSetSession();
+        builder = OntologyChangeList.builder();
+    }
+
+    @Test
+    public void shouldCreateEntitiesWithConsecutiveIds() {
+        List<OWLClass> classes = handler.createAll(session,
+                                                   EntityType.CLASS,
+                                                   ImmutableList.of(EntityShortForm.get("A"), EntityShortForm.get("B")),
+                                                   crudContext,
+                                                   builder);
+        assertThat(classes, contains(hasIRI(PREFIX + "0000011"), hasIRI(PREFIX + "0000012")));
+    }
+
+    @Test
+    public void shouldAddDeclarationAndLabelForEachEntity() {
+        handler.createAll(session,
+                          EntityType.CLASS,
+                          ImmutableList.of(EntityShortForm.get("A"), EntityShortForm.get("B")),
+                          crudContext,
+                          builder);
+        assertThat(builder.build().getChanges(), hasSize(4));
+    }
+
+    @Test
+    public void shouldContinueFromLastIdAllocatedInBulk() {
+        handler.createAll(session,
+                          EntityType.CLASS,
+                          ImmutableList.of(EntityShortForm.get("A"), EntityShortForm.get("B")),
+                          crudContext,
+                          builder);
+        OWLClass cls = handler.create(session, EntityType.CLASS, EntityShortForm.get("C"), crudContext, builder);
+        assertThat(cls, hasIRI(PREFIX + "0000013"));
+    }
+
+    @Test(expected = CannotGenerateFreshEntityIdForUserException.class)
+    public void shouldThrowExceptionIfBulkAllocationExceedsUserIdRange() {
+        handler.createAll(session,
+                          EntityType.CLASS,
+                          ImmutableList.of(EntityShortForm.get("A"),
+                                           EntityShortForm.get("B"),
+                                           EntityShortForm.get("C"),
+                                           EntityShortForm.get("D")),
+                          crudContext,
+                          builder);
+    }
+}
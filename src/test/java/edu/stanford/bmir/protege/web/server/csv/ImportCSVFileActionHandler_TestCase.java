@@ -0,0 +1,400 @@
+package edu.stanford.bmir.protege.web.server.csv;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.client.csv.DocumentId;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.change.*;
+import edu.stanford.bmir.protege.web.server.dispatch.ExecutionContext;
+import edu.stanford.bmir.protege.web.server.owlapi.RenameMap;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.shared.DataFactory;
+import edu.stanford.bmir.protege.web.shared.csv.*;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.util.OWLObjectDuplicator;
+import uk.ac.manchester.cs.owl.owlapi.OWLDataFactoryImpl;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.*;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImportCSVFileActionHandler_TestCase {
+
+    private static final int ROW_COUNT = 2500;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private HasApplyChanges applyChanges;
+
+    @Mock
+    private OWLOntology rootOntology;
+
+    @Mock
+    private ExecutionContext executionContext;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    private OWLDataFactory dataFactory;
+
+    private File uploadsDirectory;
+
+    private ProjectId projectId;
+
+    private DocumentId documentId;
+
+    private File csvFile;
+
+    private ImportCSVFileAction action;
+
+    private ImportCSVFileActionHandler handler;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = new OWLDataFactoryImpl();
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        documentId = new DocumentId("upload-1");
+        uploadsDirectory = temporaryFolder.getRoot();
+        csvFile = new File(uploadsDirectory, documentId.getDocumentId());
+        try (PrintWriter writer = new PrintWriter(csvFile, "utf-8")) {
+            for (int i = 1; i <= ROW_COUNT; i++) {
+                writer.println("Row" + i + ",Value" + i);
+            }
+        }
+        OWLClass importRootClass = dataFactory.getOWLClass(IRI.create("http://stuff.com/Root"));
+        CSVImportDescriptor descriptor = new CSVImportDescriptor(
+                CSVRowImportType.CLASS,
+                0,
+                ImmutableList.of(CSVColumnDescriptor.create(1,
+                                                            dataFactory.getRDFSComment(),
+                                                            ColumnType.STRING)));
+        action = new ImportCSVFileAction(projectId, documentId, importRootClass, descriptor);
+        when(executionContext.getUserId()).thenReturn(UserId.getUserId("Matthew"));
+        when(revisionManager.getCurrentRevision()).thenReturn(RevisionNumber.getRevisionNumber(0));
+        when(revisionManager.getRevisionSummary(any(RevisionNumber.class))).thenAnswer(
+                invocation -> Optional.of(new RevisionSummary((RevisionNumber) invocation.getArguments()[0],
+                                                              UserId.getUserId("Matthew"),
+                                                              0,
+                                                              0,
+                                                              "")));
+        stubApplyChanges();
+        handler = new ImportCSVFileActionHandler(accessManager,
+                                                 projectId,
+                                                 applyChanges,
+                                                 uploadsDirectory,
+                                                 rootOntology,
+                                                 dataFactory,
+                                                 revisionManager);
+    }
+
+    /**
+     * Stubs applyChanges so that each call commits a new revision
+     */
+    @SuppressWarnings("unchecked")
+    private void stubApplyChanges() {
+        when(applyChanges.applyChanges(any(UserId.class), any(ChangeListGenerator.class), any(ChangeDescriptionGenerator.class)))
+                .thenAnswer(invocation -> createResult());
+    }
+
+    private int committedRevisionCount = 0;
+
+    private ChangeApplicationResult<Integer> createResult() {
+        committedRevisionCount++;
+        return new ChangeApplicationResult<>(Optional.empty(),
+                                             Collections.emptyList(),
+                                             new RenameMap(Collections.emptyMap()),
+                                             Optional.of(RevisionNumber.getRevisionNumber(committedRevisionCount)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldApplyEachChunkAsSeparateRevision() {
+        ImportCSVFileResult result = handler.execute(action, executionContext);
+        assertThat(result.getRowCount(), is(ROW_COUNT));
+        ArgumentCaptor<ChangeDescriptionGenerator> descriptionCaptor = ArgumentCaptor.forClass(ChangeDescriptionGenerator.class);
+        verify(applyChanges, times(3)).applyChanges(any(UserId.class),
+                                                    any(ChangeListGenerator.class),
+                                                    descriptionCaptor.capture());
+        assertThat(descriptionCaptor.getAllValues().stream()
+                                    .map(d -> d.generateChangeDescription(null))
+                                    .collect(toList()),
+                   contains("Imported CSV File (rows 1 to 1000)",
+                            "Imported CSV File (rows 1001 to 2000)",
+                            "Imported CSV File (rows 2001 to 2500)"));
+    }
+
+    @Test
+    public void shouldRemoveCheckpointAfterImport() {
+        handler.execute(action, executionContext);
+        CSVImportCheckpoint checkpoint = CSVImportCheckpoint.forProgress(csvFile, projectId);
+        assertThat(checkpoint.getImportedRowCount(), is(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldResumeImportAfterFailure() {
+        when(applyChanges.applyChanges(any(UserId.class), any(ChangeListGenerator.class), any(ChangeDescriptionGenerator.class)))
+                .thenReturn(createResult())
+                .thenThrow(new RuntimeException("Failed"));
+        try {
+            handler.execute(action, executionContext);
+            fail("Expected the import to fail");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        CSVImportCheckpoint checkpoint = CSVImportCheckpoint.forProgress(csvFile, projectId);
+        assertThat(checkpoint.getImportedRowCount(), is(1000));
+
+        reset(applyChanges);
+        stubApplyChanges();
+        ImportCSVFileResult result = handler.execute(action, executionContext);
+        assertThat(result.getRowCount(), is(ROW_COUNT));
+        ArgumentCaptor<ChangeDescriptionGenerator> descriptionCaptor = ArgumentCaptor.forClass(ChangeDescriptionGenerator.class);
+        verify(applyChanges, times(2)).applyChanges(any(UserId.class),
+                                                    any(ChangeListGenerator.class),
+                                                    descriptionCaptor.capture());
+        assertThat(descriptionCaptor.getAllValues().get(0).generateChangeDescription(null),
+                   is("Imported CSV File (rows 1001 to 2000)"));
+    }
+
+    @Test
+    public void shouldNotResumeImportIntoDifferentProject() throws Exception {
+        CSVImportCheckpoint otherProjectCheckpoint = new CSVImportCheckpoint(csvFile,
+                                                                             ProjectId.get(UUID.randomUUID().toString()),
+                                                                             action.getImportRootClass(),
+                                                                             action.getDescriptor());
+        otherProjectCheckpoint.setImportedRowCount(2000,
+                                                   RevisionNumber.getRevisionNumber(2),
+                                                   Collections.singletonMap("Row1", IRI.create("http://stuff.com/Other")));
+        ImportCSVFileResult result = handler.execute(action, executionContext);
+        assertThat(result.getRowCount(), is(ROW_COUNT));
+    }
+
+    @Test
+    public void shouldCreateOneEntityForLabelThatIsUsedInSeveralChunks() throws Exception {
+        OWLOntology ontology = OWLManager.createOWLOntologyManager().createOntology();
+        OntologyApplyChanges ontologyApplyChanges = new OntologyApplyChanges(ontology);
+        ImportCSVFileAction partOfAction = createPartOfImport();
+        ImportCSVFileActionHandler ontologyHandler = createHandler(ontology, ontologyApplyChanges);
+        ImportCSVFileResult result = ontologyHandler.execute(partOfAction, executionContext);
+        assertThat(result.getRowCount(), is(ROW_COUNT));
+        assertThat(ontologyApplyChanges.getRevisionCount(), is(3));
+        assertThat(getFillers(ontology).size(), is(1));
+        // One class for each row, one class for the shared parent and the import root class
+        assertThat(ontology.getClassesInSignature().size(), is(ROW_COUNT + 2));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldNotResumeImportFromRevisionThatIsNotInChangeHistory() throws Exception {
+        CSVImportCheckpoint checkpoint = new CSVImportCheckpoint(csvFile,
+                                                                 projectId,
+                                                                 action.getImportRootClass(),
+                                                                 action.getDescriptor());
+        checkpoint.setImportedRowCount(2000, RevisionNumber.getRevisionNumber(2), Collections.emptyMap());
+        when(revisionManager.getRevisionSummary(any(RevisionNumber.class))).thenReturn(Optional.empty());
+        handler.execute(action, executionContext);
+        verify(applyChanges, times(3)).applyChanges(any(UserId.class),
+                                                    any(ChangeListGenerator.class),
+                                                    any(ChangeDescriptionGenerator.class));
+    }
+
+    @Test
+    public void shouldRecordOnlyEntitiesCreatedSinceLastCheckpoint() throws Exception {
+        CSVImportCheckpoint checkpoint = new CSVImportCheckpoint(csvFile,
+                                                                 projectId,
+                                                                 action.getImportRootClass(),
+                                                                 action.getDescriptor());
+        IRI firstIri = IRI.create("http://stuff.com/First");
+        IRI secondIri = IRI.create("http://stuff.com/Second");
+        checkpoint.setImportedRowCount(1000, RevisionNumber.getRevisionNumber(1), Collections.singletonMap("First", firstIri));
+        checkpoint.setImportedRowCount(2000, RevisionNumber.getRevisionNumber(2), Collections.singletonMap("Second", secondIri));
+        assertThat(checkpoint.getImportedRowCount(), is(2000));
+        assertThat(checkpoint.getImportedRevision(), is(Optional.of(RevisionNumber.getRevisionNumber(2))));
+        Map<String, IRI> expectedEntities = new HashMap<>();
+        expectedEntities.put("First", firstIri);
+        expectedEntities.put("Second", secondIri);
+        assertThat(checkpoint.getImportedEntities(), is(expectedEntities));
+    }
+
+    @Test
+    public void shouldNotCreateEntitiesAgainIfChunkIsImportedAgain() throws Exception {
+        OWLOntology ontology = OWLManager.createOWLOntologyManager().createOntology();
+        OntologyApplyChanges ontologyApplyChanges = new OntologyApplyChanges(ontology);
+        ontologyApplyChanges.failBeforeCommittingRevision(3);
+        ImportCSVFileAction partOfAction = createPartOfImport();
+        ImportCSVFileActionHandler ontologyHandler = createHandler(ontology, ontologyApplyChanges);
+        try {
+            ontologyHandler.execute(partOfAction, executionContext);
+            fail("Expected the import to fail");
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        // As if the import failed after the entities for the second chunk were recorded, but before the imported
+        // row count was updated
+        CSVImportCheckpoint checkpoint = new CSVImportCheckpoint(new File(uploadsDirectory, "upload-2"),
+                                                                 projectId,
+                                                                 partOfAction.getImportRootClass(),
+                                                                 partOfAction.getDescriptor());
+        checkpoint.setImportedRowCount(1000, RevisionNumber.getRevisionNumber(1), Collections.emptyMap());
+        ImportCSVFileResult result = ontologyHandler.execute(partOfAction, executionContext);
+        assertThat(result.getRowCount(), is(ROW_COUNT));
+        // Importing the second chunk again does not change the project
+        assertThat(ontologyApplyChanges.getRevisionCount(), is(3));
+        assertThat(getFillers(ontology).size(), is(1));
+        assertThat(ontology.getClassesInSignature().size(), is(ROW_COUNT + 2));
+    }
+
+    /**
+     * Creates an import where each row is a part of the same parent class.
+     */
+    private ImportCSVFileAction createPartOfImport() throws Exception {
+        DocumentId partOfDocumentId = new DocumentId("upload-2");
+        File partOfCsvFile = new File(uploadsDirectory, partOfDocumentId.getDocumentId());
+        try (PrintWriter writer = new PrintWriter(partOfCsvFile, "utf-8")) {
+            for (int i = 1; i <= ROW_COUNT; i++) {
+                writer.println("Row" + i + ",Parent");
+            }
+        }
+        OWLObjectProperty partOf = dataFactory.getOWLObjectProperty(IRI.create("http://stuff.com/partOf"));
+        CSVImportDescriptor descriptor = new CSVImportDescriptor(
+                CSVRowImportType.CLASS,
+                0,
+                ImmutableList.of(CSVColumnDescriptor.create(1, partOf, ColumnType.CLASS)));
+        return new ImportCSVFileAction(projectId, partOfDocumentId, action.getImportRootClass(), descriptor);
+    }
+
+    private ImportCSVFileActionHandler createHandler(OWLOntology ontology, OntologyApplyChanges ontologyApplyChanges) {
+        when(revisionManager.getCurrentRevision()).thenAnswer(invocation -> ontologyApplyChanges.getCurrentRevision());
+        when(revisionManager.getRevisionSummary(any(RevisionNumber.class))).thenAnswer(
+                invocation -> ontologyApplyChanges.getRevisionSummary((RevisionNumber) invocation.getArguments()[0]));
+        return new ImportCSVFileActionHandler(accessManager,
+                                              projectId,
+                                              ontologyApplyChanges,
+                                              uploadsDirectory,
+                                              ontology,
+                                              dataFactory,
+                                              revisionManager);
+    }
+
+    private static Set<OWLClassExpression> getFillers(OWLOntology ontology) {
+        return ontology.getAxioms(AxiomType.SUBCLASS_OF).stream()
+                       .map(OWLSubClassOfAxiom::getSuperClass)
+                       .filter(superCls -> superCls instanceof OWLObjectSomeValuesFrom)
+                       .map(superCls -> ((OWLObjectSomeValuesFrom) superCls).getFiller())
+                       .collect(toSet());
+    }
+
+    /**
+     * Applies changes to an ontology.  Like the project change manager, fresh entities are replaced with newly
+     * created entities and each set of changes is recorded as a revision.
+     */
+    private class OntologyApplyChanges implements HasApplyChanges {
+
+        private final OWLOntology ontology;
+
+        private final List<String> revisionDescriptions = new ArrayList<>();
+
+        private int entityCounter = 0;
+
+        private int failingRevision = -1;
+
+        private OntologyApplyChanges(OWLOntology ontology) {
+            this.ontology = ontology;
+        }
+
+        private void failBeforeCommittingRevision(int revision) {
+            failingRevision = revision;
+        }
+
+        private int getRevisionCount() {
+            return revisionDescriptions.size();
+        }
+
+        private RevisionNumber getCurrentRevision() {
+            return RevisionNumber.getRevisionNumber(revisionDescriptions.size());
+        }
+
+        private Optional<RevisionSummary> getRevisionSummary(RevisionNumber revisionNumber) {
+            int index = revisionNumber.getValueAsInt() - 1;
+            if (index < 0 || index >= revisionDescriptions.size()) {
+                return Optional.empty();
+            }
+            return Optional.of(new RevisionSummary(revisionNumber,
+                                                   UserId.getUserId("Matthew"),
+                                                   0,
+                                                   0,
+                                                   revisionDescriptions.get(index)));
+        }
+
+        @Override
+        public <R> ChangeApplicationResult<R> applyChanges(UserId userId,
+                                                           ChangeListGenerator<R> changeListGenerator,
+                                                           ChangeDescriptionGenerator<R> changeDescriptionGenerator) {
+            OntologyChangeList<R> changeList = changeListGenerator.generateChanges(new ChangeGenerationContext(userId));
+            Map<IRI, IRI> iriRenameMap = new HashMap<>();
+            for (OWLOntologyChange change : changeList.getChanges()) {
+                for (OWLEntity entity : change.getSignature()) {
+                    if (DataFactory.isFreshEntity(entity) && !iriRenameMap.containsKey(entity.getIRI())) {
+                        entityCounter++;
+                        iriRenameMap.put(entity.getIRI(), IRI.create("http://stuff.com/Entity" + entityCounter));
+                    }
+                }
+            }
+            OWLObjectDuplicator duplicator = new OWLObjectDuplicator(dataFactory, iriRenameMap);
+            List<OWLOntologyChange> appliedChanges = new ArrayList<>();
+            for (OWLOntologyChange change : changeList.getChanges()) {
+                OWLAxiom axiom = duplicator.duplicateObject(change.getAxiom());
+                // Like the project change manager, changes that have no effect are not applied
+                if (!ontology.containsAxiom(axiom)) {
+                    appliedChanges.add(new AddAxiom(ontology, axiom));
+                }
+            }
+            RenameMap renameMap = new RenameMap(iriRenameMap);
+            Optional<R> result = changeList.getResult()
+                                           .map(r -> changeListGenerator.getRenamedResult(r, renameMap));
+            if (appliedChanges.isEmpty()) {
+                return new ChangeApplicationResult<>(result, appliedChanges, renameMap);
+            }
+            if (revisionDescriptions.size() + 1 == failingRevision) {
+                throw new RuntimeException("Failed before committing revision " + failingRevision);
+            }
+            ontology.getOWLOntologyManager().applyChanges(appliedChanges);
+            ChangeApplicationResult<R> applicationResult = new ChangeApplicationResult<>(result,
+                                                                                         appliedChanges,
+                                                                                         renameMap);
+            revisionDescriptions.add(changeDescriptionGenerator.generateChangeDescription(applicationResult));
+            return new ChangeApplicationResult<>(result,
+                                                 appliedChanges,
+                                                 renameMap,
+                                                 Optional.of(getCurrentRevision()));
+        }
+    }
+}
@@ -10,10 +10,15 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 
@@ -29,6 +34,11 @@ public class ProjectDownloadCache_TestCase {
 
     private static final long REVISION_NUMBER = 33L;
 
+    private static final int DOWNLOAD_SIZE = 10;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ProjectDownloadCache cache;
 
     @Mock
@@ -44,6 +54,11 @@ public class ProjectDownloadCache_TestCase {
     
     private Path root;
 
+    @Mock
+    private ProjectDownloadCacheDirectorySupplier temporaryDirectorySupplier;
+
+    private ProjectDownloadCache boundedCache;
+
     @Before
     public void setUp() throws Exception {
         when(projectId.getId()).thenReturn(THE_PROJECT_ID);
@@ -52,6 +67,18 @@ public class ProjectDownloadCache_TestCase {
         root = Paths.get("tmp");
         when(directorySupplier.get()).thenReturn(root);
         cache = new ProjectDownloadCache(directorySupplier);
+        when(temporaryDirectorySupplier.get()).thenReturn(temporaryFolder.getRoot().toPath());
+        // Room for two downloads
+        boundedCache = new ProjectDownloadCache(temporaryDirectorySupplier, 2 * DOWNLOAD_SIZE);
+    }
+
+    private Path createDownload(long revision, DownloadFormat format, long lastAccessTime) throws Exception {
+        when(revisionNumber.getValue()).thenReturn(revision);
+        Path path = boundedCache.getCachedDownloadPath(projectId, revisionNumber, format);
+        Files.createDirectories(path.getParent());
+        Files.write(path, new byte[DOWNLOAD_SIZE]);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastAccessTime));
+        return path;
     }
 
     @Test
@@ -60,4 +87,73 @@ public class ProjectDownloadCache_TestCase {
         Path expectedPath = root.resolve(THE_PROJECT_ID).resolve(THE_PROJECT_ID + "-R" + REVISION_NUMBER + "." + downloadFormat.getExtension() + ".zip");
         assertThat(path, is(expectedPath));
     }
+
+    @Test
+    public void shouldReportSizeOnDisk() throws Exception {
+        createDownload(1, downloadFormat, 1000);
+        createDownload(2, downloadFormat, 2000);
+        assertThat(boundedCache.getSizeOnDisk(), is(2L * DOWNLOAD_SIZE));
+    }
+
+    @Test
+    public void shouldKeepSizeOnDiskUpToDate() throws Exception {
+        createDownload(1, downloadFormat, 1000);
+        assertThat(boundedCache.getSizeOnDisk(), is((long) DOWNLOAD_SIZE));
+        Path second = createDownload(2, downloadFormat, 2000);
+        boundedCache.recordDownload(second);
+        // Recording the same download again does not count it twice
+        boundedCache.recordDownload(second);
+        Path third = createDownload(3, downloadFormat, 3000);
+        boundedCache.recordDownload(third);
+        assertThat(boundedCache.getSizeOnDisk(), is(3L * DOWNLOAD_SIZE));
+        boundedCache.evictLeastRecentlyUsed(Collections.emptySet());
+        assertThat(boundedCache.getSizeOnDisk(), is(2L * DOWNLOAD_SIZE));
+    }
+
+    @Test
+    public void shouldNotEvictDownloadsWhenCacheIsNotFull() throws Exception {
+        Path first = createDownload(1, downloadFormat, 1000);
+        Path second = createDownload(2, downloadFormat, 2000);
+        boundedCache.evictLeastRecentlyUsed(Collections.emptySet());
+        assertThat(Files.exists(first), is(true));
+        assertThat(Files.exists(second), is(true));
+        assertThat(boundedCache.getEvictedDownloadCount(), is(0L));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedDownload() throws Exception {
+        Path first = createDownload(1, downloadFormat, 1000);
+        Path second = createDownload(2, downloadFormat, 2000);
+        Path third = createDownload(3, downloadFormat, 3000);
+        boundedCache.recordAccess(first);
+        boundedCache.evictLeastRecentlyUsed(Collections.emptySet());
+        assertThat(Files.exists(first), is(true));
+        assertThat(Files.exists(second), is(false));
+        assertThat(Files.exists(third), is(true));
+        assertThat(boundedCache.getEvictedDownloadCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotEvictExcludedDownload() throws Exception {
+        Path first = createDownload(1, downloadFormat, 1000);
+        Path second = createDownload(2, downloadFormat, 2000);
+        Path third = createDownload(3, downloadFormat, 3000);
+        boundedCache.evictLeastRecentlyUsed(Collections.singleton(first));
+        assertThat(Files.exists(first), is(true));
+        assertThat(Files.exists(second), is(false));
+        assertThat(Files.exists(third), is(true));
+    }
+
+    @Test
+    public void shouldReturnCachedDownloadFormats() throws Exception {
+        createDownload(1, DownloadFormat.RDF_XML, 1000);
+        createDownload(2, DownloadFormat.RDF_TURLE, 2000);
+        assertThat(boundedCache.getCachedDownloadFormats(projectId),
+                   containsInAnyOrder(DownloadFormat.RDF_XML, DownloadFormat.RDF_TURLE));
+    }
+
+    @Test
+    public void shouldReturnEmptyFormatsForProjectWithoutDownloads() {
+        assertThat(boundedCache.getCachedDownloadFormats(projectId), is(empty()));
+    }
 }
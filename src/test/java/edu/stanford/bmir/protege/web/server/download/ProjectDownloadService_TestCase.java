@@ -0,0 +1,236 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import com.google.common.base.Ticker;
+import edu.stanford.bmir.protege.web.server.app.ApplicationNameSupplier;
+import edu.stanford.bmir.protege.web.server.project.ProjectDetailsManager;
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.server.revision.HeadRevisionNumberFinder;
+import edu.stanford.bmir.protege.web.shared.download.ProjectDownloadState;
+import edu.stanford.bmir.protege.web.shared.project.ProjectDetails;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectDownloadService_TestCase {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ProjectDownloadService service;
+
+    @Mock
+    private ExecutorService downloadGeneratorExecutor;
+
+    @Mock
+    private ProjectManager projectManager;
+
+    @Mock
+    private ProjectDetailsManager projectDetailsManager;
+
+    @Mock
+    private ApplicationNameSupplier applicationNameSupplier;
+
+    @Mock
+    private ProjectDownloadCacheDirectorySupplier directorySupplier;
+
+    @Mock
+    private HeadRevisionNumberFinder headRevisionNumberFinder;
+
+    @Mock
+    private ProjectDetails projectDetails;
+
+    private ProjectDownloadCache projectDownloadCache;
+
+    private FakeTicker ticker;
+
+    private ProjectId projectId;
+
+    private UserId userId;
+
+    private RevisionNumber revisionNumber;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        userId = UserId.getUserId("Matthew");
+        revisionNumber = RevisionNumber.getRevisionNumber(3);
+        when(directorySupplier.get()).thenReturn(temporaryFolder.getRoot().toPath());
+        when(projectDetailsManager.getProjectDetails(projectId)).thenReturn(projectDetails);
+        when(projectDetails.getDisplayName()).thenReturn("The Project");
+        when(applicationNameSupplier.get()).thenReturn("WebProtege");
+        projectDownloadCache = new ProjectDownloadCache(directorySupplier);
+        ticker = new FakeTicker();
+        service = new ProjectDownloadService(downloadGeneratorExecutor,
+                                             projectManager,
+                                             projectDetailsManager,
+                                             applicationNameSupplier,
+                                             projectDownloadCache,
+                                             headRevisionNumberFinder,
+                                             ticker);
+    }
+
+    @Test
+    public void shouldReturnCachedDownloadAsReady() throws Exception {
+        Path downloadPath = projectDownloadCache.getCachedDownloadPath(projectId, revisionNumber, DownloadFormat.RDF_XML);
+        Files.createDirectories(downloadPath.getParent());
+        Files.write(downloadPath, new byte[]{1, 2, 3});
+        ProjectDownload download = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(download.getState(), is(ProjectDownloadState.READY));
+        assertThat(download.getBytesWritten(), is(3L));
+        verify(downloadGeneratorExecutor, never()).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldQueueDownloadThatHasNotBeenGenerated() throws Exception {
+        ProjectDownload download = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(download.getState(), is(ProjectDownloadState.QUEUED));
+        verify(downloadGeneratorExecutor, times(1)).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldNotGenerateSameDownloadTwiceAtTheSameTime() throws Exception {
+        ProjectDownload first = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        ProjectDownload second = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(second, is(sameInstance(first)));
+        verify(downloadGeneratorExecutor, times(1)).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldGenerateHeadRevisionAtRealRevisionNumber() throws Exception {
+        when(headRevisionNumberFinder.getHeadRevisionNumber(projectId)).thenReturn(revisionNumber);
+        ProjectDownload download = service.getDownload(userId,
+                                                       projectId,
+                                                       RevisionNumber.getHeadRevisionNumber(),
+                                                       DownloadFormat.RDF_XML);
+        assertThat(download.getDownloadPath(),
+                   is(projectDownloadCache.getCachedDownloadPath(projectId, revisionNumber, DownloadFormat.RDF_XML)));
+    }
+
+    @Test
+    public void shouldCountRequestForCachedDownloadAsHit() throws Exception {
+        Path downloadPath = projectDownloadCache.getCachedDownloadPath(projectId, revisionNumber, DownloadFormat.RDF_XML);
+        Files.createDirectories(downloadPath.getParent());
+        Files.write(downloadPath, new byte[]{1, 2, 3});
+        service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(service.getStatistics().getCacheHitCount(), is(1L));
+        assertThat(service.getStatistics().getCacheMissCount(), is(0L));
+    }
+
+    @Test
+    public void shouldCountPolledDownloadAsOneMiss() throws Exception {
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        verify(downloadGeneratorExecutor).submit(taskCaptor.capture());
+        ProjectDownload download = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        Files.createDirectories(download.getDownloadPath().getParent());
+        Files.write(download.getDownloadPath(), new byte[]{1, 2, 3});
+        download.getResult().complete(download.getDownloadPath());
+        ProjectDownload readyDownload = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(readyDownload.getState(), is(ProjectDownloadState.READY));
+        assertThat(service.getStatistics().getCacheHitCount(), is(0L));
+        assertThat(service.getStatistics().getCacheMissCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotCountPreparedDownload() throws Exception {
+        service.prepareDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(service.getStatistics().getCacheMissCount(), is(0L));
+        verify(downloadGeneratorExecutor, times(1)).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldKeepReportingFailedDownload() throws Exception {
+        ProjectDownload download = getFailedDownload();
+        assertThat(download.getState(), is(ProjectDownloadState.FAILED));
+        assertThat(service.getStatistics().getFailedDownloadCount(), is(1L));
+        ProjectDownload polledDownload = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(polledDownload, is(sameInstance(download)));
+        assertThat(polledDownload.getState(), is(ProjectDownloadState.FAILED));
+        verify(downloadGeneratorExecutor, times(1)).submit(any(Runnable.class));
+    }
+
+    @Test
+    public void shouldRetryFailedDownloadAfterRetentionTime() throws Exception {
+        ProjectDownload download = getFailedDownload();
+        ticker.advance(3, TimeUnit.MINUTES);
+        ProjectDownload retriedDownload = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        assertThat(retriedDownload.getState(), is(ProjectDownloadState.QUEUED));
+        assertThat(Files.exists(download.getDownloadPath()), is(false));
+    }
+
+    @Test
+    public void shouldNotEvictDownloadsThatHaveRecentlyBeenReportedAsReady() throws Exception {
+        // Room for one download
+        ProjectDownloadCache boundedCache = new ProjectDownloadCache(directorySupplier, 3);
+        ProjectDownloadService boundedService = new ProjectDownloadService(downloadGeneratorExecutor,
+                                                                           projectManager,
+                                                                           projectDetailsManager,
+                                                                           applicationNameSupplier,
+                                                                           boundedCache,
+                                                                           headRevisionNumberFinder,
+                                                                           ticker);
+        RevisionNumber otherRevisionNumber = RevisionNumber.getRevisionNumber(4);
+        Path downloadPath = createCachedDownload(boundedCache, revisionNumber);
+        Path otherDownloadPath = createCachedDownload(boundedCache, otherRevisionNumber);
+        boundedService.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        boundedService.getDownload(userId, projectId, otherRevisionNumber, DownloadFormat.RDF_XML);
+        boundedService.evictDownloads();
+        assertThat(Files.exists(downloadPath), is(true));
+        assertThat(Files.exists(otherDownloadPath), is(true));
+        ticker.advance(3, TimeUnit.MINUTES);
+        boundedService.evictDownloads();
+        assertThat(boundedCache.getEvictedDownloadCount(), is(1L));
+    }
+
+    private Path createCachedDownload(ProjectDownloadCache cache, RevisionNumber revisionNumber) throws Exception {
+        Path downloadPath = cache.getCachedDownloadPath(projectId, revisionNumber, DownloadFormat.RDF_XML);
+        Files.createDirectories(downloadPath.getParent());
+        Files.write(downloadPath, new byte[]{1, 2, 3});
+        return downloadPath;
+    }
+
+    private ProjectDownload getFailedDownload() throws Exception {
+        ArgumentCaptor<Runnable> taskCaptor = ArgumentCaptor.forClass(Runnable.class);
+        when(projectManager.getProject(projectId, userId)).thenThrow(new RuntimeException("Could not load project"));
+        ProjectDownload download = service.getDownload(userId, projectId, revisionNumber, DownloadFormat.RDF_XML);
+        verify(downloadGeneratorExecutor).submit(taskCaptor.capture());
+        taskCaptor.getValue().run();
+        return download;
+    }
+
+    private static class FakeTicker extends Ticker {
+
+        private long nanos = 0;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        private void advance(long time, TimeUnit timeUnit) {
+            nanos += timeUnit.toNanos(time);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package edu.stanford.bmir.protege.web.server.download;
+
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectDownloadWarmer_TestCase {
+
+    private ProjectDownloadWarmer warmer;
+
+    @Mock
+    private ScheduledExecutorService warmerExecutor;
+
+    @Mock
+    private ProjectDownloadService projectDownloadService;
+
+    @Mock
+    private ProjectDownloadCache projectDownloadCache;
+
+    @Mock
+    private ProjectManager projectManager;
+
+    @Mock
+    private ScheduledFuture scheduledFuture;
+
+    private ProjectId projectId;
+
+    private UserId userId;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        userId = UserId.getUserId("Matthew");
+        when(warmerExecutor.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(scheduledFuture);
+        when(projectManager.isActive(projectId)).thenReturn(true);
+        when(projectDownloadCache.getCachedDownloadFormats(projectId))
+                .thenReturn(EnumSet.of(DownloadFormat.RDF_XML, DownloadFormat.OWL_XML));
+        warmer = new ProjectDownloadWarmer(warmerExecutor, projectDownloadService, projectDownloadCache, projectManager);
+    }
+
+    private Runnable captureScheduledWarming() {
+        ArgumentCaptor<Runnable> warmingCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(warmerExecutor).schedule(warmingCaptor.capture(),
+                                        eq(ProjectDownloadWarmer.QUIET_PERIOD_IN_SECONDS),
+                                        eq(TimeUnit.SECONDS));
+        return warmingCaptor.getValue();
+    }
+
+    @Test
+    public void shouldScheduleWarmingAfterQuietPeriod() {
+        warmer.handleProjectChanged(projectId, userId);
+        captureScheduledWarming();
+        verifyZeroInteractions(projectDownloadService);
+    }
+
+    @Test
+    public void shouldRescheduleWarmingWhenProjectChangesAgain() {
+        warmer.handleProjectChanged(projectId, userId);
+        warmer.handleProjectChanged(projectId, userId);
+        verify(scheduledFuture, times(1)).cancel(false);
+        verify(warmerExecutor, times(2)).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldGenerateHeadDownloadsInCachedFormats() throws Exception {
+        warmer.handleProjectChanged(projectId, userId);
+        captureScheduledWarming().run();
+        verify(projectDownloadService).prepareDownload(userId, projectId, RevisionNumber.getHeadRevisionNumber(), DownloadFormat.RDF_XML);
+        verify(projectDownloadService).prepareDownload(userId, projectId, RevisionNumber.getHeadRevisionNumber(), DownloadFormat.OWL_XML);
+        verifyNoMoreInteractions(projectDownloadService);
+    }
+
+    @Test
+    public void shouldForgetWarmingOnceItHasRun() {
+        warmer.handleProjectChanged(projectId, userId);
+        captureScheduledWarming().run();
+        warmer.handleProjectChanged(projectId, userId);
+        verify(scheduledFuture, never()).cancel(anyBoolean());
+    }
+
+    @Test
+    public void shouldNotGenerateDownloadsForInactiveProject() {
+        when(projectManager.isActive(projectId)).thenReturn(false);
+        warmer.handleProjectChanged(projectId, userId);
+        captureScheduledWarming().run();
+        verifyZeroInteractions(projectDownloadService);
+    }
+}
@@ -0,0 +1,184 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.event.UserStartingViewingProjectEvent;
+import edu.stanford.bmir.protege.web.shared.events.EventList;
+import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EventManager_TestCase {
+
+    private static final int CAPACITY = 8;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private ProjectId projectId;
+
+    @Before
+    public void setUp() {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        eventManager = new EventManager<>(EventLifeTime.get(60, TimeUnit.SECONDS), CAPACITY);
+    }
+
+    @After
+    public void tearDown() {
+        eventManager.dispose();
+    }
+
+    private ProjectEvent<?> createEvent() {
+        return new UserStartingViewingProjectEvent(projectId, UserId.getUserId("Matthew"));
+    }
+
+    @Test
+    public void shouldReturnEventsPostedSinceTag() {
+        ProjectEvent<?> eventA = createEvent();
+        ProjectEvent<?> eventB = createEvent();
+        eventManager.postEvent(eventA);
+        EventTag tag = eventManager.postEvent(eventB);
+        EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(tag);
+        assertThat(eventList.getEvents(), contains(eventB));
+    }
+
+    @Test
+    public void shouldReturnEndTagAfterCurrentTag() {
+        EventTag tag = eventManager.postEvent(createEvent());
+        EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(EventTag.getFirst());
+        assertThat(eventList.getEndTag(), is(tag.next()));
+        assertThat(eventManager.getEventsFromTag(eventList.getEndTag()).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldReturnEventsInOrderWithoutDuplicates() {
+        ProjectEvent<?> eventA = createEvent();
+        ProjectEvent<?> eventB = createEvent();
+        eventManager.postEvent(eventA);
+        eventManager.postEvent(eventB);
+        eventManager.postEvent(eventA);
+        EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(EventTag.getFirst());
+        assertThat(eventList.getEvents(), contains(eventA, eventB));
+    }
+
+    @Test
+    public void shouldOnlyRetainMostRecentBucketsWhenCapacityIsExceeded() {
+        List<ProjectEvent<?>> events = new ArrayList<>();
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            ProjectEvent<?> event = createEvent();
+            events.add(event);
+            eventManager.postEvent(event);
+        }
+        EventList<ProjectEvent<?>> eventList = eventManager.getEventsFromTag(EventTag.getFirst());
+        assertThat(eventList.getEvents(), is(events.subList(CAPACITY, CAPACITY * 2)));
+    }
+
+    @Test
+    public void shouldMarkEventListWhenUnreadBucketsAreOverwritten() {
+        EventTag tag = eventManager.postEvent(createEvent());
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            eventManager.postEvent(createEvent());
+        }
+        assertThat(eventManager.getEventsFromTag(tag.next()).isEventsMissed(), is(true));
+    }
+
+    @Test
+    public void shouldNotMarkEventListWhenNoUnreadBucketsAreOverwritten() {
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            eventManager.postEvent(createEvent());
+        }
+        EventTag tag = eventManager.getCurrentTag();
+        eventManager.postEvent(createEvent());
+        assertThat(eventManager.getEventsFromTag(tag.next()).isEventsMissed(), is(false));
+        assertThat(eventManager.getEventsFromTag(EventTag.getFirst()).isEventsMissed(), is(false));
+    }
+
+    @Test
+    public void shouldNotReturnExpiredEvents() throws Exception {
+        EventManager<ProjectEvent<?>> shortLivedEventManager = new EventManager<>(EventLifeTime.getInMilliseconds(1), CAPACITY);
+        shortLivedEventManager.postEvent(createEvent());
+        Thread.sleep(20);
+        assertThat(shortLivedEventManager.getEventsFromTag(EventTag.getFirst()).isEmpty(), is(true));
+        assertThat(shortLivedEventManager.getStatistics().getQueueDepth(), is(0));
+        shortLivedEventManager.dispose();
+    }
+
+    @Test
+    public void shouldCountDroppedEventLists() {
+        List<ProjectEvent<?>> events = Collections.nCopies(201, createEvent());
+        EventTag tag = eventManager.postEvents(events);
+        assertThat(tag, is(EventTag.getFirst()));
+        EventManagerStatistics statistics = eventManager.getStatistics();
+        assertThat(statistics.getDroppedEventListCount(), is(1L));
+        assertThat(statistics.getDroppedEventCount(), is(201L));
+    }
+
+    @Test
+    public void shouldRecordPollsAndQueueDepth() {
+        eventManager.postEvent(createEvent());
+        eventManager.postEvent(createEvent());
+        eventManager.getEventsFromTag(EventTag.getFirst());
+        EventManagerStatistics statistics = eventManager.getStatistics();
+        assertThat(statistics.getPollCount(), is(1L));
+        assertThat(statistics.getQueueDepth(), is(2));
+    }
+
+    @Test
+    public void shouldCompleteAwaitImmediatelyIfEventsAreAvailable() {
+        ProjectEvent<?> event = createEvent();
+        EventTag tag = eventManager.postEvent(event);
+        CompletableFuture<EventList<ProjectEvent<?>>> future = eventManager.awaitEventsFromTag(tag);
+        assertThat(future.isDone(), is(true));
+        assertThat(future.join().getEvents(), contains(event));
+    }
+
+    @Test
+    public void shouldCompleteAwaitWhenEventsArePosted() {
+        EventTag tag = eventManager.postEvent(createEvent());
+        CompletableFuture<EventList<ProjectEvent<?>>> future = eventManager.awaitEventsFromTag(tag.next());
+        assertThat(future.isDone(), is(false));
+        assertThat(eventManager.getPendingPollCount(), is(1));
+        ProjectEvent<?> event = createEvent();
+        EventTag nextTag = eventManager.postEvent(event);
+        assertThat(future.join().getEvents(), contains(event));
+        assertThat(future.join().getEndTag(), is(nextTag.next()));
+        assertThat(eventManager.getPendingPollCount(), is(0));
+    }
+
+    @Test
+    public void shouldRemoveCancelledAwait() {
+        CompletableFuture<EventList<ProjectEvent<?>>> future = eventManager.awaitEventsFromTag(EventTag.getFirst());
+        future.cancel(false);
+        assertThat(eventManager.getPendingPollCount(), is(0));
+    }
+
+    @Test
+    public void shouldNotCompleteAwaitForLaterTag() {
+        EventTag tag = eventManager.postEvent(createEvent());
+        CompletableFuture<EventList<ProjectEvent<?>>> future = eventManager.awaitEventsFromTag(tag.next().next());
+        eventManager.postEvent(createEvent());
+        assertThat(future.isDone(), is(false));
+        eventManager.postEvent(createEvent());
+        assertThat(future.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldNotRecordPollsWhenCompletingAwaits() {
+        EventTag tag = eventManager.postEvent(createEvent());
+        eventManager.awaitEventsFromTag(tag.next());
+        eventManager.awaitEventsFromTag(tag.next());
+        eventManager.postEvent(createEvent());
+        assertThat(eventManager.getStatistics().getPollCount(), is(0L));
+    }
+}
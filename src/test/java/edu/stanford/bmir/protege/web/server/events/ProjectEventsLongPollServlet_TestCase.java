@@ -0,0 +1,200 @@
+package edu.stanford.bmir.protege.web.server.events;
+
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ProjectResource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.project.Project;
+import edu.stanford.bmir.protege.web.server.project.ProjectManager;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.event.UserStartingViewingProjectEvent;
+import edu.stanford.bmir.protege.web.shared.events.EventTag;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectEventsLongPollServlet_TestCase {
+
+    private static final long TIMEOUT = 30000;
+
+    private ProjectEventsLongPollServlet servlet;
+
+    @Mock
+    private ProjectManager projectManager;
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private Project project;
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private HttpSession session;
+
+    @Mock
+    private AsyncContext asyncContext;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private ProjectId projectId;
+
+    private StringWriter responseBody;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        eventManager = new EventManager<>(EventLifeTime.get(60, TimeUnit.SECONDS));
+        when(request.getParameter(ProjectEventsLongPollServlet.PROJECT_ID_PARAMETER)).thenReturn(projectId.getId());
+        when(request.getParameter(ProjectEventsLongPollServlet.SINCE_TAG_PARAMETER)).thenReturn("0");
+        when(request.getSession()).thenReturn(session);
+        when(request.startAsync()).thenReturn(asyncContext);
+        when(asyncContext.getResponse()).thenReturn(response);
+        // Run the response on the calling thread
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArguments()[0]).run();
+            return null;
+        }).when(asyncContext).start(any(Runnable.class));
+        responseBody = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseBody));
+        when(accessManager.hasPermission(any(Subject.class), any(ProjectResource.class), any(BuiltInAction.class)))
+                .thenReturn(true);
+        when(projectManager.isActive(projectId)).thenReturn(true);
+        when(projectManager.getProjectIfActive(projectId)).thenReturn(Optional.of(project));
+        when(project.getEventManager()).thenReturn(eventManager);
+        servlet = new ProjectEventsLongPollServlet(projectManager, accessManager, TIMEOUT);
+    }
+
+    @After
+    public void tearDown() {
+        eventManager.dispose();
+    }
+
+    private EventTag postEvent() {
+        return eventManager.postEvent(new UserStartingViewingProjectEvent(projectId, UserId.getUserId("Matthew")));
+    }
+
+    private AsyncListener getAsyncListener() {
+        ArgumentCaptor<AsyncListener> captor = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(captor.capture());
+        return captor.getValue();
+    }
+
+    @Test
+    public void shouldRespondWithNoContentWhenPollTimesOut() throws Exception {
+        servlet.doGet(request, response);
+        verify(asyncContext).setTimeout(TIMEOUT);
+        verify(response, never()).setStatus(anyInt());
+        getAsyncListener().onTimeout(null);
+        verify(response).setStatus(HttpServletResponse.SC_NO_CONTENT);
+        verify(asyncContext).complete();
+        assertThat(eventManager.getPendingPollCount(), is(0));
+    }
+
+    @Test
+    public void shouldRespondWithEndTagWhenEventsArrive() throws Exception {
+        servlet.doGet(request, response);
+        verify(response, never()).setStatus(anyInt());
+        EventTag tag = postEvent();
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(asyncContext).complete();
+        assertThat(responseBody.toString(), is(Integer.toString(tag.next().getOrdinal())));
+    }
+
+    @Test
+    public void shouldRespondImmediatelyIfEventsHaveAlreadyBeenPosted() throws Exception {
+        postEvent();
+        servlet.doGet(request, response);
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(asyncContext).complete();
+    }
+
+    @Test
+    public void shouldRespondOnlyOnceIfPollTimesOutAfterResponse() throws Exception {
+        servlet.doGet(request, response);
+        postEvent();
+        getAsyncListener().onTimeout(null);
+        verify(response).setStatus(HttpServletResponse.SC_OK);
+        verify(response, never()).setStatus(HttpServletResponse.SC_NO_CONTENT);
+        verify(asyncContext, times(1)).complete();
+    }
+
+    @Test
+    public void shouldRespondWithBadRequestForMissingProjectId() throws Exception {
+        when(request.getParameter(ProjectEventsLongPollServlet.PROJECT_ID_PARAMETER)).thenReturn(null);
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST);
+        verify(request, never()).startAsync();
+    }
+
+    @Test
+    public void shouldRespondWithBadRequestForMalformedProjectId() throws Exception {
+        when(request.getParameter(ProjectEventsLongPollServlet.PROJECT_ID_PARAMETER)).thenReturn("not-a-project");
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST);
+        verify(request, never()).startAsync();
+    }
+
+    @Test
+    public void shouldRespondWithBadRequestForMissingSinceTag() throws Exception {
+        when(request.getParameter(ProjectEventsLongPollServlet.SINCE_TAG_PARAMETER)).thenReturn(null);
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST);
+        verify(request, never()).startAsync();
+    }
+
+    @Test
+    public void shouldRespondWithBadRequestForMalformedSinceTag() throws Exception {
+        when(request.getParameter(ProjectEventsLongPollServlet.SINCE_TAG_PARAMETER)).thenReturn("abc");
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST);
+        verify(request, never()).startAsync();
+    }
+
+    @Test
+    public void shouldRespondWithForbiddenIfUserCannotViewProject() throws Exception {
+        when(accessManager.hasPermission(any(Subject.class), any(ProjectResource.class), eq(BuiltInAction.VIEW_PROJECT)))
+                .thenReturn(false);
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_FORBIDDEN);
+        verify(request, never()).startAsync();
+        assertThat(eventManager.getPendingPollCount(), is(0));
+    }
+
+    @Test
+    public void shouldRespondWithNotFoundIfProjectIsNotActive() throws Exception {
+        when(projectManager.isActive(projectId)).thenReturn(false);
+        servlet.doGet(request, response);
+        verify(response).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verify(request, never()).startAsync();
+    }
+}
@@ -0,0 +1,153 @@
+package edu.stanford.bmir.protege.web.server.frame;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.client.frame.LabelledFrame;
+import edu.stanford.bmir.protege.web.shared.entity.OWLClassData;
+import edu.stanford.bmir.protege.web.shared.frame.ClassFrame;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class ClassFrameCache_TestCase {
+
+    private ClassFrameCache cache;
+
+    private OWLOntologyManager manager;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology ontology;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLClass clsC;
+
+    private AtomicInteger computeCount;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ClassFrameCache(RevisionNumber.getRevisionNumber(1), 100);
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        clsC = dataFactory.getOWLClass(IRI.create("http://stuff.com/C"));
+        computeCount = new AtomicInteger();
+    }
+
+    /**
+     * Gets the frame for A, which has B as a superclass.
+     */
+    private LabelledFrame<ClassFrame> getFrameOfA() {
+        return cache.get(clsA, () -> {
+            computeCount.incrementAndGet();
+            ClassFrame frame = new ClassFrame(new OWLClassData(clsA, "A"),
+                                              ImmutableSet.of(new OWLClassData(clsB, "B")),
+                                              Collections.emptySet());
+            return new LabelledFrame<>("A", frame);
+        });
+    }
+
+    private OWLOntologyChange addSubClassOf(OWLClass subCls, OWLClass superCls) {
+        return new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(subCls, superCls));
+    }
+
+    @Test
+    public void shouldComputeFrameOnce() {
+        LabelledFrame<ClassFrame> first = getFrameOfA();
+        LabelledFrame<ClassFrame> second = getFrameOfA();
+        assertThat(second, is(first));
+        assertThat(computeCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldInvalidateFrameOfChangedSubject() {
+        getFrameOfA();
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2), Collections.singletonList(addSubClassOf(clsA, clsC)));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldInvalidateFrameThatDependsOnChangedEntity() {
+        getFrameOfA();
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2), Collections.singletonList(addSubClassOf(clsB, clsC)));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldKeepFrameThatDoesNotDependOnChangedEntities() {
+        getFrameOfA();
+        OWLClass clsD = dataFactory.getOWLClass(IRI.create("http://stuff.com/D"));
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2), Collections.singletonList(addSubClassOf(clsD, clsC)));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(1));
+    }
+
+    private OWLOntologyChange addAnnotationAssertion(OWLClass subject, OWLAnnotationProperty property, String value) {
+        return new AddAxiom(ontology, dataFactory.getOWLAnnotationAssertionAxiom(property,
+                                                                                 subject.getIRI(),
+                                                                                 dataFactory.getOWLLiteral(value)));
+    }
+
+    @Test
+    public void shouldInvalidateFrameOfAnnotatedSubject() {
+        getFrameOfA();
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2),
+                            Collections.singletonList(addAnnotationAssertion(clsA, dataFactory.getRDFSComment(), "hi")));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldInvalidateFrameThatRendersRelabelledEntity() {
+        getFrameOfA();
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2),
+                            Collections.singletonList(addAnnotationAssertion(clsB, dataFactory.getRDFSLabel(), "The B")));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldKeepFrameWhenUnrelatedEntityIsAnnotated() {
+        getFrameOfA();
+        OWLClass clsD = dataFactory.getOWLClass(IRI.create("http://stuff.com/D"));
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2),
+                            Collections.singletonList(addAnnotationAssertion(clsD, dataFactory.getRDFSLabel(), "The D")));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldInvalidateAllFramesOnImportChange() {
+        getFrameOfA();
+        AddImport addImport = new AddImport(ontology,
+                                            dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported")));
+        cache.handleChanges(RevisionNumber.getRevisionNumber(2), Collections.singletonList(addImport));
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotCacheFrameComputedDuringCommitOfRevision() {
+        cache.get(clsA, () -> {
+            computeCount.incrementAndGet();
+            cache.handleChanges(RevisionNumber.getRevisionNumber(2), Collections.emptyList());
+            return new LabelledFrame<>("A", new ClassFrame(new OWLClassData(clsA, "A")));
+        });
+        getFrameOfA();
+        assertThat(computeCount.get(), is(2));
+    }
+}
@@ -0,0 +1,177 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ClassHierarchyProvider_TestCase {
+
+    private OWLOntologyManager manager;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology ontology;
+
+    private OWLClass thing;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLClass clsC;
+
+    private ClassHierarchyProvider provider;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        thing = dataFactory.getOWLThing();
+        clsA = getClass("A");
+        clsB = getClass("B");
+        clsC = getClass("C");
+        // B -> A, C -> B
+        manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsB, clsA));
+        manager.addAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsB));
+        provider = new ClassHierarchyProvider(ontology, thing);
+    }
+
+    private OWLClass getClass(String name) {
+        return dataFactory.getOWLClass(IRI.create("http://stuff.com/" + name));
+    }
+
+    private void applyChange(OWLAxiomChange change) {
+        manager.applyChange(change);
+        provider.handleChanges(Collections.singletonList(change));
+    }
+
+    @Test
+    public void shouldReturnImplicitRootAsChildOfRoot() {
+        assertThat(provider.getChildren(thing), contains(clsA));
+        assertThat(provider.getParents(clsA), contains(thing));
+    }
+
+    @Test
+    public void shouldReturnChildrenAndParents() {
+        assertThat(provider.getChildren(clsA), contains(clsB));
+        assertThat(provider.getParents(clsC), contains(clsB));
+    }
+
+    @Test
+    public void shouldReturnAncestors() {
+        assertThat(provider.getAncestors(clsC), containsInAnyOrder(clsB, clsA, thing));
+    }
+
+    @Test
+    public void shouldReturnFreshSets() {
+        provider.getChildren(clsA).clear();
+        provider.getParents(clsC).clear();
+        assertThat(provider.getChildren(clsA), contains(clsB));
+        assertThat(provider.getParents(clsC), contains(clsB));
+    }
+
+    @Test
+    public void shouldUpdateHierarchyWhenAxiomIsAdded() {
+        OWLClass clsD = getClass("D");
+        provider.getChildren(clsB);
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsD, clsB)));
+        assertThat(provider.getChildren(clsB), containsInAnyOrder(clsC, clsD));
+        assertThat(provider.getParents(clsD), contains(clsB));
+        assertThat(provider.getAncestors(clsD), containsInAnyOrder(clsB, clsA, thing));
+    }
+
+    @Test
+    public void shouldUpdateHierarchyWhenAxiomIsRemoved() {
+        provider.getChildren(clsA);
+        provider.getParents(clsB);
+        applyChange(new RemoveAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsB, clsA)));
+        assertThat(provider.getChildren(clsA), is(empty()));
+        assertThat(provider.getParents(clsB), contains(thing));
+        assertThat(provider.getChildren(thing), hasItem(clsB));
+    }
+
+    @Test
+    public void shouldReturnNamedConjunctsAsParents() {
+        OWLClass clsD = getClass("D");
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLEquivalentClassesAxiom(
+                clsD, dataFactory.getOWLObjectIntersectionOf(clsA, clsC))));
+        assertThat(provider.getParents(clsD), containsInAnyOrder(clsA, clsC));
+        assertThat(provider.getChildren(clsC), contains(clsD));
+    }
+
+    @Test
+    public void shouldNotReturnAncestorsAsChildren() {
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsA, clsC)));
+        assertThat(provider.getChildren(clsC), not(hasItem(clsA)));
+    }
+
+    @Test
+    public void shouldReturnShortestPathToRoot() {
+        // C -> A gives a shorter path than C -> B -> A
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsA)));
+        assertThat(provider.getShortestPathToRoot(clsC), is(Optional.of(Arrays.asList(thing, clsA, clsC))));
+    }
+
+    @Test
+    public void shouldReturnPathContainingOnlyRootForRoot() {
+        assertThat(provider.getShortestPathToRoot(thing), is(Optional.of(Collections.singletonList(thing))));
+    }
+
+    @Test
+    public void shouldUpdateShortestPathToRootWhenAxiomIsRemoved() {
+        provider.getShortestPathToRoot(clsC);
+        applyChange(new RemoveAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsB, clsA)));
+        assertThat(provider.getShortestPathToRoot(clsC), is(Optional.of(Arrays.asList(thing, clsB, clsC))));
+    }
+
+    @Test
+    public void shouldReturnShortestPathFirst() {
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsA)));
+        List<List<OWLClass>> paths = provider.getPathsToRoot(clsC, 5);
+        assertThat(paths, contains(Arrays.asList(thing, clsA, clsC), Arrays.asList(thing, clsA, clsB, clsC)));
+    }
+
+    @Test
+    public void shouldReturnAtMostMaxPaths() {
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsC, clsA)));
+        assertThat(provider.getPathsToRoot(clsC, 1), contains(Arrays.asList(thing, clsA, clsC)));
+    }
+
+    @Test
+    public void shouldReturnShortestPathAsFirstPathForCycle() {
+        // A -> C, C -> B, B -> A puts all three classes in a cycle
+        applyChange(new AddAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsA, clsC)));
+        Optional<List<OWLClass>> shortestPath = provider.getShortestPathToRoot(clsC);
+        List<List<OWLClass>> paths = provider.getPathsToRoot(clsC, 5);
+        assertThat(paths.isEmpty(), is(!shortestPath.isPresent()));
+        if (shortestPath.isPresent()) {
+            assertThat(paths.get(0), is(shortestPath.get()));
+        }
+    }
+
+    @Test
+    public void shouldUpdateCachedAncestorsAndDescendantsWhenAxiomIsRemoved() {
+        provider.getAncestors(clsC);
+        provider.getDescendants(clsA);
+        applyChange(new RemoveAxiom(ontology, dataFactory.getOWLSubClassOfAxiom(clsB, clsA)));
+        assertThat(provider.getAncestors(clsC), containsInAnyOrder(clsB, thing));
+        assertThat(provider.getDescendants(clsA), is(empty()));
+        assertThat(provider.getDescendants(thing), containsInAnyOrder(clsB, clsC));
+    }
+
+    @Test
+    public void shouldDetermineAncestor() {
+        assertThat(provider.isAncestor(clsC, clsA), is(true));
+        assertThat(provider.isAncestor(clsA, clsC), is(false));
+    }
+}
@@ -0,0 +1,163 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.SetMultimap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class HierarchyClosureCache_TestCase {
+
+    private SetMultimap<String, String> parents;
+
+    private SetMultimap<String, String> children;
+
+    private List<String> parentsRequests;
+
+    private HierarchyClosureCache<String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        parents = HashMultimap.create();
+        children = HashMultimap.create();
+        parentsRequests = new ArrayList<>();
+        // B -> A, C -> B, D -> A
+        addEdge("B", "A");
+        addEdge("C", "B");
+        addEdge("D", "A");
+        cache = new HierarchyClosureCache<>(node -> {
+            parentsRequests.add(node);
+            return new ArrayList<>(parents.get(node));
+        }, node -> new ArrayList<>(children.get(node)));
+    }
+
+    private void addEdge(String child, String parent) {
+        parents.put(child, parent);
+        children.put(parent, child);
+    }
+
+    private void removeEdge(String child, String parent) {
+        parents.remove(child, parent);
+        children.remove(parent, child);
+    }
+
+    @Test
+    public void shouldReturnAncestors() {
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("B", "A"));
+    }
+
+    @Test
+    public void shouldReturnDescendants() {
+        assertThat(cache.getDescendants("A"), containsInAnyOrder("B", "C", "D"));
+    }
+
+    @Test
+    public void shouldDetermineAncestor() {
+        assertThat(cache.isAncestor("C", "A"), is(true));
+        assertThat(cache.isAncestor("C", "D"), is(false));
+        assertThat(cache.isAncestor("C", "C"), is(false));
+    }
+
+    @Test
+    public void shouldIncludeNodeInOwnAncestorsIfInCycle() {
+        addEdge("A", "C");
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("A", "B", "C"));
+    }
+
+    @Test
+    public void shouldNotRecomputeCachedAncestors() {
+        cache.getAncestors("C");
+        parentsRequests.clear();
+        cache.getAncestors("C");
+        cache.isAncestor("C", "A");
+        assertThat(parentsRequests, is(empty()));
+    }
+
+    @Test
+    public void shouldReuseCachedAncestorsOfParent() {
+        cache.getAncestors("B");
+        parentsRequests.clear();
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("B", "A"));
+        assertThat(parentsRequests, contains("C"));
+    }
+
+    @Test
+    public void shouldReturnFreshSets() {
+        cache.getAncestors("C").clear();
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("B", "A"));
+    }
+
+    @Test
+    public void shouldInvalidateAncestorsOfDescendantsOfChangedNode() {
+        cache.getAncestors("C");
+        removeEdge("B", "A");
+        cache.invalidate(Collections.singleton("B"), Collections.singleton("A"));
+        assertThat(cache.getAncestors("C"), contains("B"));
+    }
+
+    @Test
+    public void shouldInvalidateDescendantsOfAncestorsOfChangedNode() {
+        cache.getDescendants("A");
+        addEdge("E", "C");
+        cache.invalidate(Collections.singleton("E"), Collections.singleton("C"));
+        assertThat(cache.getDescendants("A"), containsInAnyOrder("B", "C", "D", "E"));
+    }
+
+    @Test
+    public void shouldKeepAncestorsOutsideOfChangedCone() {
+        cache.getAncestors("C");
+        cache.getAncestors("D");
+        addEdge("C", "D");
+        cache.invalidate(Collections.singleton("C"), Collections.singleton("D"));
+        parentsRequests.clear();
+        Set<String> ancestorsOfD = cache.getAncestors("D");
+        assertThat(ancestorsOfD, contains("A"));
+        assertThat(parentsRequests, is(empty()));
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("A", "B", "D"));
+    }
+
+    @Test
+    public void shouldBoundCachedIdsOfDeepHierarchy() {
+        // A chain of nodes has a number of ancestor ids that is quadratic in its depth
+        int depth = 2000;
+        for (int i = 1; i < depth; i++) {
+            addEdge("N" + i, "N" + (i - 1));
+        }
+        long maximumCachedIds = 10_000;
+        HierarchyClosureCache<String> boundedCache = new HierarchyClosureCache<>(
+                node -> new ArrayList<>(parents.get(node)),
+                node -> new ArrayList<>(children.get(node)),
+                maximumCachedIds);
+        for (int i = 0; i < depth; i++) {
+            assertThat(boundedCache.getAncestors("N" + i).size(), is(i));
+        }
+        assertThat(boundedCache.getCachedIdCount(), is(lessThanOrEqualTo(maximumCachedIds)));
+        assertThat(boundedCache.isAncestor("N" + (depth - 1), "N0"), is(true));
+    }
+
+    @Test
+    public void shouldReleaseIdsOfRemovedNodes() {
+        for (int round = 0; round < 100; round++) {
+            List<String> addedNodes = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                String node = "R" + round + "-" + i;
+                addEdge(node, "A");
+                addedNodes.add(node);
+                cache.getAncestors(node);
+            }
+            for (String node : addedNodes) {
+                removeEdge(node, "A");
+            }
+            cache.invalidate(addedNodes, Collections.singleton("A"));
+        }
+        assertThat(cache.getInternedNodeCount(), is(lessThan(2500)));
+        assertThat(cache.getAncestors("C"), containsInAnyOrder("B", "A"));
+    }
+}
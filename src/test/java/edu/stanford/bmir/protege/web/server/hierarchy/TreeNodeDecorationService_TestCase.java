@@ -0,0 +1,101 @@
+package edu.stanford.bmir.protege.web.server.hierarchy;
+
+import com.google.common.collect.ImmutableMap;
+import edu.stanford.bmir.protege.web.server.issues.EntityDiscussionThreadRepository;
+import edu.stanford.bmir.protege.web.server.watches.WatchManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import edu.stanford.bmir.protege.web.shared.watches.Watch;
+import edu.stanford.bmir.protege.web.shared.watches.WatchType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.model.OWLClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static edu.stanford.bmir.protege.web.MockingUtils.mockOWLClass;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TreeNodeDecorationService_TestCase {
+
+    private TreeNodeDecorationService service;
+
+    @Mock
+    private EntityDiscussionThreadRepository discussionThreadRepository;
+
+    @Mock
+    private WatchManager watchManager;
+
+    @Mock
+    private ProjectId projectId;
+
+    @Mock
+    private UserId userId;
+
+    private OWLClass commentedNode, watchedNode, plainNode;
+
+    private List<OWLClass> nodes;
+
+    private Watch watch;
+
+    @Before
+    public void setUp() throws Exception {
+        commentedNode = mockOWLClass();
+        watchedNode = mockOWLClass();
+        plainNode = mockOWLClass();
+        nodes = Arrays.asList(commentedNode, watchedNode, plainNode);
+        watch = new Watch(userId, watchedNode, WatchType.ENTITY);
+        when(discussionThreadRepository.getOpenCommentsCounts(projectId, nodes))
+                .thenReturn(ImmutableMap.of(commentedNode, 3));
+        when(watchManager.getDirectWatches(nodes, userId)).thenReturn(Collections.singleton(watch));
+        service = new TreeNodeDecorationService(discussionThreadRepository);
+    }
+
+    @Test
+    public void shouldQueryCommentsCountsAndWatchesOnceForAllNodes() {
+        service.getDecorations(projectId, watchManager, userId, nodes);
+        verify(discussionThreadRepository).getOpenCommentsCounts(projectId, nodes);
+        verify(watchManager).getDirectWatches(nodes, userId);
+        verifyNoMoreInteractions(discussionThreadRepository, watchManager);
+    }
+
+    @Test
+    public void shouldReturnOpenCommentsCount() {
+        TreeNodeDecorations decorations = service.getDecorations(projectId, watchManager, userId, nodes);
+        assertThat(decorations.getOpenCommentsCount(commentedNode), is(3));
+    }
+
+    @Test
+    public void shouldReturnZeroOpenCommentsCountForNodeWithoutComments() {
+        TreeNodeDecorations decorations = service.getDecorations(projectId, watchManager, userId, nodes);
+        assertThat(decorations.getOpenCommentsCount(plainNode), is(0));
+    }
+
+    @Test
+    public void shouldReturnWatchesOfWatchedNode() {
+        TreeNodeDecorations decorations = service.getDecorations(projectId, watchManager, userId, nodes);
+        assertThat(decorations.getWatches(watchedNode), is(Collections.singleton(watch)));
+    }
+
+    @Test
+    public void shouldReturnEmptyWatchesForNodeWithoutWatches() {
+        TreeNodeDecorations decorations = service.getDecorations(projectId, watchManager, userId, nodes);
+        assertThat(decorations.getWatches(commentedNode), is(empty()));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowNullPointerExceptionIfNodesIsNull() {
+        service.getDecorations(projectId, watchManager, userId, null);
+    }
+}
@@ -0,0 +1,93 @@
+package edu.stanford.bmir.protege.web.server.issues;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.issues.*;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.model.OWLClass;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.UUID;
+
+import static edu.stanford.bmir.protege.web.MockingUtils.mockOWLClass;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class EntityCommentSummary_TestCase {
+
+    private final UserId john = UserId.getUserId("John");
+
+    private final UserId mary = UserId.getUserId("Mary");
+
+    private ProjectId projectId;
+
+    private OWLClass entity;
+
+    private EntityCommentSummary summary;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        entity = mockOWLClass();
+        EntityDiscussionThread openThread = createThread(Status.OPEN,
+                                                         createComment(john, 1L, Optional.empty()),
+                                                         createComment(mary, 2L, Optional.of(5L)),
+                                                         createComment(john, 3L, Optional.empty()));
+        EntityDiscussionThread closedThread = createThread(Status.CLOSED,
+                                                           createComment(mary, 4L, Optional.empty()));
+        summary = EntityCommentSummary.summarize(projectId, entity, Arrays.asList(openThread, closedThread)).get();
+    }
+
+    private EntityDiscussionThread createThread(Status status, Comment... comments) {
+        return new EntityDiscussionThread(ThreadId.create(), projectId, entity, status, ImmutableList.copyOf(comments));
+    }
+
+    private static Comment createComment(UserId createdBy, long createdAt, Optional<Long> updatedAt) {
+        return new Comment(CommentId.create(), createdBy, createdAt, updatedAt, "The body", "The rendered body");
+    }
+
+    @Test
+    public void shouldCountThreads() {
+        assertThat(summary.getThreadCount(), is(2));
+    }
+
+    @Test
+    public void shouldCountOpenThreads() {
+        assertThat(summary.getOpenThreadCount(), is(1));
+    }
+
+    @Test
+    public void shouldCountComments() {
+        assertThat(summary.getCommentCount(), is(4));
+    }
+
+    @Test
+    public void shouldCountCommentsInOpenThreads() {
+        assertThat(summary.getOpenCommentCount(), is(3));
+    }
+
+    @Test
+    public void shouldUseUpdatedTimeOfLastModifiedComment() {
+        assertThat(summary.getLastModified(), is(5L));
+        assertThat(summary.getLastModifiedBy(), is(mary));
+    }
+
+    @Test
+    public void shouldListEachParticipantOnceInOrderOfFirstComment() {
+        assertThat(summary.getParticipants(), contains(john, mary));
+    }
+
+    @Test
+    public void shouldNotSummarizeThreadsWithoutComments() {
+        EntityDiscussionThread emptyThread = createThread(Status.OPEN);
+        Optional<EntityCommentSummary> emptySummary = EntityCommentSummary.summarize(projectId,
+                                                                                     entity,
+                                                                                     Collections.singleton(emptyThread));
+        assertThat(emptySummary.isPresent(), is(false));
+    }
+}
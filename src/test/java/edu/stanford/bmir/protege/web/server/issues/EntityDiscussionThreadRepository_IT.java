@@ -18,7 +18,10 @@ import org.mongodb.morphia.Morphia;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLEntity;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static edu.stanford.bmir.protege.web.server.persistence.MongoTestUtils.getTestDbName;
@@ -50,11 +53,13 @@ public class EntityDiscussionThreadRepository_IT {
 
     private Comment comment;
 
+    private Datastore datastore;
+
     @Before
     public void setUp() throws Exception {
         Morphia morphia = MongoTestUtils.createMorphia();
         mongoClient = MongoTestUtils.createMongoClient();
-        Datastore datastore = morphia.createDatastore(mongoClient, getTestDbName());
+        datastore = morphia.createDatastore(mongoClient, getTestDbName());
         repository = new EntityDiscussionThreadRepository(datastore);
         comment = new Comment(
                 CommentId.create(),
@@ -180,6 +185,105 @@ public class EntityDiscussionThreadRepository_IT {
         assertThat(count, is(1));
     }
 
+    @Test
+    public void shouldGetOpenCommentsCounts() {
+        OWLClass otherEntity = MockingUtils.mockOWLClass();
+        Map<OWLEntity, Integer> counts = repository.getOpenCommentsCounts(projectId, Arrays.asList(entity, otherEntity));
+        assertThat(counts, is(Collections.singletonMap(entity, 1)));
+    }
+
+    @Test
+    public void shouldNotCountCommentsInClosedThreads() {
+        repository.setThreadStatus(thread.getId(), Status.CLOSED);
+        Map<OWLEntity, Integer> counts = repository.getOpenCommentsCounts(projectId, Collections.singleton(entity));
+        assertThat(counts.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldUpdateCommentSummaryWhenCommentIsAdded() {
+        Comment theComment = new Comment(CommentId.create(),
+                                         UserId.getUserId("Matthew"),
+                                         comment.getCreatedAt() + 1,
+                                         Optional.empty(),
+                                         "The body", "The rendered body");
+        repository.addCommentToThread(thread.getId(), theComment);
+        Optional<EntityCommentSummary> summary = repository.getCommentSummary(projectId, entity);
+        assertThat(summary.get().getCommentCount(), is(2));
+        assertThat(summary.get().getLastModifiedBy(), is(UserId.getUserId("Matthew")));
+    }
+
+    @Test
+    public void shouldUpdateCommentSummaryWhenThreadIsClosed() {
+        repository.setThreadStatus(thread.getId(), Status.CLOSED);
+        Optional<EntityCommentSummary> summary = repository.getCommentSummary(projectId, entity);
+        assertThat(summary.get().getOpenThreadCount(), is(0));
+        assertThat(summary.get().getOpenCommentCount(), is(0));
+    }
+
+    @Test
+    public void shouldRemoveCommentSummaryWhenLastCommentIsDeleted() {
+        repository.deleteComment(comment.getId());
+        assertThat(repository.getCommentSummary(projectId, entity).isPresent(), is(false));
+    }
+
+    @Test
+    public void shouldMoveCommentSummaryWhenEntityIsReplaced() {
+        OWLEntity theReplacement = MockingUtils.mockOWLClass();
+        repository.replaceEntity(projectId, entity, theReplacement);
+        assertThat(repository.getCommentSummary(projectId, entity).isPresent(), is(false));
+        assertThat(repository.getCommentSummary(projectId, theReplacement).isPresent(), is(true));
+    }
+
+    @Test
+    public void shouldReadBackCommentSummary() {
+        EntityCommentSummary summary = repository.getCommentSummary(projectId, entity).get();
+        assertThat(summary.getProjectId(), is(projectId));
+        assertThat(summary.getEntity(), is(entity));
+        assertThat(summary.getThreadCount(), is(1));
+        assertThat(summary.getOpenThreadCount(), is(1));
+        assertThat(summary.getCommentCount(), is(1));
+        assertThat(summary.getOpenCommentCount(), is(1));
+        assertThat(summary.getLastModified(), is(33L));
+        assertThat(summary.getLastModifiedBy(), is(UserId.getUserId("John")));
+        assertThat(summary.getParticipants(), is(Collections.singletonList(UserId.getUserId("John"))));
+    }
+
+    @Test
+    public void shouldGetCommentSummariesInProject() {
+        List<EntityCommentSummary> summaries = repository.getCommentSummaries(projectId);
+        assertThat(summaries.size(), is(1));
+    }
+
+    @Test
+    public void shouldGetRangeOfCommentSummariesInProject() {
+        assertThat(repository.getCommentSummaryCount(projectId), is(1L));
+        assertThat(repository.getCommentSummaries(projectId, 0, 10).size(), is(1));
+        assertThat(repository.getCommentSummaries(projectId, 1, 10).size(), is(0));
+    }
+
+    @Test
+    public void shouldCompleteInterruptedCommentSummaryBuild() {
+        OWLClass otherEntity = MockingUtils.mockOWLClass();
+        Comment otherComment = new Comment(CommentId.create(),
+                                           UserId.getUserId("John"),
+                                           System.currentTimeMillis(),
+                                           Optional.empty(),
+                                           "The body", "The rendered body");
+        repository.saveThread(new EntityDiscussionThread(ThreadId.create(),
+                                                         projectId,
+                                                         otherEntity,
+                                                         Status.OPEN,
+                                                         ImmutableList.of(otherComment)));
+        // An interrupted build leaves some of the summaries and no completion marker
+        mongoClient.getDatabase(getTestDbName()).getCollection("EntityCommentSummaryBackfill").drop();
+        datastore.delete(datastore.createQuery(EntityCommentSummary.class)
+                                  .disableValidation()
+                                  .field(EntityCommentSummary.ENTITY).equal(otherEntity));
+        EntityDiscussionThreadRepository restartedRepository = new EntityDiscussionThreadRepository(datastore);
+        assertThat(restartedRepository.getCommentSummary(projectId, entity).isPresent(), is(true));
+        assertThat(restartedRepository.getCommentSummary(projectId, otherEntity).isPresent(), is(true));
+    }
+
     private MongoCollection<Document> getCollection() {
         return mongoClient.getDatabase(getTestDbName())
                           .getCollection("EntityDiscussionThreads");
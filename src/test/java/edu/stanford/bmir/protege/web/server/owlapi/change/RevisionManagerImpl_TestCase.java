@@ -4,7 +4,10 @@ package edu.stanford.bmir.protege.web.server.owlapi.change;
 import com.google.common.collect.ImmutableList;
 import edu.stanford.bmir.protege.web.server.revision.Revision;
 import edu.stanford.bmir.protege.web.server.revision.RevisionManagerImpl;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotPolicy;
+import edu.stanford.bmir.protege.web.server.revision.RevisionSnapshotStore;
 import edu.stanford.bmir.protege.web.server.revision.RevisionStore;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.revision.RevisionSummary;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
@@ -38,9 +41,17 @@ public class RevisionManagerImpl_TestCase {
 
     private RevisionManagerImpl manager;
 
+    @Mock
+    private ProjectId projectId;
+
     @Mock
     private RevisionStore revisionStore;
 
+    @Mock
+    private RevisionSnapshotStore snapshotStore;
+
+    private RevisionSnapshotPolicy snapshotPolicy = RevisionSnapshotPolicy.getDefault();
+
     @Mock
     private UserId userId;
 
@@ -55,7 +66,8 @@ public class RevisionManagerImpl_TestCase {
 
     @Before
     public void setUp() throws Exception {
-        manager = new RevisionManagerImpl(revisionStore);
+        manager = new RevisionManagerImpl(projectId, revisionStore, snapshotStore, snapshotPolicy);
+        when(snapshotStore.getNearestSnapshotRevisionNumber(any(RevisionNumber.class))).thenReturn(Optional.empty());
         when(revisionStore.getCurrentRevisionNumber()).thenReturn(revisionNumber);
         when(revisionStore.getRevision(revisionNumber)).thenReturn(java.util.Optional.of(revision));
         when(revisionStore.getRevisions()).thenReturn(ImmutableList.of(revision));
@@ -70,7 +82,7 @@ public class RevisionManagerImpl_TestCase {
 
     @Test(expected = NullPointerException.class)
     public void shouldThrowNullPointerExceptionIf_revisionStore_IsNull() {
-        new RevisionManagerImpl(null);
+        new RevisionManagerImpl(projectId, null, snapshotStore, snapshotPolicy);
     }
 
     @Test
@@ -140,4 +152,10 @@ public class RevisionManagerImpl_TestCase {
         assertThat(addedRevision.getHighLevelDescription(), is(HIGHLEVEL_DESC));
         assertThat(addedRevision.getRevisionNumber(), is(nextRevisionNumber));
     }
+
+    @Test
+    public void shouldDisposeRevisionStore() {
+        manager.dispose();
+        verify(revisionStore, times(1)).dispose();
+    }
 }
@@ -0,0 +1,290 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.server.access.AccessManager;
+import edu.stanford.bmir.protege.web.server.access.ProjectResource;
+import edu.stanford.bmir.protege.web.server.access.Subject;
+import edu.stanford.bmir.protege.web.server.change.*;
+import edu.stanford.bmir.protege.web.server.download.ProjectDownloadWarmer;
+import edu.stanford.bmir.protege.web.server.events.EventLifeTime;
+import edu.stanford.bmir.protege.web.server.events.EventManager;
+import edu.stanford.bmir.protege.web.server.events.EventTranslatorManager;
+import edu.stanford.bmir.protege.web.server.frame.ClassFrameCache;
+import edu.stanford.bmir.protege.web.server.hierarchy.ClassHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLAnnotationPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLDataPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.hierarchy.OWLObjectPropertyHierarchyProvider;
+import edu.stanford.bmir.protege.web.server.owlapi.RenameMap;
+import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
+import edu.stanford.bmir.protege.web.server.revision.Revision;
+import edu.stanford.bmir.protege.web.server.revision.RevisionManager;
+import edu.stanford.bmir.protege.web.server.search.EntitySearchIndex;
+import edu.stanford.bmir.protege.web.server.webhook.ProjectChangedWebhookInvoker;
+import edu.stanford.bmir.protege.web.shared.access.BuiltInAction;
+import edu.stanford.bmir.protege.web.shared.event.ProjectEvent;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeManager_TestCase {
+
+    private ChangeManager changeManager;
+
+    private ProjectId projectId;
+
+    private UserId userId;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology rootOntology;
+
+    private EventManager<ProjectEvent<?>> eventManager;
+
+    private final AtomicLong lastRevisionNumber = new AtomicLong();
+
+    /**
+     * The revision numbers that the webhook was invoked for, in the order that it was invoked, which is the order
+     * in which the post-commit work was performed.
+     */
+    private final List<Long> postCommitRevisionNumbers = Collections.synchronizedList(new ArrayList<>());
+
+    @Mock
+    private AccessManager accessManager;
+
+    @Mock
+    private ProjectDetailsRepository projectDetailsRepository;
+
+    @Mock
+    private ProjectChangedWebhookInvoker webhookInvoker;
+
+    @Mock
+    private EventTranslatorManager eventTranslatorManager;
+
+    @Mock
+    private ProjectEntityCrudKitHandlerCache entityCrudKitHandlerCache;
+
+    @Mock
+    private RevisionManager revisionManager;
+
+    @Mock
+    private RenderingManager renderingManager;
+
+    @Mock
+    private ProjectDocumentStore documentStore;
+
+    @Mock
+    private ClassHierarchyProvider classHierarchyProvider;
+
+    @Mock
+    private OWLObjectPropertyHierarchyProvider objectPropertyHierarchyProvider;
+
+    @Mock
+    private OWLDataPropertyHierarchyProvider dataPropertyHierarchyProvider;
+
+    @Mock
+    private OWLAnnotationPropertyHierarchyProvider annotationPropertyHierarchyProvider;
+
+    @Mock
+    private EntitySearchIndex entitySearchIndex;
+
+    @Mock
+    private ClassFrameCache classFrameCache;
+
+    @Mock
+    private ProjectDownloadWarmer projectDownloadWarmer;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        userId = UserId.getUserId("Matthew");
+        OWLOntologyManager delegateManager = OWLManager.createOWLOntologyManager();
+        dataFactory = delegateManager.getOWLDataFactory();
+        rootOntology = delegateManager.createOntology(IRI.create("http://stuff.com/ont"));
+        ProjectOWLOntologyManager projectManager = new ProjectOWLOntologyManager();
+        projectManager.setDelegate(delegateManager);
+        projectManager.sealDelegate();
+        eventManager = new EventManager<>(EventLifeTime.get(60, TimeUnit.SECONDS));
+        when(accessManager.getActionClosure(any(Subject.class), any(ProjectResource.class)))
+                .thenReturn(Collections.singleton(BuiltInAction.EDIT_ONTOLOGY.getActionId()));
+        when(revisionManager.addRevision(any(UserId.class), anyList(), anyString())).thenAnswer(invocation -> {
+            Object[] args = invocation.getArguments();
+            @SuppressWarnings("unchecked")
+            List<? extends OWLOntologyChangeRecord> records = (List<? extends OWLOntologyChangeRecord>) args[1];
+            return new Revision((UserId) args[0],
+                                RevisionNumber.getRevisionNumber(lastRevisionNumber.incrementAndGet()),
+                                ImmutableList.copyOf(records),
+                                System.currentTimeMillis(),
+                                (String) args[2]);
+        });
+        doAnswer(invocation -> {
+            postCommitRevisionNumbers.add(((RevisionNumber) invocation.getArguments()[1]).getValue());
+            return null;
+        }).when(webhookInvoker).invoke(any(UserId.class), any(RevisionNumber.class), anyLong());
+        changeManager = new ChangeManager(projectId,
+                                          rootOntology,
+                                          accessManager,
+                                          projectDetailsRepository,
+                                          webhookInvoker,
+                                          eventManager,
+                                          () -> eventTranslatorManager,
+                                          entityCrudKitHandlerCache,
+                                          revisionManager,
+                                          dataFactory,
+                                          renderingManager,
+                                          documentStore,
+                                          classHierarchyProvider,
+                                          objectPropertyHierarchyProvider,
+                                          dataPropertyHierarchyProvider,
+                                          annotationPropertyHierarchyProvider,
+                                          entitySearchIndex,
+                                          classFrameCache,
+                                          projectDownloadWarmer);
+    }
+
+    @After
+    public void tearDown() {
+        changeManager.dispose();
+        eventManager.dispose();
+    }
+
+    private OWLAxiom createSubClassOfAxiom(int i) {
+        return dataFactory.getOWLSubClassOfAxiom(dataFactory.getOWLClass(IRI.create("http://stuff.com/A" + i)),
+                                                 dataFactory.getOWLClass(IRI.create("http://stuff.com/B" + i)));
+    }
+
+    private ChangeApplicationResult<Object> addAxiom(OWLAxiom axiom) {
+        return changeManager.applyChanges(userId,
+                                          FixedChangeListGenerator.get(Collections.singletonList(new AddAxiom(rootOntology, axiom))),
+                                          FixedMessageChangeDescriptionGenerator.get("Add axiom"));
+    }
+
+    @Test
+    public void shouldApplyChangesAndRunPostCommitWork() {
+        OWLAxiom axiom = createSubClassOfAxiom(1);
+        ChangeApplicationResult<Object> result = addAxiom(axiom);
+        assertThat(rootOntology.containsAxiom(axiom), is(true));
+        assertThat(result.getChangeList().size(), is(1));
+        verify(revisionManager).awaitPersisted(RevisionNumber.getRevisionNumber(1));
+        // applyChanges returns after the post-commit work for its own revision
+        verify(classHierarchyProvider).handleChanges(result.getChangeList());
+        assertThat(postCommitRevisionNumbers, contains(1L));
+    }
+
+    @Test
+    public void shouldRegenerateChangesThatWereGeneratedAgainstStaleBasis() {
+        OWLAxiom concurrentAxiom = createSubClassOfAxiom(1);
+        OWLAxiom axiom = createSubClassOfAxiom(2);
+        AtomicInteger generationCount = new AtomicInteger();
+        ChangeListGenerator<Integer> generator = new ChangeListGenerator<Integer>() {
+            @Override
+            public OntologyChangeList<Integer> generateChanges(ChangeGenerationContext context) {
+                int generation = generationCount.incrementAndGet();
+                if (generation == 1) {
+                    // Another request commits while these changes are being generated
+                    addAxiom(concurrentAxiom);
+                }
+                OntologyChangeList.Builder<Integer> builder = OntologyChangeList.builder();
+                builder.addAxiom(rootOntology, axiom);
+                return builder.build(generation);
+            }
+
+            @Override
+            public Integer getRenamedResult(Integer result, RenameMap renameMap) {
+                return result;
+            }
+        };
+        ChangeApplicationResult<Integer> result = changeManager.applyChanges(userId,
+                                                                             generator,
+                                                                             FixedMessageChangeDescriptionGenerator.get("Add axiom"));
+        assertThat(generationCount.get(), is(2));
+        // The result comes from the changes that were generated against the concurrent commit
+        assertThat(result.getSubject(), is(Optional.of(2)));
+        assertThat(rootOntology.containsAxiom(concurrentAxiom), is(true));
+        assertThat(rootOntology.containsAxiom(axiom), is(true));
+        verify(revisionManager, times(2)).addRevision(any(UserId.class), anyList(), anyString());
+        assertThat(postCommitRevisionNumbers, contains(1L, 2L));
+    }
+
+    @Test
+    public void shouldRunPostCommitWorkInRevisionOrder() throws Exception {
+        int commitCount = 20;
+        // Slow post-commit work gives later commits a chance to overtake earlier ones
+        doAnswer(invocation -> {
+            Thread.sleep(5);
+            return null;
+        }).when(classHierarchyProvider).handleChanges(anyList());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < commitCount; i++) {
+                OWLAxiom axiom = createSubClassOfAxiom(i);
+                futures.add(executor.submit(() -> addAxiom(axiom)));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        List<Long> expectedRevisionNumbers = new ArrayList<>();
+        for (long i = 1; i <= commitCount; i++) {
+            expectedRevisionNumbers.add(i);
+        }
+        assertThat(postCommitRevisionNumbers, is(expectedRevisionNumbers));
+    }
+
+    @Test
+    public void shouldNotBlockLaterCommitsIfPostCommitWorkFails() {
+        doThrow(new RuntimeException("Listener failure"))
+                .doNothing()
+                .when(classHierarchyProvider).handleChanges(anyList());
+        OWLAxiom firstAxiom = createSubClassOfAxiom(1);
+        OWLAxiom secondAxiom = createSubClassOfAxiom(2);
+        addAxiom(firstAxiom);
+        addAxiom(secondAxiom);
+        assertThat(rootOntology.containsAxiom(firstAxiom), is(true));
+        assertThat(rootOntology.containsAxiom(secondAxiom), is(true));
+        // The work after the failing listener is skipped for the first revision only
+        assertThat(postCommitRevisionNumbers, contains(2L));
+        verify(revisionManager).awaitPersisted(RevisionNumber.getRevisionNumber(2));
+    }
+
+    @Test
+    public void shouldNotCreateRevisionForChangesThatHaveNoEffect() {
+        OWLAxiom axiom = createSubClassOfAxiom(1);
+        addAxiom(axiom);
+        reset(classHierarchyProvider, projectDetailsRepository);
+        ChangeApplicationResult<Object> result = addAxiom(axiom);
+        assertThat(result.getChangeList(), is(empty()));
+        verify(revisionManager, times(1)).addRevision(any(UserId.class), anyList(), anyString());
+        verify(classHierarchyProvider, never()).handleChanges(anyList());
+        verify(projectDetailsRepository, never()).setModified(any(ProjectId.class), anyLong(), any(UserId.class));
+        assertThat(postCommitRevisionNumbers, contains(1L));
+        // Later commits are not held up by the commit that had no effect
+        addAxiom(createSubClassOfAxiom(2));
+        assertThat(postCommitRevisionNumbers, contains(1L, 2L));
+    }
+}
@@ -0,0 +1,126 @@
+package edu.stanford.bmir.protege.web.server.project;
+
+import edu.stanford.bmir.protege.web.server.inject.project.ImportsCacheDirectoryProvider;
+import edu.stanford.bmir.protege.web.server.owlapi.WebProtegeOWLManager;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.project.ProjectOpenStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.semanticweb.binaryowl.owlapi.BinaryOWLOntologyDocumentFormat;
+import org.semanticweb.owlapi.model.*;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ProjectDocumentStore_TestCase {
+
+    private static final IRI ROOT_IRI = IRI.create("http://example.org/root");
+
+    private static final IRI IMPORT_IRI = IRI.create("http://example.org/import");
+
+    private static final IRI STALE_IMPORT_IRI = IRI.create("http://example.org/stale");
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock
+    private ImportsCacheDirectoryProvider importsCacheDirectoryProvider;
+
+    private ProjectId projectId;
+
+    private File rootOntologyDocument;
+
+    private ImportsCacheManager importsCacheManager;
+
+    private ExecutorService projectLoaderExecutor;
+
+    private ProjectOpenStatusTracker statusTracker;
+
+    private ProjectDocumentStore documentStore;
+
+    @Before
+    public void setUp() throws Exception {
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        rootOntologyDocument = new File(temporaryFolder.getRoot(), "root-ontology.binary");
+        when(importsCacheDirectoryProvider.get()).thenReturn(temporaryFolder.newFolder("imports-cache"));
+        importsCacheManager = new ImportsCacheManager(projectId, importsCacheDirectoryProvider);
+        projectLoaderExecutor = Executors.newFixedThreadPool(2);
+        statusTracker = new ProjectOpenStatusTracker();
+        documentStore = new ProjectDocumentStore(projectId,
+                                                 rootOntologyDocument,
+                                                 () -> importsCacheManager,
+                                                 projectLoaderExecutor,
+                                                 statusTracker);
+    }
+
+    @After
+    public void tearDown() {
+        projectLoaderExecutor.shutdownNow();
+    }
+
+    /**
+     * Saves a root ontology that imports the specified ontologies.  Each import contains a single class
+     * declaration and is cached in the imports cache.
+     */
+    private void saveProject(IRI... importIRIs) throws Exception {
+        OWLOntologyManager manager = WebProtegeOWLManager.createOWLOntologyManager();
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        OWLOntology rootOntology = manager.createOntology(ROOT_IRI);
+        for (IRI importIRI : importIRIs) {
+            OWLOntology importedOntology = manager.createOntology(importIRI);
+            OWLClass cls = dataFactory.getOWLClass(IRI.create(importIRI + "#A"));
+            manager.addAxiom(importedOntology, dataFactory.getOWLDeclarationAxiom(cls));
+            manager.applyChange(new AddImport(rootOntology, dataFactory.getOWLImportsDeclaration(importIRI)));
+        }
+        importsCacheManager.getIRIMapper();
+        importsCacheManager.cacheImports(rootOntology);
+        manager.saveOntology(rootOntology, new BinaryOWLOntologyDocumentFormat(), IRI.create(rootOntologyDocument));
+    }
+
+    private OWLOntology loadProject() throws Exception {
+        OWLOntologyManager manager = WebProtegeOWLManager.createConcurrentOWLOntologyManager();
+        return documentStore.initialiseOntologyManagerWithProject(manager);
+    }
+
+    @Test
+    public void shouldLoadCachedImportsIntoImportsClosure() throws Exception {
+        saveProject(IMPORT_IRI);
+        OWLOntology rootOntology = loadProject();
+        assertThat(rootOntology.getImportsClosure().size(), is(2));
+        OWLOntology importedOntology = rootOntology.getOWLOntologyManager().getOntology(IMPORT_IRI);
+        assertThat(rootOntology.getImportsClosure().contains(importedOntology), is(true));
+        assertThat(importedOntology.getAxiomCount(), is(1));
+    }
+
+    @Test
+    public void shouldRemoveCachedImportsThatAreNoLongerImported() throws Exception {
+        saveProject(IMPORT_IRI, STALE_IMPORT_IRI);
+        saveProject(IMPORT_IRI);
+        OWLOntology rootOntology = loadProject();
+        OWLOntologyManager manager = rootOntology.getOWLOntologyManager();
+        assertThat(manager.contains(IMPORT_IRI), is(true));
+        assertThat(manager.contains(STALE_IMPORT_IRI), is(false));
+        assertThat(manager.getOntologies().size(), is(2));
+    }
+
+    @Test
+    public void shouldReportLoadedOntologies() throws Exception {
+        saveProject(IMPORT_IRI);
+        loadProject();
+        assertThat(statusTracker.getStatus(projectId), is(Optional.of(ProjectOpenStatus.loadingOntologies(2, 2))));
+    }
+}
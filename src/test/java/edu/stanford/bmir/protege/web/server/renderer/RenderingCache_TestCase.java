@@ -0,0 +1,112 @@
+package edu.stanford.bmir.protege.web.server.renderer;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.mansyntax.render.LiteralStyle;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RenderingCache_TestCase {
+
+    private RenderingCache cache;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLClass clsA;
+
+    private OWLClass clsB;
+
+    private OWLClass clsC;
+
+    private AtomicInteger renderCount;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new RenderingCache();
+        dataFactory = OWLManager.getOWLDataFactory();
+        clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A"));
+        clsB = dataFactory.getOWLClass(IRI.create("http://stuff.com/B"));
+        clsC = dataFactory.getOWLClass(IRI.create("http://stuff.com/C"));
+        renderCount = new AtomicInteger();
+    }
+
+    private String render(OWLObject object) {
+        return render(object, Collections.emptySet());
+    }
+
+    private String render(OWLObject object, Set<String> highlightedPhrases) {
+        return cache.get(object, LiteralStyle.BRACKETED, highlightedPhrases, () -> {
+            renderCount.incrementAndGet();
+            return object.toString();
+        });
+    }
+
+    @Test
+    public void shouldRenderObjectOnce() {
+        OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        String first = render(axiom);
+        String second = render(axiom);
+        assertThat(first, is(axiom.toString()));
+        assertThat(second, is(first));
+        assertThat(renderCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldKeyRenderingsByHighlightedPhrases() {
+        OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        render(axiom);
+        render(axiom, ImmutableSet.of("A"));
+        render(axiom, ImmutableSet.of("A"));
+        assertThat(renderCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldInvalidateRenderingsThatDependOnChangedEntity() {
+        OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        render(axiom);
+        cache.invalidate(Collections.singleton(clsB.getIRI()));
+        render(axiom);
+        assertThat(renderCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotInvalidateRenderingsThatDoNotDependOnChangedEntity() {
+        OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        render(axiom);
+        cache.invalidate(Collections.singleton(clsC.getIRI()));
+        render(axiom);
+        assertThat(renderCount.get(), is(1));
+    }
+
+    @Test
+    public void shouldInvalidateRenderingsThatDependOnAnnotationValueIRI() {
+        OWLAxiom axiom = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSSeeAlso(),
+                                                                    clsA.getIRI(),
+                                                                    clsC.getIRI());
+        render(axiom);
+        cache.invalidate(Collections.singleton(clsC.getIRI()));
+        render(axiom);
+        assertThat(renderCount.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotCacheRenderingComputedDuringInvalidation() {
+        OWLAxiom axiom = dataFactory.getOWLSubClassOfAxiom(clsA, clsB);
+        cache.get(axiom, LiteralStyle.BRACKETED, Collections.emptySet(), () -> {
+            renderCount.incrementAndGet();
+            cache.invalidate(Collections.singleton(clsB.getIRI()));
+            return "stale";
+        });
+        String rendering = render(axiom);
+        assertThat(rendering, is(axiom.toString()));
+        assertThat(renderCount.get(), is(2));
+    }
+}
@@ -0,0 +1,73 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AppendOnlyRevisionList_TestCase {
+
+    private static final int COUNT = 5000;
+
+    private AppendOnlyRevisionList list;
+
+    private List<Revision> revisions;
+
+    @Before
+    public void setUp() {
+        list = new AppendOnlyRevisionList();
+        revisions = new ArrayList<>();
+        for (int i = 1; i <= COUNT; i++) {
+            revisions.add(Revision.createEmptyRevisionWithRevisionNumber(RevisionNumber.getRevisionNumber(i)));
+        }
+    }
+
+    @Test
+    public void shouldBeEmpty() {
+        assertThat(list.size(), is(0));
+        assertThat(list.snapshot().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldContainAddedRevisionsInOrder() {
+        revisions.forEach(list::add);
+        assertThat(list.size(), is(COUNT));
+        assertThat(list.snapshot(), is(revisions));
+    }
+
+    @Test
+    public void shouldNotChangeSnapshotWhenRevisionsAreAdded() {
+        revisions.subList(0, 1500).forEach(list::add);
+        List<Revision> snapshot = list.snapshot();
+        revisions.subList(1500, COUNT).forEach(list::add);
+        assertThat(snapshot.size(), is(1500));
+        assertThat(snapshot, is(revisions.subList(0, 1500)));
+    }
+
+    @Test
+    public void shouldCopyRevisionsFromList() {
+        AppendOnlyRevisionList copy = new AppendOnlyRevisionList(revisions);
+        assertThat(copy.snapshot(), is(revisions));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldThrowIndexOutOfBoundsExceptionForIndexBeyondSnapshot() {
+        revisions.forEach(list::add);
+        list.snapshot().get(COUNT);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotAllowSnapshotToBeModified() {
+        list.snapshot().add(revisions.get(0));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldThrowNullPointerExceptionIfRevisionIsNull() {
+        list.add(null);
+    }
+}
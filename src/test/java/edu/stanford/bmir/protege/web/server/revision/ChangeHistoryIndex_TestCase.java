@@ -0,0 +1,144 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.binaryowl.BinaryOWLOntologyChangeLog;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class ChangeHistoryIndex_TestCase {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OWLDataFactory dataFactory;
+
+    private File changeHistoryFile;
+
+    private ChangeHistoryIndex index;
+
+    private Revision firstRevision;
+
+    private Revision secondRevision;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = OWLManager.getOWLDataFactory();
+        changeHistoryFile = new File(temporaryFolder.getRoot(), "change-data.binary");
+        ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
+        index = new ChangeHistoryIndex(projectId, changeHistoryFile, dataFactory);
+        firstRevision = createRevision(1, "A", "B");
+        secondRevision = createRevision(2, "C");
+    }
+
+    private Revision createRevision(long revisionNumber, String ... classNames) {
+        ImmutableList.Builder<OWLOntologyChangeRecord> records = ImmutableList.builder();
+        OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://stuff.com/ont"));
+        for (String className : classNames) {
+            IRI iri = IRI.create("http://stuff.com/" + className);
+            records.add(new OWLOntologyChangeRecord(ontologyId,
+                                                    new AddAxiomData(dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(iri)))));
+        }
+        return new Revision(UserId.getUserId("Matthew"),
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            records.build(),
+                            revisionNumber * 1000,
+                            "Revision " + revisionNumber);
+    }
+
+    private void write(Revision revision) throws Exception {
+        new BinaryOWLOntologyChangeLog().appendChanges(ChangeHistoryJournal.toChangeRecordList(revision),
+                                                       changeHistoryFile);
+    }
+
+    @Test
+    public void shouldBuildIndexForExistingChangeHistory() throws Exception {
+        write(firstRevision);
+        write(secondRevision);
+        ImmutableList<ChangeHistoryIndexEntry> entries = index.load();
+        assertThat(entries, hasSize(2));
+        assertThat(entries.get(0).getRevisionNumber(), is(RevisionNumber.getRevisionNumber(1)));
+        assertThat(entries.get(0).getSize(), is(2));
+        assertThat(entries.get(0).getDescription(), is("Revision 1"));
+        assertThat(entries.get(0).getUserId(), is(UserId.getUserId("Matthew")));
+        assertThat(entries.get(0).getTimestamp(), is(1000L));
+        assertThat(entries.get(0).getStartOffset(), is(0L));
+        assertThat(entries.get(1).getStartOffset(), is(entries.get(0).getEndOffset()));
+        assertThat(entries.get(1).getEndOffset(), is(changeHistoryFile.length()));
+    }
+
+    @Test
+    public void shouldPersistIndex() throws Exception {
+        write(firstRevision);
+        index.load();
+        assertThat(index.getIndexFile().exists(), is(true));
+        ChangeHistoryIndex reloadedIndex = new ChangeHistoryIndex(ProjectId.get(UUID.randomUUID().toString()),
+                                                                  changeHistoryFile,
+                                                                  dataFactory);
+        assertThat(reloadedIndex.load(), hasSize(1));
+    }
+
+    @Test
+    public void shouldIndexRevisionsAppendedAfterIndexWasWritten() throws Exception {
+        write(firstRevision);
+        index.load();
+        write(secondRevision);
+        ImmutableList<ChangeHistoryIndexEntry> entries = index.load();
+        assertThat(entries, hasSize(2));
+        assertThat(entries.get(1).getRevisionNumber(), is(RevisionNumber.getRevisionNumber(2)));
+    }
+
+    @Test
+    public void shouldUseAppendedEntries() throws Exception {
+        write(firstRevision);
+        index.load();
+        long startOffset = changeHistoryFile.length();
+        write(secondRevision);
+        index.append(ChangeHistoryIndexEntry.get(secondRevision, startOffset, changeHistoryFile.length()));
+        ImmutableList<ChangeHistoryIndexEntry> entries = index.load();
+        assertThat(entries, hasSize(2));
+        assertThat(entries.get(1).getSize(), is(1));
+    }
+
+    @Test
+    public void shouldRebuildCorruptIndex() throws Exception {
+        write(firstRevision);
+        write(secondRevision);
+        index.load();
+        try (FileOutputStream outputStream = new FileOutputStream(index.getIndexFile(), true)) {
+            outputStream.write(new byte[]{1, 2, 3});
+        }
+        assertThat(index.load(), hasSize(2));
+    }
+
+    @Test
+    public void shouldReadChangesFromIndexedRegion() throws Exception {
+        write(firstRevision);
+        write(secondRevision);
+        ImmutableList<ChangeHistoryIndexEntry> entries = index.load();
+        ChangeHistoryReader reader = new ChangeHistoryReader(changeHistoryFile, dataFactory);
+        Revision revision = reader.createRevision(entries.get(1));
+        assertThat(revision.getSize(), is(1));
+        assertThat(revision.getChanges(), is(secondRevision.getChanges()));
+        assertThat(revision, is(secondRevision));
+        reader.close();
+    }
+}
@@ -0,0 +1,127 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class ChangeHistoryJournal_TestCase {
+
+    private static final int REVISION_COUNT = 50;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OWLDataFactory dataFactory;
+
+    private File changeHistoryFile;
+
+    private ProjectId projectId;
+
+    private ChangeHistoryJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = OWLManager.getOWLDataFactory();
+        changeHistoryFile = new File(temporaryFolder.getRoot(), "change-data.binary");
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        journal = new ChangeHistoryJournal(projectId,
+                                           changeHistoryFile,
+                                           new ChangeHistoryIndex(projectId, changeHistoryFile, dataFactory),
+                                           new RevisionSubjectIndex(projectId, changeHistoryFile));
+    }
+
+    @After
+    public void tearDown() {
+        journal.dispose();
+    }
+
+    private Revision createRevision(long revisionNumber) {
+        IRI iri = IRI.create("http://stuff.com/C" + revisionNumber);
+        OWLOntologyChangeRecord record = new OWLOntologyChangeRecord(
+                new OWLOntologyID(IRI.create("http://stuff.com/ont")),
+                new AddAxiomData(dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(iri))));
+        return new Revision(UserId.getUserId("Matthew"),
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            ImmutableList.of(record),
+                            revisionNumber,
+                            "Revision " + revisionNumber);
+    }
+
+    private List<Revision> appendRevisions() throws Exception {
+        List<Revision> revisions = new ArrayList<>();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 1; i <= REVISION_COUNT; i++) {
+            Revision revision = createRevision(i);
+            revisions.add(revision);
+            writes.add(journal.append(revision));
+        }
+        for (CompletableFuture<Void> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+        return revisions;
+    }
+
+    @Test
+    public void shouldWriteRevisionsInOrder() throws Exception {
+        List<Revision> revisions = appendRevisions();
+        RevisionStoreImpl revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        revisionStore.load();
+        assertThat(revisionStore.getRevisions(), is(revisions));
+    }
+
+    @Test
+    public void shouldIndexWrittenRevisions() throws Exception {
+        appendRevisions();
+        ImmutableList<ChangeHistoryIndexEntry> entries = new ChangeHistoryIndex(projectId,
+                                                                                changeHistoryFile,
+                                                                                dataFactory).load();
+        assertThat(entries, hasSize(REVISION_COUNT));
+        assertThat(entries.get(REVISION_COUNT - 1).getEndOffset(), is(changeHistoryFile.length()));
+    }
+
+    @Test
+    public void shouldCompleteWriteOfRevisionExceptionallyIfChangeHistoryCannotBeWritten() throws Exception {
+        File directory = temporaryFolder.newFolder();
+        ChangeHistoryJournal brokenJournal = new ChangeHistoryJournal(projectId,
+                                                                      directory,
+                                                                      new ChangeHistoryIndex(projectId, directory, dataFactory),
+                                                                      new RevisionSubjectIndex(projectId, directory));
+        CompletableFuture<Void> write = brokenJournal.append(createRevision(1));
+        try {
+            write.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // Expected
+        }
+        assertThat(write.isCompletedExceptionally(), is(true));
+        brokenJournal.dispose();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectAppendAfterDispose() {
+        journal.dispose();
+        journal.append(createRevision(1));
+    }
+}
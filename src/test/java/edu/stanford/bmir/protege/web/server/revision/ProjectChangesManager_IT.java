@@ -11,9 +11,14 @@ import edu.stanford.bmir.protege.web.server.renderer.OWLObjectRendererImpl;
 import edu.stanford.bmir.protege.web.server.renderer.RenderingManager;
 import edu.stanford.bmir.protege.web.server.shortform.*;
 import edu.stanford.bmir.protege.web.shared.axiom.*;
+import com.google.gwt.safehtml.shared.SafeHtml;
 import edu.stanford.bmir.protege.web.shared.change.ProjectChange;
+import edu.stanford.bmir.protege.web.shared.diff.DiffElement;
+import edu.stanford.bmir.protege.web.shared.pagination.Page;
+import edu.stanford.bmir.protege.web.shared.pagination.PageRequest;
 import edu.stanford.bmir.protege.web.shared.object.*;
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import edu.stanford.bmir.protege.web.shared.user.UserId;
 import org.junit.Before;
 import org.junit.Rule;
@@ -31,6 +36,7 @@ import java.io.File;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 
+import static edu.stanford.bmir.protege.web.shared.change.GetProjectChangesAction.DEFAULT_DIFF_PAGE_SIZE;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
@@ -55,20 +61,36 @@ public class ProjectChangesManager_IT {
 
     private ProjectId projectId = ProjectId.get(UUID.randomUUID().toString());
 
+    private OWLDataFactory dataFactory;
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology rootOntology;
+
+    private RevisionManager revisionManager;
+
     @Mock
     private WebProtegeLogger logger;
 
     @Before
     public void setUp() throws Exception {
         changeHistoryFile = temporaryFolder.newFile();
-        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
-        OWLOntology rootOntology = manager.createOntology(IRI.create("http://stuff.com/ont"));
-        OWLDataFactory dataFactory = manager.getOWLDataFactory();
-        RevisionManager revisionManager = new RevisionManagerImpl(new RevisionStoreImpl(
+        manager = OWLManager.createOWLOntologyManager();
+        rootOntology = manager.createOntology(IRI.create("http://stuff.com/ont"));
+        dataFactory = manager.getOWLDataFactory();
+        revisionManager = new RevisionManagerImpl(
                 projectId,
-                changeHistoryFile,
-                dataFactory
-        ));
+                new RevisionStoreImpl(
+                        projectId,
+                        changeHistoryFile,
+                        dataFactory
+                ),
+                new RevisionSnapshotStore(
+                        projectId,
+                        temporaryFolder.newFolder(),
+                        dataFactory
+                ),
+                RevisionSnapshotPolicy.getDefault());
         WebProtegeIRIShortFormProvider iriShortFormProvider = new WebProtegeIRIShortFormProvider(
                 DefaultShortFormAnnotationPropertyIRIs.asImmutableList(),
                 new HasAnnotationAssertionAxiomsImpl(rootOntology),
@@ -87,23 +109,12 @@ public class ProjectChangesManager_IT {
                 entityComparator);
         OWLIndividualSelector individualSelector = new OWLIndividualSelector(entityComparator);
         SWRLAtomSelector atomSelector = new SWRLAtomSelector((o1, o2) -> 0);
-        EntitiesByRevisionCache entitiesByRevisionCache = new EntitiesByRevisionCache(
-                new AxiomSubjectProvider(
-                        classExpressionSelector,
-                        objectPropertyExpressionSelector,
-                        dataPropertyExpressionSelector,
-                        individualSelector,
-                        atomSelector
-                ),
-                rootOntology,
-                dataFactory
-        );
         RenderingManager renderingManager = new RenderingManager(
                 rootOntology,
                 dataFactory,
                 new EntityIRICheckerImpl(rootOntology),
                 new DeprecatedEntityCheckerImpl(rootOntology),
-                new WebProtegeBidirectionalShortFormProvider(rootOntology, webProtegeShortFormProvider),
+                new WebProtegeBidirectionalShortFormProvider(rootOntology, webProtegeShortFormProvider, new ShortFormIndex()),
                 ontologyIRIShortFormProvider,
                 new NullHighlightedEntityChecker(),
                 logger
@@ -125,7 +136,6 @@ public class ProjectChangesManager_IT {
         );
         changesManager = new ProjectChangesManager(
                 revisionManager,
-                entitiesByRevisionCache,
                 renderingManager,
                 new ChangeRecordComparator(
                         axiomComparator,
@@ -174,6 +184,14 @@ public class ProjectChangesManager_IT {
                                     "Adding axioms");
     }
 
+    private ImmutableList<ProjectChange> getProjectChanges(Optional<OWLEntity> subject) {
+        return changesManager.getProjectChanges(subject,
+                                                Optional.empty(),
+                                                Integer.MAX_VALUE,
+                                                PageRequest.requestPageWithSize(1, DEFAULT_DIFF_PAGE_SIZE))
+                             .getChanges();
+    }
+
     @Test
     public void shouldSaveChangesToFile() {
         assertThat(changeHistoryFile.length(), is(greaterThan(0L)));
@@ -181,13 +199,94 @@ public class ProjectChangesManager_IT {
 
     @Test
     public void shouldGetChanges() {
-        ImmutableList<ProjectChange> projectChanges = changesManager.getProjectChanges(Optional.empty());
+        ImmutableList<ProjectChange> projectChanges = getProjectChanges(Optional.empty());
         assertThat(projectChanges.size(), is(1));
     }
 
     @Test
     public void shouldContainOntologyChanges() {
-        ImmutableList<ProjectChange> projectChanges = changesManager.getProjectChanges(Optional.empty());
+        ImmutableList<ProjectChange> projectChanges = getProjectChanges(Optional.empty());
         assertThat(projectChanges.get(0).getChangeCount(), is(3 * CHANGE_COUNT));
     }
+
+    @Test
+    public void shouldGetChangesForSubject() {
+        OWLClass clsA = dataFactory.getOWLClass(IRI.create("http://stuff.com/A0"));
+        ImmutableList<ProjectChange> projectChanges = getProjectChanges(Optional.of(clsA));
+        assertThat(projectChanges.size(), is(1));
+        assertThat(projectChanges.get(0).getChangeCount(), is(3));
+    }
+
+    @Test
+    public void shouldNotGetChangesForUnchangedSubject() {
+        OWLClass clsX = dataFactory.getOWLClass(IRI.create("http://stuff.com/X"));
+        ImmutableList<ProjectChange> projectChanges = getProjectChanges(Optional.of(clsX));
+        assertThat(projectChanges.size(), is(0));
+    }
+
+    @Test
+    public void shouldGetRequestedPageOfDiff() {
+        ProjectChangesPage page = changesManager.getProjectChanges(Optional.empty(),
+                                                                   Optional.empty(),
+                                                                   1,
+                                                                   PageRequest.requestPageWithSize(2, 50));
+        Page<DiffElement<String, SafeHtml>> diff = page.getChanges().get(0).getDiff();
+        assertThat(diff.getPageNumber(), is(2));
+        assertThat(diff.getPageCount(), is(6));
+        assertThat(diff.getPageElements().size(), is(50));
+        assertThat(diff.getTotalElements(), is(3L * CHANGE_COUNT));
+    }
+
+    @Test
+    public void shouldClampNonPositiveRevisionCount() {
+        ProjectChangesPage page = changesManager.getProjectChanges(Optional.empty(),
+                                                                   Optional.empty(),
+                                                                   -1,
+                                                                   PageRequest.requestPageWithSize(1, 10));
+        assertThat(page.getChanges().size(), is(1));
+    }
+
+    @Test
+    public void shouldGetRevisionsBeforeCursor() {
+        createChanges(manager, rootOntology, dataFactory, revisionManager);
+        createChanges(manager, rootOntology, dataFactory, revisionManager);
+        PageRequest diffPageRequest = PageRequest.requestPageWithSize(1, 10);
+        ProjectChangesPage firstPage = changesManager.getProjectChanges(Optional.empty(),
+                                                                        Optional.empty(),
+                                                                        2,
+                                                                        diffPageRequest);
+        assertThat(firstPage.getChanges().stream().map(ProjectChange::getRevisionNumber).collect(toList()),
+                   is(Arrays.asList(RevisionNumber.getRevisionNumber(3), RevisionNumber.getRevisionNumber(2))));
+        assertThat(firstPage.getNextBeforeRevision(), is(Optional.of(RevisionNumber.getRevisionNumber(2))));
+        ProjectChangesPage secondPage = changesManager.getProjectChanges(Optional.empty(),
+                                                                         firstPage.getNextBeforeRevision(),
+                                                                         2,
+                                                                         diffPageRequest);
+        assertThat(secondPage.getChanges().stream().map(ProjectChange::getRevisionNumber).collect(toList()),
+                   is(Collections.singletonList(RevisionNumber.getRevisionNumber(1))));
+        assertThat(secondPage.getNextBeforeRevision(), is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldGetRevisionsOfSubjectBeforeCursor() {
+        createChanges(manager, rootOntology, dataFactory, revisionManager);
+        createChanges(manager, rootOntology, dataFactory, revisionManager);
+        Optional<OWLEntity> subject = Optional.of(dataFactory.getOWLClass(IRI.create("http://stuff.com/A0")));
+        PageRequest diffPageRequest = PageRequest.requestPageWithSize(1, 10);
+        ProjectChangesPage firstPage = changesManager.getProjectChanges(subject,
+                                                                        Optional.empty(),
+                                                                        2,
+                                                                        diffPageRequest);
+        assertThat(firstPage.getChanges().stream().map(ProjectChange::getRevisionNumber).collect(toList()),
+                   is(Arrays.asList(RevisionNumber.getRevisionNumber(3), RevisionNumber.getRevisionNumber(2))));
+        assertThat(firstPage.getNextBeforeRevision(), is(Optional.of(RevisionNumber.getRevisionNumber(2))));
+        ProjectChangesPage secondPage = changesManager.getProjectChanges(subject,
+                                                                         firstPage.getNextBeforeRevision(),
+                                                                         2,
+                                                                         diffPageRequest);
+        assertThat(secondPage.getChanges().stream().map(ProjectChange::getRevisionNumber).collect(toList()),
+                   is(Collections.singletonList(RevisionNumber.getRevisionNumber(1))));
+        assertThat(secondPage.getChanges().get(0).getChangeCount(), is(3));
+        assertThat(secondPage.getNextBeforeRevision(), is(Optional.empty()));
+    }
 }
@@ -0,0 +1,116 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class RevisionSnapshotStore_TestCase {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private RevisionSnapshotStore snapshotStore;
+
+    private OWLOntologyManager manager;
+
+    private OWLAxiom axiom;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        OWLDataFactory dataFactory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology(IRI.create("http://stuff.com/ont"));
+        axiom = dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(IRI.create("http://stuff.com/A")));
+        manager.addAxiom(ontology, axiom);
+        snapshotStore = new RevisionSnapshotStore(ProjectId.get(UUID.randomUUID().toString()),
+                                                  temporaryFolder.newFolder(),
+                                                  dataFactory);
+    }
+
+    @Test
+    public void shouldReturnEmptyListOfSnapshotsForFreshStore() {
+        assertThat(snapshotStore.getSnapshotRevisionNumbers(), hasSize(0));
+    }
+
+    @Test
+    public void shouldListWrittenSnapshot() throws Exception {
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        assertThat(snapshotStore.getSnapshotRevisionNumbers(), contains(RevisionNumber.getRevisionNumber(10)));
+    }
+
+    @Test
+    public void shouldReadBackSnapshotRecords() throws Exception {
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        List<OWLOntologyChangeRecord> records = new ArrayList<>();
+        snapshotStore.readSnapshot(RevisionNumber.getRevisionNumber(10), records::add);
+        assertThat(records, hasSize(1));
+        assertThat(((AddAxiomData) records.get(0).getData()).getAxiom(), is(axiom));
+    }
+
+    @Test
+    public void shouldFindNearestSnapshotAtOrBeforeRevision() throws Exception {
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(20), manager);
+        assertThat(snapshotStore.getNearestSnapshotRevisionNumber(RevisionNumber.getRevisionNumber(15)),
+                   is(Optional.of(RevisionNumber.getRevisionNumber(10))));
+    }
+
+    @Test
+    public void shouldFindLatestSnapshotForHeadRevision() throws Exception {
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(20), manager);
+        assertThat(snapshotStore.getNearestSnapshotRevisionNumber(RevisionNumber.getHeadRevisionNumber()),
+                   is(Optional.of(RevisionNumber.getRevisionNumber(20))));
+    }
+
+    @Test
+    public void shouldNotFindSnapshotBeforeFirstSnapshot() throws Exception {
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        assertThat(snapshotStore.getNearestSnapshotRevisionNumber(RevisionNumber.getRevisionNumber(5)),
+                   is(Optional.empty()));
+    }
+
+    @Test
+    public void shouldKeepRecentSnapshotsAndOneSnapshotPerSpanWhenApplyingRetentionPolicy() throws Exception {
+        for (int revision = 10; revision <= 50; revision += 10) {
+            snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(revision), manager);
+        }
+        snapshotStore.applyRetentionPolicy(new RevisionSnapshotPolicy(1, 1, 2, 25));
+        assertThat(snapshotStore.getSnapshotRevisionNumbers(),
+                   contains(RevisionNumber.getRevisionNumber(10),
+                            RevisionNumber.getRevisionNumber(30),
+                            RevisionNumber.getRevisionNumber(40),
+                            RevisionNumber.getRevisionNumber(50)));
+    }
+
+    @Test
+    public void shouldRecreateEmptyOntologyFromSnapshot() throws Exception {
+        IRI emptyOntologyIri = IRI.create("http://stuff.com/empty");
+        manager.createOntology(emptyOntologyIri);
+        snapshotStore.writeSnapshot(RevisionNumber.getRevisionNumber(10), manager);
+        OntologyChangeRecordReplayer replayer = new OntologyChangeRecordReplayer(OWLManager.createOWLOntologyManager());
+        List<OWLOntologyChangeRecord> records = new ArrayList<>();
+        snapshotStore.readSnapshot(RevisionNumber.getRevisionNumber(10), records::add);
+        for (OWLOntologyChangeRecord record : records) {
+            replayer.replay(record);
+        }
+        assertThat(replayer.getManager().contains(emptyOntologyIri), is(true));
+    }
+}
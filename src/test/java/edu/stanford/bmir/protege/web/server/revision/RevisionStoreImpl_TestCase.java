@@ -0,0 +1,77 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+public class RevisionStoreImpl_TestCase {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OWLDataFactory dataFactory;
+
+    private ProjectId projectId;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = OWLManager.getOWLDataFactory();
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+    }
+
+    private Revision createRevision(long revisionNumber) {
+        IRI iri = IRI.create("http://stuff.com/C" + revisionNumber);
+        OWLOntologyChangeRecord record = new OWLOntologyChangeRecord(
+                new OWLOntologyID(IRI.create("http://stuff.com/ont")),
+                new AddAxiomData(dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(iri))));
+        return new Revision(UserId.getUserId("Matthew"),
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            ImmutableList.of(record),
+                            revisionNumber,
+                            "Revision " + revisionNumber);
+    }
+
+    @Test
+    public void shouldWriteAddedRevisionsOnDispose() {
+        File changeHistoryFile = new File(temporaryFolder.getRoot(), "change-data.binary");
+        RevisionStoreImpl revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        revisionStore.load();
+        Revision first = createRevision(1);
+        Revision second = createRevision(2);
+        revisionStore.addRevision(first);
+        revisionStore.addRevision(second);
+        revisionStore.dispose();
+        RevisionStoreImpl reloadedStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        reloadedStore.load();
+        assertThat(reloadedStore.getRevisions(), contains(first, second));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void shouldReportRevisionThatCouldNotBeSaved() throws Exception {
+        // A directory cannot be opened as the change history file
+        File changeHistoryFile = temporaryFolder.newFolder();
+        RevisionStoreImpl revisionStore = new RevisionStoreImpl(projectId, changeHistoryFile, dataFactory);
+        revisionStore.addRevision(createRevision(1));
+        revisionStore.addRevision(createRevision(2));
+        revisionStore.dispose();
+        revisionStore.awaitPersisted(RevisionNumber.getRevisionNumber(2));
+    }
+}
@@ -0,0 +1,146 @@
+package edu.stanford.bmir.protege.web.server.revision;
+
+import com.google.common.collect.ImmutableList;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
+import edu.stanford.bmir.protege.web.shared.user.UserId;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.change.AddAxiomData;
+import org.semanticweb.owlapi.change.OWLOntologyChangeRecord;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntologyID;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class RevisionSubjectIndex_TestCase {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private OWLDataFactory dataFactory;
+
+    private File changeHistoryFile;
+
+    private ProjectId projectId;
+
+    private RevisionSubjectIndex index;
+
+    private Revision firstRevision;
+
+    private Revision secondRevision;
+
+    private Revision thirdRevision;
+
+    @Before
+    public void setUp() throws Exception {
+        dataFactory = OWLManager.getOWLDataFactory();
+        changeHistoryFile = new File(temporaryFolder.getRoot(), "change-data.binary");
+        projectId = ProjectId.get(UUID.randomUUID().toString());
+        index = new RevisionSubjectIndex(projectId, changeHistoryFile);
+        firstRevision = createRevision(1, "A", "B");
+        secondRevision = createRevision(2, "C");
+        thirdRevision = createRevision(3, "A");
+    }
+
+    private Revision createRevision(long revisionNumber, String ... classNames) {
+        ImmutableList.Builder<OWLOntologyChangeRecord> records = ImmutableList.builder();
+        OWLOntologyID ontologyId = new OWLOntologyID(IRI.create("http://stuff.com/ont"));
+        for (String className : classNames) {
+            records.add(new OWLOntologyChangeRecord(ontologyId,
+                                                    new AddAxiomData(dataFactory.getOWLDeclarationAxiom(dataFactory.getOWLClass(getIRI(className))))));
+        }
+        return new Revision(UserId.getUserId("Matthew"),
+                            RevisionNumber.getRevisionNumber(revisionNumber),
+                            records.build(),
+                            revisionNumber * 1000,
+                            "Revision " + revisionNumber);
+    }
+
+    private static IRI getIRI(String className) {
+        return IRI.create("http://stuff.com/" + className);
+    }
+
+    private static RevisionNumber revisionNumber(long value) {
+        return RevisionNumber.getRevisionNumber(value);
+    }
+
+    @Test
+    public void shouldIndexRevisionsOnLoad() throws Exception {
+        index.load(ImmutableList.of(firstRevision, secondRevision, thirdRevision));
+        assertThat(index.getRevisionNumbers(getIRI("A")), contains(revisionNumber(1), revisionNumber(3)));
+        assertThat(index.getRevisionNumbers(getIRI("C")), contains(revisionNumber(2)));
+        assertThat(index.getRevisionNumbers(getIRI("X")), is(empty()));
+    }
+
+    @Test
+    public void shouldIndexAddedRevisions() throws Exception {
+        index.load(ImmutableList.of());
+        index.add(firstRevision);
+        index.add(thirdRevision);
+        assertThat(index.getRevisionNumbers(getIRI("A")), contains(revisionNumber(1), revisionNumber(3)));
+    }
+
+    @Test
+    public void shouldReadPersistedIndex() throws Exception {
+        index.load(ImmutableList.of());
+        index.add(firstRevision);
+        index.add(secondRevision);
+        index.flush();
+        RevisionSubjectIndex reloadedIndex = new RevisionSubjectIndex(projectId, changeHistoryFile);
+        // Revisions that are already in the index are not examined again
+        Revision unreadableRevision = new Revision(UserId.getUserId("Matthew"),
+                                                   revisionNumber(1),
+                                                   1,
+                                                   () -> {
+                                                       throw new IllegalStateException();
+                                                   },
+                                                   1000,
+                                                   "Revision 1");
+        reloadedIndex.load(ImmutableList.of(unreadableRevision, secondRevision, thirdRevision));
+        assertThat(reloadedIndex.getRevisionNumbers(getIRI("A")), contains(revisionNumber(1), revisionNumber(3)));
+        assertThat(reloadedIndex.getRevisionNumbers(getIRI("B")), contains(revisionNumber(1)));
+    }
+
+    @Test
+    public void shouldRebuildIndexThatDoesNotMatchRevisions() throws Exception {
+        index.load(ImmutableList.of());
+        index.add(secondRevision);
+        index.flush();
+        RevisionSubjectIndex reloadedIndex = new RevisionSubjectIndex(projectId, changeHistoryFile);
+        reloadedIndex.load(ImmutableList.of(firstRevision, thirdRevision));
+        assertThat(reloadedIndex.getRevisionNumbers(getIRI("A")), contains(revisionNumber(1), revisionNumber(3)));
+        assertThat(reloadedIndex.getRevisionNumbers(getIRI("C")), is(empty()));
+    }
+
+    @Test
+    public void shouldNotWriteAddedRevisionsUntilFlushed() throws Exception {
+        index.load(ImmutableList.of());
+        long emptyIndexLength = index.getIndexFile().length();
+        index.add(firstRevision);
+        index.add(secondRevision);
+        assertThat(index.getIndexFile().length(), is(emptyIndexLength));
+        index.flush();
+        assertThat(index.getIndexFile().length() > emptyIndexLength, is(true));
+    }
+
+    @Test
+    public void shouldRebuildCorruptIndex() throws Exception {
+        try (FileOutputStream outputStream = new FileOutputStream(index.getIndexFile())) {
+            outputStream.write(new byte[]{1, 2, 3});
+        }
+        index.load(ImmutableList.of(firstRevision));
+        assertThat(index.getRevisionNumbers(getIRI("B")), contains(revisionNumber(1)));
+    }
+}
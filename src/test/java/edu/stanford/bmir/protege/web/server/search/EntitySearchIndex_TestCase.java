@@ -0,0 +1,125 @@
+package edu.stanford.bmir.protege.web.server.search;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.server.mansyntax.render.HasGetRendering;
+import edu.stanford.bmir.protege.web.shared.entity.OWLAnnotationPropertyData;
+import edu.stanford.bmir.protege.web.shared.entity.OWLClassData;
+import edu.stanford.bmir.protege.web.shared.entity.OWLEntityData;
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+
+import java.util.*;
+
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class EntitySearchIndex_TestCase {
+
+    private static final Set<EntityType<?>> CLASS_TYPE = ImmutableSet.of(EntityType.CLASS);
+
+    private final Map<OWLEntity, String> browserText = new HashMap<>();
+
+    private OWLOntologyManager manager;
+
+    private OWLOntology ontology;
+
+    private OWLDataFactory dataFactory;
+
+    private EntitySearchIndex index;
+
+    private OWLClass heart;
+
+    private OWLClass liver;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        ontology = manager.createOntology(IRI.create("http://stuff.com/ont"));
+        heart = addClass("Heart", "Heart Valve");
+        liver = addClass("Liver", "Liver Lobe");
+        HasGetRendering renderer = entity -> {
+            String text = browserText.getOrDefault(entity, entity.getIRI().getShortForm());
+            if (entity.isOWLClass()) {
+                return new OWLClassData(entity.asOWLClass(), text);
+            }
+            else {
+                return new OWLAnnotationPropertyData(entity.asOWLAnnotationProperty(), text);
+            }
+        };
+        index = new EntitySearchIndex(ProjectId.get(UUID.randomUUID().toString()), ontology, renderer);
+    }
+
+    private OWLClass addClass(String name, String text) {
+        OWLClass cls = dataFactory.getOWLClass(IRI.create("http://stuff.com/" + name));
+        manager.addAxiom(ontology, dataFactory.getOWLDeclarationAxiom(cls));
+        browserText.put(cls, text);
+        return cls;
+    }
+
+    private Set<OWLEntity> search(String ... words) {
+        return index.getCandidates(CLASS_TYPE, words).stream()
+                    .map(OWLEntityData::getEntity)
+                    .collect(toSet());
+    }
+
+    @Test
+    public void shouldFindEntityContainingSearchWord() {
+        assertThat(search("valv"), is(Collections.singleton(heart)));
+    }
+
+    @Test
+    public void shouldIgnoreCase() {
+        assertThat(search("LOBE"), is(Collections.singleton(liver)));
+    }
+
+    @Test
+    public void shouldRequireAllSearchWords() {
+        assertThat(search("liver", "valve"), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnAllEntitiesOfTypeForShortSearchWords() {
+        assertThat(search("v"), containsInAnyOrder(heart, liver));
+    }
+
+    @Test
+    public void shouldNotReturnEntitiesOfOtherTypes() {
+        assertThat(index.getCandidates(ImmutableSet.of(EntityType.OBJECT_PROPERTY), new String[]{"heart"}),
+                   is(empty()));
+    }
+
+    @Test
+    public void shouldIndexAddedEntity() {
+        index.getCandidates(CLASS_TYPE, new String[]{"heart"});
+        OWLClass lung = addClass("Lung", "Lung Lobe");
+        index.handleChanges(Collections.singletonList(new AddAxiom(ontology, dataFactory.getOWLDeclarationAxiom(lung))));
+        assertThat(search("lobe"), containsInAnyOrder(liver, lung));
+    }
+
+    @Test
+    public void shouldRemoveEntityThatIsNoLongerInSignature() {
+        index.getCandidates(CLASS_TYPE, new String[]{"heart"});
+        OWLDeclarationAxiom declaration = dataFactory.getOWLDeclarationAxiom(heart);
+        manager.removeAxiom(ontology, declaration);
+        index.handleChanges(Collections.singletonList(new RemoveAxiom(ontology, declaration)));
+        assertThat(search("heart"), is(empty()));
+    }
+
+    @Test
+    public void shouldReindexEntityWhoseBrowserTextChanges() {
+        index.getCandidates(CLASS_TYPE, new String[]{"heart"});
+        OWLAnnotationAssertionAxiom label = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSLabel(),
+                                                                                      heart.getIRI(),
+                                                                                      dataFactory.getOWLLiteral("Cardiac Organ"));
+        manager.addAxiom(ontology, label);
+        browserText.put(heart, "Cardiac Organ");
+        index.handleChanges(Collections.singletonList(new AddAxiom(ontology, label)));
+        assertThat(search("heart"), is(empty()));
+        assertThat(search("cardiac"), is(Collections.singleton(heart)));
+    }
+}
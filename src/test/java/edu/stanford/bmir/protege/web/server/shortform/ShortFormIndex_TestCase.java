@@ -0,0 +1,165 @@
+package edu.stanford.bmir.protege.web.server.shortform;
+
+import com.google.common.collect.ImmutableSet;
+import edu.stanford.bmir.protege.web.shared.search.EntityNameMatchType;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.EntityType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ShortFormIndex_TestCase {
+
+    private static final Set<EntityType<?>> CLASS_TYPE = ImmutableSet.of(EntityType.CLASS);
+
+    private static final int LIMIT = 10;
+
+    private OWLDataFactory dataFactory;
+
+    private ShortFormIndex index;
+
+    private OWLClass heartValve;
+
+    private OWLClass valve;
+
+    private OWLClass valvesOfHeart;
+
+    @Before
+    public void setUp() {
+        dataFactory = OWLManager.getOWLDataFactory();
+        index = new ShortFormIndex();
+        heartValve = addClass("HeartValve");
+        valve = addClass("Valve");
+        valvesOfHeart = addClass("valves of heart");
+    }
+
+    private OWLClass addClass(String shortForm) {
+        OWLClass cls = dataFactory.getOWLClass(IRI.create("http://stuff.com/" + shortForm.replace(' ', '_')));
+        index.put(cls, shortForm);
+        return cls;
+    }
+
+    private List<OWLEntity> search(String searchString) {
+        return index.getMatches(searchString, CLASS_TYPE, LIMIT).stream()
+                    .map(ShortFormMatch::getEntity)
+                    .collect(toList());
+    }
+
+    @Test
+    public void shouldOrderMatchesByMatchResult() {
+        assertThat(search("valve"), contains(valve, heartValve, valvesOfHeart));
+    }
+
+    @Test
+    public void shouldReturnMatchType() {
+        List<ShortFormMatch> matches = index.getMatches("valve", CLASS_TYPE, LIMIT);
+        assertThat(matches.get(0).getMatchResult().getMatchType(), is(EntityNameMatchType.EXACT_MATCH));
+        assertThat(matches.get(1).getMatchResult().getMatchType(), is(EntityNameMatchType.WORD_MATCH));
+        assertThat(matches.get(2).getMatchResult().getMatchType(), is(EntityNameMatchType.WORD_PREFIX_MATCH));
+    }
+
+    @Test
+    public void shouldIgnoreCase() {
+        assertThat(search("HEART"), containsInAnyOrder(heartValve, valvesOfHeart));
+    }
+
+    @Test
+    public void shouldMatchMultipleWords() {
+        assertThat(search("valves of h"), contains(valvesOfHeart));
+    }
+
+    @Test
+    public void shouldNotMatchInMiddleOfWord() {
+        assertThat(search("alve"), is(empty()));
+    }
+
+    @Test
+    public void shouldReturnAtMostLimitBestMatches() {
+        List<ShortFormMatch> matches = index.getMatches("valve", CLASS_TYPE, 2);
+        assertThat(matches.stream().map(ShortFormMatch::getEntity).collect(toList()), contains(valve, heartValve));
+    }
+
+    @Test
+    public void shouldNotReturnEntitiesOfOtherTypes() {
+        OWLObjectProperty hasValve = dataFactory.getOWLObjectProperty(IRI.create("http://stuff.com/hasValve"));
+        index.put(hasValve, "hasValve");
+        assertThat(search("valve"), not(hasItem(hasValve)));
+    }
+
+    @Test
+    public void shouldReplaceShortForm() {
+        index.put(valve, "Flap");
+        assertThat(search("valve"), contains(heartValve, valvesOfHeart));
+        assertThat(search("flap"), contains(valve));
+    }
+
+    @Test
+    public void shouldRemoveEntity() {
+        index.remove(heartValve);
+        assertThat(search("heart"), contains(valvesOfHeart));
+    }
+
+    @Test
+    public void shouldMatchCamelCaseWords() {
+        OWLClass mitralValveLeaflet = dataFactory.getOWLClass(IRI.create("http://stuff.com/MitralValveLeaflet"));
+        index.put(mitralValveLeaflet, "MitralValveLeaflet");
+        assertThat(search("valveleaf"), contains(mitralValveLeaflet));
+        assertThat(search("leaflet"), contains(mitralValveLeaflet));
+        assertThat(search("alveleaf"), is(empty()));
+    }
+
+    @Test
+    public void shouldNotMatchSearchStringThatContinuesDifferentlyPastEndOfWord() {
+        assertThat(search("valves on"), is(empty()));
+    }
+
+    @Test
+    public void shouldMatchInMiddleOfWordFromSubstringCandidates() {
+        OWLClass epithelialCell = addClass("Epithelialcell");
+        List<ShortFormMatch> matches = index.getMatches("cell",
+                                                        CLASS_TYPE,
+                                                        LIMIT,
+                                                        () -> ImmutableSet.of(epithelialCell, valve));
+        assertThat(matches.stream().map(ShortFormMatch::getEntity).collect(toList()), contains(epithelialCell));
+        assertThat(matches.get(0).getMatchResult().getMatchType(), is(EntityNameMatchType.SUB_STRING_MATCH));
+    }
+
+    @Test
+    public void shouldOrderSubstringMatchesAfterWordMatches() {
+        OWLClass epithelialCell = addClass("Epithelialcell");
+        OWLClass cell = addClass("Cell");
+        List<ShortFormMatch> matches = index.getMatches("cell",
+                                                        CLASS_TYPE,
+                                                        LIMIT,
+                                                        () -> ImmutableSet.of(epithelialCell, cell));
+        assertThat(matches.stream().map(ShortFormMatch::getEntity).collect(toList()), contains(cell, epithelialCell));
+    }
+
+    @Test
+    public void shouldNotAskForSubstringCandidatesIfWordMatchesReachLimit() {
+        List<ShortFormMatch> matches = index.getMatches("valve", CLASS_TYPE, 2, () -> {
+            throw new AssertionError("Substring candidates should not be needed");
+        });
+        assertThat(matches.size(), is(2));
+    }
+
+    @Test
+    public void shouldNotAskForSubstringCandidatesForShortSearchString() {
+        List<ShortFormMatch> matches = index.getMatches("al", CLASS_TYPE, LIMIT, () -> {
+            throw new AssertionError("Substring candidates should not be needed");
+        });
+        assertThat(matches, is(empty()));
+    }
+}
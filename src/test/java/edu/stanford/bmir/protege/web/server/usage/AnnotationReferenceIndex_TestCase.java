@@ -0,0 +1,121 @@
+package edu.stanford.bmir.protege.web.server.usage;
+
+import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.semanticweb.owlapi.model.parameters.AxiomAnnotations;
+import org.semanticweb.owlapi.model.parameters.Imports;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnnotationReferenceIndex_TestCase {
+
+    private OWLOntologyManager manager;
+
+    private OWLDataFactory dataFactory;
+
+    private OWLOntology rootOntology;
+
+    private AnnotationReferenceIndex index;
+
+    private IRI subjectIRI;
+
+    private IRI valueIRI;
+
+    private OWLAnnotationAssertionAxiom valueAxiom;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        dataFactory = manager.getOWLDataFactory();
+        rootOntology = manager.createOntology(IRI.create("http://stuff.com/ont"));
+        index = new AnnotationReferenceIndex(ProjectId.get(UUID.randomUUID().toString()), rootOntology);
+        subjectIRI = IRI.create("http://stuff.com/A");
+        valueIRI = IRI.create("http://stuff.com/B");
+        valueAxiom = dataFactory.getOWLAnnotationAssertionAxiom(dataFactory.getRDFSSeeAlso(), subjectIRI, valueIRI);
+    }
+
+    @Test
+    public void shouldIndexExistingAnnotationValues() {
+        manager.addAxiom(rootOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), contains(valueAxiom));
+        assertThat(index.getReferencingAxioms(subjectIRI), is(empty()));
+    }
+
+    @Test
+    public void shouldIndexAddedAndRemovedAxioms() {
+        assertThat(index.getReferencingAxioms(valueIRI), is(empty()));
+        manager.addAxiom(rootOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), contains(valueAxiom));
+        manager.removeAxiom(rootOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), is(empty()));
+    }
+
+    @Test
+    public void shouldIndexAnnotationPropertyDomainsAndRanges() {
+        OWLAnnotationProperty property = dataFactory.getOWLAnnotationProperty(IRI.create("http://stuff.com/p"));
+        OWLAxiom domainAxiom = dataFactory.getOWLAnnotationPropertyDomainAxiom(property, valueIRI);
+        OWLAxiom rangeAxiom = dataFactory.getOWLAnnotationPropertyRangeAxiom(property, valueIRI);
+        manager.addAxiom(rootOntology, domainAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), contains(domainAxiom));
+        manager.addAxiom(rootOntology, rangeAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), containsInAnyOrder(domainAxiom, rangeAxiom));
+    }
+
+    @Test
+    public void shouldKeepAxiomThatIsStillInImportsClosure() throws Exception {
+        OWLOntology importedOntology = manager.createOntology(IRI.create("http://stuff.com/imported"));
+        manager.applyChange(new AddImport(rootOntology,
+                                          dataFactory.getOWLImportsDeclaration(IRI.create("http://stuff.com/imported"))));
+        manager.addAxiom(rootOntology, valueAxiom);
+        manager.addAxiom(importedOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), contains(valueAxiom));
+        manager.removeAxiom(rootOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), contains(valueAxiom));
+    }
+
+    @Test
+    public void shouldStopListeningForChangesWhenDisposed() {
+        assertThat(index.getReferencingAxioms(valueIRI), is(empty()));
+        index.dispose();
+        manager.addAxiom(rootOntology, valueAxiom);
+        assertThat(index.getReferencingAxioms(valueIRI), is(empty()));
+    }
+
+    @Test
+    public void shouldReplayChangesAppliedWhileBuilding() {
+        manager.addAxiom(rootOntology, valueAxiom);
+        // The axiom is removed after the ontology has been read to build the index
+        OWLOntology buildingOntology = mock(OWLOntology.class);
+        when(buildingOntology.getAxioms(AxiomType.ANNOTATION_ASSERTION)).thenAnswer(invocation -> {
+            Set<OWLAnnotationAssertionAxiom> axioms = new HashSet<>(rootOntology.getAxioms(AxiomType.ANNOTATION_ASSERTION));
+            manager.removeAxiom(rootOntology, valueAxiom);
+            return axioms;
+        });
+        OWLOntology indexedOntology = mock(OWLOntology.class);
+        when(indexedOntology.getOWLOntologyManager()).thenReturn(manager);
+        when(indexedOntology.getImportsClosure()).thenReturn(Collections.singleton(buildingOntology),
+                                                             Collections.singleton(rootOntology));
+        when(indexedOntology.containsAxiom(any(OWLAxiom.class), any(Imports.class), any(AxiomAnnotations.class)))
+                .thenAnswer(invocation -> rootOntology.containsAxiom((OWLAxiom) invocation.getArguments()[0],
+                                                                     Imports.INCLUDED,
+                                                                     AxiomAnnotations.CONSIDER_AXIOM_ANNOTATIONS));
+        AnnotationReferenceIndex buildingIndex = new AnnotationReferenceIndex(ProjectId.get(UUID.randomUUID().toString()),
+                                                                              indexedOntology);
+        assertThat(buildingIndex.getReferencingAxioms(valueIRI), is(empty()));
+    }
+}
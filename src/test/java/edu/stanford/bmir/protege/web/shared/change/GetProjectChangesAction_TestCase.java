@@ -1,6 +1,7 @@
 package edu.stanford.bmir.protege.web.shared.change;
 
 import edu.stanford.bmir.protege.web.shared.project.ProjectId;
+import edu.stanford.bmir.protege.web.shared.revision.RevisionNumber;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -87,4 +88,21 @@ public class GetProjectChangesAction_TestCase {
     public void shouldReturnSuppliedSubject() {
         assertThat(action.getSubject(), is(subject));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRequestFirstPageFromHeadByDefault() {
+        assertThat(action.getBeforeRevision(), is(Optional.empty()));
+        assertThat(action.getRevisionCount(), is(GetProjectChangesAction.DEFAULT_REVISION_COUNT));
+        assertThat(action.getDiffPageRequest().getPageNumber(), is(1));
+    }
+
+    @Test
+    public void shouldNotBeEqualToActionWithDifferentCursor() {
+        GetProjectChangesAction actionWithCursor = new GetProjectChangesAction(projectId,
+                                                                               subject,
+                                                                               Optional.of(RevisionNumber.getRevisionNumber(3)),
+                                                                               GetProjectChangesAction.DEFAULT_REVISION_COUNT,
+                                                                               action.getDiffPageRequest());
+        assertThat(action, is(not(equalTo(actionWithCursor))));
+    }
+}